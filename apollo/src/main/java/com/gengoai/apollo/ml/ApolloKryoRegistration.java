@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.apollo.ml;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.gengoai.apollo.math.linalg.*;
+import com.gengoai.apollo.ml.observation.*;
+import com.gengoai.stream.spark.KryoRegistration;
+import org.jblas.FloatMatrix;
+import org.kohsuke.MetaInfServices;
+
+/**
+ * <p>Registers the datum, observation, and NDArray types shuffled by distributed learners. Dense matrices are written
+ * as their shape followed by their raw float values.</p>
+ *
+ * @author David B. Bracewell
+ */
+@MetaInfServices(KryoRegistration.class)
+public class ApolloKryoRegistration implements KryoRegistration {
+
+   @Override
+   public void registerClasses(Kryo kryo) {
+      kryo.register(Shape.class);
+      kryo.register(DenseMatrix.class, new DenseMatrixSerializer());
+      kryo.register(SparseMatrix.class);
+      kryo.register(Tensor.class);
+      kryo.register(Datum.class);
+      kryo.register(Variable.class);
+      kryo.register(VariableList.class);
+      kryo.register(VariableSequence.class);
+      kryo.register(VariableCollectionSequence.class);
+      kryo.register(Classification.class);
+   }
+
+   private static class DenseMatrixSerializer extends Serializer<DenseMatrix> {
+
+      @Override
+      public DenseMatrix read(Kryo kryo, Input input, Class<DenseMatrix> type) {
+         Shape shape = kryo.readObject(input, Shape.class);
+         float[] data = input.readFloats(input.readVarInt(true));
+         DenseMatrix matrix = new DenseMatrix(new FloatMatrix(shape.rows(), shape.columns(), data));
+         matrix.setLabel(kryo.readClassAndObject(input));
+         matrix.setPredicted(kryo.readClassAndObject(input));
+         matrix.setWeight(input.readDouble());
+         return matrix;
+      }
+
+      @Override
+      public void write(Kryo kryo, Output output, DenseMatrix matrix) {
+         float[] data = matrix.toFloatArray();
+         kryo.writeObject(output, matrix.shape());
+         output.writeVarInt(data.length, true);
+         output.writeFloats(data);
+         kryo.writeClassAndObject(output, matrix.getLabel());
+         kryo.writeClassAndObject(output, matrix.getPredicted());
+         output.writeDouble(matrix.getWeight());
+      }
+   }
+
+}//END OF ApolloKryoRegistration
@@ -0,0 +1,484 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.apollo.ml;
+
+import com.gengoai.Validation;
+import com.gengoai.apollo.math.linalg.NDArrayFactory;
+import com.gengoai.config.Config;
+import com.gengoai.function.SerializableFunction;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.json.Json;
+import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link DataSet} stored on disk in a chunked columnar binary format. Datum are written in chunks of a given size
+ * (defaults to the value of the <code>ColumnarDataSet.chunkSize</code> config setting or 1024) and each chunk stores its datum column by column with dense and sparse NDArrays, Variables, and
+ * VariableLists encoded as primitive arrays (other observations are stored as JSON). The file is memory mapped for
+ * reading, so that chunks are decoded directly from the page cache without parsing text, and single datum can be
+ * read by index using {@link #get(long)}.
+ * </p>
+ * <p>
+ * Shuffling is done by block: the order of the chunks is permuted and the datum within each chunk are shuffled as the
+ * chunk is decoded. The batches returned by {@link #batchIterator(int)} are built chunk by chunk from the mapped file.
+ * The data set is immutable, i.e. <code>map</code> writes a new data set, but its metadata is persisted with the file
+ * whenever it is updated.
+ * </p>
+ * <p>
+ * The file starts with a header holding the offset of the footer, which describes the chunks and stores the metadata.
+ * Updated footers are written to unused space after the chunks and synced to disk before the header is pointed at them,
+ * so that a crash while updating the metadata leaves the previous footer in place.
+ * </p>
+ */
+public class ColumnarDataSet extends DataSet {
+   private static final long MAGIC = 0x4150434f4c445331L;
+   private static final int HEADER_SIZE = 16;
+   private static final int MAX_REGION_SIZE = 1 << 30;
+   private static final long serialVersionUID = 1L;
+   /**
+    * Config setting for the default maximum number of datum stored in a chunk
+    */
+   public static final String CHUNK_SIZE_CONFIG = "ColumnarDataSet.chunkSize";
+   private final File file;
+   private final List<String> columns = new ArrayList<>();
+   private long[] chunkOffsets;
+   private int[] chunkLengths;
+   private long[] rowStarts;
+   private long dataEnd;
+   private long footerOffset;
+   private int[] chunkRegions;
+   private long[] regionStarts;
+   private Long shuffleSeed = null;
+   private transient volatile MappedByteBuffer[] regions;
+
+   /**
+    * Instantiates a new ColumnarDataSet stored in a temporary file.
+    *
+    * @param stream the datum to store
+    */
+   public ColumnarDataSet(@NonNull Stream<Datum> stream) {
+      this(Resources.temporaryFile().deleteOnExit(), stream);
+   }
+
+   /**
+    * Instantiates a new ColumnarDataSet stored at the given location.
+    *
+    * @param location the location to store the data set (must be a local file)
+    * @param stream   the datum to store
+    */
+   public ColumnarDataSet(@NonNull Resource location, @NonNull Stream<Datum> stream) {
+      this(location, stream, Config.get(CHUNK_SIZE_CONFIG).asIntegerValue(1024));
+   }
+
+   /**
+    * Instantiates a new ColumnarDataSet stored at the given location.
+    *
+    * @param location  the location to store the data set (must be a local file)
+    * @param stream    the datum to store
+    * @param chunkSize the maximum number of datum stored in a chunk
+    */
+   public ColumnarDataSet(@NonNull Resource location, @NonNull Stream<Datum> stream, int chunkSize) {
+      this(write(location, stream, chunkSize));
+   }
+
+   /**
+    * Opens the ColumnarDataSet stored at the given location.
+    *
+    * @param location the location of the data set (must be a local file)
+    */
+   @SneakyThrows
+   public ColumnarDataSet(@NonNull Resource location) {
+      this.file = toFile(location);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+         Validation.checkState(raf.length() >= HEADER_SIZE && raf.readLong() == MAGIC,
+                               () -> "Invalid Columnar DataSet: " + file);
+         long footer = raf.readLong();
+         Validation.checkState(footer >= HEADER_SIZE && footer < raf.length(),
+                               () -> "Invalid Columnar DataSet: " + file);
+         //Stale footers may follow the current one, which ends with the end of the data and the magic number
+         byte[] bytes = new byte[(int) (raf.length() - footer)];
+         raf.seek(footer);
+         raf.readFully(bytes);
+         DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+         readFooter(in);
+         this.dataEnd = in.readLong();
+         Validation.checkState(in.readLong() == MAGIC, () -> "Invalid Columnar DataSet: " + file);
+         this.footerOffset = footer;
+      }
+   }
+
+   private static File toFile(Resource location) {
+      return location.asFile()
+                     .orElseThrow(() -> new IllegalArgumentException("A ColumnarDataSet must be stored in a local file"));
+   }
+
+   private static Resource write(Resource location, Stream<Datum> stream, int chunkSize) {
+      Validation.checkArgument(chunkSize > 0, "Chunk size must be > 0");
+      File file = toFile(location);
+      List<String> columns = new ArrayList<>();
+      List<long[]> chunks = new ArrayList<>();
+      try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                  StandardOpenOption.CREATE,
+                                                  StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+         writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putLong(0).flip());
+         List<Datum> buffer = new ArrayList<>(chunkSize);
+         Iterator<Datum> iterator = stream.iterator();
+         while (iterator.hasNext()) {
+            buffer.add(iterator.next());
+            if (buffer.size() == chunkSize || !iterator.hasNext()) {
+               ByteBuffer chunk = ColumnarFormat.encode(buffer, columns);
+               chunks.add(new long[]{channel.position(), chunk.limit(), buffer.size()});
+               writeFully(channel, chunk);
+               buffer.clear();
+            }
+         }
+         long footer = channel.position();
+         writeFully(channel, footer(chunks, columns, NDArrayFactory.ND, Collections.emptyMap(), footer));
+         writeFully(channel, ByteBuffer.allocate(8).putLong(footer).flip(), 8);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return location;
+   }
+
+   private static ByteBuffer footer(List<long[]> chunks,
+                                    List<String> columns,
+                                    NDArrayFactory ndArrayFactory,
+                                    Map<String, ObservationMetadata> metadata,
+                                    long position) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+         out.writeInt(chunks.size());
+         for (long[] chunk : chunks) {
+            out.writeLong(chunk[0]);
+            out.writeInt((int) chunk[1]);
+            out.writeInt((int) chunk[2]);
+         }
+         out.writeInt(columns.size());
+         for (String column : columns) {
+            out.writeUTF(column);
+         }
+         out.writeUTF(ndArrayFactory.name());
+         out.writeInt(metadata.size());
+         for (Map.Entry<String, ObservationMetadata> e : metadata.entrySet()) {
+            out.writeUTF(e.getKey());
+            byte[] json = Json.dumps(e.getValue()).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(json.length);
+            out.write(json);
+         }
+         out.writeLong(position);
+         out.writeLong(MAGIC);
+      }
+      return ByteBuffer.wrap(bytes.toByteArray());
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+         position += channel.write(buffer, position);
+      }
+   }
+
+   @Override
+   public Iterator<DataSet> batchIterator(int batchSize) {
+      Validation.checkArgument(batchSize > 0, "Batch size must be > 0");
+      return new Iterator<>() {
+         final int[] order = chunkOrder();
+         final LinkedList<Datum> buffer = new LinkedList<>();
+         int next = 0;
+
+         @Override
+         public boolean hasNext() {
+            return buffer.size() > 0 || next < order.length;
+         }
+
+         @Override
+         public DataSet next() {
+            if (!hasNext()) {
+               throw new NoSuchElementException();
+            }
+            List<Datum> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && hasNext()) {
+               if (buffer.isEmpty()) {
+                  buffer.addAll(decode(order[next++]));
+               }
+               batch.add(buffer.removeFirst());
+            }
+            return new InMemoryDataSet(batch, getMetadata(), getNDArrayFactory());
+         }
+      };
+   }
+
+   @Override
+   public DataSet cache() {
+      return new InMemoryDataSet(collect(), getMetadata(), getNDArrayFactory());
+   }
+
+   private int chunkSize() {
+      int max = 1;
+      for (int i = 1; i < rowStarts.length; i++) {
+         max = (int) Math.max(max, rowStarts[i] - rowStarts[i - 1]);
+      }
+      return max;
+   }
+
+   private ByteBuffer chunk(int index) {
+      ByteBuffer region = regions()[chunkRegions[index]].duplicate();
+      int position = (int) (chunkOffsets[index] - regionStarts[chunkRegions[index]]);
+      region.position(position);
+      region.limit(position + chunkLengths[index]);
+      return region.slice().order(ByteOrder.LITTLE_ENDIAN);
+   }
+
+   private int[] chunkOrder() {
+      int[] order = IntStream.range(0, chunkOffsets.length).toArray();
+      if (shuffleSeed != null) {
+         Random random = new Random(shuffleSeed);
+         for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+         }
+      }
+      return order;
+   }
+
+   private List<Datum> decode(int chunk) {
+      List<Datum> data = ColumnarFormat.decode(chunk(chunk), columns);
+      if (shuffleSeed != null) {
+         Collections.shuffle(data, new Random(shuffleSeed + chunk));
+      }
+      return data;
+   }
+
+   /**
+    * Gets the datum at the given index in the order the data set was written (i.e. ignoring any shuffling).
+    *
+    * @param index the index of the datum
+    * @return the datum
+    */
+   public Datum get(long index) {
+      if (index < 0 || index >= size()) {
+         throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size());
+      }
+      int chunk = Arrays.binarySearch(rowStarts, index);
+      if (chunk < 0) {
+         chunk = -chunk - 2;
+      }
+      return ColumnarFormat.decode(chunk(chunk), columns, (int) (index - rowStarts[chunk]));
+   }
+
+   @Override
+   public DataSetType getType() {
+      return DataSetType.Columnar;
+   }
+
+   @Override
+   public Iterator<Datum> iterator() {
+      return stream().iterator();
+   }
+
+   @Override
+   public DataSet map(@NonNull SerializableFunction<? super Datum, ? extends Datum> function) {
+      DataSet out = new ColumnarDataSet(Resources.temporaryFile().deleteOnExit(),
+                                        stream().javaStream().map(function::apply),
+                                        chunkSize());
+      out.putAllMetadata(getMetadata());
+      out.setNDArrayFactory(getNDArrayFactory());
+      return out;
+   }
+
+   @Override
+   public MStream<Datum> parallelStream() {
+      return stream().parallel();
+   }
+
+   @Override
+   @SneakyThrows
+   public DataSet persist(@NonNull Resource copy) {
+      Files.copy(file.toPath(), toFile(copy).toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return new ColumnarDataSet(copy);
+   }
+
+   @Override
+   public DataSet persist() {
+      return this;
+   }
+
+   @Override
+   public DataSet putAllMetadata(@NonNull Map<String, ObservationMetadata> metadata) {
+      super.putAllMetadata(metadata);
+      writeFooter();
+      return this;
+   }
+
+   private void readFooter(DataInputStream in) throws IOException {
+      int numberOfChunks = in.readInt();
+      this.chunkOffsets = new long[numberOfChunks];
+      this.chunkLengths = new int[numberOfChunks];
+      this.rowStarts = new long[numberOfChunks + 1];
+      for (int i = 0; i < numberOfChunks; i++) {
+         chunkOffsets[i] = in.readLong();
+         chunkLengths[i] = in.readInt();
+         rowStarts[i + 1] = rowStarts[i] + in.readInt();
+      }
+      int numberOfColumns = in.readInt();
+      for (int i = 0; i < numberOfColumns; i++) {
+         columns.add(in.readUTF());
+      }
+      this.ndArrayFactory = NDArrayFactory.valueOf(in.readUTF());
+      int numberOfMetadata = in.readInt();
+      for (int i = 0; i < numberOfMetadata; i++) {
+         String source = in.readUTF();
+         byte[] json = new byte[in.readInt()];
+         in.readFully(json);
+         this.metadata.put(source, Json.parse(new String(json, StandardCharsets.UTF_8),
+                                              ObservationMetadata.class));
+      }
+
+      //Group the chunks into regions of at most MAX_REGION_SIZE bytes that are mapped together
+      this.chunkRegions = new int[numberOfChunks];
+      List<Long> starts = new ArrayList<>();
+      for (int i = 0; i < numberOfChunks; i++) {
+         if (starts.isEmpty() ||
+               chunkOffsets[i] + chunkLengths[i] - starts.get(starts.size() - 1) > MAX_REGION_SIZE) {
+            starts.add(chunkOffsets[i]);
+         }
+         chunkRegions[i] = starts.size() - 1;
+      }
+      this.regionStarts = starts.stream().mapToLong(Long::longValue).toArray();
+   }
+
+   private MappedByteBuffer[] regions() {
+      if (regions == null) {
+         synchronized (this) {
+            if (regions == null) {
+               MappedByteBuffer[] mapped = new MappedByteBuffer[regionStarts.length];
+               try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                  for (int i = 0; i < regionStarts.length; i++) {
+                     long end = i + 1 < regionStarts.length
+                                ? regionStarts[i + 1]
+                                : dataEnd;
+                     mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, regionStarts[i], end - regionStarts[i]);
+                  }
+               } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+               }
+               regions = mapped;
+            }
+         }
+      }
+      return regions;
+   }
+
+   @Override
+   public DataSet removeMetadata(@NonNull String source) {
+      super.removeMetadata(source);
+      writeFooter();
+      return this;
+   }
+
+   @Override
+   public DataSet setNDArrayFactory(@NonNull NDArrayFactory ndArrayFactory) {
+      super.setNDArrayFactory(ndArrayFactory);
+      writeFooter();
+      return this;
+   }
+
+   @Override
+   public DataSet shuffle(Random random) {
+      shuffleSeed = random.nextLong();
+      return this;
+   }
+
+   @Override
+   public long size() {
+      return rowStarts[rowStarts.length - 1];
+   }
+
+   @Override
+   public MStream<Datum> stream() {
+      return StreamingContext.local()
+                             .stream(IntStream.of(chunkOrder())
+                                              .boxed()
+                                              .flatMap(chunk -> decode(chunk).stream()));
+   }
+
+   @Override
+   public DataSet updateMetadata(@NonNull String source, @NonNull Consumer<ObservationMetadata> updater) {
+      super.updateMetadata(source, updater);
+      writeFooter();
+      return this;
+   }
+
+   @SneakyThrows
+   private synchronized void writeFooter() {
+      if (chunkOffsets == null) {
+         //Still being constructed
+         return;
+      }
+      List<long[]> chunks = new ArrayList<>();
+      for (int i = 0; i < chunkOffsets.length; i++) {
+         chunks.add(new long[]{chunkOffsets[i], chunkLengths[i], rowStarts[i + 1] - rowStarts[i]});
+      }
+      ByteBuffer footer = footer(chunks, columns, getNDArrayFactory(), getMetadata(), dataEnd);
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+         //Reuse the space between the data and the current footer when the new footer fits, otherwise append
+         long end = channel.size();
+         long offset = footer.remaining() <= footerOffset - dataEnd
+                       ? dataEnd
+                       : end;
+         writeFully(channel, footer, offset);
+         channel.force(false);
+         writeFully(channel, ByteBuffer.allocate(8).putLong(offset).flip(), 8);
+         channel.force(false);
+         footerOffset = offset;
+         if (offset < end) {
+            channel.truncate(offset + footer.limit());
+         }
+      }
+   }
+
+}//END OF ColumnarDataSet
@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.apollo.ml;
+
+import com.gengoai.apollo.math.linalg.DenseMatrix;
+import com.gengoai.apollo.math.linalg.NDArray;
+import com.gengoai.apollo.math.linalg.Shape;
+import com.gengoai.apollo.math.linalg.SparseMatrix;
+import com.gengoai.apollo.ml.observation.Observation;
+import com.gengoai.apollo.ml.observation.Variable;
+import com.gengoai.apollo.ml.observation.VariableList;
+import com.gengoai.json.Json;
+import org.jblas.FloatMatrix;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * <p>
+ * Encodes and decodes the chunks of a {@link ColumnarDataSet}. A chunk stores a block of consecutive datum column by
+ * column, where each column holds the observations of one source. A column is encoded as primitive little-endian
+ * arrays when all of its observations allow it:
+ * </p>
+ * <ul>
+ *    <li>unlabeled dense matrices are stored as their shapes and a single float array of their values,</li>
+ *    <li>unlabeled sparse matrices are stored as their shapes and the indices and values of their entries,</li>
+ *    <li>Variables and VariableLists are stored as dictionary ids for their prefixes and suffixes and a float array
+ *    of their values.</li>
+ * </ul>
+ * <p>
+ * All other columns are stored as the JSON of their observations. Every column starts with an array of per-row
+ * kinds (zero meaning the datum does not have the source) followed by offsets into its value arrays, so that a single
+ * row can be decoded without decoding the rest of the chunk.
+ * </p>
+ */
+final class ColumnarFormat {
+   //Column encodings
+   private static final byte DENSE = 1;
+   private static final byte SPARSE = 2;
+   private static final byte VARIABLES = 3;
+   private static final byte JSON = 4;
+   //Row kinds
+   private static final byte ABSENT = 0;
+   private static final byte PRESENT = 1;
+   private static final byte VARIABLE = 1;
+   private static final byte LIST = 2;
+
+   private ColumnarFormat() {
+      throw new IllegalAccessError();
+   }
+
+   private static byte columnEncoding(Observation[] observations) {
+      boolean dense = true;
+      boolean sparse = true;
+      boolean variables = true;
+      for (Observation o : observations) {
+         if (o == null) {
+            continue;
+         }
+         boolean plain = o instanceof NDArray && isPlain((NDArray) o);
+         dense &= plain && o.getClass() == DenseMatrix.class;
+         sparse &= plain && o.getClass() == SparseMatrix.class;
+         variables &= o.getClass() == Variable.class || o.getClass() == VariableList.class;
+      }
+      if (dense) {
+         return DENSE;
+      } else if (sparse) {
+         return SPARSE;
+      } else if (variables) {
+         return VARIABLES;
+      }
+      return JSON;
+   }
+
+   /**
+    * Decodes all rows of the given chunk
+    *
+    * @param chunk   the chunk
+    * @param columns the names of the columns in the data set
+    * @return the datum in the chunk
+    */
+   static List<Datum> decode(ByteBuffer chunk, List<String> columns) {
+      chunk = chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      int rows = chunk.getInt(0);
+      List<Datum> data = new ArrayList<>(rows);
+      for (int r = 0; r < rows; r++) {
+         data.add(new Datum());
+      }
+      for (Column column : columns(chunk, rows)) {
+         String name = columns.get(column.id);
+         for (int r = 0; r < rows; r++) {
+            Observation o = column.decode(r);
+            if (o != null) {
+               data.get(r).put(name, o);
+            }
+         }
+      }
+      return data;
+   }
+
+   /**
+    * Decodes a single row of the given chunk
+    *
+    * @param chunk   the chunk
+    * @param columns the names of the columns in the data set
+    * @param row     the row in the chunk
+    * @return the datum
+    */
+   static Datum decode(ByteBuffer chunk, List<String> columns, int row) {
+      chunk = chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      int rows = chunk.getInt(0);
+      Datum datum = new Datum();
+      for (Column column : columns(chunk, rows)) {
+         Observation o = column.decode(row);
+         if (o != null) {
+            datum.put(columns.get(column.id), o);
+         }
+      }
+      return datum;
+   }
+
+   private static List<Column> columns(ByteBuffer chunk, int rows) {
+      int numberOfColumns = chunk.getInt(4);
+      List<Column> columns = new ArrayList<>(numberOfColumns);
+      int position = 8;
+      for (int c = 0; c < numberOfColumns; c++) {
+         Column column = new Column(chunk, rows, position);
+         columns.add(column);
+         position = column.end;
+      }
+      return columns;
+   }
+
+   /**
+    * Encodes the given datum as a chunk, adding any sources not yet in the given list of columns to it.
+    *
+    * @param data    the datum to encode
+    * @param columns the names of the columns in the data set
+    * @return the encoded chunk
+    */
+   static ByteBuffer encode(List<Datum> data, List<String> columns) {
+      Map<String, Integer> ids = new HashMap<>();
+      for (int i = 0; i < columns.size(); i++) {
+         ids.put(columns.get(i), i);
+      }
+      Map<Integer, Observation[]> observations = new TreeMap<>();
+      for (int r = 0; r < data.size(); r++) {
+         for (Map.Entry<String, Observation> e : data.get(r).entrySet()) {
+            if (e.getValue() == null) {
+               continue;
+            }
+            Integer id = ids.get(e.getKey());
+            if (id == null) {
+               id = columns.size();
+               columns.add(e.getKey());
+               ids.put(e.getKey(), id);
+            }
+            observations.computeIfAbsent(id, i -> new Observation[data.size()])[r] = e.getValue();
+         }
+      }
+      List<ByteBuffer> encoded = new ArrayList<>();
+      int size = 8;
+      for (Map.Entry<Integer, Observation[]> e : observations.entrySet()) {
+         ByteBuffer column = encodeColumn(e.getKey(), e.getValue());
+         encoded.add(column);
+         size += column.limit();
+      }
+      ByteBuffer chunk = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+      chunk.putInt(data.size());
+      chunk.putInt(encoded.size());
+      encoded.forEach(chunk::put);
+      return chunk.flip();
+   }
+
+   private static ByteBuffer encodeColumn(int id, Observation[] observations) {
+      final int rows = observations.length;
+      final byte encoding = columnEncoding(observations);
+      byte[] kinds = new byte[rows];
+      int[] offsets = new int[rows + 1];
+      int payload;
+      List<String> dictionary = new ArrayList<>();
+      Map<String, Integer> dictionaryIds = new HashMap<>();
+      byte[][] json = null;
+      switch (encoding) {
+         case DENSE:
+         case SPARSE:
+            for (int r = 0; r < rows; r++) {
+               if (observations[r] != null) {
+                  kinds[r] = PRESENT;
+                  offsets[r + 1] = offsets[r] + (int) observations[r].asNDArray().size();
+               } else {
+                  offsets[r + 1] = offsets[r];
+               }
+            }
+            //rows and columns per row + offsets + values (and indices for sparse)
+            payload = 8 * rows + 4 * (rows + 1) + offsets[rows] * (encoding == DENSE
+                                                                  ? 4
+                                                                  : 8);
+            break;
+         case VARIABLES:
+            for (int r = 0; r < rows; r++) {
+               int count = 0;
+               if (observations[r] instanceof VariableList) {
+                  kinds[r] = LIST;
+                  count = ((VariableList) observations[r]).size();
+               } else if (observations[r] != null) {
+                  kinds[r] = VARIABLE;
+                  count = 1;
+               }
+               offsets[r + 1] = offsets[r] + count;
+            }
+            for (Observation o : observations) {
+               if (o != null) {
+                  o.getVariableSpace().forEach(v -> {
+                     dictionaryIds.computeIfAbsent(v.getPrefix(), s -> intern(s, dictionary));
+                     dictionaryIds.computeIfAbsent(v.getSuffix(), s -> intern(s, dictionary));
+                  });
+               }
+            }
+            payload = 4 * (rows + 1) + 12 * offsets[rows] + 4;
+            for (String s : dictionary) {
+               payload += 4 + s.getBytes(StandardCharsets.UTF_8).length;
+            }
+            break;
+         default:
+            json = new byte[rows][];
+            for (int r = 0; r < rows; r++) {
+               if (observations[r] != null) {
+                  kinds[r] = PRESENT;
+                  json[r] = Json.dumps(observations[r]).getBytes(StandardCharsets.UTF_8);
+                  offsets[r + 1] = offsets[r] + json[r].length;
+               } else {
+                  offsets[r + 1] = offsets[r];
+               }
+            }
+            payload = 4 * (rows + 1) + offsets[rows];
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocate(9 + rows + payload).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(id);
+      buffer.put(encoding);
+      buffer.putInt(rows + payload);
+      buffer.put(kinds);
+      if (encoding == DENSE || encoding == SPARSE) {
+         for (Observation o : observations) {
+            buffer.putInt(o == null
+                          ? 0
+                          : o.asNDArray().shape().rows());
+         }
+         for (Observation o : observations) {
+            buffer.putInt(o == null
+                          ? 0
+                          : o.asNDArray().shape().columns());
+         }
+      }
+      for (int offset : offsets) {
+         buffer.putInt(offset);
+      }
+      switch (encoding) {
+         case DENSE:
+            for (Observation o : observations) {
+               if (o != null) {
+                  buffer.asFloatBuffer().put(o.asNDArray().toFloatArray());
+                  buffer.position(buffer.position() + 4 * (int) o.asNDArray().size());
+               }
+            }
+            break;
+         case SPARSE:
+            final ByteBuffer values = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            values.position(buffer.position() + 4 * offsets[rows]);
+            for (Observation o : observations) {
+               if (o != null) {
+                  o.asNDArray().forEachSparse((index, value) -> {
+                     buffer.putInt((int) index);
+                     values.putFloat((float) value);
+                  });
+               }
+            }
+            buffer.position(values.position());
+            break;
+         case VARIABLES:
+            List<Variable> variables = new ArrayList<>(offsets[rows]);
+            for (Observation o : observations) {
+               if (o != null) {
+                  o.getVariableSpace().forEach(variables::add);
+               }
+            }
+            for (Variable v : variables) {
+               buffer.putInt(dictionaryIds.get(v.getPrefix()));
+            }
+            for (Variable v : variables) {
+               buffer.putInt(dictionaryIds.get(v.getSuffix()));
+            }
+            for (Variable v : variables) {
+               buffer.putFloat((float) v.getValue());
+            }
+            buffer.putInt(dictionary.size());
+            for (String s : dictionary) {
+               if (s == null) {
+                  buffer.putInt(-1);
+               } else {
+                  byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                  buffer.putInt(bytes.length);
+                  buffer.put(bytes);
+               }
+            }
+            break;
+         default:
+            for (byte[] bytes : json) {
+               if (bytes != null) {
+                  buffer.put(bytes);
+               }
+            }
+      }
+      return buffer.flip();
+   }
+
+   private static Integer intern(String s, List<String> dictionary) {
+      dictionary.add(s);
+      return dictionary.size() - 1;
+   }
+
+   private static boolean isPlain(NDArray n) {
+      return n.getLabel() == null && n.getPredicted() == null && n.getWeight() == 1d;
+   }
+
+   private static class Column {
+      final ByteBuffer chunk;
+      final int id;
+      final byte encoding;
+      final int end;
+      final int rows;
+      final int kinds;
+      final int offsets;
+      final int values;
+      private String[] dictionary;
+
+      private Column(ByteBuffer chunk, int rows, int position) {
+         this.chunk = chunk;
+         this.rows = rows;
+         this.id = chunk.getInt(position);
+         this.encoding = chunk.get(position + 4);
+         this.end = position + 9 + chunk.getInt(position + 5);
+         this.kinds = position + 9;
+         if (encoding == DENSE || encoding == SPARSE) {
+            this.offsets = kinds + rows + 8 * rows;
+         } else {
+            this.offsets = kinds + rows;
+         }
+         this.values = offsets + 4 * (rows + 1);
+      }
+
+      private Observation decode(int row) {
+         byte kind = chunk.get(kinds + row);
+         if (kind == ABSENT) {
+            return null;
+         }
+         int start = chunk.getInt(offsets + 4 * row);
+         int length = chunk.getInt(offsets + 4 * (row + 1)) - start;
+         switch (encoding) {
+            case DENSE: {
+               float[] data = new float[length];
+               ByteBuffer b = chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+               b.position(values + 4 * start);
+               b.asFloatBuffer().get(data);
+               return new DenseMatrix(new FloatMatrix(numberOfRows(row), numberOfColumns(row), data));
+            }
+            case SPARSE: {
+               int total = chunk.getInt(offsets + 4 * rows);
+               SparseMatrix matrix = new SparseMatrix(new Shape(numberOfRows(row), numberOfColumns(row)));
+               for (int i = start; i < start + length; i++) {
+                  matrix.set(chunk.getInt(values + 4 * i), chunk.getFloat(values + 4 * total + 4 * i));
+               }
+               return matrix;
+            }
+            case VARIABLES: {
+               String[] strings = dictionary();
+               int total = chunk.getInt(offsets + 4 * rows);
+               if (kind == VARIABLE) {
+                  return variable(strings, total, start);
+               }
+               VariableList list = new VariableList();
+               for (int i = start; i < start + length; i++) {
+                  list.add(variable(strings, total, i));
+               }
+               return list;
+            }
+            default: {
+               byte[] bytes = new byte[length];
+               ByteBuffer b = chunk.duplicate();
+               b.position(values + start);
+               b.get(bytes);
+               try {
+                  return Json.parse(new String(bytes, StandardCharsets.UTF_8), Observation.class);
+               } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+               }
+            }
+         }
+      }
+
+      private synchronized String[] dictionary() {
+         if (dictionary == null) {
+            int total = chunk.getInt(offsets + 4 * rows);
+            int position = values + 12 * total;
+            dictionary = new String[chunk.getInt(position)];
+            position += 4;
+            for (int i = 0; i < dictionary.length; i++) {
+               int length = chunk.getInt(position);
+               position += 4;
+               if (length >= 0) {
+                  byte[] bytes = new byte[length];
+                  ByteBuffer b = chunk.duplicate();
+                  b.position(position);
+                  b.get(bytes);
+                  dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+                  position += length;
+               }
+            }
+         }
+         return dictionary;
+      }
+
+      private int numberOfColumns(int row) {
+         return chunk.getInt(kinds + rows + 4 * rows + 4 * row);
+      }
+
+      private int numberOfRows(int row) {
+         return chunk.getInt(kinds + rows + 4 * row);
+      }
+
+      private Variable variable(String[] strings, int total, int index) {
+         return new Variable(strings[chunk.getInt(values + 4 * index)],
+                             strings[chunk.getInt(values + 4 * total + 4 * index)],
+                             chunk.getFloat(values + 8 * total + 4 * index));
+      }
+   }
+
+}//END OF ColumnarFormat
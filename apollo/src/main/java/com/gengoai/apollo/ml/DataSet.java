@@ -173,6 +173,24 @@ public abstract class DataSet implements Iterable<Datum>, Serializable {
     */
    public abstract DataSet map(@NonNull SerializableFunction<? super Datum, ? extends Datum> function);
 
+   /**
+    * Maps the datum in the dataset in batches constructing a new dataset, which is useful for amortizing the cost of
+    * a call over multiple datum (e.g. batch prediction with a model). Batches are formed within the partitions of the
+    * underlying stream (see {@link MStream#mapBatches(int, SerializableFunction)}). Depending on the underlying
+    * implementation this method may be performed lazily.
+    *
+    * @param batchSize the maximum number of datum in a batch
+    * @param function  the function to apply to a batch of datum returning the mapped datum
+    * @return the mapped dataset
+    */
+   public DataSet mapBatches(int batchSize,
+                             @NonNull SerializableFunction<? super List<Datum>, ? extends Iterable<? extends Datum>> function) {
+      DataSet ds = getType().create(stream().mapBatches(batchSize, function));
+      ds.putAllMetadata(getMetadata());
+      ds.setNDArrayFactory(getNDArrayFactory());
+      return ds;
+   }
+
    /**
     * Generates a parallel MStream over the datum in this dataset
     *
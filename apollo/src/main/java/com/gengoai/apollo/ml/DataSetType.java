@@ -73,6 +73,16 @@ public enum DataSetType {
          return new SQLiteDataSet(stream.javaStream()).probe();
       }
 
+   },
+   /**
+    * Stored on disk in a chunked columnar binary format that is memory mapped for reading
+    */
+   Columnar {
+      @Override
+      public DataSet create(@NonNull MStream<Datum> stream) {
+         return new ColumnarDataSet(stream.javaStream()).probe();
+      }
+
    };
 
    protected abstract DataSet create(@NonNull MStream<Datum> stream);
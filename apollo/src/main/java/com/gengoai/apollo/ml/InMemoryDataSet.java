@@ -105,6 +105,15 @@ public class InMemoryDataSet extends DataSet {
       return this;
    }
 
+   @Override
+   public DataSet mapBatches(int batchSize,
+                             @NonNull SerializableFunction<? super List<Datum>, ? extends Iterable<? extends Datum>> function) {
+      List<Datum> mapped = StreamingContext.local().stream(data).mapBatches(batchSize, function).collect();
+      data.clear();
+      data.addAll(mapped);
+      return this;
+   }
+
    @Override
    public MStream<Datum> parallelStream() {
       return StreamingContext.local().stream(this).parallel();
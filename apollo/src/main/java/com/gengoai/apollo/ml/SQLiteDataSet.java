@@ -23,15 +23,15 @@ import com.gengoai.Validation;
 import com.gengoai.apollo.math.linalg.NDArrayFactory;
 import com.gengoai.function.SerializableFunction;
 import com.gengoai.function.Unchecked;
+import com.gengoai.io.MonitoredObject;
+import com.gengoai.io.ResourceMonitor;
 import com.gengoai.io.Resources;
 import com.gengoai.io.resource.Resource;
 import com.gengoai.json.Json;
-import com.gengoai.sql.NamedPreparedStatement;
 import com.gengoai.sql.SQL;
 import com.gengoai.sql.SQLContext;
-import com.gengoai.sql.SQLiteDialect;
 import com.gengoai.sql.object.*;
-import com.gengoai.sql.sqlite.SQLiteConnectionRegistry;
+import com.gengoai.sql.sqlite.SQLiteConnectionManager;
 import com.gengoai.sql.statement.InsertType;
 import com.gengoai.sql.statement.Select;
 import com.gengoai.stream.MStream;
@@ -41,10 +41,7 @@ import com.gengoai.tuple.Tuple2;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -59,7 +56,7 @@ public class SQLiteDataSet extends DataSet {
    private static final Table dataTable = new Table("data", null, List.of(json), Collections.emptyList());
    private static final Table metadataTable = new Table("metadata", null, List.of(name, value), Collections
          .emptyList());
-   private final SQLContext executor;
+   private final MonitoredObject<SQLiteConnectionManager> connections;
    private boolean isShuffled = false;
 
    @SneakyThrows
@@ -70,23 +67,24 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    public SQLiteDataSet(@NonNull Resource location, @NonNull Stream<Datum> stream) {
       this(location);
-      dataTable.insert()
-               .batch(executor,
-                      stream,
-                      (d, nps) -> nps.setString(json.getName(), Json.dumps(d)),
-                      1000);
+      connections.object.batch(dataTable.insert(),
+                               stream,
+                               (d, nps) -> nps.setString(json.getName(), Json.dumps(d)),
+                               1000);
    }
 
    @SneakyThrows
    public SQLiteDataSet(@NonNull Resource dataset) {
-      this.executor = SQLContext.create(
-            SQLiteConnectionRegistry.getConnection("jdbc:sqlite:" + Strings.prependIfNotPresent(dataset.path(),
-                                                                                                "/")),
-            new SQLiteDialect());
-      if (!dataTable.exists(executor)) {
-         dataTable.createIfNotExists(executor);
-      }
-      if (!metadataTable.exists(executor)) {
+      this.connections = ResourceMonitor.monitor(
+            SQLiteConnectionManager.open("jdbc:sqlite:" + Strings.prependIfNotPresent(dataset.path(), "/")),
+            Unchecked.consumer(SQLiteConnectionManager::close));
+      boolean isNew = connections.object.write(executor -> {
+         if (!dataTable.exists(executor)) {
+            dataTable.createIfNotExists(executor);
+         }
+         if (metadataTable.exists(executor)) {
+            return false;
+         }
          executor.batch(metadataTable.create(),
                         metadataTable.insert(InsertType.INSERT_OR_REPLACE)
                                      .values(SQL.L(SIZE_NAME), SQL.N(0)),
@@ -111,10 +109,12 @@ public class SQLiteDataSet extends DataSet {
                                                              .where(name.eq(SQL.L(SIZE_NAME))))
                                .build().create()
          );
-      } else {
+         return true;
+      });
+      if (!isNew) {
          Stream<Map<String, ?>> stream = metadataTable.select(name, value)
                                                       .where(name.neq(SQL.L(SIZE_NAME)))
-                                                      .query(executor, r -> Map.of(r.getString(name.getName()),
+                                                      .query(reader(), r -> Map.of(r.getString(name.getName()),
                                                                                    r.getObject(value.getName())));
          stream.forEach(m -> m.forEach(Unchecked.biConsumer((source, metadata) -> {
             if (source.equals("ndArrayFactory")) {
@@ -168,47 +168,23 @@ public class SQLiteDataSet extends DataSet {
    }
 
    @Override
+   @SneakyThrows
    public DataSet map(@NonNull SerializableFunction<? super Datum, ? extends Datum> function) {
-      final Connection connection = executor.getConnection();
-
-      try (NamedPreparedStatement preparedStatement =
-                 new NamedPreparedStatement(connection, executor
-                       .render(dataTable.update().set(json, SQL.namedArgument("json"))
-                                        .where(SQL.C("rowid").eq(SQL.namedArgument("rowid")))))) {
-
-         AtomicLong processed = new AtomicLong(0);
-         boolean isAutoCommit = connection.getAutoCommit();
-         connection.setAutoCommit(false);
-         parallelIdStream().forEach(Unchecked.consumer(t -> {
-            long id = t.v1;
-            Datum datum = function.apply(t.v2);
-            synchronized (this) {
-               preparedStatement.setObject("json", Json.dumps(datum));
-               preparedStatement.setLong("rowid", id);
-               preparedStatement.addBatch();
-               if (processed.incrementAndGet() % SQLContext.DEFAULT_BATCH_SIZE == 0) {
-                  preparedStatement.executeBatch();
-                  connection.commit();
-                  processed.set(0);
-               }
-            }
-         }));
-
-         if (processed.get() > 0) {
-            preparedStatement.executeBatch();
-            connection.commit();
-         }
-         connection.setAutoCommit(isAutoCommit);
-      } catch (SQLException e) {
-         throw new RuntimeException(e);
-      }
+      connections.object.batch(dataTable.update().set(json, SQL.namedArgument("json"))
+                                        .where(SQL.C("rowid").eq(SQL.namedArgument("rowid"))),
+                               parallelIdStream().javaStream().map(t -> $(t.v1, function.apply(t.v2))),
+                               (t, nps) -> {
+                                  nps.setObject("json", Json.dumps(t.v2));
+                                  nps.setLong("rowid", t.v1);
+                               },
+                               SQLContext.DEFAULT_BATCH_SIZE);
       return this;
    }
 
    @SneakyThrows
    public MStream<Tuple2<Long, Datum>> parallelIdStream() {
       return StreamingContext.local().stream(dataTable.select("rowid", json.getName())
-                                                      .queryParallel(executor,
+                                                      .queryParallel(reader(),
                                                                      resultSet -> {
                                                                         long id = resultSet
                                                                               .getLong("rowid");
@@ -223,7 +199,7 @@ public class SQLiteDataSet extends DataSet {
    @Override
    @SneakyThrows
    public MStream<Datum> parallelStream() {
-      return StreamingContext.local().stream(select().queryParallel(executor,
+      return StreamingContext.local().stream(select().queryParallel(reader(),
                                                                     resultSet -> Json.parse(resultSet
                                                                                                   .getString(1), Datum.class),
                                                                     "rowid"));
@@ -232,8 +208,8 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    @Override
    public DataSet persist(@NonNull Resource copy) {
-      SQL.update(String.format("VACUUM main INTO '%s'", copy.path()))
-         .update(executor);
+      //VACUUM cannot be run inside the writer's transactions, but VACUUM INTO works over a read-only connection
+      SQL.update(String.format("VACUUM main INTO '%s'", copy.path())).update(reader());
       return new SQLiteDataSet(copy);
    }
 
@@ -241,13 +217,13 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    public DataSet putAllMetadata(@NonNull Map<String, ObservationMetadata> metadata) {
       super.putAllMetadata(metadata);
-      metadataTable.insert(InsertType.INSERT_OR_REPLACE)
-                   .batch(executor,
-                          metadata.entrySet(),
-                          (e, nps) -> {
-                             nps.setString(name.getName(), e.getKey());
-                             nps.setObject(value.getName(), Json.dumps(e.getValue()));
-                          });
+      connections.object.batch(metadataTable.insert(InsertType.INSERT_OR_REPLACE),
+                               metadata.entrySet().stream(),
+                               (e, nps) -> {
+                                  nps.setString(name.getName(), e.getKey());
+                                  nps.setObject(value.getName(), Json.dumps(e.getValue()));
+                               },
+                               SQLContext.DEFAULT_BATCH_SIZE);
       return this;
    }
 
@@ -255,10 +231,14 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    public DataSet removeMetadata(@NonNull String source) {
       super.removeMetadata(source);
-      metadataTable.delete(executor, name.eq(SQL.L(source)));
+      connections.object.write(executor -> metadataTable.delete(executor, name.eq(SQL.L(source))));
       return this;
    }
 
+   private SQLContext reader() {
+      return connections.object.reader();
+   }
+
    private Select select() {
       if (isShuffled) {
          return dataTable.selectAll().orderBy(SQL.F.random());
@@ -270,9 +250,8 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    public DataSet setNDArrayFactory(@NonNull NDArrayFactory ndArrayFactory) {
       super.setNDArrayFactory(ndArrayFactory);
-      metadataTable.insert(InsertType.INSERT_OR_REPLACE)
-                   .values(SQL.L("ndArrayFactory"), SQL.L(ndArrayFactory.name()))
-                   .update(executor);
+      connections.object.write(metadataTable.insert(InsertType.INSERT_OR_REPLACE)
+                                            .values(SQL.L("ndArrayFactory"), SQL.L(ndArrayFactory.name()))::update);
       return this;
    }
 
@@ -287,14 +266,14 @@ public class SQLiteDataSet extends DataSet {
    public long size() {
       return metadataTable.select(value)
                           .where(name.eq(SQL.L(SIZE_NAME)))
-                          .queryScalarLong(executor);
+                          .queryScalarLong(reader());
    }
 
    @Override
    @SneakyThrows
    public MStream<Datum> stream() {
       return StreamingContext.local()
-                             .stream(select().query(executor,
+                             .stream(select().query(reader(),
                                                     resultSet -> Json.parse(resultSet.getString(1), Datum.class)));
    }
 
@@ -302,10 +281,11 @@ public class SQLiteDataSet extends DataSet {
    @SneakyThrows
    public DataSet updateMetadata(@NonNull String source, @NonNull Consumer<ObservationMetadata> updater) {
       super.updateMetadata(source, updater);
-      metadataTable.insert(InsertType.INSERT_OR_REPLACE)
-                   .update(executor,
-                           Map.of(name.getName(), source,
-                                  value.getName(), Json.dumps(getMetadata(source))));
+      connections.object.write(executor -> metadataTable.insert(InsertType.INSERT_OR_REPLACE)
+                                                        .update(executor,
+                                                                Map.of(name.getName(), source,
+                                                                       value.getName(),
+                                                                       Json.dumps(getMetadata(source)))));
       return this;
    }
 }//END OF SQLiteDataSet
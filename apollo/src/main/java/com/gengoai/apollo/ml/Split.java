@@ -22,6 +22,7 @@
 
 package com.gengoai.apollo.ml;
 
+import com.gengoai.Copyable;
 import lombok.NonNull;
 
 import java.util.ArrayList;
@@ -90,33 +91,103 @@ public class Split {
     */
    public static Split[] createFolds(@NonNull DataSet data, int numberOfFolds) {
       checkArgument(numberOfFolds > 0, "Number of folds must be >= 0");
-      long size = data.size();
-      checkArgument(size >= numberOfFolds, "Number of folds must be <= number of examples");
-      Split[] folds = new Split[numberOfFolds];
-      long foldSize = size / numberOfFolds;
       List<Datum> dataList = data.collect();
+      checkArgument(dataList.size() >= numberOfFolds, "Number of folds must be <= number of examples");
+      Split[] folds = new Split[numberOfFolds];
       for(int i = 0; i < numberOfFolds; i++) {
-         int testStart = (int) (i * foldSize);
-         int testEnd = (int) (testStart + foldSize);
-         InMemoryDataSet test = new InMemoryDataSet(dataList.subList(testStart, testEnd)
-                                                            .stream()
-                                                            .map(Datum::copy)
-                                                            .collect(Collectors.toList()),
-                                                    data.metadata,
-                                                    data.ndArrayFactory);
-         List<Datum> trainData = new ArrayList<>();
-         if(testStart > 0) {
-            trainData.addAll(dataList.subList(0, testStart));
+         folds[i] = createFold(data, dataList, i, numberOfFolds);
+      }
+      return folds;
+   }
+
+   /**
+    * Generates the {@link Split} for the given fold of a cross-validation with <code>numberOfFolds</code> folds. The
+    * split is the same as the one at index <code>fold</code> of {@link #createFolds(DataSet, int)}, but allows for the
+    * folds to be created (and their copies of the data to be held in memory) one at a time.
+    *
+    * @param data          the dataset to split
+    * @param fold          the index of the fold to create
+    * @param numberOfFolds the number of folds
+    * @return the split for the fold
+    */
+   public static Split createFold(@NonNull DataSet data, int fold, int numberOfFolds) {
+      return createFold(data, data, fold, numberOfFolds);
+   }
+
+   /**
+    * Generates the {@link Split} for the given fold of a cross-validation with <code>numberOfFolds</code> folds taking
+    * the training examples from <code>trainingData</code> and the testing examples from <code>testingData</code>. The
+    * two datasets must contain the same examples in the same order, e.g. a dataset and the result of applying a
+    * stateless transform to it.
+    *
+    * @param trainingData  the dataset to take the training examples from
+    * @param testingData   the dataset to take the testing examples from
+    * @param fold          the index of the fold to create
+    * @param numberOfFolds the number of folds
+    * @return the split for the fold
+    */
+   public static Split createFold(@NonNull DataSet trainingData,
+                                  @NonNull DataSet testingData,
+                                  int fold,
+                                  int numberOfFolds) {
+      checkArgument(numberOfFolds > 0, "Number of folds must be >= 0");
+      checkArgument(fold >= 0 && fold < numberOfFolds, "Fold must be >= 0 and < number of folds");
+      long size = trainingData.size();
+      checkArgument(trainingData == testingData || size == testingData.size(),
+                    "Training and testing data must be the same size");
+      checkArgument(size >= numberOfFolds, "Number of folds must be <= number of examples");
+      //Stream over the data so that only the fold's own copies of the examples are held in memory
+      long foldSize = size / numberOfFolds;
+      long testStart = fold * foldSize;
+      long testEnd = testStart + foldSize;
+      List<Datum> trainData = new ArrayList<>((int) (size - foldSize));
+      long index = 0;
+      for(Datum datum : trainingData) {
+         if(index < testStart || index >= testEnd) {
+            trainData.add(datum.copy());
          }
-         if(testEnd < size) {
-            trainData.addAll(dataList.subList(testEnd, dataList.size()));
+         index++;
+      }
+      List<Datum> testData = new ArrayList<>((int) foldSize);
+      index = 0;
+      for(Datum datum : testingData) {
+         if(index >= testEnd) {
+            break;
          }
-         InMemoryDataSet train = new InMemoryDataSet(trainData.stream().map(Datum::copy).collect(Collectors.toList()),
-                                                     data.metadata,
-                                                     data.ndArrayFactory);
-         folds[i] = new Split(train, test);
+         if(index >= testStart) {
+            testData.add(datum.copy());
+         }
+         index++;
       }
-      return folds;
+      return new Split(new InMemoryDataSet(trainData,
+                                           Copyable.deepCopy(trainingData.metadata),
+                                           trainingData.ndArrayFactory),
+                       new InMemoryDataSet(testData,
+                                           Copyable.deepCopy(testingData.metadata),
+                                           testingData.ndArrayFactory));
+   }
+
+   private static Split createFold(DataSet data, List<Datum> dataList, int fold, int numberOfFolds) {
+      int foldSize = dataList.size() / numberOfFolds;
+      int testStart = fold * foldSize;
+      int testEnd = testStart + foldSize;
+      InMemoryDataSet test = new InMemoryDataSet(dataList.subList(testStart, testEnd)
+                                                         .stream()
+                                                         .map(Datum::copy)
+                                                         .collect(Collectors.toList()),
+                                                 Copyable.deepCopy(data.metadata),
+                                                 data.ndArrayFactory);
+      List<Datum> trainData = new ArrayList<>();
+      if(testStart > 0) {
+         trainData.addAll(dataList.subList(0, testStart));
+      }
+      if(testEnd < dataList.size()) {
+         trainData.addAll(dataList.subList(testEnd, dataList.size()));
+      }
+      InMemoryDataSet train = new InMemoryDataSet(trainData.stream().map(Datum::copy).collect(Collectors.toList()),
+                                                  Copyable.deepCopy(data.metadata),
+                                                  data.ndArrayFactory);
+      return new Split(train, test);
    }
 
    @Override
@@ -27,6 +27,7 @@ import com.gengoai.stream.StorageLevel;
 import lombok.NonNull;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -93,6 +94,14 @@ public class StreamingDataSet extends DataSet {
       return out;
    }
 
+   @Override
+   public DataSet mapBatches(int batchSize,
+                             @NonNull SerializableFunction<? super List<Datum>, ? extends Iterable<? extends Datum>> function) {
+      StreamingDataSet out = new StreamingDataSet(stream.mapBatches(batchSize, function));
+      out.metadata.putAll(Copyable.deepCopy(metadata));
+      return out;
+   }
+
    @Override
    public MStream<Datum> parallelStream() {
       return stream.parallel();
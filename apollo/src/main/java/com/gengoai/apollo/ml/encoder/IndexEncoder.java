@@ -95,15 +95,24 @@ public class IndexEncoder implements Encoder {
 
    @Override
    public void fit(@NonNull MStream<Observation> stream) {
+      fit(stream.parallel()
+                .flatMap(Observation::getVariableSpace)
+                .map(Variable::getName)
+                .distinct()
+                .collect());
+   }
+
+   /**
+    * Fits the encoder to the given collection of distinct variable names.
+    *
+    * @param variableNames the variable names
+    */
+   public void fit(@NonNull Iterable<String> variableNames) {
       alphabet.clear();
       if(unknownName != null) {
          alphabet.add(unknownName);
       }
-      alphabet.addAll(stream.parallel()
-                            .flatMap(Observation::getVariableSpace)
-                            .map(Variable::getName)
-                            .distinct()
-                            .collect());
+      alphabet.addAll(variableNames);
    }
 
    @Override
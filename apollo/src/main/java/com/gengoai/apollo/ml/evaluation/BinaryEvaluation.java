@@ -21,7 +21,6 @@ package com.gengoai.apollo.ml.evaluation;
 
 import com.gengoai.apollo.math.linalg.NDArray;
 import com.gengoai.apollo.ml.DataSet;
-import com.gengoai.apollo.ml.Split;
 import com.gengoai.apollo.ml.model.Model;
 import com.gengoai.conversion.Cast;
 import com.gengoai.math.Math2;
@@ -70,12 +69,10 @@ public class BinaryEvaluation extends ClassifierEvaluation {
                                                   Model model,
                                                   int nFolds,
                                                   String outputName) {
-      BinaryEvaluation evaluation = new BinaryEvaluation(outputName);
-      for(Split split : Split.createFolds(dataset.shuffle(), nFolds)) {
-         model.estimate(split.train);
-         evaluation.evaluate(model, split.test);
-      }
-      return evaluation;
+      return new CrossValidation(nFolds).evaluate(dataset.shuffle(),
+                                                  model,
+                                                  () -> new BinaryEvaluation(outputName),
+                                                  BinaryEvaluation::merge);
    }
 
    /**
@@ -169,8 +166,17 @@ public class BinaryEvaluation extends ClassifierEvaluation {
    public void merge(ClassifierEvaluation evaluation) {
       if(evaluation instanceof BinaryEvaluation) {
          BinaryEvaluation bce = Cast.as(evaluation);
-         this.prob[0].addAllOf(bce.prob[0]);
-         this.prob[1].addAllOf(bce.prob[1]);
+         for(int i = 0; i < prob.length; i++) {
+            for(int j = 0; j < bce.prob[i].size(); j++) {
+               prob[i].add(bce.prob[i].get(j));
+            }
+         }
+         this.fn += bce.fn;
+         this.fp += bce.fp;
+         this.tn += bce.tn;
+         this.tp += bce.tp;
+         this.positive += bce.positive;
+         this.negative += bce.negative;
       } else {
          throw new IllegalArgumentException();
       }
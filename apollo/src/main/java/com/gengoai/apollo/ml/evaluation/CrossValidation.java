@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.apollo.ml.evaluation;
+
+import com.gengoai.Copyable;
+import com.gengoai.Stopwatch;
+import com.gengoai.Validation;
+import com.gengoai.apollo.ml.DataSet;
+import com.gengoai.apollo.ml.Datum;
+import com.gengoai.apollo.ml.InMemoryDataSet;
+import com.gengoai.apollo.ml.Split;
+import com.gengoai.apollo.ml.model.Model;
+import com.gengoai.apollo.ml.model.PipelineModel;
+import com.gengoai.apollo.ml.transform.Transformer;
+import com.gengoai.config.Config;
+import com.gengoai.tuple.Tuple2;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.java.Log;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static com.gengoai.LogUtils.logInfo;
+
+/**
+ * <p>
+ * Performs k-fold cross-validation of a {@link Model} optionally training and evaluating the folds concurrently. When
+ * the model is a {@link PipelineModel} the leading stateless transforms of the pipeline (see {@link
+ * PipelineModel#splitStateless()}) are applied only once to the entire dataset, so that only the remaining transforms
+ * are fit on each fold. Each fold is still evaluated using the original testing data and the full pipeline.
+ * </p>
+ * <p>
+ * The number of folds trained at the same time is bounded by the <code>parallelism</code> (defaults to the value of
+ * the <code>CrossValidation.parallelism</code> config setting or <code>1</code>, i.e. folds are run one at a time on
+ * the calling thread unless concurrency is explicitly enabled) and by the
+ * <code>maxExamplesInMemory</code> (defaults to the value of the <code>CrossValidation.maxExamplesInMemory</code>
+ * config setting or unbounded), which limits the total number of examples held in memory. Each running fold holds its
+ * own copy of its training and testing examples, i.e. one copy of the dataset, and the dataset transformed by the
+ * leading stateless transforms is held in memory once for all folds.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+@Log
+public class CrossValidation {
+   /**
+    * Config setting for the maximum number of examples held in memory by concurrently running folds
+    */
+   public static final String MAX_EXAMPLES_IN_MEMORY_CONFIG = "CrossValidation.maxExamplesInMemory";
+   /**
+    * Config setting for the maximum number of folds trained at the same time
+    */
+   public static final String PARALLELISM_CONFIG = "CrossValidation.parallelism";
+   private final int numberOfFolds;
+   private long maxExamplesInMemory = Config.get(MAX_EXAMPLES_IN_MEMORY_CONFIG).asLongValue(Long.MAX_VALUE);
+   private int parallelism = Config.get(PARALLELISM_CONFIG).asIntegerValue(1);
+
+   /**
+    * Instantiates a new CrossValidation.
+    *
+    * @param numberOfFolds the number of folds
+    */
+   public CrossValidation(int numberOfFolds) {
+      Validation.checkArgument(numberOfFolds > 0, "Number of folds must be > 0");
+      this.numberOfFolds = numberOfFolds;
+   }
+
+   /**
+    * Performs cross-validation of the given model over the given dataset merging the evaluations of the individual
+    * folds into a single evaluation.
+    *
+    * @param <E>                the evaluation type parameter
+    * @param dataset            the dataset to perform cross-validation on
+    * @param model              the model to train and test
+    * @param evaluationSupplier the supplier of a new evaluation for each fold
+    * @param merger             merges the evaluation of a fold (second argument) into the first argument
+    * @return the merged evaluation
+    */
+   public <E extends Evaluation> E evaluate(@NonNull DataSet dataset,
+                                            @NonNull Model model,
+                                            @NonNull Supplier<E> evaluationSupplier,
+                                            @NonNull BiConsumer<? super E, ? super E> merger) {
+      E evaluation = evaluationSupplier.get();
+      for(Fold<E> fold : evaluateFolds(dataset, model, evaluationSupplier)) {
+         merger.accept(evaluation, fold.getEvaluation());
+      }
+      return evaluation;
+   }
+
+   /**
+    * Performs cross-validation of the given model over the given dataset returning the evaluation and timing of each
+    * fold. The given model is not modified, instead each fold trains its own copy of it.
+    *
+    * @param <E>                the evaluation type parameter
+    * @param dataset            the dataset to perform cross-validation on
+    * @param model              the model to train and test
+    * @param evaluationSupplier the supplier of a new evaluation for each fold
+    * @return the list of folds in order
+    */
+   public <E extends Evaluation> List<Fold<E>> evaluateFolds(@NonNull DataSet dataset,
+                                                             @NonNull Model model,
+                                                             @NonNull Supplier<E> evaluationSupplier) {
+      DataSet data = dataset;
+      Model foldModel = model;
+      Transformer stateless = null;
+      if(model instanceof PipelineModel) {
+         Tuple2<Transformer, PipelineModel> split = ((PipelineModel) model).splitStateless();
+         if(split.v1.getTransforms().size() > 0) {
+            Stopwatch sw = Stopwatch.createStarted();
+            stateless = split.v1;
+            data = stateless.fitAndTransform(new InMemoryDataSet(dataset.stream().map(Datum::copy).collect(),
+                                                                 Copyable.deepCopy(dataset.getMetadata()),
+                                                                 dataset.getNDArrayFactory()));
+            foldModel = split.v2;
+            logInfo(log, "Applied {0} stateless transform(s) to all folds in {1}", stateless.getTransforms().size(), sw);
+         }
+      }
+      final DataSet shared = data;
+      final Model base = foldModel;
+      final Transformer prefix = stateless;
+
+      //Each fold copies its training and testing examples, on top of the shared copy made for the stateless transforms
+      long size = shared.size();
+      long available = prefix == null
+                       ? maxExamplesInMemory
+                       : maxExamplesInMemory - size;
+      int concurrency = (int) Math.max(1, Math.min(Math.min(parallelism, numberOfFolds),
+                                                   available / Math.max(1, size)));
+      logInfo(log, "Performing {0}-fold cross-validation over {1} examples with {2} concurrent fold(s)",
+              numberOfFolds, size, concurrency);
+
+      if(concurrency == 1) {
+         List<Fold<E>> folds = new ArrayList<>();
+         for(int i = 0; i < numberOfFolds; i++) {
+            folds.add(runFold(shared, dataset, base, prefix, i, evaluationSupplier));
+         }
+         return folds;
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+      try {
+         List<Future<Fold<E>>> futures = new ArrayList<>();
+         for(int i = 0; i < numberOfFolds; i++) {
+            final int index = i;
+            futures.add(executor.submit(() -> runFold(shared, dataset, base, prefix, index, evaluationSupplier)));
+         }
+         List<Fold<E>> folds = new ArrayList<>();
+         for(Future<Fold<E>> future : futures) {
+            folds.add(future.get());
+         }
+         return folds;
+      } catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      } catch(ExecutionException e) {
+         if(e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         throw new RuntimeException(e.getCause());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   /**
+    * Sets the maximum number of examples that concurrently running folds may hold in memory, counting the training and
+    * testing examples copied by each fold and the copy of the dataset made for the stateless transforms.
+    *
+    * @param maxExamplesInMemory the maximum number of examples
+    * @return this CrossValidation
+    */
+   public CrossValidation maxExamplesInMemory(long maxExamplesInMemory) {
+      Validation.checkArgument(maxExamplesInMemory > 0, "Max examples in memory must be > 0");
+      this.maxExamplesInMemory = maxExamplesInMemory;
+      return this;
+   }
+
+   /**
+    * Sets the maximum number of folds trained at the same time.
+    *
+    * @param parallelism the parallelism
+    * @return this CrossValidation
+    */
+   public CrossValidation parallelism(int parallelism) {
+      Validation.checkArgument(parallelism > 0, "Parallelism must be > 0");
+      this.parallelism = parallelism;
+      return this;
+   }
+
+   private <E extends Evaluation> Fold<E> runFold(DataSet trainingData,
+                                                  DataSet testingData,
+                                                  Model model,
+                                                  Transformer prefix,
+                                                  int index,
+                                                  Supplier<E> evaluationSupplier) {
+      //Train on the data shared between folds, but test using the original data and full pipeline
+      Split split = Split.createFold(trainingData, testingData, index, numberOfFolds);
+      Model foldModel = model.copy();
+      Stopwatch training = Stopwatch.createStarted();
+      foldModel.estimate(split.train);
+      training.stop();
+      if(prefix != null) {
+         foldModel = ((PipelineModel) foldModel).prepend(prefix);
+      }
+      Stopwatch testing = Stopwatch.createStarted();
+      E evaluation = evaluationSupplier.get();
+      evaluation.evaluate(foldModel, split.test);
+      testing.stop();
+      logInfo(log, "Completed fold {0} of {1} (train={2}, evaluate={3})", index + 1, numberOfFolds, training, testing);
+      return new Fold<>(index,
+                        evaluation,
+                        Duration.ofNanos(training.getElapsedTime()),
+                        Duration.ofNanos(testing.getElapsedTime()));
+   }
+
+   /**
+    * The evaluation and timing of a single fold of a cross-validation
+    *
+    * @param <E> the evaluation type parameter
+    */
+   @Value
+   public static class Fold<E extends Evaluation> {
+      /**
+       * The index of the fold
+       */
+      int index;
+      /**
+       * The evaluation of the model trained on the fold
+       */
+      E evaluation;
+      /**
+       * The time taken to train the model on the fold's training data
+       */
+      Duration trainingTime;
+      /**
+       * The time taken to evaluate the model on the fold's testing data
+       */
+      Duration evaluationTime;
+   }
+
+}//END OF CrossValidation
@@ -23,7 +23,6 @@ import com.gengoai.Validation;
 import com.gengoai.apollo.math.linalg.NDArray;
 import com.gengoai.apollo.ml.DataSet;
 import com.gengoai.apollo.ml.Datum;
-import com.gengoai.apollo.ml.Split;
 import com.gengoai.apollo.ml.encoder.Encoder;
 import com.gengoai.apollo.ml.model.Model;
 import com.gengoai.apollo.ml.observation.Observation;
@@ -64,13 +63,10 @@ public class MultiClassEvaluation extends ClassifierEvaluation {
                                                       Model model,
                                                       int nFolds,
                                                       String outputName) {
-      MultiClassEvaluation evaluation = new MultiClassEvaluation(outputName);
-
-      for(Split split : Split.createFolds(dataset.shuffle(), nFolds)) {
-         model.estimate(split.train);
-         evaluation.evaluate(model, split.test);
-      }
-      return evaluation;
+      return new CrossValidation(nFolds).evaluate(dataset.shuffle(),
+                                                  model,
+                                                  () -> new MultiClassEvaluation(outputName),
+                                                  MultiClassEvaluation::merge);
    }
 
    /**
@@ -25,7 +25,6 @@ package com.gengoai.apollo.ml.evaluation;
 import com.gengoai.apollo.math.linalg.NDArray;
 import com.gengoai.apollo.ml.DataSet;
 import com.gengoai.apollo.ml.Datum;
-import com.gengoai.apollo.ml.Split;
 import com.gengoai.apollo.ml.model.Model;
 import com.gengoai.string.TableFormatter;
 import lombok.NonNull;
@@ -35,7 +34,6 @@ import org.apache.mahout.math.list.DoubleArrayList;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Evaluation for regression models.</p>
@@ -67,13 +65,10 @@ public class RegressionEvaluation implements Evaluation, Serializable {
                                                       @NonNull String predictedSource,
                                                       int nFolds
                                                      ) {
-      RegressionEvaluation evaluation = new RegressionEvaluation(inputSource, predictedSource);
-      AtomicInteger foldId = new AtomicInteger(0);
-      for(Split split : Split.createFolds(dataset.shuffle(), nFolds)) {
-         regression.estimate(split.train);
-         evaluation.evaluate(regression, split.test);
-      }
-      return evaluation;
+      return new CrossValidation(nFolds).evaluate(dataset.shuffle(),
+                                                  regression,
+                                                  () -> new RegressionEvaluation(inputSource, predictedSource),
+                                                  RegressionEvaluation::merge);
    }
 
    /**
@@ -155,8 +150,11 @@ public class RegressionEvaluation implements Evaluation, Serializable {
     * @param evaluation the other evaluation to combine
     */
    public void merge(RegressionEvaluation evaluation) {
-      gold.addAllOf(evaluation.gold);
-      predicted.addAllOf(evaluation.predicted);
+      for(int i = 0; i < evaluation.gold.size(); i++) {
+         gold.add(evaluation.gold.get(i));
+         predicted.add(evaluation.predicted.get(i));
+      }
+      p = Math.max(p, evaluation.p);
    }
 
    @Override
@@ -31,12 +31,15 @@ import com.gengoai.apollo.ml.transform.Transform;
 import com.gengoai.apollo.ml.transform.Transformer;
 import com.gengoai.collection.Sets;
 import com.gengoai.conversion.Cast;
+import com.gengoai.tuple.Tuple2;
 import lombok.NonNull;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import static com.gengoai.tuple.Tuples.$;
+
 /**
  * <p>
  * A pipeline model pairs a {@link Model} with a {@link Transformer} where the transformer is used to preprocess the
@@ -87,6 +90,41 @@ public class PipelineModel implements Model {
       return new PipelineModel(model.copy(), transformer.copy());
    }
 
+   /**
+    * Creates a pipeline which first applies the given transformer and then the transforms and model of this pipeline.
+    * The transformer is expected to have already been fit, e.g. be made up of the stateless transforms returned by
+    * {@link #splitStateless()}. Note that the returned pipeline shares the wrapped model with this one.
+    *
+    * @param transformer the transformer to apply before the transforms of this pipeline
+    * @return the new PipelineModel
+    */
+   public PipelineModel prepend(@NonNull Transformer transformer) {
+      List<Transform> transforms = new ArrayList<>(transformer.getTransforms());
+      transforms.addAll(this.transformer.getTransforms());
+      Transformer combined = new Transformer(transforms);
+      combined.getMetadata().putAll(transformer.getMetadata());
+      combined.getMetadata().putAll(this.transformer.getMetadata());
+      return new PipelineModel(model, combined);
+   }
+
+   /**
+    * Splits this pipeline into the leading run of stateless transforms (see {@link Transform#isStateless()}) and a copy
+    * of this pipeline without them. Since the stateless transforms do not depend on the data they are fit to, they can
+    * be applied once to a dataset whose splits are then used to estimate the remaining pipeline, e.g. when performing
+    * cross-validation. The full pipeline can be restored using {@link #prepend(Transformer)}.
+    *
+    * @return a tuple of the transformer made up of the stateless transforms and the remaining pipeline
+    */
+   public Tuple2<Transformer, PipelineModel> splitStateless() {
+      List<Transform> transforms = transformer.getTransforms();
+      int split = 0;
+      while (split < transforms.size() && transforms.get(split).isStateless()) {
+         split++;
+      }
+      return $(new Transformer(transforms.subList(0, split)),
+               new PipelineModel(model.copy(), new Transformer(transforms.subList(split, transforms.size()))));
+   }
+
    @Override
    public void estimate(@NonNull DataSet dataset) {
       model.estimate(transformer.fitAndTransform(dataset));
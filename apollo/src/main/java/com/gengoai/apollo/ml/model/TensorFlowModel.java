@@ -67,6 +67,7 @@ import java.util.stream.Stream;
  * </ol>
  */
 public abstract class TensorFlowModel implements Model {
+   private static final int DEFAULT_BATCH_SIZE = 256;
    private static final long serialVersionUID = 1L;
    protected final Map<String, TFVarSpec> inputs;
    protected final LinkedHashMap<String, TFVarSpec> outputs;
@@ -203,6 +204,15 @@ public abstract class TensorFlowModel implements Model {
       return Collections.unmodifiableSet(outputs.keySet());
    }
 
+   /**
+    * Gets the maximum number of datum fed to the TensorFlow model at a time when transforming a dataset.
+    *
+    * @return the batch size
+    */
+   protected int getBatchSize() {
+      return DEFAULT_BATCH_SIZE;
+   }
+
    private SavedModelBundle getTensorFlowModel() {
       if (model == null) {
          synchronized (this) {
@@ -268,7 +278,7 @@ public abstract class TensorFlowModel implements Model {
 
    @Override
    public DataSet transform(@NonNull DataSet dataset) {
-      return dataset.map(this::transform);
+      return dataset.mapBatches(getBatchSize(), batch -> processBatch(DataSetType.InMemory.create(batch.stream())));
    }
 
 }//END OF TensorFlowModel
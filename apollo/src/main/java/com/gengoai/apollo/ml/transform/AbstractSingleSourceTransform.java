@@ -27,6 +27,7 @@ import com.gengoai.apollo.ml.ObservationMetadata;
 import com.gengoai.apollo.ml.observation.Observation;
 import com.gengoai.conversion.Cast;
 import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
 import com.gengoai.string.Strings;
 import lombok.NonNull;
 
@@ -44,6 +45,10 @@ import java.util.Set;
  * <li>{@link #updateMetadata(DataSet)} - updates the {@link ObservationMetadata} associated with
  * the {@link DataSet}, which may require updating both the input and output source metadata.</li>
  * </ul></p>
+ * <p>
+ * Transforms whose statistics can be gathered one observation at a time should additionally override {@link
+ * #createFitter(StreamingContext)}, which allows them to be fit in the same pass over the data as other transforms.
+ * </p>
  *
  * @param <T> the type parameter
  * @author David B. Bracewell
@@ -71,6 +76,38 @@ public abstract class AbstractSingleSourceTransform<T extends AbstractSingleSour
       return Cast.as(Copyable.deepCopy(this));
    }
 
+   /**
+    * Creates a {@link Fitter} that gathers the statistics of this transform from {@link Observation}s of its input
+    * source using accumulators created in the given context. Transforms that can be fit this way are fit alongside
+    * other transforms in a single pass over the data by a {@link Transformer}. The default implementation returns a
+    * no-op fitter for stateless transforms and otherwise <code>null</code> meaning the transform must be fit using
+    * {@link #fit(MStream)}.
+    *
+    * @param context the streaming context to create accumulators in
+    * @return the fitter or null if the transform cannot be fit one observation at a time
+    */
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      return isStateless()
+             ? Fitter.noOpt()
+             : null;
+   }
+
+   /**
+    * Creates a {@link Fitter} over the {@link Datum} in the given {@link DataSet}.
+    *
+    * @param dataset the dataset to be fit
+    * @return the fitter or null if the transform cannot be fit one observation at a time
+    */
+   Fitter<Datum> createFitter(@NonNull DataSet dataset) {
+      Fitter<Observation> fitter = createFitter(dataset.getType().getStreamingContext());
+      if(fitter == null) {
+         return null;
+      }
+      ndArrayFactory = dataset.getNDArrayFactory();
+      final String source = input;
+      return fitter.compose(d -> d.get(source));
+   }
+
    /**
     * fits the transform to a stream of {@link Observation} from its input source
     *
@@ -80,8 +117,13 @@ public abstract class AbstractSingleSourceTransform<T extends AbstractSingleSour
 
    @Override
    public DataSet fitAndTransform(DataSet dataset) {
-      ndArrayFactory = dataset.getNDArrayFactory();
-      fit(dataset.stream().map(d -> d.get(input)));
+      Fitter<Datum> fitter = createFitter(dataset);
+      if(fitter == null) {
+         ndArrayFactory = dataset.getNDArrayFactory();
+         fit(dataset.stream().map(d -> d.get(input)));
+      } else {
+         fitter.fit(dataset.parallelStream());
+      }
       return transform(dataset);
    }
 
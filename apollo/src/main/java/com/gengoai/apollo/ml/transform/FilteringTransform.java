@@ -48,6 +48,11 @@ public class FilteringTransform extends AbstractSingleSourceTransform<FilteringT
 
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    protected Observation transform(@NonNull Observation observation) {
       observation.removeVariables(filter);
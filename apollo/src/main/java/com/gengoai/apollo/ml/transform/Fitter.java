@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.apollo.ml.transform;
+
+import com.gengoai.function.SerializableConsumer;
+import com.gengoai.function.SerializableFunction;
+import com.gengoai.function.SerializableRunnable;
+import com.gengoai.stream.MAccumulator;
+import com.gengoai.stream.MStream;
+import lombok.NonNull;
+
+/**
+ * <p>
+ * Gathers the statistics needed to fit a {@link Transform} one item at a time. Fitters record their statistics in
+ * mergeable {@link MAccumulator}s, so that they can be applied concurrently and on distributed workers, and set the
+ * state of the transform from the accumulated values when {@link #finish()} is called. Because fitting no longer
+ * requires its own traversal of the data, the {@link Transformer} is able to fit multiple transforms in a single pass
+ * over a {@link com.gengoai.apollo.ml.DataSet}.
+ * </p>
+ *
+ * @param <T> the type of item being fit
+ * @author David B. Bracewell
+ */
+public interface Fitter<T> extends SerializableConsumer<T> {
+
+   /**
+    * Creates a Fitter which does nothing, e.g. for transforms whose state is fixed.
+    *
+    * @param <T> the type of item being fit
+    * @return the fitter
+    */
+   static <T> Fitter<T> noOpt() {
+      return of(t -> {}, () -> {});
+   }
+
+   /**
+    * Creates a Fitter from a consumer that adds items to the accumulators and a finisher that sets the state of the
+    * transform from the accumulated values.
+    *
+    * @param <T>      the type of item being fit
+    * @param consumer the consumer adding items to the accumulators
+    * @param finisher the finisher to run once all items have been seen
+    * @return the fitter
+    */
+   static <T> Fitter<T> of(@NonNull SerializableConsumer<T> consumer, @NonNull SerializableRunnable finisher) {
+      return new Fitter<T>() {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public void accept(T t) {
+            consumer.accept(t);
+         }
+
+         @Override
+         public void finish() {
+            finisher.run();
+         }
+      };
+   }
+
+   /**
+    * Creates a Fitter over items of type <code>V</code> which are converted into items of type <code>T</code> using
+    * the given function before being passed to this Fitter.
+    *
+    * @param <V>    the type of the new items
+    * @param before the function converting the new items
+    * @return the fitter
+    */
+   default <V> Fitter<V> compose(@NonNull SerializableFunction<? super V, ? extends T> before) {
+      return of(v -> accept(before.apply(v)), this::finish);
+   }
+
+   /**
+    * Fits using the given stream of items, i.e. passing each item to this Fitter in parallel and then finishing.
+    *
+    * @param items the items to fit
+    */
+   default void fit(@NonNull MStream<? extends T> items) {
+      items.parallel().forEach(this::accept);
+      finish();
+   }
+
+   /**
+    * Sets the state of the transform from the accumulated values. Called once all items have been seen.
+    */
+   void finish();
+
+}//END OF Fitter
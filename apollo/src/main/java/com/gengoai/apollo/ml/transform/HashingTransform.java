@@ -55,6 +55,11 @@ public class HashingTransform extends AbstractSingleSourceTransform<HashingTrans
 
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    public Observation transform(@NonNull Observation observation) {
       return new VariableList(observation.getVariableSpace()
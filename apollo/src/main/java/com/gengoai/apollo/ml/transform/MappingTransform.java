@@ -43,6 +43,11 @@ public class MappingTransform extends AbstractSingleSourceTransform<MappingTrans
 
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    protected Observation transform(@NonNull Observation observation) {
       observation.mapVariables(mapper);
@@ -98,6 +98,11 @@ public class Merge implements Transform {
       return transform(dataset);
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    public Set<String> getInputs() {
       return Sets.asHashSet(inputs);
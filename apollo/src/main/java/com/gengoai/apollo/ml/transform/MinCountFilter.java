@@ -22,14 +22,14 @@ package com.gengoai.apollo.ml.transform;
 import com.gengoai.apollo.ml.DataSet;
 import com.gengoai.apollo.ml.observation.Observation;
 import com.gengoai.apollo.ml.observation.Variable;
+import com.gengoai.stream.MCounterAccumulator;
 import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
 import com.gengoai.string.Strings;
 import lombok.NonNull;
 
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -62,14 +62,19 @@ public class MinCountFilter extends AbstractSingleSourceTransform<MinCountFilter
       this.unknown = Strings.emptyToNull(unknown);
    }
 
+   @Override
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      MCounterAccumulator<String> counts = context.counterAccumulator();
+      return Fitter.of(o -> o.getVariableSpace().forEach(v -> counts.increment(v.getName(), 1)),
+                       () -> {
+                          vocab.clear();
+                          vocab.addAll(counts.value().filterByValue(v -> v >= minCount).items());
+                       });
+   }
+
    @Override
    protected void fit(@NonNull MStream<Observation> observations) {
-      Map<String, Long> m = observations.flatMap(Observation::getVariableSpace)
-                                        .map(Variable::getName)
-                                        .collect(Collectors.groupingBy(i -> i, Collectors.counting()));
-      m.values().removeIf(v -> v < minCount);
-      vocab.clear();
-      vocab.addAll(m.keySet());
+      createFitter(observations.getContext()).fit(observations);
    }
 
    @Override
@@ -21,8 +21,11 @@ package com.gengoai.apollo.ml.transform;
 
 import com.gengoai.Validation;
 import com.gengoai.apollo.ml.DataSet;
+import com.gengoai.apollo.ml.observation.Observation;
 import com.gengoai.apollo.ml.observation.Variable;
 import com.gengoai.math.Math2;
+import com.gengoai.stream.MKeyedStatisticsAccumulator;
+import com.gengoai.stream.StreamingContext;
 import com.gengoai.stream.Streams;
 import lombok.NonNull;
 
@@ -51,11 +54,24 @@ public class Rescale extends PerPrefixTransform<Rescale> {
     * @param newMaX the new ma x
     */
    public Rescale(double newMin, double newMaX) {
-      Validation.checkArgument(newMaX > newMaX, "Max must be > min");
+      Validation.checkArgument(newMaX > newMin, "Max must be > min");
       this.newMin = newMin;
       this.newMaX = newMaX;
    }
 
+   @Override
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      MKeyedStatisticsAccumulator<String> statistics = context.keyedStatisticsAccumulator();
+      return Fitter.of(o -> o.getVariableSpace().forEach(v -> statistics.add(v.getPrefix(), v.getValue())),
+                       () -> {
+                          reset();
+                          statistics.value().forEach((prefix, summary) -> {
+                             mins.put(prefix, summary.getMin());
+                             maxs.put(prefix, summary.getMax());
+                          });
+                       });
+   }
+
    @Override
    protected void fit(@NonNull String prefix, @NonNull Iterable<Variable> variables) {
       DoubleSummaryStatistics stats = Streams.asStream(variables)
@@ -37,6 +37,11 @@ public class Sequence2Instance extends AbstractSingleSourceTransform<Sequence2In
 
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    protected Observation transform(@NonNull Observation observation) {
       return new VariableList(observation.getVariableSpace());
@@ -43,6 +43,11 @@ public class SequenceVectorContext extends AbstractSingleSourceTransform<Sequenc
 
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    protected Observation transform(@NonNull Observation observation) {
       NDArray sequence = observation.asNDArray();
@@ -23,11 +23,10 @@ import com.gengoai.apollo.ml.DataSet;
 import com.gengoai.apollo.ml.observation.Observation;
 import com.gengoai.apollo.ml.observation.Variable;
 import com.gengoai.apollo.ml.observation.VariableNameSpace;
+import com.gengoai.stream.MKeyedStatisticsAccumulator;
 import com.gengoai.stream.MStream;
-import com.gengoai.stream.Streams;
+import com.gengoai.stream.StreamingContext;
 import lombok.NonNull;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -45,19 +44,23 @@ public class StandardScalar extends AbstractSingleSourceTransform<StandardScalar
       this.namingPattern = namingPattern;
    }
 
+   @Override
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      MKeyedStatisticsAccumulator<String> statistics = context.keyedStatisticsAccumulator();
+      return Fitter.of(o -> o.getVariableSpace().forEach(v -> statistics.add(namingPattern.getName(v), v.getValue())),
+                       () -> {
+                          means.clear();
+                          standardDeviations.clear();
+                          statistics.value().forEach((key, summary) -> {
+                             means.put(key, summary.getAverage());
+                             standardDeviations.put(key, summary.getSampleStandardDeviation());
+                          });
+                       });
+   }
+
    @Override
    protected void fit(@NonNull MStream<Observation> observations) {
-      means.clear();
-      standardDeviations.clear();
-      observations.flatMap(Observation::getVariableSpace)
-                  .groupBy(namingPattern::getName)
-                  .forEachLocal((key, vars) -> {
-                     StatisticalSummary summary = new DescriptiveStatistics(Streams.asStream(vars)
-                                                                                   .mapToDouble(Variable::getValue)
-                                                                                   .toArray());
-                     means.put(key, summary.getMean());
-                     standardDeviations.put(key, summary.getStandardDeviation());
-                  });
+      createFitter(observations.getContext()).fit(observations);
    }
 
    @Override
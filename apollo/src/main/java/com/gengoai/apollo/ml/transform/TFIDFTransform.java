@@ -27,6 +27,7 @@ import com.gengoai.collection.counter.Counters;
 import com.gengoai.collection.counter.MultiCounter;
 import com.gengoai.stream.MCounterAccumulator;
 import com.gengoai.stream.MMultiCounterAccumulator;
+import com.gengoai.stream.StreamingContext;
 import lombok.NonNull;
 
 import java.util.List;
@@ -55,16 +56,12 @@ public class TFIDFTransform extends PerPrefixTransform<TFIDFTransform> {
    }
 
    @Override
-   public DataSet fitAndTransform(DataSet dataset) {
-      MCounterAccumulator<String> totalDocumentAccumulator = dataset.getType()
-                                                                    .getStreamingContext()
-                                                                    .counterAccumulator();
-      MMultiCounterAccumulator<String, String> prefixWordAccumulator = dataset.getType()
-                                                                              .getStreamingContext()
-                                                                              .multiCounterAccumulator();
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      MCounterAccumulator<String> totalDocumentAccumulator = context.counterAccumulator();
+      MMultiCounterAccumulator<String, String> prefixWordAccumulator = context.multiCounterAccumulator();
       // Calculate Label-Feature Coccurrences
-      dataset.parallelStream().forEach(d -> {
-         Map<String, List<Variable>> m = splitIntoPrefixes(d.get(input));
+      return Fitter.of(o -> {
+         Map<String, List<Variable>> m = splitIntoPrefixes(o);
          for(String prefix : m.keySet()) {
             totalDocumentAccumulator.increment(prefix, 1d);
             m.get(prefix)
@@ -73,16 +70,16 @@ public class TFIDFTransform extends PerPrefixTransform<TFIDFTransform> {
              .distinct()
              .forEach(s -> prefixWordAccumulator.increment(prefix, s));
          }
+      }, () -> {
+         totalDocuments = totalDocumentAccumulator.value();
+         prefixWordDocumentCounts = prefixWordAccumulator.value();
+         for(String prefix : prefixWordDocumentCounts.firstKeys()) {
+            double total = totalDocuments.get(prefix);
+            prefixWordDocumentCounts.get(prefix)
+                                    .adjustValuesSelf(v -> Math.log((total + 0.5) / (v + 0.5)));
+            totalDocuments.set(prefix, Math.log((total + 0.5) / 0.5));
+         }
       });
-      totalDocuments = totalDocumentAccumulator.value();
-      prefixWordDocumentCounts = prefixWordAccumulator.value();
-      for(String prefix : prefixWordDocumentCounts.firstKeys()) {
-         double total = totalDocuments.get(prefix);
-         prefixWordDocumentCounts.get(prefix)
-                                 .adjustValuesSelf(v -> Math.log((total + 0.5) / (v + 0.5)));
-         totalDocuments.set(prefix, Math.log((total + 0.5) / 0.5));
-      }
-      return transform(dataset);
    }
 
    @Override
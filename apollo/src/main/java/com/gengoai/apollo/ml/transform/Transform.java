@@ -74,6 +74,17 @@ public interface Transform extends Serializable, Copyable<Transform> {
     */
    Set<String> getOutputs();
 
+   /**
+    * Determines if the transform is stateless, i.e. its output for a given {@link Datum} does not depend on the data it
+    * was fit to. Stateless transforms can be applied once to a dataset and their output shared between splits of it,
+    * e.g. the folds of a cross-validation.
+    *
+    * @return True if the transform is stateless, False otherwise
+    */
+   default boolean isStateless() {
+      return false;
+   }
+
    /**
     * Transforms the given named {@link Datum}
     *
@@ -19,18 +19,16 @@
 
 package com.gengoai.apollo.ml.transform;
 
-import com.gengoai.apollo.ml.DataSet;
-import com.gengoai.apollo.ml.Datum;
-import com.gengoai.apollo.ml.ObservationMetadata;
-import com.gengoai.apollo.ml.StreamingDataSet;
+import com.gengoai.apollo.ml.*;
+import com.gengoai.conversion.Cast;
+import com.gengoai.function.SerializableFunction;
+import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
 import lombok.Getter;
 import lombok.NonNull;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -62,20 +60,92 @@ public class Transformer implements Serializable, Transform {
       return new Transformer(transforms);
    }
 
+   /**
+    * <p>
+    * Fits the transforms to the dataset in as few passes as possible. Consecutive transforms that can be fit one datum
+    * at a time (see {@link AbstractSingleSourceTransform#createFitter(StreamingContext)}) and whose inputs are not the
+    * outputs of another transform in the group are fit together in a single pass. For datasets that are not stored
+    * in memory the fitted transforms are not applied to the dataset immediately, instead they are applied lazily to
+    * the datum seen by the subsequent fitting passes and applied to the dataset as single fused function at the end.
+    * </p>
+    *
+    * @param dataset the dataset
+    * @return the transformed DataSet
+    */
    @Override
    public DataSet fitAndTransform(DataSet dataset) {
       DataSet temp = dataset;
       if(dataset instanceof StreamingDataSet) {
          temp = temp.map(Datum::copy);
       }
-      for(Transform transform : transforms) {
-         temp = transform.fitAndTransform(temp);
+      List<AbstractSingleSourceTransform<?>> pending = new ArrayList<>();
+      for(int i = 0; i < transforms.size(); ) {
+         List<Fitter<Datum>> fitters = new ArrayList<>();
+         List<AbstractSingleSourceTransform<?>> group = new ArrayList<>();
+         Set<String> outputs = new HashSet<>();
+         for(; i < transforms.size(); i++) {
+            Transform transform = transforms.get(i);
+            if(!(transform instanceof AbstractSingleSourceTransform)
+                  || transform.getInputs().stream().anyMatch(outputs::contains)) {
+               break;
+            }
+            AbstractSingleSourceTransform<?> singleSourceTransform = Cast.as(transform);
+            Fitter<Datum> fitter = singleSourceTransform.createFitter(temp);
+            if(fitter == null) {
+               break;
+            }
+            fitters.add(fitter);
+            group.add(singleSourceTransform);
+            outputs.addAll(transform.getOutputs());
+         }
+
+         if(group.isEmpty()) {
+            temp = applyPending(temp, pending);
+            temp = transforms.get(i).fitAndTransform(temp);
+            i++;
+            continue;
+         }
+
+         MStream<Datum> stream = temp.parallelStream();
+         if(pending.size() > 0) {
+            SerializableFunction<Datum, Datum> pendingFunction = fuse(pending);
+            stream = stream.map(pendingFunction);
+         }
+         stream.forEach(datum -> fitters.forEach(fitter -> fitter.accept(datum)));
+         fitters.forEach(Fitter::finish);
+         pending.addAll(group);
+         if(temp.getType() == DataSetType.InMemory) {
+            temp = applyPending(temp, pending);
+         }
       }
+      temp = applyPending(temp, pending);
       metadata.clear();
       metadata.putAll(temp.getMetadata());
       return temp;
    }
 
+   private static DataSet applyPending(DataSet dataset, List<AbstractSingleSourceTransform<?>> pending) {
+      if(pending.isEmpty()) {
+         return dataset;
+      }
+      DataSet out = dataset.map(fuse(pending));
+      for(AbstractSingleSourceTransform<?> transform : pending) {
+         transform.updateMetadata(out);
+      }
+      pending.clear();
+      return out;
+   }
+
+   private static SerializableFunction<Datum, Datum> fuse(List<? extends Transform> transforms) {
+      final List<Transform> fused = new ArrayList<>(transforms);
+      return datum -> {
+         for(Transform transform : fused) {
+            datum = transform.transform(datum);
+         }
+         return datum;
+      };
+   }
+
    @Override
    public Set<String> getInputs() {
       return transforms.stream().flatMap(d -> d.getInputs().stream()).collect(Collectors.toSet());
@@ -86,6 +156,11 @@ public class Transformer implements Serializable, Transform {
       return transforms.stream().flatMap(d -> d.getOutputs().stream()).collect(Collectors.toSet());
    }
 
+   @Override
+   public boolean isStateless() {
+      return transforms.stream().allMatch(Transform::isStateless);
+   }
+
    @Override
    public DataSet transform(@NonNull DataSet dataset) {
       DataSet out = dataset;
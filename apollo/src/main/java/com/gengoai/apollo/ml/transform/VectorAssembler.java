@@ -51,6 +51,11 @@ public class VectorAssembler implements Transform {
       return transform(dataset);
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    public Set<String> getInputs() {
       return new HashSet<>(inputs);
@@ -53,6 +53,11 @@ public class VectorConcatenation implements Transform {
       return transform(dataset);
    }
 
+   @Override
+   public boolean isStateless() {
+      return true;
+   }
+
    @Override
    public Set<String> getInputs() {
       return Collections.unmodifiableSet(inputs);
@@ -22,13 +22,19 @@ package com.gengoai.apollo.ml.transform.vectorizer;
 import com.gengoai.apollo.math.linalg.NDArray;
 import com.gengoai.apollo.ml.DataSet;
 import com.gengoai.apollo.ml.encoder.Encoder;
+import com.gengoai.apollo.ml.encoder.IndexEncoder;
 import com.gengoai.apollo.ml.observation.Observation;
 import com.gengoai.apollo.ml.transform.AbstractSingleSourceTransform;
+import com.gengoai.apollo.ml.transform.Fitter;
 import com.gengoai.apollo.ml.transform.Transform;
+import com.gengoai.stream.MAccumulator;
 import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.util.Set;
+
 /**
  * <p>
  * Base class for specialized {@link Transform}s that converts {@link Observation}s into {@link NDArray} observations.
@@ -46,6 +52,19 @@ public abstract class Vectorizer<T extends Vectorizer<T>> extends AbstractSingle
       this.encoder = encoder;
    }
 
+   @Override
+   protected Fitter<Observation> createFitter(@NonNull StreamingContext context) {
+      if(encoder.isFixed()) {
+         return Fitter.noOpt();
+      }
+      if(encoder instanceof IndexEncoder) {
+         MAccumulator<String, Set<String>> names = context.setAccumulator();
+         return Fitter.of(o -> o.getVariableSpace().forEach(v -> names.add(v.getName())),
+                          () -> ((IndexEncoder) encoder).fit(names.value()));
+      }
+      return null;
+   }
+
    @Override
    protected void fit(@NonNull MStream<Observation> observations) {
       if(!encoder.isFixed()) {
@@ -53,6 +72,11 @@ public abstract class Vectorizer<T extends Vectorizer<T>> extends AbstractSingle
       }
    }
 
+   @Override
+   public boolean isStateless() {
+      return encoder.isFixed();
+   }
+
    @Override
    protected void updateMetadata(@NonNull DataSet dataset) {
       dataset.updateMetadata(output, m -> {
@@ -0,0 +1,135 @@
+package com.gengoai.apollo.ml;
+
+import com.gengoai.apollo.math.linalg.NDArray;
+import com.gengoai.apollo.math.linalg.NDArrayFactory;
+import com.gengoai.apollo.ml.observation.*;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.json.Json;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.gengoai.tuple.Tuples.$;
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class ColumnarDataSetTest {
+
+   private static void assertSameDatum(Datum expected, Datum actual) {
+      assertEquals(expected.keySet(), actual.keySet());
+      for (String source : expected.keySet()) {
+         Observation e = expected.get(source);
+         Observation a = actual.get(source);
+         assertEquals(e.getClass(), a.getClass());
+         if (e.isNDArray()) {
+            assertEquals(e.asNDArray().shape(), a.asNDArray().shape());
+            assertArrayEquals(e.asNDArray().toFloatArray(), a.asNDArray().toFloatArray(), 0f);
+            assertEquals((Object) e.asNDArray().getLabel(), a.asNDArray().getLabel());
+         } else {
+            assertEquals(Json.dumps(e), Json.dumps(a));
+         }
+      }
+   }
+
+   private static Datum datum(int i) {
+      Datum datum = new Datum();
+      datum.put("dense", NDArrayFactory.DENSE.array(new float[]{i, i + 1, i + 2}));
+      NDArray sparse = NDArrayFactory.SPARSE.array(1, 100);
+      sparse.set(i % 100, i);
+      datum.put("sparse", sparse);
+      datum.put(Datum.DEFAULT_OUTPUT, Variable.binary("label" + (i % 3)));
+      if (i % 2 == 0) {
+         datum.put("words", new VariableList(Variable.binary("w" + i), Variable.real("length", i)));
+      }
+      datum.put("sequence", new VariableSequence(List.of(Variable.binary("a"), Variable.binary("b" + i))));
+      datum.put("labeled", NDArrayFactory.DENSE.array(new float[]{i}).setLabel("L" + i));
+      return datum;
+   }
+
+   @Test
+   public void batchAndShuffle() {
+      ColumnarDataSet dataSet = new ColumnarDataSet(Resources.temporaryFile().deleteOnExit(),
+                                                    IntStream.range(0, 100).mapToObj(ColumnarDataSetTest::datum),
+                                                    16);
+      int total = 0;
+      Iterator<DataSet> batches = dataSet.batchIterator(30);
+      while (batches.hasNext()) {
+         DataSet batch = batches.next();
+         assertTrue(batch.size() <= 30);
+         total += batch.size();
+      }
+      assertEquals(100, total);
+
+      List<String> expected = IntStream.range(0, 100).mapToObj(i -> "L" + i).collect(Collectors.toList());
+      dataSet.shuffle(new Random(1234));
+      List<String> shuffled = dataSet.stream()
+                                     .map(d -> d.get("labeled").asNDArray().getLabel().toString())
+                                     .collect();
+      assertEquals(100, shuffled.size());
+      assertEquals(new HashSet<>(expected), new HashSet<>(shuffled));
+      assertNotEquals(expected, shuffled);
+   }
+
+   @Test
+   public void footerUpdates() throws Exception {
+      Resource location = Resources.temporaryFile();
+      File file = location.asFile().orElseThrow();
+      ColumnarDataSet dataSet = new ColumnarDataSet(location,
+                                                    IntStream.range(0, 20).mapToObj(ColumnarDataSetTest::datum),
+                                                    8);
+      dataSet.updateMetadata("dense", m -> m.setDimension(1));
+      dataSet.updateMetadata("dense", m -> m.setDimension(2));
+      long length = file.length();
+      for (int i = 3; i <= 10; i++) {
+         int dimension = i;
+         dataSet.updateMetadata("dense", m -> m.setDimension(dimension));
+         //Footers of the same size alternate between two slots rather than growing the file
+         assertTrue(file.length() <= length);
+         assertEquals(i, new ColumnarDataSet(location).getMetadata("dense").getDimension());
+      }
+
+      //A footer torn by a crash is never pointed to, so the data set opens with the last complete footer
+      Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+      ColumnarDataSet reopened = new ColumnarDataSet(location);
+      assertEquals(10, reopened.getMetadata("dense").getDimension());
+      assertEquals(20, reopened.size());
+      assertSameDatum(datum(13), reopened.get(13));
+   }
+
+   @Test
+   public void roundTrip() throws Exception {
+      Resource location = Resources.temporaryFile();
+      List<Datum> data = IntStream.range(0, 50).mapToObj(ColumnarDataSetTest::datum).collect(Collectors.toList());
+      DataSet dataSet = new ColumnarDataSet(location, data.stream(), 7);
+      assertEquals(50, dataSet.size());
+      List<Datum> read = dataSet.collect();
+      for (int i = 0; i < data.size(); i++) {
+         assertSameDatum(data.get(i), read.get(i));
+         assertSameDatum(data.get(i), ((ColumnarDataSet) dataSet).get(i));
+      }
+
+      dataSet.updateMetadata("dense", m -> m.setDimension(3));
+      dataSet.setNDArrayFactory(NDArrayFactory.SPARSE);
+      ColumnarDataSet reopened = new ColumnarDataSet(location);
+      assertEquals(3, reopened.getMetadata("dense").getDimension());
+      assertEquals(NDArrayFactory.SPARSE, reopened.getNDArrayFactory());
+      assertSameDatum(data.get(42), reopened.get(42));
+
+      DataSet mapped = reopened.map(d -> {
+         d.remove("sequence");
+         return d;
+      });
+      assertEquals(50, mapped.size());
+      assertEquals(0, mapped.stream().filter(d -> d.containsKey("sequence")).count());
+      assertEquals(3, mapped.getMetadata("dense").getDimension());
+   }
+
+}//END OF ColumnarDataSetTest
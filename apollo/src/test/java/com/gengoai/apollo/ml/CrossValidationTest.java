@@ -0,0 +1,153 @@
+package com.gengoai.apollo.ml;
+
+import com.gengoai.apollo.math.linalg.NDArrayFactory;
+import com.gengoai.apollo.ml.data.CSVDataSetReader;
+import com.gengoai.apollo.ml.evaluation.BinaryEvaluation;
+import com.gengoai.apollo.ml.evaluation.CrossValidation;
+import com.gengoai.apollo.ml.evaluation.MultiClassEvaluation;
+import com.gengoai.apollo.ml.evaluation.RegressionEvaluation;
+import com.gengoai.apollo.ml.model.Model;
+import com.gengoai.apollo.ml.model.NaiveBayes;
+import com.gengoai.apollo.ml.model.PipelineModel;
+import com.gengoai.apollo.ml.transform.VectorAssembler;
+import com.gengoai.apollo.ml.transform.vectorizer.IndexingVectorizer;
+import com.gengoai.collection.Sets;
+import com.gengoai.io.CSV;
+import com.gengoai.io.Resources;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author David B. Bracewell
+ */
+public class CrossValidationTest {
+   private static final int FOLDS = 5;
+
+   private static void assertSameEvaluation(MultiClassEvaluation expected, MultiClassEvaluation actual) {
+      assertEquals(expected.accuracy(), actual.accuracy(), 0);
+      assertEquals(expected.truePositives(), actual.truePositives(), 0);
+      assertEquals(expected.falsePositives(), actual.falsePositives(), 0);
+      assertEquals(expected.falseNegatives(), actual.falseNegatives(), 0);
+      assertEquals(expected.trueNegatives(), actual.trueNegatives(), 0);
+      assertEquals(expected.f1PerClass(), actual.f1PerClass());
+   }
+
+   static DataSet irisDataset() {
+      CSVDataSetReader csv = new CSVDataSetReader(CSV.builder().hasHeader(true));
+      try {
+         DataSet ds = csv.read(Resources.fromClasspath("com/gengoai/apollo/ml/iris.csv"));
+         ds.probe();
+         return ds;
+      } catch(IOException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   static PipelineModel irisPipeline(DataSet dataset) {
+      return PipelineModel.builder()
+                          .transform(new VectorAssembler(Sets.difference(dataset.getMetadata().keySet(),
+                                                                         Collections.singleton("class")),
+                                                         Datum.DEFAULT_INPUT))
+                          .source("class", new IndexingVectorizer())
+                          .build(new NaiveBayes(p -> {
+                             p.output.set("class");
+                             p.modelType.set(NaiveBayes.ModelType.Multinomial);
+                          }));
+   }
+
+   private List<CrossValidation.Fold<MultiClassEvaluation>> folds(int parallelism) {
+      DataSet dataset = irisDataset();
+      return new CrossValidation(FOLDS).parallelism(parallelism)
+                                       .evaluateFolds(dataset,
+                                                      irisPipeline(dataset),
+                                                      () -> new MultiClassEvaluation("class"));
+   }
+
+   @Test
+   public void binaryMerge() {
+      Random random = new Random(1234);
+      BinaryEvaluation all = new BinaryEvaluation("label");
+      BinaryEvaluation first = new BinaryEvaluation("label");
+      BinaryEvaluation second = new BinaryEvaluation("label");
+      for(int i = 0; i < 100; i++) {
+         double gold = random.nextBoolean() ? 1 : 0;
+         double p = random.nextDouble();
+         all.entry(gold, NDArrayFactory.ND.rowVector(new double[]{1 - p, p}));
+         (i < 40 ? first : second).entry(gold, NDArrayFactory.ND.rowVector(new double[]{1 - p, p}));
+      }
+      first.merge(second);
+      assertEquals(all.accuracy(), first.accuracy(), 1e-12);
+      assertEquals(all.auc(), first.auc(), 1e-12);
+      assertEquals(all.baseline(), first.baseline(), 1e-12);
+      assertEquals(all.truePositives(), first.truePositives(), 0);
+      assertEquals(all.trueNegatives(), first.trueNegatives(), 0);
+      assertEquals(all.falsePositives(), first.falsePositives(), 0);
+      assertEquals(all.falseNegatives(), first.falseNegatives(), 0);
+   }
+
+   @Test
+   public void concurrentFoldsMatchSequential() {
+      List<CrossValidation.Fold<MultiClassEvaluation>> sequential = folds(1);
+      List<CrossValidation.Fold<MultiClassEvaluation>> concurrent = folds(3);
+      assertEquals(FOLDS, sequential.size());
+      assertEquals(FOLDS, concurrent.size());
+      for(int i = 0; i < FOLDS; i++) {
+         assertEquals(i, sequential.get(i).getIndex());
+         assertEquals(i, concurrent.get(i).getIndex());
+         assertSameEvaluation(sequential.get(i).getEvaluation(), concurrent.get(i).getEvaluation());
+      }
+   }
+
+   @Test
+   public void foldsMatchFullPipelinePerSplit() {
+      List<CrossValidation.Fold<MultiClassEvaluation>> folds = folds(1);
+      for(int i = 0; i < FOLDS; i++) {
+         DataSet dataset = irisDataset();
+         Split split = Split.createFold(dataset, i, FOLDS);
+         Model model = irisPipeline(dataset);
+         model.estimate(split.train);
+         MultiClassEvaluation evaluation = new MultiClassEvaluation("class");
+         evaluation.evaluate(model, split.test);
+         assertSameEvaluation(evaluation, folds.get(i).getEvaluation());
+      }
+   }
+
+   @Test
+   public void mergedMatchesFolds() {
+      DataSet dataset = irisDataset();
+      MultiClassEvaluation merged = new CrossValidation(FOLDS).evaluate(dataset,
+                                                                        irisPipeline(dataset),
+                                                                        () -> new MultiClassEvaluation("class"),
+                                                                        MultiClassEvaluation::merge);
+      MultiClassEvaluation expected = new MultiClassEvaluation("class");
+      for(CrossValidation.Fold<MultiClassEvaluation> fold : folds(1)) {
+         expected.merge(fold.getEvaluation());
+      }
+      assertSameEvaluation(expected, merged);
+   }
+
+   @Test
+   public void regressionMerge() {
+      Random random = new Random(1234);
+      RegressionEvaluation all = new RegressionEvaluation(Datum.DEFAULT_INPUT, Datum.DEFAULT_OUTPUT);
+      RegressionEvaluation first = new RegressionEvaluation(Datum.DEFAULT_INPUT, Datum.DEFAULT_OUTPUT);
+      RegressionEvaluation second = new RegressionEvaluation(Datum.DEFAULT_INPUT, Datum.DEFAULT_OUTPUT);
+      for(int i = 0; i < 100; i++) {
+         double gold = random.nextGaussian();
+         double predicted = gold + random.nextGaussian() * 0.1;
+         all.entry(gold, NDArrayFactory.ND.rowVector(new double[]{predicted}));
+         (i < 40 ? first : second).entry(gold, NDArrayFactory.ND.rowVector(new double[]{predicted}));
+      }
+      first.merge(second);
+      assertEquals(all.squaredError(), first.squaredError(), 1e-12);
+      assertEquals(all.meanSquaredError(), first.meanSquaredError(), 1e-12);
+      assertEquals(all.r2(), first.r2(), 1e-12);
+   }
+
+}//END OF CrossValidationTest
@@ -0,0 +1,61 @@
+package com.gengoai.apollo.ml;
+
+import com.gengoai.apollo.ml.model.PipelineModel;
+import com.gengoai.apollo.ml.observation.Variable;
+import com.gengoai.apollo.ml.transform.MappingTransform;
+import com.gengoai.apollo.ml.transform.Transform;
+import com.gengoai.apollo.ml.transform.Transformer;
+import com.gengoai.apollo.ml.transform.VectorAssembler;
+import com.gengoai.apollo.ml.transform.vectorizer.HashingVectorizer;
+import com.gengoai.apollo.ml.transform.vectorizer.IndexingVectorizer;
+import com.gengoai.tuple.Tuple2;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class PipelineModelTest {
+
+   @Test
+   public void isStateless() {
+      Transform assembler = new VectorAssembler(List.of("a", "b"), Datum.DEFAULT_INPUT);
+      Transform mapping = new MappingTransform(v -> Variable.binary(v.getName().toLowerCase()));
+      Transform hashing = new HashingVectorizer(100, true);
+      Transform indexing = new IndexingVectorizer();
+      assertTrue(assembler.isStateless());
+      assertTrue(mapping.isStateless());
+      assertTrue(hashing.isStateless());
+      assertFalse(indexing.isStateless());
+      assertTrue(new Transformer(List.of(assembler, mapping, hashing)).isStateless());
+      assertFalse(new Transformer(List.of(assembler, indexing)).isStateless());
+   }
+
+   @Test
+   public void splitStatelessAndPrepend() {
+      DataSet dataset = CrossValidationTest.irisDataset();
+      PipelineModel full = CrossValidationTest.irisPipeline(dataset);
+      Tuple2<Transformer, PipelineModel> split = full.splitStateless();
+      assertEquals(1, split.v1.getTransforms().size());
+      assertTrue(split.v1.getTransforms().get(0) instanceof VectorAssembler);
+      assertFalse(split.v2.splitStateless().v1.getTransforms().size() > 0);
+
+      //Fit the remainder on data transformed by the stateless prefix only once
+      DataSet transformed = split.v1.fitAndTransform(CrossValidationTest.irisDataset());
+      split.v2.estimate(transformed);
+      PipelineModel restored = split.v2.prepend(split.v1);
+      assertEquals(full.getInputs(), restored.getInputs());
+      assertEquals(full.getOutputs(), restored.getOutputs());
+
+      full.estimate(dataset);
+      for(Datum datum : CrossValidationTest.irisDataset()) {
+         assertArrayEquals(full.transform(datum.copy()).get("class").asNDArray().toDoubleArray(),
+                           restored.transform(datum.copy()).get("class").asNDArray().toDoubleArray(),
+                           1e-12);
+      }
+   }
+
+}//END OF PipelineModelTest
@@ -0,0 +1,89 @@
+package com.gengoai.apollo.ml;
+
+import com.gengoai.apollo.ml.observation.Variable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class SplitTest {
+
+   private static DataSet dataset(String prefix, int size) {
+      return new InMemoryDataSet(IntStream.range(0, size)
+                                          .mapToObj(i -> {
+                                             Datum datum = new Datum();
+                                             datum.put(Datum.DEFAULT_INPUT, Variable.binary(prefix + i));
+                                             return datum;
+                                          })
+                                          .collect(Collectors.toList()));
+   }
+
+   private static List<String> names(DataSet dataset) {
+      return dataset.stream()
+                    .map(d -> d.get(Datum.DEFAULT_INPUT).asVariable().getName())
+                    .collect();
+   }
+
+   @Test
+   public void createFoldMatchesCreateFolds() {
+      DataSet dataset = dataset("d", 11);
+      Split[] folds = Split.createFolds(dataset, 3);
+      Set<String> tested = new HashSet<>();
+      for(int i = 0; i < folds.length; i++) {
+         Split fold = Split.createFold(dataset, i, 3);
+         assertEquals(names(folds[i].train), names(fold.train));
+         assertEquals(names(folds[i].test), names(fold.test));
+         assertEquals(3, fold.test.size());
+         assertEquals(8, fold.train.size());
+
+         Set<String> all = new HashSet<>(names(fold.train));
+         for(String name : names(fold.test)) {
+            assertTrue(all.add(name));
+            assertTrue(tested.add(name));
+         }
+         assertEquals(new HashSet<>(names(dataset)), all);
+      }
+      assertEquals(9, tested.size());
+   }
+
+   @Test
+   public void createFoldCopiesData() {
+      DataSet dataset = dataset("d", 10);
+      Split fold = Split.createFold(dataset, 0, 2);
+      fold.test.forEach(d -> d.put(Datum.DEFAULT_INPUT, Variable.binary("changed")));
+      fold.train.forEach(d -> d.put(Datum.DEFAULT_INPUT, Variable.binary("changed")));
+      List<String> expected = new ArrayList<>();
+      IntStream.range(0, 10).forEach(i -> expected.add("d" + i));
+      assertEquals(expected, names(dataset));
+   }
+
+   @Test
+   public void createFoldFromSeparateData() {
+      DataSet training = dataset("train", 10);
+      DataSet testing = dataset("test", 10);
+      Split fold = Split.createFold(training, testing, 1, 5);
+      assertEquals(List.of("test2", "test3"), names(fold.test));
+      assertEquals(List.of("train0", "train1", "train4", "train5", "train6", "train7", "train8", "train9"),
+                   names(fold.train));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createFoldDifferentSizes() {
+      Split.createFold(dataset("train", 10), dataset("test", 9), 0, 2);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createFoldInvalidFold() {
+      Split.createFold(dataset("d", 10), 2, 2);
+   }
+
+}//END OF SplitTest
@@ -0,0 +1,230 @@
+package com.gengoai.apollo.ml.transform;
+
+import com.gengoai.apollo.math.linalg.NDArray;
+import com.gengoai.apollo.ml.DataSet;
+import com.gengoai.apollo.ml.Datum;
+import com.gengoai.apollo.ml.InMemoryDataSet;
+import com.gengoai.apollo.ml.StreamingDataSet;
+import com.gengoai.apollo.ml.encoder.Encoder;
+import com.gengoai.apollo.ml.observation.Observation;
+import com.gengoai.apollo.ml.observation.Variable;
+import com.gengoai.apollo.ml.observation.VariableList;
+import com.gengoai.apollo.ml.observation.VariableNameSpace;
+import com.gengoai.apollo.ml.transform.vectorizer.CountVectorizer;
+import com.gengoai.stream.StreamingContext;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class TransformerTest {
+   private static final int SIZE = 50;
+   //Variable values are stored as floats
+   private static final double TOLERANCE = 1e-6;
+
+   private static void assertSameData(List<Datum> expected, Encoder expectedEncoder,
+                                      List<Datum> actual, Encoder actualEncoder) {
+      assertEquals(expected.size(), actual.size());
+      for(int i = 0; i < expected.size(); i++) {
+         Datum e = expected.get(i);
+         Datum a = actual.get(i);
+         assertEquals(e.keySet(), a.keySet());
+         assertEquals(vector(e.get("wordsV").asNDArray(), expectedEncoder),
+                      vector(a.get("wordsV").asNDArray(), actualEncoder));
+         for(String source : List.of("words", "tf", "num", "scaled")) {
+            assertSameVariables(e.get(source), a.get(source));
+         }
+      }
+   }
+
+   private static void assertSameVariables(Observation expected, Observation actual) {
+      List<Variable> e = sorted(expected);
+      List<Variable> a = sorted(actual);
+      assertEquals(e.stream().map(Variable::getName).collect(Collectors.toList()),
+                   a.stream().map(Variable::getName).collect(Collectors.toList()));
+      for(int i = 0; i < e.size(); i++) {
+         assertEquals(e.get(i).getValue(), a.get(i).getValue(), TOLERANCE);
+      }
+   }
+
+   private static Datum datum(int i) {
+      Datum datum = new Datum();
+      datum.put("words", new VariableList(Variable.binary("w" + (i % 7)),
+                                          Variable.binary("v" + (i % 3)),
+                                          Variable.binary("rare" + i)));
+      datum.put("tf", new VariableList(Variable.binary("a", "x" + (i % 4)),
+                                       Variable.binary("a", "x" + (i % 4)),
+                                       Variable.binary("b", "y" + (i % 5))));
+      datum.put("num", new VariableList(Variable.real("f", "x", i * 0.5),
+                                        Variable.real("g", "y", (i % 10) - 3)));
+      datum.put("scaled", new VariableList(Variable.real("f", "x", i * 2.0),
+                                           Variable.real("g", "y", 100 - i)));
+      return datum;
+   }
+
+   private static List<Datum> data() {
+      return IntStream.range(0, SIZE).mapToObj(TransformerTest::datum).collect(Collectors.toList());
+   }
+
+   private static List<Observation> observations(String source) {
+      return data().stream().map(d -> d.get(source)).collect(Collectors.toList());
+   }
+
+   private static List<Variable> sorted(Observation observation) {
+      return observation.getVariableSpace()
+                        .sorted(Comparator.comparing(Variable::getName))
+                        .collect(Collectors.toList());
+   }
+
+   private static List<Transform> transforms() {
+      //The vectorizer reads the output of the MinCountFilter, so the transforms are fit in two passes
+      return List.of(new MinCountFilter(2).source("words"),
+                     new CountVectorizer().input("words").output("wordsV"),
+                     new TFIDFTransform().source("tf"),
+                     new StandardScalar(VariableNameSpace.Prefix).source("num"),
+                     new Rescale(0, 1).source("scaled"));
+   }
+
+   private static Map<String, Double> vector(NDArray ndArray, Encoder encoder) {
+      Map<String, Double> map = new HashMap<>();
+      for(int i = 0; i < ndArray.length(); i++) {
+         if(ndArray.get(i) != 0) {
+            map.put(encoder.decode(i), ndArray.get(i));
+         }
+      }
+      return map;
+   }
+
+   private static Encoder encoder(List<Transform> transforms) {
+      return ((CountVectorizer) transforms.get(1)).getEncoder();
+   }
+
+   private void fusedMatchesSequential(DataSet dataset) {
+      List<Transform> sequential = transforms();
+      DataSet expected = new InMemoryDataSet(data());
+      for(Transform transform : sequential) {
+         expected = transform.fitAndTransform(expected);
+      }
+
+      Transformer transformer = new Transformer(transforms());
+      List<Transform> fused = transformer.getTransforms();
+      DataSet actual = transformer.fitAndTransform(dataset);
+      assertSameData(expected.collect(), encoder(sequential), actual.collect(), encoder(fused));
+      assertEquals(expected.getMetadata("wordsV").getDimension(), actual.getMetadata("wordsV").getDimension());
+
+      //The fitted transformer gives the same results as the sequentially fitted transforms on new data
+      List<Datum> newData = IntStream.range(SIZE, SIZE + 10).mapToObj(TransformerTest::datum)
+                                     .map(transformer::transform)
+                                     .collect(Collectors.toList());
+      List<Datum> expectedNewData = new ArrayList<>();
+      for(int i = SIZE; i < SIZE + 10; i++) {
+         Datum datum = datum(i);
+         for(Transform transform : sequential) {
+            datum = transform.transform(datum);
+         }
+         expectedNewData.add(datum);
+      }
+      assertSameData(expectedNewData, encoder(sequential), newData, encoder(fused));
+   }
+
+   @Test
+   public void fusedMatchesSequentialInMemory() {
+      fusedMatchesSequential(new InMemoryDataSet(data()));
+   }
+
+   @Test
+   public void fusedMatchesSequentialStreaming() {
+      fusedMatchesSequential(new StreamingDataSet(StreamingContext.local().stream(data())));
+   }
+
+   @Test
+   public void minCountFilterFitter() {
+      MinCountFilter filter = new MinCountFilter(8);
+      filter.createFitter(StreamingContext.local()).fit(StreamingContext.local().stream(observations("words")));
+      //w0..w6 appear 7 or 8 times, v0..v2 at least 16 times and rare_i once
+      Set<String> kept = new HashSet<>();
+      observations("words").forEach(o -> filter.transform(o).getVariableSpace().forEach(v -> kept.add(v.getName())));
+      assertEquals(Set.of("w0", "v0", "v1", "v2"), kept);
+   }
+
+   @Test
+   public void rescaleConstructor() {
+      Rescale rescale = new Rescale(-1, 1);
+      assertNotNull(rescale);
+      try {
+         new Rescale(1, -1);
+         fail("Expected an IllegalArgumentException when max < min");
+      } catch(IllegalArgumentException e) {
+         //expected
+      }
+   }
+
+   @Test
+   public void rescaleFitterMatchesGroupedFit() {
+      Rescale grouped = new Rescale(-1, 1);
+      grouped.fit(StreamingContext.local().stream(observations("scaled")));
+      Rescale fitter = new Rescale(-1, 1);
+      fitter.createFitter(StreamingContext.local()).fit(StreamingContext.local().stream(observations("scaled")));
+
+      List<Observation> expected = observations("scaled");
+      List<Observation> actual = observations("scaled");
+      for(int i = 0; i < SIZE; i++) {
+         assertSameVariables(grouped.transform(expected.get(i)), fitter.transform(actual.get(i)));
+      }
+      assertEquals(-1, sorted(actual.get(0)).get(0).getValue(), TOLERANCE);
+      assertEquals(1, sorted(actual.get(0)).get(1).getValue(), TOLERANCE);
+      assertEquals(1, sorted(actual.get(SIZE - 1)).get(0).getValue(), TOLERANCE);
+      assertEquals(-1, sorted(actual.get(SIZE - 1)).get(1).getValue(), TOLERANCE);
+   }
+
+   @Test
+   public void standardScalarFitter() {
+      StandardScalar scalar = new StandardScalar(VariableNameSpace.Prefix);
+      scalar.createFitter(StreamingContext.local()).fit(StreamingContext.local().stream(observations("num")));
+      Map<String, double[]> values = new HashMap<>();
+      values.put("f", IntStream.range(0, SIZE).mapToDouble(i -> i * 0.5).toArray());
+      values.put("g", IntStream.range(0, SIZE).mapToDouble(i -> (i % 10) - 3).toArray());
+      for(Map.Entry<String, double[]> e : values.entrySet()) {
+         double mean = Arrays.stream(e.getValue()).average().orElseThrow();
+         double std = Math.sqrt(Arrays.stream(e.getValue()).map(v -> (v - mean) * (v - mean)).sum() / (SIZE - 1));
+         Variable variable = Variable.real(e.getKey(), "z", e.getValue()[7]);
+         assertEquals((e.getValue()[7] - mean) / (std + 1e-4),
+                      scalar.transform(variable).asVariable().getValue(),
+                      TOLERANCE);
+      }
+   }
+
+   @Test
+   public void tfidfFitter() {
+      TFIDFTransform tfidf = new TFIDFTransform();
+      tfidf.createFitter(StreamingContext.local())
+           .fit(StreamingContext.local().stream(List.of(new VariableList(Variable.binary("a", "x")),
+                                                        new VariableList(Variable.binary("a", "x"),
+                                                                         Variable.binary("a", "y")))));
+      Map<String, Double> weights = new HashMap<>();
+      tfidf.transform((Observation) new VariableList(Variable.binary("a", "x"), Variable.binary("a", "y")))
+           .getVariableSpace()
+           .forEach(v -> weights.put(v.getName(), v.getValue()));
+      assertEquals(0, weights.get(Variable.binary("a", "x").getName()), TOLERANCE);
+      assertEquals(0.75 * Math.log(2.5 / 1.5), weights.get(Variable.binary("a", "y").getName()), TOLERANCE);
+   }
+
+   @Test
+   public void vectorizerFitterMatchesEncoderFit() {
+      CountVectorizer encoderFit = new CountVectorizer();
+      encoderFit.getEncoder().fit(StreamingContext.local().stream(observations("words")));
+      CountVectorizer fitter = new CountVectorizer().source("words");
+      DataSet dataset = new InMemoryDataSet(data());
+      ((AbstractSingleSourceTransform<?>) fitter).createFitter(dataset).fit(dataset.parallelStream());
+      assertEquals(new HashSet<>(encoderFit.getEncoder().getAlphabet()),
+                   new HashSet<>(fitter.getEncoder().getAlphabet()));
+      assertEquals(7 + 3 + SIZE, fitter.getEncoder().size());
+   }
+
+}//END OF TransformerTest
@@ -23,13 +23,6 @@ package com.gengoai.hermes.wordnet;
 
 import com.gengoai.Language;
 import com.gengoai.Validation;
-import com.gengoai.cache.AutoCalculatingLRUCache;
-import com.gengoai.cache.Cache;
-import com.gengoai.collection.Iterables;
-import com.gengoai.collection.Sets;
-import com.gengoai.collection.counter.Counter;
-import com.gengoai.collection.counter.Counters;
-import com.gengoai.collection.multimap.ArrayListMultimap;
 import com.gengoai.collection.multimap.HashSetMultimap;
 import com.gengoai.collection.multimap.SetMultimap;
 import com.gengoai.config.Config;
@@ -41,30 +34,38 @@ import com.gengoai.hermes.morphology.PartOfSpeech;
 import com.gengoai.hermes.wordnet.io.WordNetDB;
 import com.gengoai.hermes.wordnet.io.WordNetLoader;
 import com.gengoai.hermes.wordnet.io.WordNetPropertyLoader;
+import com.gengoai.hermes.wordnet.io.WordNetSnapshot;
 import com.gengoai.string.Strings;
-import com.gengoai.tuple.Tuple2;
 import lombok.NonNull;
+import lombok.extern.java.Log;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static com.gengoai.LogUtils.logWarning;
+
 /**
- * The type Word net.
+ * <p>Entry point for accessing WordNet. Senses, synsets and their relations are loaded into a {@link WordNetDB}
+ * using the configured loaders. Hypernym based calculations, i.e. depth, distance, shortest paths and least common
+ * subsumers, are answered using a {@link WordNetSnapshot} of the synset graph, which is created the first time it is
+ * needed. The snapshot is memory mapped from the file given by the <code>WordNet.snapshot</code> property (defaulting
+ * to <code>wordnet/wordnet.snapshot</code> in the Hermes resources directory) and built and written to it if it does
+ * not exist, cannot be read or its fingerprint does not match the loaded synsets and relations.</p>
  *
  * @author David B. Bracewell
  */
+@Log
 public class WordNet {
 
    private static volatile WordNet INSTANCE;
    private final double[] maxDepths = {-1, -1, -1, -1, -1};
    private final WordNetDB db;
 
-   private final Cache<Synset, ArrayListMultimap<Synset, Synset>> shortestPathCache =
-         new AutoCalculatingLRUCache<>(25_000,
-                                       input -> input == null
-                                             ? null
-                                             : dijkstra_path(input));
+   private volatile Hierarchy hierarchy;
 
    private WordNet() {
       db = Config.get("WordNet.db").as(WordNetDB.class);
@@ -104,69 +105,69 @@ public class WordNet {
       return Strings.isNotNullOrBlank(lemma) && db.containsLemma(lemma.toLowerCase());
    }
 
-   private ArrayListMultimap<Synset, Synset> dijkstra_path(Synset source) {
-      Counter<Synset> dist = Counters.newCounter();
-      Map<Synset, Synset> previous = new HashMap<>();
-      Set<Synset> visited = Sets.hashSetOf(source);
-
-      for (Synset other : getSynsets()) {
-         if (!other.equals(source)) {
-            dist.set(other, Integer.MAX_VALUE);
-            previous.put(other, null);
-         }
+   private int indexOf(Synset synset) {
+      int index = snapshot().indexOf(synset.getId());
+      if (index < 0) {
+         throw new IllegalArgumentException("Unknown synset: " + synset.getId());
       }
+      return index;
+   }
 
-      PriorityQueue<Tuple2<Synset, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
-      queue.add(Tuple2.of(source, 0d));
-
-      while (!queue.isEmpty()) {
-         Tuple2<Synset, Double> next = queue.remove();
-
-         Synset synset = next.getV1();
-         visited.add(synset);
-
-         Iterable<Synset> neighbors = Iterables.concat(synset.getRelatedSynsets(WordNetRelation.HYPERNYM),
-                                                       synset.getRelatedSynsets(WordNetRelation.HYPERNYM_INSTANCE),
-                                                       synset.getRelatedSynsets(WordNetRelation.HYPONYM),
-                                                       synset.getRelatedSynsets(WordNetRelation.HYPONYM_INSTANCE));
-
-         for (Synset neighbor : neighbors) {
-            double alt = dist.get(synset);
-            if (alt != Integer.MAX_VALUE && (alt + 1) < dist.get(neighbor)) {
-               dist.set(neighbor, alt + 1);
-               previous.put(neighbor, synset);
-            }
-            if (!visited.contains(neighbor)) {
-               queue.add(Tuple2.of(neighbor, alt));
+   private Hierarchy hierarchy() {
+      if (hierarchy == null) {
+         synchronized (this) {
+            if (hierarchy == null) {
+               hierarchy = new Hierarchy(loadSnapshot());
             }
          }
       }
+      return hierarchy;
+   }
 
-      ArrayListMultimap<Synset, Synset> path = new ArrayListMultimap<>();
-      for (Synset other : getSynsets()) {
-         if (other.equals(source) || dist.get(other) == Integer.MAX_VALUE) continue;
+   private WordNetSnapshot snapshot() {
+      return hierarchy().snapshot;
+   }
 
-         Deque<Synset> stack = new LinkedList<>();
-         Synset u = other;
-         while (u != null && previous.containsKey(u)) {
-            stack.push(u);
-            u = previous.get(u);
+   private Synset[] synsets() {
+      return hierarchy().synsets;
+   }
+
+   private WordNetSnapshot loadSnapshot() {
+      Path path = Config.hasProperty("WordNet.snapshot")
+                  ? Config.get("WordNet.snapshot").as(Path.class)
+                  : Hermes.getResourcesDir().getChild("wordnet").getChild("wordnet.snapshot").asPath().orElse(null);
+      if (path != null) {
+         if (Files.exists(path)) {
+            try {
+               WordNetSnapshot snapshot = WordNetSnapshot.read(path);
+               if (snapshot.getFingerprint() == WordNetSnapshot.fingerprint(db)) {
+                  return snapshot;
+               }
+               logWarning(log, "WordNet snapshot at {0} is out of date and will be rebuilt", path);
+            } catch (IOException e) {
+               logWarning(log, "Unable to read WordNet snapshot at {0}: {1}", path, e.getMessage());
+            }
          }
-         while (!stack.isEmpty()) {
-            Synset to = stack.pop();
-            path.put(other, to);
+         WordNetSnapshot snapshot = WordNetSnapshot.build(db);
+         try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            snapshot.write(path);
+         } catch (IOException e) {
+            logWarning(log, "Unable to write WordNet snapshot to {0}: {1}", path, e.getMessage());
          }
+         return snapshot;
       }
-
-      return path;
+      return WordNetSnapshot.build(db);
    }
 
    /**
-    * Calculates the distance between synsets.
+    * Calculates the distance between synsets, which is one less than the number of hypernym and hyponym relations on
+    * the shortest path between them (i.e. the size of {@link #shortestPath(Synset, Synset)} less one), so that a
+    * synset and its direct hypernym have a distance of 0.
     *
     * @param synset1 Synset 1
     * @param synset2 Synset 2
-    * @return The distance
+    * @return The distance or positive infinity if the synsets are not connected
     */
    public double distance(Synset synset1, Synset synset2) {
       Validation.notNull(synset1);
@@ -174,10 +175,26 @@ public class WordNet {
       if (synset1.equals(synset2)) {
          return 0d;
       }
-      List<Synset> path = shortestPath(synset1, synset2);
-      return path.isEmpty()
+      int edges = snapshot().distance(indexOf(synset1), indexOf(synset2));
+      return edges < 0
             ? Double.POSITIVE_INFINITY
-            : path.size() - 1;
+            : edges - 1;
+   }
+
+   /**
+    * Gets the depth of the given synset, which is one less than the minimum number of hypernym relations between it
+    * and a root synset, i.e. both root synsets and their direct hyponyms have a depth of 0.
+    *
+    * @param synset the synset
+    * @return the depth
+    */
+   public int depth(@NonNull Synset synset) {
+      return depth(indexOf(synset));
+   }
+
+   private int depth(int index) {
+      //Kept consistent with the depths calculated before hypernym edges were counted by the snapshot
+      return Math.max(0, snapshot().depth(index) - 1);
    }
 
    /**
@@ -261,33 +278,10 @@ public class WordNet {
          return synset1;
       }
 
-      List<Synset> path = shortestPath(synset1, synset2);
-      if (path.isEmpty()) {
-         return null;
-      }
-
-      int node1Height = synset1.depth();
-      int node2Height = synset2.depth();
-      int minHeight = Math.min(node1Height, node2Height);
-      int maxHeight = Integer.MIN_VALUE;
-      Synset lcs = null;
-      for (Synset s : path) {
-         if (s.equals(synset1) || s.equals(synset2)) {
-            continue;
-         }
-         int height = s.depth();
-         if (height < minHeight && height > maxHeight) {
-            maxHeight = height;
-            lcs = s;
-         }
-      }
-      if (lcs == null) {
-         if (node1Height < node2Height) {
-            return synset1;
-         }
-         return synset2;
-      }
-      return lcs;
+      int lcs = snapshot().leastCommonSubsumer(indexOf(synset1), indexOf(synset2));
+      return lcs < 0
+            ? null
+            : synsets()[lcs];
    }
 
    /**
@@ -311,9 +305,10 @@ public class WordNet {
          synchronized (maxDepths) {
             if (maxDepths[pos.ordinal()] == -1) {
                double max = 0d;
-               for (Synset synset : getSynsets()) {
-                  if (synset.getPOS() == partOfSpeech) {
-                     max = Math.max(max, synset.depth() - 1);
+               Synset[] synsets = synsets();
+               for (int i = 0; i < synsets.length; i++) {
+                  if (synsets[i].getPOS() == partOfSpeech) {
+                     max = Math.max(max, depth(i) - 1);
                   }
                }
                maxDepths[pos.ordinal()] = max;
@@ -364,13 +359,15 @@ public class WordNet {
     * @return A set of synset representing the synsets with the given relation to the given node
     */
    public Set<Synset> getRelatedSynsets(@NonNull Synset node, @NonNull WordNetRelation relation) {
-      return db
-            .getRelations(node)
-            .entrySet()
-            .stream()
-            .filter(entry -> entry.getValue() == relation)
-            .map(entry -> db.getSynsetFromId(entry.getKey()))
-            .collect(Collectors.toSet());
+      final int index = indexOf(node);
+      final Hierarchy hierarchy = hierarchy();
+      final Set<Synset> related = new HashSet<>();
+      for (int i = 0; i < hierarchy.snapshot.relationCount(index); i++) {
+         if (hierarchy.snapshot.relation(index, i) == relation) {
+            related.add(hierarchy.synsets[hierarchy.snapshot.relationTarget(index, i)]);
+         }
+      }
+      return related;
    }
 
    /**
@@ -380,11 +377,11 @@ public class WordNet {
     * @return A set of synset representing the relation with to the given synset
     */
    public SetMultimap<WordNetRelation, Synset> getRelatedSynsets(@NonNull Synset synset) {
+      final int index = indexOf(synset);
+      final Hierarchy hierarchy = hierarchy();
       SetMultimap<WordNetRelation, Synset> map = new HashSetMultimap<>();
-      for (Map.Entry<String, WordNetRelation> entry : db
-            .getRelations(synset)
-            .entrySet()) {
-         map.put(entry.getValue(), getSynsetFromId(entry.getKey()));
+      for (int i = 0; i < hierarchy.snapshot.relationCount(index); i++) {
+         map.put(hierarchy.snapshot.relation(index, i), hierarchy.synsets[hierarchy.snapshot.relationTarget(index, i)]);
       }
       return map;
    }
@@ -570,9 +567,25 @@ public class WordNet {
    public List<Synset> shortestPath(Synset synset1, Synset synset2) {
       Validation.notNull(synset1);
       Validation.notNull(synset2);
-      return Collections.unmodifiableList(shortestPathCache
-                                                .get(synset1)
-                                                .get(synset2));
+      Synset[] synsets = synsets();
+      List<Synset> path = new ArrayList<>();
+      for (int index : snapshot().shortestPath(indexOf(synset1), indexOf(synset2))) {
+         path.add(synsets[index]);
+      }
+      return Collections.unmodifiableList(path);
+   }
+
+   private final class Hierarchy {
+      final WordNetSnapshot snapshot;
+      final Synset[] synsets;
+
+      private Hierarchy(WordNetSnapshot snapshot) {
+         this.snapshot = snapshot;
+         this.synsets = new Synset[snapshot.size()];
+         for (int i = 0; i < synsets.length; i++) {
+            synsets[i] = db.getSynsetFromId(snapshot.getId(i));
+         }
+      }
    }
 
    private static class SenseFormPredicate implements Predicate<Sense> {
@@ -47,7 +47,6 @@ public class SynsetImpl implements Synset, Serializable, Comparable<Synset> {
    private WordNetPOS partOfSpeech;
    private String gloss;
    private Sense[] senses;
-   private int depth = -1;
 
    @Override
    public int compareTo(Synset o) {
@@ -59,17 +58,7 @@ public class SynsetImpl implements Synset, Serializable, Comparable<Synset> {
 
    @Override
    public int depth() {
-      if(depth < 0) {
-         synchronized(this) {
-            if(depth < 0) {
-               depth = (int) WordNet.getInstance().getRoots().stream()
-                                    .filter(s -> s.getPOS() == getPOS())
-                                    .mapToDouble(root -> WordNet.getInstance().distance(this, root))
-                                    .min().orElse(-1);
-            }
-         }
-      }
-      return depth;
+      return WordNet.getInstance().depth(this);
    }
 
    @Override
@@ -0,0 +1,605 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.wordnet.io;
+
+import com.gengoai.hermes.wordnet.Synset;
+import com.gengoai.hermes.wordnet.WordNetRelation;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * <p>A compact, read-only view of the synset graph of a {@link WordNetDB}. Synsets are assigned dense integer ids (in
+ * the lexicographic order of their string ids) and their relations are stored in compressed sparse row (CSR) arrays.
+ * In addition, the snapshot stores the depth of every synset (its minimum hypernym distance to a root) and the
+ * transitive closure of its hypernyms together with the distance to each ancestor. This allows the least common
+ * subsumer and the hypernym distance between two synsets to be calculated by merging two small sorted arrays instead of
+ * searching the graph.</p>
+ *
+ * <p>A snapshot is built once from a loaded database using {@link #build(WordNetDB)} and can be written to disk using
+ * {@link #write(Path)}. Snapshots read using {@link #read(Path)} are memory mapped, i.e. the arrays are not copied
+ * onto the heap. Every snapshot records a {@link #fingerprint(WordNetDB)} of the synsets and synset relations it was
+ * built from, which can be compared against the fingerprint of a database to determine if the snapshot is stale.</p>
+ *
+ * @author David B. Bracewell
+ */
+public final class WordNetSnapshot {
+   private static final int MAGIC = 0x574E5331;
+   private static final int VERSION = 2;
+   private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+   private static final long FNV_PRIME = 0x100000001b3L;
+   private final long fingerprint;
+   private final String[] ids;
+   private final WordNetRelation[] relationTypes;
+   private final IntBuffer relationOffsets;
+   private final IntBuffer relationTargets;
+   private final ByteBuffer relations;
+   private final IntBuffer depths;
+   private final IntBuffer ancestorOffsets;
+   private final IntBuffer ancestors;
+   private final IntBuffer ancestorDistances;
+
+   private WordNetSnapshot(long fingerprint,
+                           String[] ids,
+                           WordNetRelation[] relationTypes,
+                           IntBuffer relationOffsets,
+                           IntBuffer relationTargets,
+                           ByteBuffer relations,
+                           IntBuffer depths,
+                           IntBuffer ancestorOffsets,
+                           IntBuffer ancestors,
+                           IntBuffer ancestorDistances) {
+      this.fingerprint = fingerprint;
+      this.ids = ids;
+      this.relationTypes = relationTypes;
+      this.relationOffsets = relationOffsets;
+      this.relationTargets = relationTargets;
+      this.relations = relations;
+      this.depths = depths;
+      this.ancestorOffsets = ancestorOffsets;
+      this.ancestors = ancestors;
+      this.ancestorDistances = ancestorDistances;
+   }
+
+   /**
+    * Builds a snapshot of the synsets and synset relations in the given database.
+    *
+    * @param db the WordNet database
+    * @return the snapshot
+    */
+   public static WordNetSnapshot build(@NonNull WordNetDB db) {
+      final String[] ids = sortedIds(db);
+      final int n = ids.length;
+
+      //Relations in CSR form
+      final List<WordNetRelation> relationTypes = new ArrayList<>();
+      final Map<WordNetRelation, Integer> relationIndex = new HashMap<>();
+      final int[] relationOffsets = new int[n + 1];
+      final List<int[]> edges = new ArrayList<>();
+      final int[][] hypernyms = new int[n][];
+      for (int i = 0; i < n; i++) {
+         relationOffsets[i] = edges.size();
+         List<Integer> hyper = new ArrayList<>();
+         for (Map.Entry<String, WordNetRelation> e : db.getRelations(db.getSynsetFromId(ids[i])).entrySet()) {
+            int target = Arrays.binarySearch(ids, e.getKey());
+            if (target < 0) {
+               continue;
+            }
+            int type = relationIndex.computeIfAbsent(e.getValue(), r -> {
+               relationTypes.add(r);
+               return relationTypes.size() - 1;
+            });
+            edges.add(new int[]{target, type});
+            if (isHypernym(e.getValue())) {
+               hyper.add(target);
+            }
+         }
+         hypernyms[i] = hyper.stream().mapToInt(Integer::intValue).toArray();
+      }
+      relationOffsets[n] = edges.size();
+      if (relationTypes.size() > Byte.MAX_VALUE) {
+         throw new IllegalStateException("Too many relation types: " + relationTypes.size());
+      }
+      final int[] relationTargets = new int[edges.size()];
+      final byte[] relations = new byte[edges.size()];
+      for (int i = 0; i < edges.size(); i++) {
+         relationTargets[i] = edges.get(i)[0];
+         relations[i] = (byte) edges.get(i)[1];
+      }
+
+      //Ancestor closures (including the synset itself at distance 0) sorted by ancestor id
+      final int[][][] closures = new int[n][][];
+      final byte[] state = new byte[n];
+      for (int i = 0; i < n; i++) {
+         closure(i, hypernyms, closures, state);
+      }
+      final int[] depths = new int[n];
+      final int[] ancestorOffsets = new int[n + 1];
+      for (int i = 0; i < n; i++) {
+         ancestorOffsets[i + 1] = ancestorOffsets[i] + closures[i][0].length;
+         int depth = Integer.MAX_VALUE;
+         for (int j = 0; j < closures[i][0].length; j++) {
+            if (hypernyms[closures[i][0][j]].length == 0) {
+               depth = Math.min(depth, closures[i][1][j]);
+            }
+         }
+         depths[i] = depth == Integer.MAX_VALUE
+               ? 0
+               : depth;
+      }
+      final int[] ancestors = new int[ancestorOffsets[n]];
+      final int[] ancestorDistances = new int[ancestorOffsets[n]];
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(closures[i][0], 0, ancestors, ancestorOffsets[i], closures[i][0].length);
+         System.arraycopy(closures[i][1], 0, ancestorDistances, ancestorOffsets[i], closures[i][1].length);
+      }
+
+      return new WordNetSnapshot(fingerprint(db, ids),
+                                 ids,
+                                 relationTypes.toArray(new WordNetRelation[0]),
+                                 IntBuffer.wrap(relationOffsets),
+                                 IntBuffer.wrap(relationTargets),
+                                 ByteBuffer.wrap(relations),
+                                 IntBuffer.wrap(depths),
+                                 IntBuffer.wrap(ancestorOffsets),
+                                 IntBuffer.wrap(ancestors),
+                                 IntBuffer.wrap(ancestorDistances));
+   }
+
+   /**
+    * Calculates a fingerprint (64-bit FNV-1a hash) of the synset ids and synset relations in the given database. The
+    * fingerprint does not depend on the order in which the database returns synsets and relations.
+    *
+    * @param db the WordNet database
+    * @return the fingerprint
+    */
+   public static long fingerprint(@NonNull WordNetDB db) {
+      return fingerprint(db, sortedIds(db));
+   }
+
+   private static long fingerprint(WordNetDB db, String[] ids) {
+      long hash = FNV_OFFSET;
+      for (String id : ids) {
+         hash = hash(hash, id);
+         List<Map.Entry<String, WordNetRelation>> relations = new ArrayList<>(db.getRelations(db.getSynsetFromId(id))
+                                                                                .entrySet());
+         relations.sort(Map.Entry.comparingByKey());
+         for (Map.Entry<String, WordNetRelation> e : relations) {
+            hash = hash(hash, e.getKey());
+            hash = hash(hash, e.getValue().getName());
+         }
+         hash = hash(hash, "");
+      }
+      return hash;
+   }
+
+   private static long hash(long hash, String value) {
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+         hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+      }
+      //Terminate every value so that the concatenation of values is unambiguous
+      return (hash ^ 0xff) * FNV_PRIME;
+   }
+
+   private static String[] sortedIds(WordNetDB db) {
+      return db.getSynsets()
+               .stream()
+               .map(Synset::getId)
+               .sorted()
+               .toArray(String[]::new);
+   }
+
+   private static int[][] closure(int synset, int[][] hypernyms, int[][][] closures, byte[] state) {
+      if (closures[synset] != null) {
+         return closures[synset];
+      }
+      if (state[synset] == 1) {
+         //Cycle in the hypernym graph, ignore the back edge
+         return null;
+      }
+      state[synset] = 1;
+      Map<Integer, Integer> distances = new HashMap<>();
+      distances.put(synset, 0);
+      for (int hypernym : hypernyms[synset]) {
+         int[][] parent = closure(hypernym, hypernyms, closures, state);
+         if (parent == null) {
+            continue;
+         }
+         for (int j = 0; j < parent[0].length; j++) {
+            distances.merge(parent[0][j], parent[1][j] + 1, Math::min);
+         }
+      }
+      int[] ancestors = distances.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+      int[] ancestorDistances = new int[ancestors.length];
+      for (int j = 0; j < ancestors.length; j++) {
+         ancestorDistances[j] = distances.get(ancestors[j]);
+      }
+      state[synset] = 2;
+      closures[synset] = new int[][]{ancestors, ancestorDistances};
+      return closures[synset];
+   }
+
+   private static boolean isHypernym(WordNetRelation relation) {
+      return relation == WordNetRelation.HYPERNYM || relation == WordNetRelation.HYPERNYM_INSTANCE;
+   }
+
+   /**
+    * Reads a snapshot written with {@link #write(Path)} by memory mapping the given file.
+    *
+    * @param path the path of the snapshot file
+    * @return the snapshot
+    * @throws IOException the file could not be read or is not a valid snapshot, e.g. it was truncated or written by
+    *                     a different version
+    */
+   public static WordNetSnapshot read(@NonNull Path path) throws IOException {
+      final MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+         throw new IOException(path + " is not a WordNet snapshot");
+      }
+      try {
+         WordNetSnapshot snapshot = read(buffer);
+         if (buffer.hasRemaining()) {
+            throw new IllegalStateException("unexpected trailing data");
+         }
+         return snapshot;
+      } catch (RuntimeException e) {
+         //Corrupt or truncated files surface as buffer underflows or invalid limits / sizes
+         throw new IOException(path + " is not a valid WordNet snapshot: " + e, e);
+      }
+   }
+
+   private static WordNetSnapshot read(ByteBuffer buffer) {
+      final long fingerprint = buffer.getLong();
+      final int n = buffer.getInt();
+      final int numRelationTypes = buffer.getInt();
+      final int numEdges = buffer.getInt();
+      final int numAncestors = buffer.getInt();
+      final int idBytes = buffer.getInt();
+      final int remaining = buffer.remaining();
+      if (n < 0 || numRelationTypes < 0 || numEdges < 0 || numAncestors < 0 || idBytes < 0
+            || n > remaining / Integer.BYTES || numRelationTypes > remaining / Integer.BYTES) {
+         throw new IllegalStateException("invalid header");
+      }
+
+      final WordNetRelation[] relationTypes = new WordNetRelation[numRelationTypes];
+      for (int i = 0; i < numRelationTypes; i++) {
+         byte[] name = new byte[buffer.getInt()];
+         buffer.get(name);
+         relationTypes[i] = WordNetRelation.forName(new String(name, StandardCharsets.UTF_8));
+      }
+      final IntBuffer idOffsets = ints(buffer, n + 1);
+      final ByteBuffer idData = bytes(buffer, idBytes);
+      final String[] ids = new String[n];
+      for (int i = 0; i < n; i++) {
+         byte[] id = new byte[idOffsets.get(i + 1) - idOffsets.get(i)];
+         idData.position(idOffsets.get(i));
+         idData.get(id);
+         ids[i] = new String(id, StandardCharsets.UTF_8);
+      }
+      return new WordNetSnapshot(fingerprint,
+                                 ids,
+                                 relationTypes,
+                                 ints(buffer, n + 1),
+                                 ints(buffer, numEdges),
+                                 bytes(buffer, numEdges),
+                                 ints(buffer, n),
+                                 ints(buffer, n + 1),
+                                 ints(buffer, numAncestors),
+                                 ints(buffer, numAncestors));
+   }
+
+   private static IntBuffer ints(ByteBuffer buffer, int length) {
+      IntBuffer view = buffer.slice().asIntBuffer();
+      view.limit(length);
+      buffer.position(buffer.position() + length * Integer.BYTES);
+      return view.slice();
+   }
+
+   private static ByteBuffer bytes(ByteBuffer buffer, int length) {
+      ByteBuffer view = buffer.slice();
+      view.limit(length);
+      buffer.position(buffer.position() + length);
+      return view.slice();
+   }
+
+   /**
+    * Writes the snapshot to the given file. The snapshot is first written to a temporary file in the same directory,
+    * which then replaces the given file, so that readers never see a partially written snapshot.
+    *
+    * @param path the path of the snapshot file
+    * @throws IOException Something went wrong writing the file
+    */
+   public void write(@NonNull Path path) throws IOException {
+      final Path target = path.toAbsolutePath();
+      final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      try {
+         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            write(out);
+         }
+         try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+
+   private void write(DataOutputStream out) throws IOException {
+      final byte[][] idBytes = new byte[ids.length][];
+      final int[] idOffsets = new int[ids.length + 1];
+      for (int i = 0; i < ids.length; i++) {
+         idBytes[i] = ids[i].getBytes(StandardCharsets.UTF_8);
+         idOffsets[i + 1] = idOffsets[i] + idBytes[i].length;
+      }
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(fingerprint);
+      out.writeInt(ids.length);
+      out.writeInt(relationTypes.length);
+      out.writeInt(relationTargets.limit());
+      out.writeInt(ancestors.limit());
+      out.writeInt(idOffsets[ids.length]);
+      for (WordNetRelation relation : relationTypes) {
+         byte[] name = relation.getName().getBytes(StandardCharsets.UTF_8);
+         out.writeInt(name.length);
+         out.write(name);
+      }
+      for (int offset : idOffsets) {
+         out.writeInt(offset);
+      }
+      for (byte[] id : idBytes) {
+         out.write(id);
+      }
+      write(out, relationOffsets);
+      write(out, relationTargets);
+      for (int i = 0; i < relations.limit(); i++) {
+         out.writeByte(relations.get(i));
+      }
+      write(out, depths);
+      write(out, ancestorOffsets);
+      write(out, ancestors);
+      write(out, ancestorDistances);
+   }
+
+   private static void write(DataOutputStream out, IntBuffer buffer) throws IOException {
+      for (int i = 0; i < buffer.limit(); i++) {
+         out.writeInt(buffer.get(i));
+      }
+   }
+
+   /**
+    * Gets the dense id of the synset with the given string id.
+    *
+    * @param synsetId the string id of the synset
+    * @return the dense id or -1 if the synset is not in the snapshot
+    */
+   public int indexOf(@NonNull String synsetId) {
+      int index = Arrays.binarySearch(ids, synsetId);
+      return index < 0
+            ? -1
+            : index;
+   }
+
+   /**
+    * Gets the string id of the synset with the given dense id.
+    *
+    * @param index the dense id
+    * @return the string id
+    */
+   public String getId(int index) {
+      return ids[index];
+   }
+
+   /**
+    * @return the fingerprint of the database the snapshot was built from
+    * @see #fingerprint(WordNetDB)
+    */
+   public long getFingerprint() {
+      return fingerprint;
+   }
+
+   /**
+    * @return the number of synsets in the snapshot
+    */
+   public int size() {
+      return ids.length;
+   }
+
+   /**
+    * Gets the depth of the given synset, i.e. the minimum number of hypernym edges between it and a root.
+    *
+    * @param synset the dense id of the synset
+    * @return the depth
+    */
+   public int depth(int synset) {
+      return depths.get(synset);
+   }
+
+   /**
+    * Gets the number of relations of the given synset.
+    *
+    * @param synset the dense id of the synset
+    * @return the number of relations
+    */
+   public int relationCount(int synset) {
+      return relationOffsets.get(synset + 1) - relationOffsets.get(synset);
+   }
+
+   /**
+    * Gets the type of the i-th relation of the given synset.
+    *
+    * @param synset the dense id of the synset
+    * @param i      the index of the relation
+    * @return the relation type
+    */
+   public WordNetRelation relation(int synset, int i) {
+      return relationTypes[relations.get(relationOffsets.get(synset) + i)];
+   }
+
+   /**
+    * Gets the target of the i-th relation of the given synset.
+    *
+    * @param synset the dense id of the synset
+    * @param i      the index of the relation
+    * @return the dense id of the related synset
+    */
+   public int relationTarget(int synset, int i) {
+      return relationTargets.get(relationOffsets.get(synset) + i);
+   }
+
+   /**
+    * Gets the distance in hypernym edges from the given synset to the given ancestor.
+    *
+    * @param synset   the dense id of the synset
+    * @param ancestor the dense id of the ancestor
+    * @return the distance or -1 if the ancestor does not subsume the synset
+    */
+   public int ancestorDistance(int synset, int ancestor) {
+      int lo = ancestorOffsets.get(synset);
+      int hi = ancestorOffsets.get(synset + 1) - 1;
+      while (lo <= hi) {
+         int mid = (lo + hi) >>> 1;
+         int value = ancestors.get(mid);
+         if (value < ancestor) {
+            lo = mid + 1;
+         } else if (value > ancestor) {
+            hi = mid - 1;
+         } else {
+            return ancestorDistances.get(mid);
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Gets the least common subsumer of the two synsets, which is the deepest synset subsuming both (a synset subsumes
+    * itself). Ties are broken by the combined distance to the two synsets.
+    *
+    * @param synset1 the dense id of the first synset
+    * @param synset2 the dense id of the second synset
+    * @return the dense id of the least common subsumer or -1 if the synsets do not share an ancestor
+    */
+   public int leastCommonSubsumer(int synset1, int synset2) {
+      return commonAncestor(synset1, synset2, true);
+   }
+
+   /**
+    * Gets the length of the shortest path between the two synsets that passes through a common ancestor.
+    *
+    * @param synset1 the dense id of the first synset
+    * @param synset2 the dense id of the second synset
+    * @return the distance or -1 if the synsets do not share an ancestor
+    */
+   public int distance(int synset1, int synset2) {
+      int ancestor = commonAncestor(synset1, synset2, false);
+      return ancestor < 0
+            ? -1
+            : ancestorDistance(synset1, ancestor) + ancestorDistance(synset2, ancestor);
+   }
+
+   private int commonAncestor(int synset1, int synset2, boolean deepest) {
+      int i = ancestorOffsets.get(synset1);
+      int iEnd = ancestorOffsets.get(synset1 + 1);
+      int j = ancestorOffsets.get(synset2);
+      int jEnd = ancestorOffsets.get(synset2 + 1);
+      int best = -1;
+      int bestDepth = -1;
+      int bestDistance = Integer.MAX_VALUE;
+      while (i < iEnd && j < jEnd) {
+         int a = ancestors.get(i);
+         int b = ancestors.get(j);
+         if (a < b) {
+            i++;
+         } else if (a > b) {
+            j++;
+         } else {
+            int distance = ancestorDistances.get(i) + ancestorDistances.get(j);
+            int depth = deepest
+                  ? depths.get(a)
+                  : 0;
+            if (depth > bestDepth || (depth == bestDepth && distance < bestDistance)) {
+               best = a;
+               bestDepth = depth;
+               bestDistance = distance;
+            }
+            i++;
+            j++;
+         }
+      }
+      return best;
+   }
+
+   /**
+    * Gets the shortest path through a common ancestor from the first synset to the second synset. The path does not
+    * include the first synset, but does include the second.
+    *
+    * @param synset1 the dense id of the first synset
+    * @param synset2 the dense id of the second synset
+    * @return the dense ids of the synsets on the path or an empty array if there is no path
+    */
+   public int[] shortestPath(int synset1, int synset2) {
+      int ancestor = commonAncestor(synset1, synset2, false);
+      if (ancestor < 0 || synset1 == synset2) {
+         return new int[0];
+      }
+      int up = ancestorDistance(synset1, ancestor);
+      int down = ancestorDistance(synset2, ancestor);
+      int[] path = new int[up + down];
+      int current = synset1;
+      for (int k = 0; k < up; k++) {
+         current = nextTowards(current, ancestor);
+         path[k] = current;
+      }
+      current = synset2;
+      for (int k = path.length - 1; k >= up; k--) {
+         path[k] = current;
+         current = nextTowards(current, ancestor);
+      }
+      return path;
+   }
+
+   private int nextTowards(int synset, int ancestor) {
+      int remaining = ancestorDistance(synset, ancestor);
+      for (int i = 0; i < relationCount(synset); i++) {
+         if (isHypernym(relation(synset, i))) {
+            int target = relationTarget(synset, i);
+            if (ancestorDistance(target, ancestor) == remaining - 1) {
+               return target;
+            }
+         }
+      }
+      throw new IllegalStateException("Inconsistent ancestor closure for " + getId(synset));
+   }
+
+}//END OF WordNetSnapshot
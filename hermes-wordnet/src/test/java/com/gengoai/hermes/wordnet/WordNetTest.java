@@ -0,0 +1,115 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.wordnet;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.wordnet.io.SynsetImpl;
+import com.gengoai.hermes.wordnet.io.WordNetDB;
+import com.gengoai.hermes.wordnet.io.WordNetLoader;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WordNetTest {
+   private static Resource directory;
+   private static Path snapshot;
+   private static WordNet wordNet;
+
+   @BeforeClass
+   public static void setUp() {
+      Config.initializeTest();
+      directory = Resources.temporaryDirectory();
+      snapshot = directory.asFile().orElseThrow().toPath().resolve("wordnet").resolve("wordnet.snapshot");
+      Config.setProperty("WordNet.snapshot", snapshot.toString());
+      Config.setProperty("WordNet.loaders", AnimalLoader.class.getName());
+      Config.setProperty("WordNet.properties", "[]");
+      wordNet = WordNet.getInstance();
+   }
+
+   @AfterClass
+   public static void tearDown() {
+      directory.delete(true);
+   }
+
+   private static Synset synset(String id) {
+      return wordNet.getSynsetFromId(id);
+   }
+
+   @Test
+   public void distance() {
+      //The snapshot is only built when the hierarchy is first needed
+      assertFalse(Files.exists(snapshot));
+      Synset dog = synset("dog");
+      Synset hypernym = wordNet.getHypernym(dog);
+      assertTrue(Files.exists(snapshot));
+
+      assertEquals(0d, wordNet.distance(dog, dog), 0d);
+      assertEquals(0d, wordNet.distance(dog, hypernym), 0d);
+      assertEquals(1d, wordNet.distance(dog, synset("cat")), 0d);
+      assertEquals(2d, wordNet.distance(synset("puppy"), synset("cat")), 0d);
+      assertEquals(Double.POSITIVE_INFINITY, wordNet.distance(dog, synset("rock")), 0d);
+      for (String other : List.of("cat", "puppy", "animal", "plant", "entity")) {
+         Synset synset = synset(other);
+         assertEquals(wordNet.shortestPath(dog, synset).size() - 1, wordNet.distance(dog, synset), 0d);
+      }
+   }
+
+   /**
+    * Loads a small noun hierarchy with a disconnected synset
+    */
+   public static class AnimalLoader implements WordNetLoader {
+      private static final String[] HYPERNYMS = {"animal", "entity",
+                                                 "plant", "entity",
+                                                 "dog", "animal",
+                                                 "cat", "animal",
+                                                 "puppy", "dog"};
+
+      private static void synset(WordNetDB db, String id) {
+         if (db.getSynsetFromId(id) == null) {
+            SynsetImpl synset = new SynsetImpl();
+            synset.setId(id);
+            synset.setPartOfSpeech(WordNetPOS.NOUN);
+            db.putSynset(id, synset);
+         }
+      }
+
+      @Override
+      public void load(WordNetDB db) {
+         synset(db, "rock");
+         for (int i = 0; i < HYPERNYMS.length; i += 2) {
+            synset(db, HYPERNYMS[i]);
+            synset(db, HYPERNYMS[i + 1]);
+            db.putRelation(HYPERNYMS[i], HYPERNYMS[i + 1], WordNetRelation.HYPERNYM);
+            db.putRelation(HYPERNYMS[i + 1], HYPERNYMS[i], WordNetRelation.HYPONYM);
+         }
+      }
+   }
+
+}//END OF WordNetTest
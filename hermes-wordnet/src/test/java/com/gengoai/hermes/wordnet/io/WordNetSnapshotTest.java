@@ -0,0 +1,199 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.wordnet.io;
+
+import com.gengoai.hermes.wordnet.WordNetPOS;
+import com.gengoai.hermes.wordnet.WordNetRelation;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class WordNetSnapshotTest {
+   private Resource directory;
+   private Path path;
+
+   private static WordNetDB db(String... hypernyms) {
+      WordNetDB db = new InMemoryWordNetDB();
+      for (int i = 0; i < hypernyms.length; i += 2) {
+         synset(db, hypernyms[i]);
+         synset(db, hypernyms[i + 1]);
+         db.putRelation(hypernyms[i], hypernyms[i + 1], WordNetRelation.HYPERNYM);
+         db.putRelation(hypernyms[i + 1], hypernyms[i], WordNetRelation.HYPONYM);
+      }
+      return db;
+   }
+
+   private static WordNetDB animals() {
+      return db("animal", "entity",
+                "plant", "entity",
+                "dog", "animal",
+                "cat", "animal",
+                "puppy", "dog");
+   }
+
+   private static void synset(WordNetDB db, String id) {
+      if (db.getSynsetFromId(id) == null) {
+         SynsetImpl synset = new SynsetImpl();
+         synset.setId(id);
+         synset.setPartOfSpeech(WordNetPOS.NOUN);
+         db.putSynset(id, synset);
+      }
+   }
+
+   private static List<String> ids(WordNetSnapshot snapshot, int[] path) {
+      return Arrays.stream(path).mapToObj(snapshot::getId).collect(Collectors.toList());
+   }
+
+   private static void assertSameSnapshot(WordNetSnapshot expected, WordNetSnapshot actual) {
+      assertEquals(expected.getFingerprint(), actual.getFingerprint());
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+         assertEquals(expected.getId(i), actual.getId(i));
+         assertEquals(expected.depth(i), actual.depth(i));
+         assertEquals(expected.relationCount(i), actual.relationCount(i));
+         for (int r = 0; r < expected.relationCount(i); r++) {
+            assertEquals(expected.relation(i, r), actual.relation(i, r));
+            assertEquals(expected.relationTarget(i, r), actual.relationTarget(i, r));
+         }
+         for (int j = 0; j < expected.size(); j++) {
+            assertEquals(expected.ancestorDistance(i, j), actual.ancestorDistance(i, j));
+            assertEquals(expected.leastCommonSubsumer(i, j), actual.leastCommonSubsumer(i, j));
+            assertEquals(expected.distance(i, j), actual.distance(i, j));
+            assertArrayEquals(expected.shortestPath(i, j), actual.shortestPath(i, j));
+         }
+      }
+   }
+
+   @Before
+   public void setUp() {
+      directory = Resources.temporaryDirectory();
+      path = directory.asFile().orElseThrow().toPath().resolve("wordnet.snapshot");
+   }
+
+   @After
+   public void tearDown() {
+      directory.delete(true);
+   }
+
+   @Test
+   public void hypernymQueries() {
+      WordNetSnapshot snapshot = WordNetSnapshot.build(animals());
+      int entity = snapshot.indexOf("entity");
+      int animal = snapshot.indexOf("animal");
+      int plant = snapshot.indexOf("plant");
+      int cat = snapshot.indexOf("cat");
+      int puppy = snapshot.indexOf("puppy");
+      assertEquals(-1, snapshot.indexOf("rock"));
+      assertEquals(0, snapshot.depth(entity));
+      assertEquals(1, snapshot.depth(animal));
+      assertEquals(3, snapshot.depth(puppy));
+      assertEquals(2, snapshot.ancestorDistance(puppy, animal));
+      assertEquals(-1, snapshot.ancestorDistance(animal, puppy));
+      assertEquals(animal, snapshot.leastCommonSubsumer(puppy, cat));
+      assertEquals(entity, snapshot.leastCommonSubsumer(puppy, plant));
+      assertEquals(3, snapshot.distance(puppy, cat));
+      assertEquals(4, snapshot.distance(puppy, plant));
+      assertEquals(List.of("dog", "animal", "cat"), ids(snapshot, snapshot.shortestPath(puppy, cat)));
+   }
+
+   @Test
+   public void roundTrip() throws IOException {
+      WordNetSnapshot built = WordNetSnapshot.build(animals());
+      built.write(path);
+      assertSameSnapshot(built, WordNetSnapshot.read(path));
+
+      //Overwriting an existing snapshot leaves no temporary files behind
+      WordNetSnapshot other = WordNetSnapshot.build(db("cat", "animal"));
+      other.write(path);
+      assertSameSnapshot(other, WordNetSnapshot.read(path));
+      try (Stream<Path> files = Files.list(path.getParent())) {
+         assertEquals(List.of(path), files.collect(Collectors.toList()));
+      }
+   }
+
+   @Test
+   public void fingerprint() {
+      WordNetSnapshot snapshot = WordNetSnapshot.build(animals());
+      assertEquals(WordNetSnapshot.fingerprint(animals()), snapshot.getFingerprint());
+      //Insertion order does not matter
+      assertEquals(snapshot.getFingerprint(),
+                   WordNetSnapshot.fingerprint(db("puppy", "dog",
+                                                  "cat", "animal",
+                                                  "dog", "animal",
+                                                  "plant", "entity",
+                                                  "animal", "entity")));
+
+      //Same number of synsets, but different relations
+      WordNetDB moved = db("animal", "entity",
+                           "plant", "entity",
+                           "dog", "animal",
+                           "cat", "animal",
+                           "puppy", "cat");
+      assertEquals(snapshot.size(), WordNetSnapshot.build(moved).size());
+      assertNotEquals(snapshot.getFingerprint(), WordNetSnapshot.fingerprint(moved));
+
+      //Same relations, but a different relation type
+      WordNetDB instance = animals();
+      instance.putRelation("puppy", "dog", WordNetRelation.HYPERNYM_INSTANCE);
+      assertNotEquals(snapshot.getFingerprint(), WordNetSnapshot.fingerprint(instance));
+   }
+
+   @Test
+   public void readCorrupt() throws IOException {
+      WordNetSnapshot.build(animals()).write(path);
+      byte[] bytes = Files.readAllBytes(path);
+      for (int length : new int[]{0, 4, 12, 30, bytes.length / 2, bytes.length - 1}) {
+         Files.write(path, Arrays.copyOf(bytes, length));
+         try {
+            WordNetSnapshot.read(path);
+            fail("Expected an IOException reading a snapshot truncated to " + length + " bytes");
+         } catch (IOException e) {
+            //expected
+         }
+      }
+
+      byte[] garbage = bytes.clone();
+      for (int i = 16; i < 36; i++) {
+         garbage[i] = (byte) 0x7f;
+      }
+      Files.write(path, garbage);
+      try {
+         WordNetSnapshot.read(path);
+         fail("Expected an IOException reading a snapshot with an invalid header");
+      } catch (IOException e) {
+         //expected
+      }
+   }
+
+}//END OF WordNetSnapshotTest
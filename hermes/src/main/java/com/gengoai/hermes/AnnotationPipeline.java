@@ -93,7 +93,13 @@ public class AnnotationPipeline implements Serializable {
                                                                       .containsAll(a.satisfies()));
    }
 
-   private List<Annotator> getSequence(Language language) {
+   /**
+    * Gets the sequence of annotators, loading them if needed, required to satisfy this pipeline for the given language.
+    *
+    * @param language the language
+    * @return the sequence of annotators
+    */
+   List<Annotator> getSequence(Language language) {
       if(!annotators.containsKey(language)) {
          synchronized(types) {
             if(!annotators.containsKey(language)) {
@@ -21,9 +21,11 @@ import java.util.stream.Stream;
  */
 public class AnnotationSet implements Iterable<Annotation>, Serializable {
    private static final long serialVersionUID = 1L;
+   private static final int MAX_DENSE_ID = 1 << 24;
    private final Map<AnnotatableType, String> completed = new HashMap<>(4);
-   private final Map<Long, Annotation> idAnnotationMap = new HashMap<>(4);
+   private final Map<Long, Annotation> sparseIdAnnotationMap = new HashMap<>(0);
    private final AnnotationTree tree = new AnnotationTree();
+   private Annotation[] idAnnotations = new Annotation[16];
 
    /**
     * Adds an annotation to the set
@@ -32,10 +34,31 @@ public class AnnotationSet implements Iterable<Annotation>, Serializable {
     */
    public boolean add(Annotation annotation) {
       boolean added = tree.add(annotation);
-      idAnnotationMap.put(annotation.getId(), annotation);
+      putId(annotation.getId(), annotation);
       return added;
    }
 
+   private Annotation getId(long id) {
+      if (id >= 0 && id < idAnnotations.length) {
+         return idAnnotations[(int) id];
+      }
+      return sparseIdAnnotationMap.get(id);
+   }
+
+   private void putId(long id, Annotation annotation) {
+      //Annotation ids are generated sequentially per document and are stored in a dense array
+      if (id >= 0 && id < MAX_DENSE_ID) {
+         if (id >= idAnnotations.length) {
+            idAnnotations = Arrays.copyOf(idAnnotations, Math.max(idAnnotations.length * 2, (int) id + 1));
+         }
+         idAnnotations[(int) id] = annotation;
+      } else if (annotation == null) {
+         sparseIdAnnotationMap.remove(id);
+      } else {
+         sparseIdAnnotationMap.put(id, annotation);
+      }
+   }
+
    /**
     * Checks if an annotation is in the set or not
     *
@@ -43,7 +66,7 @@ public class AnnotationSet implements Iterable<Annotation>, Serializable {
     * @return True if the annotation is  in the set, False if not
     */
    public boolean contains(Annotation annotation) {
-      return !annotation.isDetached() && idAnnotationMap.get(annotation.getId()) == annotation;
+      return !annotation.isDetached() && getId(annotation.getId()) == annotation;
    }
 
    /**
@@ -53,7 +76,10 @@ public class AnnotationSet implements Iterable<Annotation>, Serializable {
     * @return The annotation associated with that id or null if one does not exist
     */
    public Annotation get(long id) {
-      return idAnnotationMap.getOrDefault(id, Fragments.orphanedAnnotation(AnnotationType.ROOT));
+      Annotation annotation = getId(id);
+      return annotation == null
+             ? Fragments.orphanedAnnotation(AnnotationType.ROOT)
+             : annotation;
    }
 
    /**
@@ -125,7 +151,9 @@ public class AnnotationSet implements Iterable<Annotation>, Serializable {
    public boolean remove(Annotation annotation) {
       boolean removed = tree.remove(annotation);
       if(removed) {
-         idAnnotationMap.remove(annotation.getId());
+         if(getId(annotation.getId()) == annotation) {
+            putId(annotation.getId(), null);
+         }
       }
       return removed;
    }
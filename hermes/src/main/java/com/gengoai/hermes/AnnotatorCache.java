@@ -24,25 +24,59 @@ package com.gengoai.hermes;
 import com.gengoai.Language;
 import com.gengoai.Validation;
 import com.gengoai.cache.Cache;
-import com.gengoai.cache.LRUCache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.config.Config;
 import com.gengoai.hermes.annotator.Annotator;
 import lombok.NonNull;
+import lombok.extern.java.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.gengoai.LogUtils.logInfo;
+import static com.gengoai.LogUtils.logSevere;
 
 /**
  * <p>
- * Factory with cache for constructing/retrieving annotators for a given annotation class.
+ * Factory with cache for constructing/retrieving annotators for a given annotation class. Annotators are constructed
+ * at most once per annotation type and language no matter how many threads request them at the same time.
+ * </p>
+ * <p>
+ * Services can preload and warm up the annotators they will use before accepting traffic via {@link
+ * #warmUp(Language, AnnotatableType...)}, which loads the annotators in parallel and then annotates a sample document
+ * multiple times so that the annotation code paths are compiled by the JIT. Readiness can then be checked using
+ * {@link #isReady()}.
  * </p>
  *
  * @author David B. Bracewell
  */
-final class AnnotatorCache {
-
+@Log
+public final class AnnotatorCache {
+   /**
+    * Config key for the text of the document annotated when warming up annotators (language specific values are
+    * supported)
+    */
+   public static final String WARM_UP_TEXT = "AnnotatorCache.warmUp.text";
+   /**
+    * Config key for the number of times the warm up document is annotated (default 100)
+    */
+   public static final String WARM_UP_ITERATIONS = "AnnotatorCache.warmUp.iterations";
+   private static final String DEFAULT_WARM_UP_TEXT = "The quick brown fox jumped over the lazy dog on Monday. " +
+         "John Smith, who works for Acme Corp. in New York, paid $100 for the book about the history of Paris.";
    private static volatile AnnotatorCache INSTANCE;
    private final Cache<String, Annotator> cache;
+   private final Map<String, CompletableFuture<Void>> warmUps = new ConcurrentHashMap<>();
 
    private AnnotatorCache() {
-      cache = new LRUCache<>(100);
+      cache = ConcurrentCache.<String, Annotator>builder()
+                             .maximumSize(100)
+                             .build();
    }
 
    /**
@@ -66,6 +100,7 @@ final class AnnotatorCache {
     */
    public void clear() {
       cache.invalidateAll();
+      warmUps.clear();
    }
 
    private String createKey(AnnotatableType type, Language language) {
@@ -86,11 +121,35 @@ final class AnnotatorCache {
     * @return An annotator that can annotate the given annotation class
     */
    public Annotator get(@NonNull AnnotatableType annotationType, @NonNull Language language) {
+      return cache.get(createKey(annotationType, language), () -> annotationType.getAnnotator(language));
+   }
+
+   /**
+    * Determines if all requested warm ups have completed successfully.
+    *
+    * @return True if all warm ups have completed successfully, False if any are still running or failed
+    */
+   public boolean isReady() {
+      return warmUps.values()
+                    .stream()
+                    .allMatch(f -> f.isDone() && !f.isCompletedExceptionally());
+   }
+
+   /**
+    * Determines if the annotator for the given annotation type and language has been warmed up. Annotators for types
+    * that were never requested to be warmed up are considered ready when they are cached.
+    *
+    * @param annotationType the annotation type
+    * @param language       the language
+    * @return True if the annotator is loaded and warmed up
+    */
+   public boolean isReady(@NonNull AnnotatableType annotationType, @NonNull Language language) {
       String key = createKey(annotationType, language);
-      if (!cache.containsKey(key)) {
-         cache.put(key, annotationType.getAnnotator(language));
+      CompletableFuture<Void> warmUp = warmUps.get(key);
+      if (warmUp == null) {
+         return cache.containsKey(key);
       }
-      return cache.get(key);
+      return warmUp.isDone() && !warmUp.isCompletedExceptionally() && cache.containsKey(key);
    }
 
    /**
@@ -100,7 +159,9 @@ final class AnnotatorCache {
     * @param language       The language
     */
    public void remove(@NonNull AnnotationType annotationType, @NonNull Language language) {
-      cache.invalidate(createKey(annotationType, language));
+      String key = createKey(annotationType, language);
+      cache.invalidate(key);
+      warmUps.remove(key);
    }
 
    /**
@@ -129,4 +190,52 @@ final class AnnotatorCache {
       assert cache.containsKey(createKey(annotationType, language));
    }
 
+   /**
+    * Preloads the annotators for the given annotatable types and language in parallel and then warms them up by
+    * annotating a sample document (defined via the <code>AnnotatorCache.warmUp.text</code> config setting) a number of
+    * times (defined via the <code>AnnotatorCache.warmUp.iterations</code> config setting). The returned future
+    * completes once all annotators are loaded and warmed up.
+    *
+    * @param language         the language of the annotators
+    * @param annotatableTypes the annotatable types whose annotators should be warmed up
+    * @return the future for the warm up
+    */
+   public CompletableFuture<Void> warmUp(@NonNull Language language, @NonNull AnnotatableType... annotatableTypes) {
+      final int iterations = Config.get(WARM_UP_ITERATIONS).asIntegerValue(100);
+      final String text = Config.get(WARM_UP_TEXT, language).asString(DEFAULT_WARM_UP_TEXT);
+      final int threads = Math.max(1, Math.min(annotatableTypes.length, Runtime.getRuntime().availableProcessors()));
+      final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+         Thread thread = new Thread(r, "AnnotatorWarmUp");
+         thread.setDaemon(true);
+         return thread;
+      });
+      final List<CompletableFuture<Void>> futures = new ArrayList<>();
+      logInfo(log, "Warming up annotators for {0} ({1})", Arrays.toString(annotatableTypes), language);
+      //Load all the annotators, including prerequisites, in parallel
+      for (AnnotatableType type : annotatableTypes) {
+         futures.add(CompletableFuture.runAsync(() -> new AnnotationPipeline(type).getSequence(language), executor));
+      }
+      //Annotate the sample document so that the JIT can compile the annotation code paths
+      CompletableFuture<Void> warmUp = CompletableFuture
+            .allOf(futures.toArray(new CompletableFuture[0]))
+            .thenRunAsync(() -> {
+               AnnotationPipeline pipeline = new AnnotationPipeline(annotatableTypes);
+               for (int i = 0; i < iterations; i++) {
+                  pipeline.annotate(DocumentFactory.getInstance().create(text, language));
+               }
+            }, executor)
+            .whenComplete((v, error) -> {
+               executor.shutdown();
+               if (error == null) {
+                  logInfo(log, "Annotators for {0} ({1}) are ready", Arrays.toString(annotatableTypes), language);
+               } else {
+                  logSevere(log, error);
+               }
+            });
+      for (AnnotatableType type : annotatableTypes) {
+         warmUps.put(createKey(type, language), warmUp);
+      }
+      return warmUp;
+   }
+
 }//END OF AnnotatorFactory
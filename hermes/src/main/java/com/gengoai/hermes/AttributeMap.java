@@ -32,24 +32,65 @@ import lombok.NonNull;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Serializable;
+import java.util.*;
 
 /**
- * Specialized HashMap for storing {@link AttributeType}s and their values that correctly handles json serialization /
- * deserialization and allows for checked type gets.
+ * <p>Specialized Map for storing {@link AttributeType}s and their values that correctly handles json serialization /
+ * deserialization and allows for checked type gets.</p>
+ * <p>Attribute maps are created for every {@link HString} and typically hold only a handful of attributes (e.g. the
+ * part-of-speech and lemma of a token). Instead of a hash table, attributes are stored in a single array of
+ * interleaved keys and values, which is not allocated until the first attribute is added and is searched linearly.
+ * Iteration is in insertion order.</p>
  *
  * @author David B. Bracewell
  */
 @JsonDeserialize(keyUsing = AnnotatableType.KeyDeserializer.class)
-public class AttributeMap extends HashMap<AttributeType<?>, Object> {
+public class AttributeMap extends AbstractMap<AttributeType<?>, Object> implements Serializable {
    private static final long serialVersionUID = 1L;
+   private static final int INITIAL_CAPACITY = 4;
+   private transient Object[] table;
+   private transient int size;
 
    /**
     * Instantiates a new Attribute map.
     */
    public AttributeMap() {
-      super(5);
+
+   }
+
+   @Override
+   public void clear() {
+      table = null;
+      size = 0;
+   }
+
+   @Override
+   public boolean containsKey(Object key) {
+      return indexOf(key) >= 0;
+   }
+
+   @Override
+   public Set<Entry<AttributeType<?>, Object>> entrySet() {
+      return new AbstractSet<>() {
+         @Override
+         public Iterator<Entry<AttributeType<?>, Object>> iterator() {
+            return new EntryIterator();
+         }
+
+         @Override
+         public int size() {
+            return size;
+         }
+      };
+   }
+
+   @Override
+   public Object get(Object key) {
+      int index = indexOf(key);
+      return index < 0
+            ? null
+            : table[index + 1];
    }
 
    /**
@@ -63,6 +104,14 @@ public class AttributeMap extends HashMap<AttributeType<?>, Object> {
       return Cast.as(get((Object) attributeType));
    }
 
+   @Override
+   public Object getOrDefault(Object key, Object defaultValue) {
+      int index = indexOf(key);
+      return index < 0
+            ? defaultValue
+            : table[index + 1];
+   }
+
    /**
     * Gets the value of the given attribute or returns the default value if it is not in the map
     *
@@ -75,14 +124,46 @@ public class AttributeMap extends HashMap<AttributeType<?>, Object> {
       return Cast.as(getOrDefault((Object) attributeType, defaultValue));
    }
 
+   private int indexOf(Object key) {
+      if (key == null) {
+         return -1;
+      }
+      for (int i = 0; i < size * 2; i += 2) {
+         if (table[i] == key) {
+            return i;
+         }
+      }
+      for (int i = 0; i < size * 2; i += 2) {
+         if (table[i].equals(key)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
    @Override
    public Object put(@NonNull AttributeType attributeType, Object value) {
-      if(value == null) {
+      if (value == null) {
          return Cast.as(remove(attributeType));
-      } else if(value instanceof Val) {
+      } else if (value instanceof Val) {
          value = Cast.<Val>as(value).as(attributeType.getValueType());
       }
-      return Cast.as(super.put(attributeType, attributeType.decode(value)));
+      value = attributeType.decode(value);
+      int index = indexOf(attributeType);
+      if (index >= 0) {
+         Object old = table[index + 1];
+         table[index + 1] = value;
+         return old;
+      }
+      if (table == null) {
+         table = new Object[INITIAL_CAPACITY];
+      } else if (size * 2 == table.length) {
+         table = Arrays.copyOf(table, table.length * 2);
+      }
+      table[size * 2] = attributeType;
+      table[size * 2 + 1] = value;
+      size++;
+      return null;
    }
 
    @JsonAnySetter
@@ -99,8 +180,69 @@ public class AttributeMap extends HashMap<AttributeType<?>, Object> {
       this.putAll(Json.parse(ois.readUTF(), AttributeMap.class));
    }
 
+   @Override
+   public Object remove(Object key) {
+      int index = indexOf(key);
+      if (index < 0) {
+         return null;
+      }
+      Object old = table[index + 1];
+      removeAt(index);
+      return old;
+   }
+
+   private void removeAt(int index) {
+      int last = (size - 1) * 2;
+      System.arraycopy(table, index + 2, table, index, last - index);
+      table[last] = null;
+      table[last + 1] = null;
+      size--;
+   }
+
+   @Override
+   public int size() {
+      return size;
+   }
+
    private void writeObject(ObjectOutputStream oos) throws IOException {
       oos.writeUTF(Json.dumps(this));
    }
 
+   private class EntryIterator implements Iterator<Entry<AttributeType<?>, Object>> {
+      private int index = 0;
+      private int last = -1;
+
+      @Override
+      public boolean hasNext() {
+         return index < size * 2;
+      }
+
+      @Override
+      public Entry<AttributeType<?>, Object> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         last = index;
+         index += 2;
+         final int entry = last;
+         return new SimpleEntry<>(Cast.<AttributeType<?>>as(table[entry]), table[entry + 1]) {
+            @Override
+            public Object setValue(Object value) {
+               super.setValue(value);
+               return put(getKey(), value);
+            }
+         };
+      }
+
+      @Override
+      public void remove() {
+         if (last < 0) {
+            throw new IllegalStateException();
+         }
+         removeAt(last);
+         index = last;
+         last = -1;
+      }
+   }
+
 }//END OF AttributeMap
@@ -32,9 +32,9 @@ import java.util.stream.Stream;
 class DefaultAnnotationImpl extends BaseHString implements Annotation {
    private static final long serialVersionUID = 1L;
 
-   final Set<Relation> incomingRelations = new HashSet<>();
-   @JsonProperty("relations")
-   final Set<Relation> outgoingRelations = new HashSet<>();
+   private static final Relation[] NO_RELATIONS = new Relation[0];
+   private Relation[] incomingRelations = NO_RELATIONS;
+   private Relation[] outgoingRelations = NO_RELATIONS;
    private final AnnotationType annotationType;
    private Document owner;
    private long id = DETACHED_ID;
@@ -92,12 +92,42 @@ class DefaultAnnotationImpl extends BaseHString implements Annotation {
                             : type;
    }
 
+   private static Relation[] add(Relation[] relations, Relation relation) {
+      for(Relation r : relations) {
+         if(r.equals(relation)) {
+            return relations;
+         }
+      }
+      Relation[] newRelations = Arrays.copyOf(relations, relations.length + 1);
+      newRelations[relations.length] = relation;
+      return newRelations;
+   }
+
+   private static Relation[] remove(Relation[] relations, Relation relation) {
+      for(int i = 0; i < relations.length; i++) {
+         if(relations[i].equals(relation)) {
+            if(relations.length == 1) {
+               return NO_RELATIONS;
+            }
+            Relation[] newRelations = new Relation[relations.length - 1];
+            System.arraycopy(relations, 0, newRelations, 0, i);
+            System.arraycopy(relations, i + 1, newRelations, i, relations.length - i - 1);
+            return newRelations;
+         }
+      }
+      return relations;
+   }
+
    @Override
    public void add(@NonNull Relation relation) {
-      outgoingRelations.add(relation);
+      outgoingRelations = add(outgoingRelations, relation);
       if(!isDetached()) {
-         Cast.<DefaultAnnotationImpl>as(relation.getTarget(this)).incomingRelations
-               .add(new Relation(relation.getType(), relation.getValue(), getId()));
+         Annotation target = relation.getTarget(this);
+         if(target instanceof DefaultAnnotationImpl) {
+            DefaultAnnotationImpl impl = Cast.as(target);
+            impl.incomingRelations = add(impl.incomingRelations,
+                                         new Relation(relation.getType(), relation.getValue(), getId()));
+         }
       }
    }
 
@@ -119,7 +149,7 @@ class DefaultAnnotationImpl extends BaseHString implements Annotation {
 
    @Override
    public Stream<Relation> incomingRelationStream(boolean includeSubAnnotations) {
-      Stream<Relation> relationStream = incomingRelations.stream();
+      Stream<Relation> relationStream = Arrays.stream(incomingRelations);
       if(this.getType() != Types.TOKEN && includeSubAnnotations) {
          relationStream = Stream.concat(relationStream,
                                         annotations().stream()
@@ -133,7 +163,7 @@ class DefaultAnnotationImpl extends BaseHString implements Annotation {
 
    @Override
    public Stream<Relation> outgoingRelationStream(boolean includeSubAnnotations) {
-      Stream<Relation> relationStream = outgoingRelations.stream();
+      Stream<Relation> relationStream = Arrays.stream(outgoingRelations);
       if(this.getType() != Types.TOKEN && includeSubAnnotations) {
          relationStream = Stream.concat(relationStream,
                                         annotations().stream()
@@ -147,11 +177,18 @@ class DefaultAnnotationImpl extends BaseHString implements Annotation {
 
    @Override
    public void removeRelation(@NonNull Relation relation) {
-      if(outgoingRelations.remove(relation)) {
+      Relation[] removed = remove(outgoingRelations, relation);
+      if(removed != outgoingRelations) {
+         outgoingRelations = removed;
          relation.getTarget(this).removeRelation(new Relation(relation.getType(), relation.getValue(), getId()));
       }
    }
 
+   @JsonProperty("relations")
+   private List<Relation> relations() {
+      return Arrays.asList(outgoingRelations);
+   }
+
    protected void setDocument(Document d) {
       this.owner = d;
    }
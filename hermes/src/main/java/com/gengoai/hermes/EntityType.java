@@ -67,6 +67,18 @@ public final class EntityType extends HierarchicalEnumValue<EntityType> {
       return registry.make(name);
    }
 
+   /**
+    * Retrieves an already defined EntityType with the given name or label (e.g. <code>DATE</code> for
+    * <code>DATE_TIME$DATE</code>).
+    *
+    * @param name the name (or label) of the EntityType to retrieve
+    * @return the EntityType
+    * @throws IllegalArgumentException if the name does not correspond to an already defined EntityType
+    */
+   public static EntityType valueOf(String name) {
+      return registry.valueOf(name);
+   }
+
    /**
     * Returns a collection of all currently registered EntityType
     *
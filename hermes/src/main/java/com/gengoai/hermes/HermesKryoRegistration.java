@@ -0,0 +1,120 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.hermes;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import com.gengoai.hermes.morphology.PartOfSpeech;
+import com.gengoai.json.Json;
+import com.gengoai.stream.spark.KryoRegistration;
+import org.kohsuke.MetaInfServices;
+
+import java.io.IOException;
+
+/**
+ * <p>Registers Kryo serializers for documents, annotations, and attribute maps. Documents are written once, in their
+ * JSON form, instead of as a graph of Java-serialized annotations each serializing its attribute map separately.
+ * Annotations attached to a document are written as a reference to their document and their id, so that annotations
+ * of the same document in a record share the document. Annotations without a document or that are not attached to
+ * their document are written using Java serialization.</p>
+ *
+ * @author David B. Bracewell
+ */
+@MetaInfServices(KryoRegistration.class)
+public class HermesKryoRegistration implements KryoRegistration {
+
+   @Override
+   public void registerClasses(Kryo kryo) {
+      kryo.register(DefaultDocumentImpl.class, new DocumentSerializer());
+      kryo.register(DefaultAnnotationImpl.class, new AnnotationSerializer());
+      kryo.register(AttributeMap.class, new AttributeMapSerializer());
+      kryo.register(PartOfSpeech.class, new JavaSerializer());
+   }
+
+   private static class AnnotationSerializer extends Serializer<Annotation> {
+      private final JavaSerializer detachedSerializer = new JavaSerializer();
+
+      private static boolean isAttached(Annotation annotation) {
+         Document document = annotation.document();
+         return document != null
+               && annotation.getId() != Annotation.DETACHED_ID
+               && document.annotation(annotation.getId()) == annotation;
+      }
+
+      @Override
+      public Annotation read(Kryo kryo, Input input, Class<Annotation> type) {
+         if(!input.readBoolean()) {
+            return (Annotation) detachedSerializer.read(kryo, input, type);
+         }
+         Document document = (Document) kryo.readClassAndObject(input);
+         return document.annotation(input.readVarLong(false));
+      }
+
+      @Override
+      public void write(Kryo kryo, Output output, Annotation annotation) {
+         boolean attached = isAttached(annotation);
+         output.writeBoolean(attached);
+         if(!attached) {
+            detachedSerializer.write(kryo, output, annotation);
+            return;
+         }
+         kryo.writeClassAndObject(output, annotation.document());
+         output.writeVarLong(annotation.getId(), false);
+      }
+   }
+
+   private static class AttributeMapSerializer extends Serializer<AttributeMap> {
+
+      @Override
+      public AttributeMap read(Kryo kryo, Input input, Class<AttributeMap> type) {
+         try {
+            return Json.parse(input.readString(), AttributeMap.class);
+         } catch(IOException e) {
+            throw new KryoException(e);
+         }
+      }
+
+      @Override
+      public void write(Kryo kryo, Output output, AttributeMap attributeMap) {
+         output.writeString(Json.dumps(attributeMap));
+      }
+   }
+
+   private static class DocumentSerializer extends Serializer<Document> {
+
+      @Override
+      public Document read(Kryo kryo, Input input, Class<Document> type) {
+         return Document.fromJson(input.readString());
+      }
+
+      @Override
+      public void write(Kryo kryo, Output output, Document document) {
+         output.writeString(document.toJson());
+      }
+   }
+
+}//END OF HermesKryoRegistration
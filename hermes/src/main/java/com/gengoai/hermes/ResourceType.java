@@ -22,6 +22,7 @@ package com.gengoai.hermes;
 import com.gengoai.Language;
 import com.gengoai.apollo.ml.model.ModelIO;
 import com.gengoai.cache.Cache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.config.Config;
 import com.gengoai.conversion.Cast;
 import com.gengoai.function.Unchecked;
@@ -114,7 +115,7 @@ public enum ResourceType {
 
    /**
     * Creates a Language-keyed cache for this resource type that loads the resource based on the given configKey and
-    * resourceName
+    * resourceName. Resources are loaded at most once per language even when requested concurrently.
     *
     * @param <M>          the resource type parameter
     * @param size         the maximum size of the cache
@@ -123,8 +124,10 @@ public enum ResourceType {
     * @return the cache
     */
    public <M> Cache<Language, M> createCache(int size, @NonNull String configKey, @NonNull String resourceName) {
-      return Cache.create(size,
-                          language -> load(configKey, resourceName, language));
+      return ConcurrentCache.<Language, M>builder()
+                            .maximumSize(size)
+                            .loader(language -> load(configKey, resourceName, language))
+                            .build();
    }
 
    /**
@@ -137,8 +140,7 @@ public enum ResourceType {
     * @return the cache
     */
    public <M> Cache<Language, M> createCache(@NonNull String configKey, @NonNull String resourceName) {
-      return Cache.create(Integer.MAX_VALUE,
-                          language -> load(configKey, resourceName, language));
+      return createCache(Integer.MAX_VALUE, configKey, resourceName);
    }
 
    /**
@@ -44,11 +44,10 @@ public class DefaultTokenAnnotator extends Annotator {
    @Override
    protected void annotateImpl(Document document) {
       Tokenizer tokenizer = Tokenizers.getTokenizer(document.getLanguage());
-      for(Tokenizer.Token token : tokenizer.tokenize(document.toString())) {
-         Annotation aToken = document.createAnnotation(Types.TOKEN, token.charStartIndex, token.charEndIndex,
-                                                       token.properties);
-         aToken.put(Types.TOKEN_TYPE, token.type);
-      }
+      tokenizer.tokenize(document.toString(), (type, start, end, properties) -> {
+         Annotation aToken = document.createAnnotation(Types.TOKEN, start, end, properties);
+         aToken.put(Types.TOKEN_TYPE, type);
+      });
    }
 
    @Override
@@ -23,11 +23,9 @@ package com.gengoai.hermes.annotator;
 
 import com.gengoai.Language;
 import com.gengoai.Validation;
-import com.gengoai.collection.Sets;
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.collection.counter.Counters;
-import com.gengoai.collection.multimap.HashSetMultimap;
-import com.gengoai.collection.multimap.SetMultimap;
+import com.gengoai.collection.tree.SymSpellIndex;
 import com.gengoai.conversion.Cast;
 import com.gengoai.hermes.*;
 import com.gengoai.hermes.lexicon.Lexicon;
@@ -37,25 +35,29 @@ import com.gengoai.hermes.lexicon.LexiconMatch;
 import com.gengoai.string.Strings;
 import lombok.NonNull;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * <p>
  * A lexicon annotator that allows gaps to occur in multi-word expressions. For example, "old red car" and "old broke
  * car" would match the lexicon item "old car" with a distance of one.
  * </p>
+ * <p>
+ * Candidate multi-word expressions for a span are retrieved from a token-level {@link SymSpellIndex} over the
+ * multi-word items in the lexicon, which is queried with every combination of the words and lemmas of the span, e.g.
+ * "kicked the old buckets" is also queried as "kicked the old bucket". Spans with too many combinations are instead
+ * compared against every multi-word item.
+ * </p>
  *
  * @author David B. Bracewell
  */
 public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
    private static final long serialVersionUID = 1L;
+   private static final int MAX_INDEX_QUERIES = 64;
    private final Lexicon lexicon;
    private final int maxDistance;
-   private final SetMultimap<String, String[]> prefix = new HashSetMultimap<>();
-   private final SetMultimap<String, String[]> suffix = new HashSetMultimap<>();
+   private final SymSpellIndex<List<String>> phrases;
+   private final List<List<String>> allPhrases = new ArrayList<>();
    private final AnnotationType type;
    private final AttributeType<?> attributeType;
 
@@ -79,13 +81,14 @@ public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
       this.type = annotationType;
       this.lexicon = lexicon;
       this.maxDistance = maxDistance;
+      this.phrases = SymSpellIndex.forTokens(maxDistance);
       for(String item : this.lexicon) {
          String[] parts = (lexiconLanguage.usesWhitespace()
                            ? item.split("\\s+")
                            : item.split(""));
          if(parts.length > 1) {
-            prefix.put(parts[0], parts);
-            suffix.put(parts[parts.length - 1], parts);
+            phrases.add(Arrays.asList(parts));
+            allPhrases.add(Arrays.asList(parts));
          }
       }
    }
@@ -145,6 +148,7 @@ public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
 
       for(int i = 0; i < span.size(); i++) {
          row1[0] = i + 1;
+         double rowMin = row1[0];
          for(int j = 0; j < candidate.length; j++) {
             double cost =
                   (Strings.safeEquals(candidate[j], span.get(i).toString(), lexicon.isCaseSensitive()) ||
@@ -157,8 +161,10 @@ public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
             }
 
             row1[j + 1] = Math.min(row1[j] + cost, Math.min(row0[j + 1] + cost, row0[j] + cost));
+            rowMin = Math.min(rowMin, row1[j + 1]);
          }
-         if(row1[candidate.length] > maxDistance) {
+         //Distances never decrease from one row to the next, so stop once every cell is too far
+         if(rowMin > maxDistance) {
             return Double.POSITIVE_INFINITY;
          }
          System.arraycopy(row1, 0, row0, 0, row0.length);
@@ -167,8 +173,44 @@ public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
       return row0[candidate.length];
    }
 
-   private Set<String[]> getCandidates(String prefixStr, String suffixStr) {
-      return Sets.intersection(prefix.get(prefixStr), suffix.get(suffixStr));
+   private Collection<List<String>> getCandidates(List<Annotation> tokens) {
+      //Every combination of the words and lemmas of the tokens, as a phrase may mix the two
+      List<List<String>> queries = new ArrayList<>();
+      queries.add(new ArrayList<>(tokens.size()));
+      for(Annotation token : tokens) {
+         String word = normalize(token.toString());
+         String lemma = normalize(token.getLemma());
+         int size = queries.size();
+         if(!word.equals(lemma)) {
+            if(size * 2 > MAX_INDEX_QUERIES) {
+               return allPhrases;
+            }
+            for(int i = 0; i < size; i++) {
+               List<String> query = new ArrayList<>(queries.get(i));
+               query.add(lemma);
+               queries.add(query);
+            }
+         }
+         for(int i = 0; i < size; i++) {
+            queries.get(i).add(word);
+         }
+      }
+      Set<List<String>> candidates = new HashSet<>();
+      for(List<String> query : queries) {
+         candidates.addAll(phrases.lookup(query).keySet());
+      }
+      return candidates;
+   }
+
+   private boolean matches(Annotation token, String word) {
+      return Strings.safeEquals(word, token.toString(), lexicon.isCaseSensitive()) ||
+            Strings.safeEquals(word, token.getLemma(), lexicon.isCaseSensitive());
+   }
+
+   private String normalize(String word) {
+      return lexicon.isCaseSensitive()
+             ? word
+             : word.toLowerCase();
    }
 
    @Override
@@ -195,24 +237,13 @@ public class FuzzyLexiconAnnotator extends ViterbiAnnotator {
       if(span.tokenLength() > 2) {
          List<Annotation> tokens = span.tokens();
          int TL = tokens.size() - 1;
-         Set<String[]> candidates;
-
-         if(lexicon.isCaseSensitive()) {
-            candidates = Sets.union(getCandidates(tokens.get(0).toString(),
-                                                  tokens.get(TL).toString()),
-                                    getCandidates(tokens.get(0).getLemma(),
-                                                  tokens.get(TL).getLemma()));
-         } else {
-            candidates = Sets.union(getCandidates(tokens.get(0).toString().toLowerCase(),
-                                                  tokens.get(TL).toString().toLowerCase()),
-                                    getCandidates(tokens.get(0).getLemma().toLowerCase(),
-                                                  tokens.get(TL).getLemma().toLowerCase()));
-         }
-
          String[] bestCandidate = null;
          double minDist = Double.POSITIVE_INFINITY;
-         for(String[] candidate : candidates) {
-            if(candidate.length < tokens.size()) {
+         for(List<String> phrase : getCandidates(tokens)) {
+            if(phrase.size() < tokens.size()
+                  && matches(tokens.get(0), phrase.get(0))
+                  && matches(tokens.get(TL), phrase.get(phrase.size() - 1))) {
+               String[] candidate = phrase.toArray(new String[0]);
                double d = distance(tokens, candidate);
                if(d < minDist) {
                   minDist = d;
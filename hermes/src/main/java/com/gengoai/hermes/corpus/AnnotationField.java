@@ -0,0 +1,280 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.hermes.corpus;
+
+import com.gengoai.Tag;
+import com.gengoai.collection.Lists;
+import com.gengoai.hermes.AnnotatableType;
+import com.gengoai.hermes.Annotation;
+import com.gengoai.hermes.AnnotationType;
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.EntityType;
+import com.gengoai.hermes.Types;
+import com.gengoai.hermes.morphology.PartOfSpeech;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * <p>Token-aligned annotation fields that are indexed by a persistent corpus. Every token of a document is a
+ * position and each field contributes terms at that position, e.g. the lowercased word, the lemma, the part-of-speech
+ * (and its parents), and the tag (and its parents) of the entity and phrase chunk covering the token. Because all
+ * fields share positions, queries can constrain consecutive tokens on different fields, e.g. the lemma
+ * <code>buy</code> followed by a <code>NOUN</code>.</p>
+ *
+ * <p>A field is only indexed when its annotation type has been completed on the document, which is why queries used
+ * to prefilter documents for pattern matching are guarded using {@link #requirement(String)}. Each indexed document
+ * records which fields were indexed for it (see {@link #indexedFields(Document)}), so that documents indexed before a
+ * field existed are not ruled out.</p>
+ *
+ * @author David B. Bracewell
+ */
+public enum AnnotationField {
+   /**
+    * The lowercased token
+    */
+   WORD("word", Types.TOKEN) {
+      @Override
+      public String normalize(String value) {
+         return value.toLowerCase();
+      }
+   },
+   /**
+    * The lowercased lemma of the token
+    */
+   LEMMA("lemma", Types.LEMMA) {
+      @Override
+      public String normalize(String value) {
+         return value.toLowerCase();
+      }
+   },
+   /**
+    * The part-of-speech of the token and its parents
+    */
+   POS("pos", Types.PART_OF_SPEECH) {
+      @Override
+      public String normalize(String value) {
+         return PartOfSpeech.valueOf(value).name();
+      }
+   },
+   /**
+    * The entity type, and its parents, of the entity covering the token
+    */
+   ENTITY("entity", Types.ENTITY) {
+      @Override
+      public String normalize(String value) {
+         return EntityType.valueOf(value).name();
+      }
+   },
+   /**
+    * The part-of-speech, and its parents, of the phrase chunk covering the token
+    */
+   CHUNK("chunk", Types.PHRASE_CHUNK) {
+      @Override
+      public String normalize(String value) {
+         return PartOfSpeech.valueOf(value).name();
+      }
+   };
+
+   /**
+    * The character separating the values of an indexed n-gram
+    */
+   public static final char NGRAM_SEPARATOR = '\u001F';
+   private final String prefix;
+   private final AnnotatableType requiredType;
+
+   AnnotationField(String prefix, AnnotatableType requiredType) {
+      this.prefix = prefix + ":";
+      this.requiredType = requiredType;
+   }
+
+   private static void addTags(List<Set<String>> positions,
+                               int[] starts,
+                               Document document,
+                               AnnotationType type,
+                               AnnotationField field) {
+      for(Annotation annotation : document.annotations(type)) {
+         Tag tag = annotation.getTag();
+         if(tag == null) {
+            continue;
+         }
+         for(Annotation token : annotation.tokens()) {
+            int index = Arrays.binarySearch(starts, token.start());
+            if(index >= 0) {
+               for(Tag t = tag; t != null; t = t.parent()) {
+                  positions.get(index).add(field.prefix + t.name());
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Determines the fields that are indexed for the given document, i.e. those whose annotation type has been
+    * completed on the document. No fields are indexed for documents which have not been tokenized.
+    *
+    * @param document the document
+    * @return the indexed fields
+    */
+   public static List<AnnotationField> indexedFields(@NonNull Document document) {
+      if(!document.isCompleted(Types.TOKEN)) {
+         return Collections.emptyList();
+      }
+      List<AnnotationField> fields = new ArrayList<>();
+      for(AnnotationField field : values()) {
+         if(document.isCompleted(field.requiredType)) {
+            fields.add(field);
+         }
+      }
+      return fields;
+   }
+
+   /**
+    * Generates the n-gram terms, of orders two through the given maximum order, of the {@link #WORD} and, when
+    * completed, {@link #LEMMA} fields of the given document. The values of an n-gram are separated using {@link
+    * #NGRAM_SEPARATOR} and n-grams are generated over the tokens of the entire document. Unigrams are not included as
+    * they are indexed as part of the {@link #positions(Document)}.
+    *
+    * @param document the document
+    * @param maxOrder the maximum n-gram order
+    * @return the list of n-gram terms (duplicates are retained)
+    */
+   public static List<String> nGrams(@NonNull Document document, int maxOrder) {
+      if(maxOrder < 2 || !document.isCompleted(Types.TOKEN)) {
+         return Collections.emptyList();
+      }
+      List<Annotation> tokens = document.tokens();
+      List<String> nGrams = new ArrayList<>();
+      addNGrams(nGrams, WORD, new ArrayList<>(Lists.transform(tokens, Annotation::toString)), maxOrder);
+      if(document.isCompleted(Types.LEMMA)) {
+         addNGrams(nGrams, LEMMA, new ArrayList<>(Lists.transform(tokens, Annotation::getLemma)), maxOrder);
+      }
+      return nGrams;
+   }
+
+   private static void addNGrams(List<String> nGrams, AnnotationField field, List<String> values, int maxOrder) {
+      for(int i = 0; i < values.size(); i++) {
+         StringBuilder nGram = new StringBuilder(values.get(i));
+         for(int j = i + 1; j < values.size() && j - i < maxOrder; j++) {
+            nGram.append(NGRAM_SEPARATOR).append(values.get(j));
+            nGrams.add(field.term(nGram.toString()));
+         }
+      }
+   }
+
+   /**
+    * Determines the case-insensitive field from its name or prefix (e.g. <code>lemma</code>).
+    *
+    * @param name the name
+    * @return the AnnotationField
+    */
+   public static AnnotationField parse(@NonNull String name) {
+      for(AnnotationField field : values()) {
+         if(field.name().equalsIgnoreCase(name) || field.prefix.equalsIgnoreCase(name + ":")) {
+            return field;
+         }
+      }
+      throw new IllegalArgumentException("'" + name + "' is not a valid AnnotationField");
+   }
+
+   /**
+    * Generates the terms for each token in the given document. Only fields whose annotation type has been completed
+    * on the document are included.
+    *
+    * @param document the document
+    * @return the list of terms for each token position
+    */
+   public static List<Set<String>> positions(@NonNull Document document) {
+      if(!document.isCompleted(Types.TOKEN)) {
+         return Collections.emptyList();
+      }
+      List<Annotation> tokens = document.tokens();
+      List<Set<String>> positions = new ArrayList<>(tokens.size());
+      int[] starts = new int[tokens.size()];
+      boolean lemma = document.isCompleted(Types.LEMMA);
+      boolean pos = document.isCompleted(Types.PART_OF_SPEECH);
+      for(int i = 0; i < tokens.size(); i++) {
+         Annotation token = tokens.get(i);
+         Set<String> terms = new LinkedHashSet<>();
+         starts[i] = token.start();
+         terms.add(WORD.term(token.toString()));
+         if(lemma) {
+            terms.add(LEMMA.term(token.getLemma()));
+         }
+         if(pos) {
+            for(PartOfSpeech p = token.pos(); p != null; p = p.parent()) {
+               terms.add(POS.prefix + p.name());
+            }
+         }
+         positions.add(terms);
+      }
+      if(document.isCompleted(Types.ENTITY)) {
+         addTags(positions, starts, document, Types.ENTITY, ENTITY);
+      }
+      if(document.isCompleted(Types.PHRASE_CHUNK)) {
+         addTags(positions, starts, document, Types.PHRASE_CHUNK, CHUNK);
+      }
+      return positions;
+   }
+
+   /**
+    * Gets the annotation type that must be completed on a document for this field to be indexed.
+    *
+    * @return the required annotation type
+    */
+   public AnnotatableType getRequiredType() {
+      return requiredType;
+   }
+
+   /**
+    * Normalizes the given value into the form that is indexed.
+    *
+    * @param value the value
+    * @return the normalized value
+    */
+   public String normalize(String value) {
+      return value.toUpperCase();
+   }
+
+   /**
+    * Creates a query that is true for documents containing a token with the given value for this field or for which
+    * this field is not indexed. Such queries are safe to use for ruling out documents before matching patterns.
+    *
+    * @param value the value
+    * @return the query
+    */
+   public Query requirement(@NonNull String value) {
+      return Query.or(Query.annotation(this, value), Query.not(Query.indexed(this)));
+   }
+
+   /**
+    * Creates the indexed term for the given value of this field
+    *
+    * @param value the value
+    * @return the term
+    */
+   public String term(@NonNull String value) {
+      return prefix + normalize(value);
+   }
+
+}//END OF AnnotationField
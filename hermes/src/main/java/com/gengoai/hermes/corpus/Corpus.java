@@ -34,7 +34,7 @@ import com.gengoai.hermes.format.DocFormat;
 import com.gengoai.hermes.format.DocFormatService;
 import com.gengoai.hermes.lexicon.Lexicon;
 import com.gengoai.hermes.workflow.Context;
-import com.gengoai.hermes.workflow.SequentialWorkflow;
+import com.gengoai.hermes.workflow.Workflow;
 import com.gengoai.io.Resources;
 import com.gengoai.io.resource.Resource;
 import com.gengoai.specification.Specification;
@@ -199,14 +199,14 @@ public interface Corpus extends DocumentCollection {
    }
 
    /**
-    * Processes the corpus using the given {@link SequentialWorkflow}
+    * Processes the corpus using the given {@link Workflow}
     *
     * @param processor the processor
     * @return this Corpus
     * @throws Exception the exception
     */
-   default Corpus process(@NonNull SequentialWorkflow processor) throws Exception {
-      processor.process(null, new Context());
+   default Corpus process(@NonNull Workflow processor) throws Exception {
+      processor.process(this, new Context());
       return this;
    }
 
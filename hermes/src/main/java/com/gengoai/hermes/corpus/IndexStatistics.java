@@ -0,0 +1,288 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.hermes.corpus;
+
+import com.gengoai.collection.counter.Counter;
+import com.gengoai.collection.counter.Counters;
+import com.gengoai.hermes.Types;
+import com.gengoai.hermes.extraction.Extractor;
+import com.gengoai.hermes.extraction.MultiPhaseExtractor;
+import com.gengoai.hermes.extraction.NGramExtractor;
+import com.gengoai.hermes.extraction.TermExtractor;
+import com.gengoai.hermes.extraction.lyre.LyreDSL;
+import com.gengoai.hermes.extraction.lyre.LyreExpression;
+import com.gengoai.hermes.ml.feature.ValueCalculator;
+import com.gengoai.string.Strings;
+import com.gengoai.tuple.Tuple;
+import lombok.NonNull;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.gengoai.tuple.Tuples.$;
+
+/**
+ * <p>Calculates corpus statistics, i.e. term, document, and n-gram frequencies, directly from the postings of a
+ * {@link LuceneCorpus} index. Statistics are only available for extractors whose output is equivalent to an indexed
+ * {@link AnnotationField}, i.e. unfiltered and untrimmed tokens converted to strings in lowercase (<code>lower</code>)
+ * or lemmatized (<code>lemma</code>) form, and only when every document in the index has the field (and for n-grams
+ * the n-gram order) indexed. In all other cases the statistics are empty and must be calculated by extracting terms
+ * from each document.</p>
+ *
+ * @author David B. Bracewell
+ */
+final class IndexStatistics {
+   private static final String LEMMA_TOKENS = LyreDSL.lemma(LyreDSL.annotation(Types.TOKEN)).getPattern();
+   private static final String LOWER_TOKENS = LyreDSL.lower(LyreDSL.annotation(Types.TOKEN)).getPattern();
+   private final IndexReader reader;
+
+   /**
+    * Instantiates a new IndexStatistics.
+    *
+    * @param reader the reader of the index to calculate statistics over
+    */
+   IndexStatistics(@NonNull IndexReader reader) {
+      this.reader = reader;
+   }
+
+   private static Optional<AnnotationField> fieldFor(LyreExpression toString) {
+      if(toString.getPattern().equals(LyreDSL.lower.getPattern())) {
+         return Optional.of(AnnotationField.WORD);
+      }
+      if(toString.getPattern().equals(LyreDSL.lemma.getPattern())) {
+         return Optional.of(AnnotationField.LEMMA);
+      }
+      return Optional.empty();
+   }
+
+   private static Optional<AnnotationField> fieldFor(MultiPhaseExtractor extractor) {
+      if(extractor.getFilter() != null
+            || extractor.getTrim() != null
+            || extractor.getValueCalculator() != ValueCalculator.Frequency
+            || !Arrays.equals(extractor.getAnnotationTypes(), new Object[]{Types.TOKEN})) {
+         return Optional.empty();
+      }
+      return fieldFor(extractor.getToString());
+   }
+
+   /**
+    * Determines the indexed field whose terms are equivalent to the terms generated by the given extractor.
+    *
+    * @param extractor the extractor
+    * @return the indexed field or empty if the extractor has no equivalent field
+    */
+   static Optional<AnnotationField> fieldFor(@NonNull Extractor extractor) {
+      if(extractor instanceof LyreExpression) {
+         String pattern = ((LyreExpression) extractor).getPattern();
+         if(pattern.equals(LOWER_TOKENS)) {
+            return Optional.of(AnnotationField.WORD);
+         }
+         if(pattern.equals(LEMMA_TOKENS)) {
+            return Optional.of(AnnotationField.LEMMA);
+         }
+         return Optional.empty();
+      }
+      if(extractor instanceof TermExtractor) {
+         return fieldFor((MultiPhaseExtractor) extractor);
+      }
+      return Optional.empty();
+   }
+
+   private static int order(String nGram) {
+      int order = 1;
+      for(int i = 0; i < nGram.length(); i++) {
+         if(nGram.charAt(i) == AnnotationField.NGRAM_SEPARATOR) {
+            order++;
+         }
+      }
+      return order;
+   }
+
+   private boolean allDocuments(org.apache.lucene.search.Query query) throws IOException {
+      return new IndexSearcher(reader).count(query) == reader.numDocs();
+   }
+
+   /**
+    * Calculates the document frequencies of the terms of the given extractor.
+    *
+    * @param extractor the extractor
+    * @return the document frequencies or empty if they cannot be calculated from the index
+    * @throws IOException Something went wrong reading the index
+    */
+   Optional<Counter<String>> documentCount(@NonNull Extractor extractor) throws IOException {
+      Optional<AnnotationField> field = fieldFor(extractor);
+      if(field.isPresent() && isIndexed(field.get())) {
+         return Optional.of(frequencies(LuceneCorpus.TOKENS_FIELD, field.get(), true));
+      }
+      return Optional.empty();
+   }
+
+   /**
+    * Calculates either the total or document frequency of the terms in the given field having the prefix of the given
+    * annotation field. Frequencies of deleted documents, which are still included in the statistics of the index
+    * until their segments are merged, are excluded by walking the postings of each term.
+    *
+    * @param luceneField       the Lucene field
+    * @param field             the annotation field
+    * @param documentFrequency True calculate document frequencies, False calculate total frequencies
+    * @return the counter of term frequencies without the field prefix
+    * @throws IOException Something went wrong reading the index
+    */
+   Counter<String> frequencies(String luceneField,
+                               AnnotationField field,
+                               boolean documentFrequency) throws IOException {
+      Counter<String> counter = Counters.newCounter();
+      Terms terms = MultiTerms.getTerms(reader, luceneField);
+      if(terms == null) {
+         return counter;
+      }
+      final String prefix = field.term(Strings.EMPTY);
+      final BytesRef prefixBytes = new BytesRef(prefix);
+      final Bits liveDocs = MultiBits.getLiveDocs(reader);
+      TermsEnum termsEnum = terms.iterator();
+      if(termsEnum.seekCeil(prefixBytes) == TermsEnum.SeekStatus.END) {
+         return counter;
+      }
+      PostingsEnum postings = null;
+      for(BytesRef term = termsEnum.term(); term != null; term = termsEnum.next()) {
+         if(!StringHelper.startsWith(term, prefixBytes)) {
+            break;
+         }
+         long frequency = 0;
+         if(liveDocs == null) {
+            frequency = documentFrequency
+                        ? termsEnum.docFreq()
+                        : termsEnum.totalTermFreq();
+         } else {
+            postings = termsEnum.postings(postings, PostingsEnum.FREQS);
+            for(int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+               if(liveDocs.get(doc)) {
+                  frequency += documentFrequency
+                               ? 1
+                               : postings.freq();
+               }
+            }
+         }
+         if(frequency > 0) {
+            counter.increment(term.utf8ToString().substring(prefix.length()), frequency);
+         }
+      }
+      return counter;
+   }
+
+   /**
+    * Determines if the given field is indexed for every document in the index. Segments without the token field and
+    * documents indexed before the token-aligned fields existed do not have the field indexed.
+    *
+    * @param field the field
+    * @return True if the field is indexed for every document
+    * @throws IOException Something went wrong reading the index
+    */
+   boolean isIndexed(@NonNull AnnotationField field) throws IOException {
+      for(LeafReaderContext leaf : reader.leaves()) {
+         if(leaf.reader().numDocs() > 0 && leaf.reader().getFieldInfos().fieldInfo(LuceneCorpus.TOKENS_FIELD) == null) {
+            return false;
+         }
+      }
+      return allDocuments(new TermQuery(new Term(LuceneCorpus.INDEXED_FIELDS_FIELD, field.name())));
+   }
+
+   /**
+    * Determines if n-grams of the given order (and lower) are indexed for every document in the index
+    *
+    * @param order the n-gram order
+    * @return True if n-grams of the given order are indexed for every document
+    * @throws IOException Something went wrong reading the index
+    */
+   boolean isNGramOrderIndexed(int order) throws IOException {
+      if(order <= 1) {
+         return true;
+      }
+      Terms terms = MultiTerms.getTerms(reader, LuceneCorpus.NGRAM_ORDER_FIELD);
+      if(terms == null) {
+         return false;
+      }
+      List<BytesRef> orders = new ArrayList<>();
+      TermsEnum termsEnum = terms.iterator();
+      for(BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+         if(Integer.parseInt(term.utf8ToString()) >= order) {
+            orders.add(BytesRef.deepCopyOf(term));
+         }
+      }
+      return orders.size() > 0 && allDocuments(new TermInSetQuery(LuceneCorpus.NGRAM_ORDER_FIELD, orders));
+   }
+
+   /**
+    * Calculates the total frequencies of the n-grams of the given extractor.
+    *
+    * @param extractor the extractor
+    * @return the n-gram frequencies or empty if they cannot be calculated from the index
+    * @throws IOException Something went wrong reading the index
+    */
+   Optional<Counter<Tuple>> nGramCount(@NonNull NGramExtractor extractor) throws IOException {
+      Optional<AnnotationField> field = fieldFor((MultiPhaseExtractor) extractor);
+      if(!field.isPresent() || !isIndexed(field.get()) || !isNGramOrderIndexed(extractor.getMaxOrder())) {
+         return Optional.empty();
+      }
+      Counter<Tuple> counter = Counters.newCounter();
+      if(extractor.getMinOrder() == 1) {
+         frequencies(LuceneCorpus.TOKENS_FIELD, field.get(), false).forEach((k, v) -> counter.increment($(k), v));
+      }
+      if(extractor.getMaxOrder() > 1) {
+         frequencies(LuceneCorpus.NGRAM_FIELD, field.get(), false).forEach((k, v) -> {
+            int order = order(k);
+            if(order >= extractor.getMinOrder() && order <= extractor.getMaxOrder()) {
+               counter.increment($(Arrays.asList(k.split(String.valueOf(AnnotationField.NGRAM_SEPARATOR)))), v);
+            }
+         });
+      }
+      return Optional.of(counter);
+   }
+
+   /**
+    * Calculates the total frequencies of the terms of the given extractor.
+    *
+    * @param extractor the extractor
+    * @return the term frequencies or empty if they cannot be calculated from the index
+    * @throws IOException Something went wrong reading the index
+    */
+   Optional<Counter<String>> termCount(@NonNull Extractor extractor) throws IOException {
+      Optional<AnnotationField> field = fieldFor(extractor);
+      if(field.isPresent() && isIndexed(field.get())) {
+         return Optional.of(frequencies(LuceneCorpus.TOKENS_FIELD, field.get(), false));
+      }
+      return Optional.empty();
+   }
+
+}//END OF IndexStatistics
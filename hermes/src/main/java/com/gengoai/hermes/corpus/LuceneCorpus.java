@@ -35,16 +35,26 @@ import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.AttributeType;
 import com.gengoai.hermes.Document;
 import com.gengoai.hermes.Types;
+import com.gengoai.hermes.extraction.Extractor;
+import com.gengoai.hermes.extraction.NGramExtractor;
+import com.gengoai.hermes.extraction.caduceus.CaduceusProgram;
+import com.gengoai.hermes.extraction.regex.TokenMatch;
+import com.gengoai.hermes.extraction.regex.TokenMatcher;
+import com.gengoai.hermes.extraction.regex.TokenRegex;
 import com.gengoai.io.MonitoredObject;
 import com.gengoai.io.ResourceMonitor;
 import com.gengoai.io.resource.ByteArrayResource;
 import com.gengoai.stream.MStream;
 import com.gengoai.stream.StreamingContext;
+import com.gengoai.tuple.Tuple;
 import lombok.NonNull;
 import lombok.extern.java.Log;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
@@ -87,11 +97,52 @@ class LuceneCorpus implements Corpus {
     * The Lucene Field used to store the document id
     */
    public static final String ID_FIELD = "@id";
+   /**
+    * The Lucene Field used to store the names of the {@link AnnotationField}s indexed in the {@link #TOKENS_FIELD} of
+    * the document. Documents indexed before the token-aligned fields existed do not have this field.
+    */
+   public static final String INDEXED_FIELDS_FIELD = "@indexedFields";
    /**
     * The Lucene Field used to store the document json
     */
    public static final String JSON_FIELD = "@json";
+   /**
+    * The Lucene Field used to store the word and lemma n-grams (see {@link AnnotationField#nGrams(Document, int)})
+    */
+   public static final String NGRAM_FIELD = "@ngrams";
+   /**
+    * Config setting for the maximum order of the n-grams that are indexed (n-grams are not indexed when less than 2)
+    */
+   public static final String NGRAM_ORDER_CONFIG = "Corpus.nGramOrder";
+   /**
+    * The Lucene Field used to store the maximum order of the n-grams indexed for the document
+    */
+   public static final String NGRAM_ORDER_FIELD = "@ngramOrder";
+   /**
+    * Config setting for the number of hits retrieved at a time when iterating search results in score order
+    */
+   public static final String SEARCH_PAGE_SIZE_CONFIG = "Corpus.searchPageSize";
    public static final String SPLIT_SIZE_CONFIG = "Corpus.splitSize";
+   /**
+    * The Lucene Field used to store the token-aligned annotation fields (see {@link AnnotationField})
+    */
+   public static final String TOKENS_FIELD = "@tokens";
+   private static final FieldType NGRAM_FIELD_TYPE = new FieldType();
+   private static final FieldType TOKENS_FIELD_TYPE = new FieldType();
+
+   static {
+      NGRAM_FIELD_TYPE.setTokenized(true);
+      NGRAM_FIELD_TYPE.setStored(false);
+      NGRAM_FIELD_TYPE.setOmitNorms(true);
+      NGRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+      NGRAM_FIELD_TYPE.freeze();
+      TOKENS_FIELD_TYPE.setTokenized(true);
+      TOKENS_FIELD_TYPE.setStored(false);
+      TOKENS_FIELD_TYPE.setOmitNorms(true);
+      TOKENS_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+      TOKENS_FIELD_TYPE.freeze();
+   }
+
    private final Directory directory;
 
    /**
@@ -129,6 +180,52 @@ class LuceneCorpus implements Corpus {
       }
    }
 
+   @Override
+   public Corpus apply(@NonNull TokenRegex pattern, @NonNull SerializableConsumer<TokenMatch> onMatch) {
+      return update("ApplyTokenRegex", pattern.prefilter().orElse(null), doc -> {
+         TokenMatcher matcher = pattern.matcher(doc);
+         boolean matched = false;
+         while(matcher.find()) {
+            onMatch.accept(matcher.asTokenMatch());
+            matched = true;
+         }
+         return matched;
+      });
+   }
+
+   private Iterable<Document> candidates(Query query) {
+      if(query == null) {
+         return this;
+      }
+      return () -> {
+         try {
+            MonitoredObject<IndexReader> reader = ResourceMonitor.monitor(getIndexReader());
+            final List<Integer> docIds = new ArrayList<>();
+            new IndexSearcher(reader.object).search(query.toLucene(), new SimpleCollector() {
+               private int docBase;
+
+               @Override
+               public void collect(int doc) {
+                  docIds.add(docBase + doc);
+               }
+
+               @Override
+               protected void doSetNextReader(LeafReaderContext context) {
+                  docBase = context.docBase;
+               }
+
+               @Override
+               public ScoreMode scoreMode() {
+                  return ScoreMode.COMPLETE_NO_SCORES;
+               }
+            });
+            return new LuceneDocumentIterator(reader, docIds.iterator());
+         } catch(IOException e) {
+            throw new RuntimeException(e);
+         }
+      };
+   }
+
    @Override
    public void close() throws IOException {
       directory.close();
@@ -172,6 +269,22 @@ class LuceneCorpus implements Corpus {
       }
    }
 
+   @Override
+   public Counter<String> documentCount(@NonNull Extractor extractor) {
+      return fromIndex(statistics -> statistics.documentCount(extractor))
+            .orElseGet(() -> Corpus.super.documentCount(extractor));
+   }
+
+   private <T> Optional<T> fromIndex(IOFunction<IndexStatistics, Optional<T>> function) {
+      try(IndexReader reader = getIndexReader()) {
+         return function.apply(new IndexStatistics(reader));
+      } catch(IndexNotFoundException nfe) {
+         return Optional.empty();
+      } catch(IOException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
    @Override
    public <T> Counter<T> getAttributeValueCount(@NonNull AttributeType<T> type) {
       return Counters.newCounter(count(type.name(), type::decode));
@@ -237,7 +350,7 @@ class LuceneCorpus implements Corpus {
       }
    }
 
-   private IndexReader getIndexReader() throws IOException {
+   IndexReader getIndexReader() throws IOException {
       return DirectoryReader.open(directory);
    }
 
@@ -273,7 +386,7 @@ class LuceneCorpus implements Corpus {
       }
    }
 
-   private Document loadDocument(IndexReader reader, int id) {
+   Document loadDocument(IndexReader reader, int id) {
       try {
          ByteArrayResource resource = new ByteArrayResource(reader.document(id)
                                                                   .getField(JSON_FIELD)
@@ -284,6 +397,12 @@ class LuceneCorpus implements Corpus {
       }
    }
 
+   @Override
+   public Counter<Tuple> nGramCount(@NonNull NGramExtractor nGramExtractor) {
+      return fromIndex(statistics -> statistics.nGramCount(nGramExtractor))
+            .orElseGet(() -> Corpus.super.nGramCount(nGramExtractor));
+   }
+
    @Override
    public MStream<Document> parallelStream() {
       return stream();
@@ -291,28 +410,7 @@ class LuceneCorpus implements Corpus {
 
    @Override
    public SearchResults query(@NonNull Query query) {
-      try {
-         return new LuceneSearchResults(this, queryAndReturnIds(query), query);
-      } catch(IOException e) {
-         throw new RuntimeException(e);
-      }
-   }
-
-   private LinkedHashSet<String> queryAndReturnIds(Query query) throws IOException {
-      LinkedHashSet<String> ids = new LinkedHashSet<>();
-      final org.apache.lucene.search.Query luceneQuery = query.toLucene();
-      try(IndexReader reader = getIndexReader()) {
-         IndexSearcher searcher = new IndexSearcher(reader);
-         TopDocs d = searcher.search(luceneQuery, 10_000);
-         while(d.scoreDocs.length > 0) {
-            ids.addAll(toDocumentIds(reader, d.scoreDocs));
-            d = searcher.searchAfter(d.scoreDocs[d.scoreDocs.length - 1], luceneQuery, 10_000);
-            if(d.scoreDocs.length == 0) {
-               break;
-            }
-         }
-      }
-      return ids;
+      return new LuceneSearchResults(this, query, Config.get(SEARCH_PAGE_SIZE_CONFIG).asIntegerValue(1_000));
    }
 
    @Override
@@ -380,9 +478,16 @@ class LuceneCorpus implements Corpus {
       return getStreamingContext().stream(this).parallel();
    }
 
+   @Override
+   public Counter<String> termCount(@NonNull Extractor extractor) {
+      return fromIndex(statistics -> statistics.termCount(extractor))
+            .orElseGet(() -> Corpus.super.termCount(extractor));
+   }
+
    private org.apache.lucene.document.Document toDocument(Document document) {
       org.apache.lucene.document.Document iDoc = new org.apache.lucene.document.Document();
       iDoc.add(new StringField(ID_FIELD, document.getId(), Field.Store.YES));
+      iDoc.add(new SortedDocValuesField(ID_FIELD, new BytesRef(document.getId())));
       FieldType ft = new FieldType();
       ft.setTokenized(false);
       ft.setStored(true);
@@ -391,6 +496,21 @@ class LuceneCorpus implements Corpus {
       for(AnnotatableType annotatableType : document.completed()) {
          iDoc.add(new TextField(ANNOTATIONS_FIELD, annotatableType.canonicalName(), Field.Store.NO));
       }
+      List<Set<String>> positions = AnnotationField.positions(document);
+      if(positions.size() > 0) {
+         iDoc.add(new Field(TOKENS_FIELD, new PositionalTokenStream(positions), TOKENS_FIELD_TYPE));
+         for(AnnotationField field : AnnotationField.indexedFields(document)) {
+            iDoc.add(new StringField(INDEXED_FIELDS_FIELD, field.name(), Field.Store.NO));
+         }
+         int nGramOrder = Config.get(NGRAM_ORDER_CONFIG).asIntegerValue(1);
+         if(nGramOrder > 1) {
+            iDoc.add(new Field(NGRAM_FIELD,
+                               new PositionalTokenStream(Collections.singletonList(AnnotationField.nGrams(document,
+                                                                                                          nGramOrder))),
+                               NGRAM_FIELD_TYPE));
+            iDoc.add(new StringField(NGRAM_ORDER_FIELD, Integer.toString(nGramOrder), Field.Store.NO));
+         }
+      }
       document.attributeMap()
               .forEach((k, v) -> {
                  if(v instanceof Iterable) {
@@ -418,12 +538,9 @@ class LuceneCorpus implements Corpus {
 
    protected LinkedHashSet<String> toDocumentIds(IndexReader reader, ScoreDoc[] scoreDocs) {
       LinkedHashSet<String> ids = new LinkedHashSet<>();
+      IdLookup lookup = new IdLookup(reader);
       for(ScoreDoc scoreDoc : scoreDocs) {
-         try {
-            ids.add(reader.document(scoreDoc.doc, Collections.singleton(ID_FIELD)).getField(ID_FIELD).stringValue());
-         } catch(IOException e) {
-            throw new RuntimeException(e);
-         }
+         ids.add(lookup.get(scoreDoc.doc));
       }
       return ids;
    }
@@ -453,11 +570,19 @@ class LuceneCorpus implements Corpus {
       }
    }
 
-   private Corpus update(String operation, SerializablePredicate<Document> processor) {
+   @Override
+   public Corpus update(@NonNull CaduceusProgram program) {
+      return update("ExecuteCaduceusProgram", program.prefilter().orElse(null), d -> {
+         program.execute(d);
+         return true;
+      });
+   }
+
+   private Corpus update(String operation, Query candidates, SerializablePredicate<Document> processor) {
       ProgressLogger progressLogger = ProgressLogger.create(this, operation);
       final UpdateConsumer consumer = new UpdateConsumer(processor, progressLogger);
       Broker<Document> broker = Broker.<Document>builder()
-            .addProducer(new IterableProducer<>(this))
+            .addProducer(new IterableProducer<>(candidates(candidates)))
             .bufferSize(10_000)
             .addConsumer(consumer, Math.max(1, Runtime.getRuntime().availableProcessors() / 2))
             .build();
@@ -473,12 +598,58 @@ class LuceneCorpus implements Corpus {
 
    @Override
    public Corpus update(@NonNull String operation, @NonNull SerializableConsumer<Document> documentProcessor) {
-      return update(operation, d -> {
+      return update(operation, null, d -> {
          documentProcessor.accept(d);
          return true;
       });
    }
 
+   /**
+    * Looks up document ids from the id doc values of the segment containing a document, falling back to the stored
+    * id for indexes written before the ids were stored as doc values. Lookups are most efficient when made in
+    * increasing document order.
+    */
+   static class IdLookup {
+      private final List<LeafReaderContext> leaves;
+      private final IndexReader reader;
+      private SortedDocValues values;
+      private int leaf = -1;
+
+      IdLookup(@NonNull IndexReader reader) {
+         this.reader = reader;
+         this.leaves = reader.leaves();
+      }
+
+      /**
+       * Gets the id of the document with the given (top-level) Lucene document number
+       *
+       * @param doc the Lucene document number
+       * @return the document id
+       */
+      String get(int doc) {
+         try {
+            int index = ReaderUtil.subIndex(doc, leaves);
+            LeafReaderContext context = leaves.get(index);
+            int target = doc - context.docBase;
+            if(index != leaf || values == null || values.docID() > target) {
+               leaf = index;
+               values = context.reader().getSortedDocValues(ID_FIELD);
+            }
+            if(values != null && values.advanceExact(target)) {
+               return values.binaryValue().utf8ToString();
+            }
+            return reader.document(doc, Collections.singleton(ID_FIELD)).getField(ID_FIELD).stringValue();
+         } catch(IOException e) {
+            throw new RuntimeException(e);
+         }
+      }
+   }
+
+   @FunctionalInterface
+   private interface IOFunction<I, O> {
+      O apply(I input) throws IOException;
+   }
+
    private static class RandomOrderComparator extends FieldComparator<Integer> {
       private final Random random;
 
@@ -532,18 +703,57 @@ class LuceneCorpus implements Corpus {
       }
    }
 
+   private static class PositionalTokenStream extends TokenStream {
+      private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+      private final PositionIncrementAttribute positionAttribute = addAttribute(PositionIncrementAttribute.class);
+      private final Iterator<? extends Collection<String>> positions;
+      private Iterator<String> terms = Collections.emptyIterator();
+
+      private PositionalTokenStream(List<? extends Collection<String>> positions) {
+         this.positions = positions.iterator();
+      }
+
+      @Override
+      public boolean incrementToken() {
+         clearAttributes();
+         int increment = 0;
+         while(!terms.hasNext()) {
+            if(!positions.hasNext()) {
+               return false;
+            }
+            terms = positions.next().iterator();
+            increment++;
+         }
+         termAttribute.append(terms.next());
+         positionAttribute.setPositionIncrement(increment);
+         return true;
+      }
+   }
+
    private class LuceneDocumentIterator implements Iterator<Document> {
       private final Bits liveDocs;
       private final MonitoredObject<IndexReader> reader;
+      private final Iterator<Integer> docIds;
       private int index = -1;
 
       private LuceneDocumentIterator(MonitoredObject<IndexReader> reader) {
+         this(reader, null);
+      }
+
+      private LuceneDocumentIterator(MonitoredObject<IndexReader> reader, Iterator<Integer> docIds) {
          this.reader = reader;
          this.liveDocs = MultiBits.getLiveDocs(reader.object);
+         this.docIds = docIds;
          advance();
       }
 
       private void advance() {
+         if(docIds != null) {
+            index = docIds.hasNext()
+                    ? docIds.next()
+                    : reader.object.maxDoc();
+            return;
+         }
          index++;
          while(index < reader.object.maxDoc() && liveDocs != null && !liveDocs.get(index)) {
             index++;
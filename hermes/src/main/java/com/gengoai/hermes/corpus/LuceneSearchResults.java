@@ -1,4 +1,6 @@
 /*
+ * (c) 2005 David B. Bracewell
+ *
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
  * distributed with this work for additional information
@@ -15,23 +17,66 @@
  * KIND, either express or implied.  See the License for the
  * specific language governing permissions and limitations
  * under the License.
+ *
  */
 
 package com.gengoai.hermes.corpus;
 
+import com.gengoai.collection.Iterators;
+import com.gengoai.function.SerializableConsumer;
+import com.gengoai.hermes.Document;
+import com.gengoai.io.MonitoredObject;
+import com.gengoai.io.ResourceMonitor;
+import com.gengoai.stream.MStream;
+import com.gengoai.stream.StreamingContext;
 import lombok.NonNull;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
 
-import java.util.LinkedHashSet;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-class LuceneSearchResults extends LuceneFilteredView implements SearchResults {
+/**
+ * <p>Search results over a {@link LuceneCorpus} that are computed lazily. Counting the results only counts the
+ * matching documents in the index and iterating the results pages through the hits, loading each document from the
+ * same index reader that found it. Hits are visited in score order, retrieving a page of hits at a time (see {@link
+ * LuceneCorpus#SEARCH_PAGE_SIZE_CONFIG}), or in index order (see {@link #inIndexOrder()}), in which case hits are not
+ * scored and are read directly from the index. Document ids are read from doc values so that {@link #hits()} never
+ * loads a stored document.</p>
+ *
+ * @author David B. Bracewell
+ */
+class LuceneSearchResults implements SearchResults {
+   @NonNull
+   private final LuceneCorpus parent;
    @NonNull
    private final Query query;
+   private final boolean indexOrder;
+   private final int pageSize;
+
+   /**
+    * Instantiates a new LuceneSearchResults.
+    *
+    * @param parent   the corpus being searched
+    * @param query    the query
+    * @param pageSize the number of hits retrieved at a time when iterating in score order
+    */
+   public LuceneSearchResults(@NonNull LuceneCorpus parent, @NonNull Query query, int pageSize) {
+      this(parent, query, false, pageSize);
+   }
 
-   public LuceneSearchResults(LuceneCorpus parent,
-                              LinkedHashSet<String> ids,
-                              @NonNull Query query) {
-      super(parent, ids);
+   private LuceneSearchResults(LuceneCorpus parent, Query query, boolean indexOrder, int pageSize) {
+      this.parent = parent;
       this.query = query;
+      this.indexOrder = indexOrder;
+      this.pageSize = Math.max(1, pageSize);
+   }
+
+   @Override
+   public void close() throws Exception {
+
    }
 
    @Override
@@ -39,4 +84,173 @@ class LuceneSearchResults extends LuceneFilteredView implements SearchResults {
       return query;
    }
 
+   @Override
+   public StreamingContext getStreamingContext() {
+      return StreamingContext.local();
+   }
+
+   @Override
+   public MStream<SearchHit> hits() {
+      return StreamingContext.local().stream((Iterable<SearchHit>) () -> {
+         HitIterator hits = new HitIterator();
+         return Iterators.transform(hits, hit -> new SearchHit(hits.ids.get(hit.doc), hit.score));
+      });
+   }
+
+   @Override
+   public SearchResults inIndexOrder() {
+      return new LuceneSearchResults(parent, query, true, pageSize);
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return size() == 0;
+   }
+
+   @Override
+   public Iterator<Document> iterator() {
+      HitIterator hits = new HitIterator();
+      return Iterators.transform(hits, hit -> parent.loadDocument(hits.reader.object, hit.doc));
+   }
+
+   @Override
+   public MStream<Document> parallelStream() {
+      return stream().parallel();
+   }
+
+   @Override
+   public SearchResults query(@NonNull Query query) {
+      return new LuceneSearchResults(parent, Query.and(this.query, query), indexOrder, pageSize);
+   }
+
+   @Override
+   public long size() {
+      try(IndexReader reader = parent.getIndexReader()) {
+         return new IndexSearcher(reader).count(query.toLucene());
+      } catch(IOException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public MStream<Document> stream() {
+      return StreamingContext.local().stream(this);
+   }
+
+   @Override
+   public DocumentCollection update(@NonNull String operation,
+                                    @NonNull SerializableConsumer<Document> documentProcessor) {
+      ProgressLogger progressLogger = ProgressLogger.create(this, operation);
+      return new MStreamDocumentCollection(stream().map(d -> {
+         progressLogger.start();
+         documentProcessor.accept(d);
+         progressLogger.stop(d.tokenLength());
+         return d;
+      }));
+   }
+
+   /**
+    * Lazily iterates over the hits of the query, either a page at a time in score order or directly from the
+    * per-segment postings in index order.
+    */
+   private class HitIterator implements Iterator<ScoreDoc> {
+      private final MonitoredObject<IndexReader> reader;
+      private final LuceneCorpus.IdLookup ids;
+      private final IndexSearcher searcher;
+      private final org.apache.lucene.search.Query luceneQuery;
+      private ScoreDoc[] page = new ScoreDoc[0];
+      private int pageIndex = 0;
+      private boolean exhausted = false;
+      private Weight weight;
+      private int leafIndex = -1;
+      private DocIdSetIterator leafDocs;
+      private ScoreDoc next;
+
+      private HitIterator() {
+         try {
+            this.reader = ResourceMonitor.monitor(parent.getIndexReader());
+            this.ids = new LuceneCorpus.IdLookup(reader.object);
+            this.searcher = new IndexSearcher(reader.object);
+            this.luceneQuery = searcher.rewrite(query.toLucene());
+            if(indexOrder) {
+               this.weight = searcher.createWeight(luceneQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
+            }
+         } catch(IOException e) {
+            throw new RuntimeException(e);
+         }
+      }
+
+      private ScoreDoc advance() throws IOException {
+         if(indexOrder) {
+            while(true) {
+               if(leafDocs != null) {
+                  int doc = leafDocs.nextDoc();
+                  if(doc != DocIdSetIterator.NO_MORE_DOCS) {
+                     return new ScoreDoc(reader.object.leaves().get(leafIndex).docBase + doc, Float.NaN);
+                  }
+               }
+               leafIndex++;
+               if(leafIndex >= reader.object.leaves().size()) {
+                  return null;
+               }
+               LeafReaderContext leaf = reader.object.leaves().get(leafIndex);
+               Scorer scorer = weight.scorer(leaf);
+               leafDocs = scorer == null
+                          ? null
+                          : filterLive(scorer.iterator(), leaf);
+            }
+         }
+         if(pageIndex >= page.length) {
+            if(exhausted) {
+               return null;
+            }
+            TopDocs topDocs = page.length == 0
+                              ? searcher.search(luceneQuery, pageSize)
+                              : searcher.searchAfter(page[page.length - 1], luceneQuery, pageSize);
+            page = topDocs.scoreDocs;
+            pageIndex = 0;
+            exhausted = page.length < pageSize;
+            if(page.length == 0) {
+               return null;
+            }
+         }
+         return page[pageIndex++];
+      }
+
+      private DocIdSetIterator filterLive(DocIdSetIterator iterator, LeafReaderContext leaf) {
+         final org.apache.lucene.util.Bits live = leaf.reader().getLiveDocs();
+         if(live == null) {
+            return iterator;
+         }
+         return new FilteredDocIdSetIterator(iterator) {
+            @Override
+            protected boolean match(int doc) {
+               return live.get(doc);
+            }
+         };
+      }
+
+      @Override
+      public boolean hasNext() {
+         if(next == null) {
+            try {
+               next = advance();
+            } catch(IOException e) {
+               throw new RuntimeException(e);
+            }
+         }
+         return next != null;
+      }
+
+      @Override
+      public ScoreDoc next() {
+         if(!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         ScoreDoc hit = next;
+         next = null;
+         return hit;
+      }
+   }
+
 }//END OF LuceneSearchResults
@@ -22,9 +22,12 @@
 
 package com.gengoai.hermes.corpus;
 
+import com.gengoai.Validation;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.AttributeType;
 import com.gengoai.hermes.Document;
 import com.gengoai.hermes.Types;
+import lombok.NonNull;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
@@ -33,9 +36,13 @@ import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.util.QueryBuilder;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import static com.gengoai.hermes.corpus.LuceneCorpus.CONTENT_FIELD;
-import static com.gengoai.hermes.corpus.LuceneCorpus.ID_FIELD;
+import static com.gengoai.hermes.corpus.LuceneCorpus.*;
 
 /**
  * Defines the methodology for matching documents based on simple boolean logic over term and document level
@@ -46,6 +53,88 @@ import static com.gengoai.hermes.corpus.LuceneCorpus.ID_FIELD;
 public abstract class Query implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   /**
+    * Creates a query matching documents with the given value for the given annotation field on at least one token.
+    *
+    * @param field the annotation field
+    * @param value the value of the field
+    * @return the query
+    */
+   public static Query annotation(@NonNull AnnotationField field, @NonNull String value) {
+      return new AnnotationQuery(Collections.singletonList(field.term(value)));
+   }
+
+   /**
+    * Creates a query matching documents where the given single token annotation queries (see {@link
+    * #annotation(AnnotationField, String)}) match consecutive tokens.
+    *
+    * @param queries the annotation queries for each token
+    * @return the query
+    */
+   public static Query annotationSequence(@NonNull List<Query> queries) {
+      Validation.checkArgument(queries.size() > 0, "Must have at least one query");
+      List<String> terms = new ArrayList<>();
+      for(Query query : queries) {
+         Validation.checkArgument(query instanceof AnnotationQuery && ((AnnotationQuery) query).terms.size() == 1,
+                                  () -> query + " is not a single token annotation query");
+         terms.addAll(((AnnotationQuery) query).terms);
+      }
+      return new AnnotationQuery(terms);
+   }
+
+   /**
+    * Creates a query matching documents satisfying both of the given queries
+    *
+    * @param q1 the first query
+    * @param q2 the second query
+    * @return the query
+    */
+   public static Query and(@NonNull Query q1, @NonNull Query q2) {
+      return new And(q1, q2);
+   }
+
+   /**
+    * Creates a query matching documents on which the given annotatable type has been completed.
+    *
+    * @param type the annotatable type
+    * @return the query
+    */
+   public static Query completed(@NonNull AnnotatableType type) {
+      return new TermQuery(ANNOTATIONS_FIELD, type.canonicalName());
+   }
+
+   /**
+    * Creates a query matching documents for which the given annotation field is indexed. Unlike {@link
+    * #completed(AnnotatableType)} this does not match documents indexed before the field existed.
+    *
+    * @param field the annotation field
+    * @return the query
+    */
+   public static Query indexed(@NonNull AnnotationField field) {
+      return new TermQuery(INDEXED_FIELDS_FIELD, field.name());
+   }
+
+   /**
+    * Creates a query matching documents that do not satisfy the given query
+    *
+    * @param query the query
+    * @return the query
+    */
+   public static Query not(@NonNull Query query) {
+      return new Not(query);
+   }
+
+   /**
+    * Creates a query matching documents satisfying either of the given queries
+    *
+    * @param q1 the first query
+    * @param q2 the second query
+    * @return the query
+    */
+   public static Query or(@NonNull Query q1, @NonNull Query q2) {
+      return new Or(q1, q2);
+   }
+
    /**
     * Tests if the document matches the query
     *
@@ -61,6 +150,55 @@ public abstract class Query implements Serializable {
     */
    public abstract org.apache.lucene.search.Query toLucene();
 
+   static class AnnotationQuery extends Query {
+      private static final long serialVersionUID = 1L;
+      private final List<String> terms;
+
+      AnnotationQuery(List<String> terms) {
+         this.terms = terms;
+      }
+
+      @Override
+      public boolean matches(Document document) {
+         List<Set<String>> positions = AnnotationField.positions(document);
+         for(int start = 0; start + terms.size() <= positions.size(); start++) {
+            int i = 0;
+            while(i < terms.size() && positions.get(start + i).contains(terms.get(i))) {
+               i++;
+            }
+            if(i == terms.size()) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      @Override
+      public org.apache.lucene.search.Query toLucene() {
+         if(terms.size() == 1) {
+            return new org.apache.lucene.search.TermQuery(new Term(TOKENS_FIELD, terms.get(0)));
+         }
+         org.apache.lucene.search.PhraseQuery.Builder builder = new org.apache.lucene.search.PhraseQuery.Builder();
+         for(int i = 0; i < terms.size(); i++) {
+            builder.add(new Term(TOKENS_FIELD, terms.get(i)), i);
+         }
+         return builder.build();
+      }
+
+      @Override
+      public String toString() {
+         String str = terms.stream()
+                           .map(t -> {
+                              int index = t.indexOf(':');
+                              return String.format("@%s='%s'", t.substring(0, index), t.substring(index + 1));
+                           })
+                           .collect(Collectors.joining(" "));
+         return terms.size() == 1
+                ? str
+                : "[" + str + "]";
+      }
+   }
+
    static class And extends Query {
       private static final long serialVersionUID = 1L;
       private final Query q1;
@@ -201,6 +339,11 @@ public abstract class Query implements Serializable {
                return document.getId().equals(targetValue);
             case CONTENT_FIELD:
                return document.contains(targetValue.toString());
+            case ANNOTATIONS_FIELD:
+               return document.isCompleted(AnnotatableType.valueOf(targetValue.toString()));
+            case INDEXED_FIELDS_FIELD:
+               return AnnotationField.indexedFields(document)
+                                     .contains(AnnotationField.valueOf(targetValue.toString()));
             default:
                AttributeType<?> attributeType = Types.attribute(field);
                return document.attributeEquals(attributeType, targetValue);
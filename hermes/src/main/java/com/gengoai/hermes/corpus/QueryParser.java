@@ -28,6 +28,7 @@ import lombok.ToString;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.gengoai.hermes.Hermes.IDENTIFIER;
 import static com.gengoai.parsing.ParserGenerator.parserGenerator;
@@ -41,6 +42,10 @@ import static com.gengoai.string.Re.*;
  * <li>OR - or terms</li>
  * <li>- - not term</li>
  * <li>$ATTRIBUTE(value) - filter based on exact matches for document level attributes</li>
+ * <li>@FIELD='value' - filter based on a token having the given value for an {@link AnnotationField}, e.g.
+ * <code>@lemma='buy'</code> or <code>@entity='PERSON'</code></li>
+ * <li>[@FIELD='value' @FIELD='value' ...] - filter based on consecutive tokens matching each of the given annotation
+ * fields, e.g. <code>[@lemma='buy' @pos='NOUN']</code></li>
  * </ul>
  * Order of operations can be controlled using parenthesis
  *
@@ -122,6 +127,48 @@ public final class QueryParser {
             }, 1);
          }
       },
+      /**
+       * Start of a sequence of annotation queries
+       */
+      OB(e('[')) {
+         @Override
+         public void register(Grammar grammar) {
+            grammar.prefix(Types.OB, (parser, token) -> {
+               List<QueryExpression> elements = parser.parseExpressionList(Types.CB, null);
+               return new QueryExpression(Types.OB,
+                                          Query.annotationSequence(elements.stream()
+                                                                           .map(q -> q.query)
+                                                                           .collect(Collectors.toList())));
+            });
+         }
+      },
+      /**
+       * End of a sequence of annotation queries
+       */
+      CB(e(']')) {
+         @Override
+         public void register(Grammar grammar) {
+
+         }
+      },
+      /**
+       * Annotation field types.
+       */
+      ANNOTATION(re(e('@'),
+                    namedGroup("", IDENTIFIER),
+                    e('='),
+                    re("'",
+                       namedGroup("", oneOrMore(or(ESC_BACKSLASH + ".", notChars("'")))),
+                       "'")
+                   )) {
+         @Override
+         public void register(Grammar grammar) {
+            grammar.prefix(Types.ANNOTATION, (parser, token) -> {
+               AnnotationField field = AnnotationField.parse(token.getVariable(0));
+               return new QueryExpression(Types.ANNOTATION, Query.annotation(field, token.getVariable(1)));
+            });
+         }
+      },
       /**
        * Term types.
        */
@@ -0,0 +1,46 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.hermes.corpus;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * <p>A document matching a {@link Query} identified by its id along with the score assigned to it by the search.
+ * Collections that do not score documents assign a score of <code>1.0</code> to every hit.</p>
+ *
+ * @author David B. Bracewell
+ */
+@Value
+public class SearchHit implements Serializable {
+   private static final long serialVersionUID = 1L;
+   /**
+    * The id of the matching document
+    */
+   String id;
+   /**
+    * The score of the matching document
+    */
+   double score;
+}//END OF SearchHit
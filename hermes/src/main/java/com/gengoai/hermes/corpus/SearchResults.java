@@ -23,6 +23,7 @@
 package com.gengoai.hermes.corpus;
 
 import com.gengoai.hermes.Document;
+import com.gengoai.stream.MStream;
 
 /**
  * <p>A collection of {@link Document} obtained via querying a {@link Corpus}. Search results can be converted
@@ -40,4 +41,23 @@ public interface SearchResults extends DocumentCollection {
     */
    Query getQuery();
 
+   /**
+    * Streams the ids and scores of the matching documents without loading the documents.
+    *
+    * @return the stream of hits
+    */
+   default MStream<SearchHit> hits() {
+      return stream().map(d -> new SearchHit(d.getId(), 1.0));
+   }
+
+   /**
+    * Returns a view of these results where documents are visited in index order instead of by score. Visiting hits in
+    * index order avoids scoring and is the most efficient way to process all matching documents.
+    *
+    * @return the search results in index order
+    */
+   default SearchResults inIndexOrder() {
+      return this;
+   }
+
 }//END OF SearchResults
@@ -19,6 +19,8 @@
 
 package com.gengoai.hermes.en;
 
+import com.gengoai.cache.Cache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.collection.multimap.ArrayListMultimap;
 import com.gengoai.collection.multimap.Multimap;
 import com.gengoai.collection.tree.Trie;
@@ -27,7 +29,6 @@ import com.gengoai.hermes.morphology.PartOfSpeech;
 import com.gengoai.io.CSV;
 import com.gengoai.io.CSVReader;
 import com.gengoai.io.Resources;
-import com.gengoai.stream.Streams;
 import com.gengoai.string.Re;
 import com.gengoai.string.Strings;
 import com.gengoai.tuple.Tuple2;
@@ -43,18 +44,28 @@ import java.util.stream.Collectors;
 import static com.gengoai.collection.Maps.asHashMap;
 
 /**
- * English language lemmatizer based on WordNet's Morphy
+ * <p>English language lemmatizer based on WordNet's Morphy.</p>
+ * <p>The lemmas of every form in the lexicon and exception lists are compiled into a lookup table keyed by part of
+ * speech and surface form when the lemmatizer is loaded. Lemmas for the remaining forms, which require applying the
+ * detachment rules, are memoized in a bounded concurrent cache.</p>
  *
  * @author David B. Bracewell
  */
 public class ENLemmatizer implements Lemmatizer, Serializable {
    private static final long serialVersionUID = -6093027604295026727L;
    private static final PartOfSpeech[] ALL_PartOfSpeech = {PartOfSpeech.NOUN, PartOfSpeech.VERB, PartOfSpeech.ADJECTIVE, PartOfSpeech.ADVERB};
+   private static final String[] NO_LEMMAS = new String[0];
+   private static final int MEMO_SIZE = 100_000;
    private static volatile ENLemmatizer INSTANCE = null;
    private static Pattern WHITESPACE = Pattern.compile(Re.MULTIPLE_WHITESPACE);
    private final Multimap<PartOfSpeech, DetachmentRule> rules = new ArrayListMultimap<>();
    private final Multimap<Tuple2<PartOfSpeech, String>, String> exceptions = new ArrayListMultimap<>();
    private final Trie<Set<PartOfSpeech>> lemmas;
+   private final Map<PartOfSpeech, Map<String, String[]>> lemmaTable = new HashMap<>();
+   private final transient Cache<Tuple2<PartOfSpeech, String>, String[]> memo = ConcurrentCache
+         .<Tuple2<PartOfSpeech, String>, String[]>builder()
+         .maximumSize(MEMO_SIZE)
+         .build();
 
    /**
     * Instantiates a new ENLemmatizer.
@@ -105,6 +116,7 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
       } catch (Exception e) {
          throw new RuntimeException(e);
       }
+      compileLemmaTable();
    }
 
    /**
@@ -128,6 +140,21 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
       return lemmas;
    }
 
+   private void compileLemmaTable() {
+      for (Map.Entry<String, Set<PartOfSpeech>> entry : lemmas.entrySet()) {
+         String[] self = {entry.getKey()};
+         for (PartOfSpeech pos : entry.getValue()) {
+            lemmaTable.computeIfAbsent(pos.getUniversalTag(), p -> new HashMap<>()).put(entry.getKey(), self);
+         }
+      }
+      for (Tuple2<PartOfSpeech, String> key : exceptions.keySet()) {
+         Map<String, String[]> table = lemmaTable.computeIfAbsent(key.getV1(), p -> new HashMap<>());
+         if (!table.containsKey(key.getV2())) {
+            table.put(key.getV2(), computeLemmas(key.getV2(), key.getV1()));
+         }
+      }
+   }
+
    @Override
    public List<String> allPossibleLemmas(@NonNull String word, @NonNull PartOfSpeech partOfSpeech) {
       List<String> lemmaList = null;
@@ -218,33 +245,27 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
       return tokenLemmas;
    }
 
-   private void fill(String word, PartOfSpeech partOfSpeech, Set<String> set) {
-      word = word.toLowerCase();
+   private String[] computeLemmas(String word, PartOfSpeech partOfSpeech) {
+      Set<String> set = new LinkedHashSet<>();
       //Word is already a lemma with the given part of speech
       if (contains(word, partOfSpeech.getUniversalTag())) {
-         set.add(word);
-         return;
+         return new String[]{word};
       }
 
       if (partOfSpeech.isVerb()) {
          if (word.equalsIgnoreCase("'s") || word.equalsIgnoreCase("'re")) {
-            set.add("be");
-            return;
+            return new String[]{"be"};
          } else if (word.equals("'ll")) {
-            set.add("will");
-            return;
+            return new String[]{"will"};
          } else if (word.equals("'ve")) {
-            set.add("will");
-            return;
+            return new String[]{"will"};
          }
       } else if (partOfSpeech.isAdverb()) {
          if (word.equalsIgnoreCase("n't")) {
-            set.add("not");
-            return;
+            return new String[]{"not"};
          }
       } else if (word.equalsIgnoreCase("'d")) {
-         set.add("would");
-         return;
+         return new String[]{"would"};
       }
 
       //Apply the exceptions
@@ -263,6 +284,21 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
             set.add(output);
          }
       }
+      return set.isEmpty()
+            ? NO_LEMMAS
+            : set.toArray(new String[0]);
+   }
+
+   private void fill(String word, PartOfSpeech partOfSpeech, Set<String> set) {
+      Collections.addAll(set, lookup(word.toLowerCase(), partOfSpeech.getUniversalTag()));
+   }
+
+   private String[] lookup(String word, PartOfSpeech partOfSpeech) {
+      String[] compiled = lemmaTable.getOrDefault(partOfSpeech, Collections.emptyMap()).get(word);
+      if (compiled != null) {
+         return compiled;
+      }
+      return memo.get(Tuple2.of(partOfSpeech, word), () -> computeLemmas(word, partOfSpeech));
    }
 
    private boolean hasPartOfSpeech(String lemma, PartOfSpeech... tags) {
@@ -280,16 +316,19 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
    @Override
    public String lemmatize(@NonNull String string, @NonNull PartOfSpeech partOfSpeech) {
       if (partOfSpeech == PartOfSpeech.ANY) {
-         return Streams.asStream(doLemmatization(string, true, ALL_PartOfSpeech))
-                       .findFirst()
-                       .orElse(string)
-                       .toLowerCase();
+         return first(doLemmatization(string, true, ALL_PartOfSpeech), string);
       } else if (partOfSpeech.isInstance(ALL_PartOfSpeech)) {
-         return Streams.asStream(doLemmatization(string, true, partOfSpeech)).findFirst().orElse(string).toLowerCase();
+         return first(doLemmatization(string, true, partOfSpeech), string);
       }
       return string.toLowerCase();
    }
 
+   private static String first(Set<String> lemmas, String string) {
+      return lemmas.isEmpty()
+            ? string.toLowerCase()
+            : lemmas.iterator().next().toLowerCase();
+   }
+
    private void loadException(PartOfSpeech tag) {
       try {
          for (String line :
@@ -317,16 +356,14 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
       if (tags == null || tags.length == 0 || tags[0] == PartOfSpeech.ANY) {
          tags = ALL_PartOfSpeech;
       }
-      Trie<String> prefixes = allPossibleLemmasAndPrefixes(words[0], PartOfSpeech.ANY);
+      Set<String> heads = doLemmatization(words[0], true, PartOfSpeech.ANY);
       Set<String> lemmas = allAndSelf(words[0]);
       for (int i = 1; i < words.length; i++) {
          Set<String> nextSet = new HashSet<>();
          for (String previous : lemmas) {
             for (String next : allAndSelf(words[i])) {
                String subPhrase = previous + " " + next;
-               if (prefixes.containsKey(subPhrase)) {
-                  nextSet.add(subPhrase);
-               } else if (prefixes.prefix(subPhrase).size() > 0) {
+               if (isPhrasePrefix(subPhrase, heads)) {
                   nextSet.add(subPhrase);
                }
             }
@@ -342,6 +379,27 @@ public class ENLemmatizer implements Lemmatizer, Serializable {
       return lemmas;
    }
 
+   /**
+    * Determines if the given (partial) phrase is a prefix of a multi-word lemma starting with one of the given head
+    * lemmas (or is one of the head lemmas).
+    */
+   private boolean isPhrasePrefix(String phrase, Set<String> heads) {
+      Iterator<String> itr = lemmas.prefixKeyIterator(phrase);
+      while (itr.hasNext()) {
+         String lemma = itr.next();
+         for (String head : heads) {
+            if (lemma.equals(head) || lemma.startsWith(head + " ")) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private Object readResolve() {
+      return getInstance();
+   }
+
    private static class DetachmentRule implements Serializable, Function<String, String> {
       private static final long serialVersionUID = 2748362312310767937L;
       /**
@@ -31,18 +31,30 @@ import lombok.NonNull;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
- * English language tokenizer
+ * <p>English language tokenizer</p>
+ * <p>The underlying {@link StandardTokenizer} scanner allocates sizable character buffers. Scanners are therefore
+ * kept per thread and reset (via {@link StandardTokenizer#reset(Reader)}) for each new input. A scanner is taken from
+ * the thread when a token iterator is created and given back once the iterator is exhausted, so that multiple
+ * iterators on the same thread never share a scanner.</p>
  *
  * @author David B. Bracewell
  */
 public class ENTokenizer implements Tokenizer, Serializable {
    private static final long serialVersionUID = 1L;
+   private static final ThreadLocal<StandardTokenizer> SCANNER = new ThreadLocal<>();
+   private static final Set<TokenType> LOOKAHEAD_TYPES = Set.of(TokenType.URL,
+                                                                TokenType.PUNCTUATION,
+                                                                TokenType.HYPHEN,
+                                                                TokenType.EMOTICON,
+                                                                TokenType.MONEY,
+                                                                TokenType.NUMBER);
    private final TrieWordList abbreviations;
    private final TrieWordList emoticons;
    private final WordList tlds;
@@ -58,16 +70,144 @@ public class ENTokenizer implements Tokenizer, Serializable {
 
    @Override
    public Iterable<Token> tokenize(@NonNull Reader reader) {
-      return Iterables.asIterable(new TokenIterator(reader));
+      return Iterables.asIterable(new TokenIterator(acquireScanner(reader), null, true));
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>Tokens are scanned without creating token objects or copying their text. Only tokens that may be merged with
+    * or split into other tokens (urls, punctuation, hyphens, money, numbers, and possible abbreviations) are run
+    * through the same logic as the token iterator, which is used until it no longer holds any scanned tokens.</p>
+    */
+   @Override
+   public void tokenize(@NonNull String input, @NonNull TokenHandler handler) {
+      StandardTokenizer scanner = acquireScanner(new StringReader(input));
+      try {
+         TokenType type;
+         while((type = scanner.nextType()) != null) {
+            int start = scanner.tokenStart();
+            int end = scanner.tokenEnd();
+            if(isBlank(input, start, end)) {
+               continue;
+            }
+            if(!needsLookahead(type, input, start, end)) {
+               handler.handle(type, start, end, Collections.emptyMap());
+               continue;
+            }
+            TokenIterator iterator = new TokenIterator(scanner,
+                                                       new Token(input.substring(start, end), type, start, end, 0),
+                                                       false);
+            do {
+               Token token = iterator.next();
+               handler.handle(token.type, token.charStartIndex, token.charEndIndex, token.properties);
+            } while(iterator.hasBuffered());
+            if(iterator.isExhausted()) {
+               break;
+            }
+         }
+      } catch(IOException e) {
+         throw new RuntimeException(e);
+      } finally {
+         releaseScanner(scanner);
+      }
+   }
+
+   private static boolean isBlank(String input, int start, int end) {
+      for(int i = start; i < end; i++) {
+         if(!Character.isWhitespace(input.charAt(i))) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private boolean needsLookahead(TokenType type, String input, int start, int end) {
+      return LOOKAHEAD_TYPES.contains(type) || abbreviations.isPrefixMatch(input.substring(start, end));
+   }
+
+   private static StandardTokenizer acquireScanner(Reader reader) {
+      StandardTokenizer scanner = SCANNER.get();
+      if(scanner == null) {
+         return new StandardTokenizer(reader);
+      }
+      SCANNER.remove();
+      scanner.reset(reader);
+      return scanner;
+   }
+
+   private static void releaseScanner(StandardTokenizer scanner) {
+      if(SCANNER.get() == null) {
+         //Drop the reference to the exhausted input
+         scanner.reset(new StringReader(Strings.EMPTY));
+         SCANNER.set(scanner);
+      }
+   }
+
+   /**
+    * Growable ring buffer of tokens used for lookahead, which supports adding at both ends and random access.
+    */
+   private static final class TokenRing {
+      private Token[] tokens = new Token[8];
+      private int head = 0;
+      private int size = 0;
+
+      void addFirst(Token token) {
+         ensureCapacity();
+         head = (head - 1) & (tokens.length - 1);
+         tokens[head] = token;
+         size++;
+      }
+
+      void addLast(Token token) {
+         ensureCapacity();
+         tokens[(head + size) & (tokens.length - 1)] = token;
+         size++;
+      }
+
+      private void ensureCapacity() {
+         if(size == tokens.length) {
+            Token[] grown = new Token[tokens.length * 2];
+            for(int i = 0; i < size; i++) {
+               grown[i] = get(i);
+            }
+            tokens = grown;
+            head = 0;
+         }
+      }
+
+      Token get(int index) {
+         return tokens[(head + index) & (tokens.length - 1)];
+      }
+
+      boolean isEmpty() {
+         return size == 0;
+      }
+
+      Token removeFirst() {
+         Token token = tokens[head];
+         tokens[head] = null;
+         head = (head + 1) & (tokens.length - 1);
+         size--;
+         return token;
+      }
+
+      int size() {
+         return size;
+      }
    }
 
    private class TokenIterator implements Iterator<Token> {
-      private final LinkedList<Token> buffer = new LinkedList<>();
-      private final StandardTokenizer tokenizer;
+      private final TokenRing buffer = new TokenRing();
+      private final boolean releaseScanner;
+      private StandardTokenizer tokenizer;
       private int lastIndex = 0;
 
-      private TokenIterator(Reader reader) {
-         this.tokenizer = new StandardTokenizer(reader);
+      private TokenIterator(StandardTokenizer tokenizer, Token first, boolean releaseScanner) {
+         this.tokenizer = tokenizer;
+         this.releaseScanner = releaseScanner;
+         if(first != null) {
+            buffer.addLast(first);
+         }
       }
 
       private void addToBuffer(Token token) {
@@ -137,7 +277,7 @@ public class ENTokenizer implements Tokenizer, Serializable {
       private Token consume() {
          peek(0);
          while(!buffer.isEmpty()) {
-            Token token = buffer.remove();
+            Token token = buffer.removeFirst();
             if(token != null && !Strings.isNullOrBlank(token.text)) {
                return token;
             }
@@ -194,11 +334,19 @@ public class ENTokenizer implements Tokenizer, Serializable {
          return n;
       }
 
+      private boolean hasBuffered() {
+         return !buffer.isEmpty();
+      }
+
       @Override
       public boolean hasNext() {
          return peek(0) != null;
       }
 
+      private boolean isExhausted() {
+         return tokenizer == null;
+      }
+
       private Token mergeAbbreviationAndAcronym(Token n) {
          String abbreviation = n.text;
          int end = n.charEndIndex;
@@ -301,15 +449,22 @@ public class ENTokenizer implements Tokenizer, Serializable {
 
       private Token peek(int distance) {
          while(buffer.size() <= distance) {
+            if(tokenizer == null) {
+               return null;
+            }
             try {
                Token token = tokenizer.next();
 
                if(token == null) {
+                  if(releaseScanner) {
+                     releaseScanner(tokenizer);
+                  }
+                  tokenizer = null;
                   return null;
                }
 
                if(!Strings.isNullOrBlank(token.text)) {
-                  buffer.add(token);
+                  buffer.addLast(token);
                }
             } catch(IOException e) {
                throw new RuntimeException(e);
@@ -20,10 +20,12 @@
 package com.gengoai.hermes.extraction.caduceus;
 
 import com.gengoai.Validation;
-import com.gengoai.hermes.Document;
-import com.gengoai.hermes.HString;
+import com.gengoai.hermes.*;
+import com.gengoai.hermes.corpus.Query;
 import com.gengoai.hermes.extraction.Extraction;
 import com.gengoai.hermes.extraction.Extractor;
+import com.gengoai.hermes.extraction.regex.TokenMatch;
+import com.gengoai.hermes.extraction.regex.TokenRegexSet;
 import com.gengoai.io.resource.Resource;
 import com.gengoai.parsing.ParseException;
 import lombok.EqualsAndHashCode;
@@ -32,7 +34,7 @@ import lombok.ToString;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -54,16 +56,46 @@ import java.util.stream.Collectors;
  * </pre>
  * Additionally, attributes can be defined using as follows: <code>$ATTRIBUTE_NAME = VALUE</code>.
  * </p>
+ *
+ * <p>
+ * Rules are executed in the order they are defined. To avoid a pass over the document for every rule, consecutive
+ * rules whose triggers do not read the annotation or relation types created by the rules before them (see {@link
+ * com.gengoai.hermes.extraction.regex.TokenRegex#referencedTypes()}) are grouped into a stage. The triggers of a stage
+ * are matched together in a single pass using a {@link TokenRegexSet} after which the rules of the stage are fired in
+ * order, which produces the same result as matching and firing the rules one after another.
+ * </p>
  */
 @ToString
 @EqualsAndHashCode
 public final class CaduceusProgram implements Serializable, Extractor {
    private final List<Rule> rules;
+   @ToString.Exclude
+   private transient volatile List<Stage> stages;
 
    CaduceusProgram(List<Rule> rules) {
       this.rules = rules;
    }
 
+   private static boolean dependsOn(Set<AnnotatableType> read, Set<AnnotatableType> produced) {
+      for(AnnotatableType p : produced) {
+         //Creating tokens can change the match of any trigger
+         if(p instanceof AnnotationType && ((AnnotationType) p).isInstance(Types.TOKEN)) {
+            return true;
+         }
+         for(AnnotatableType r : read) {
+            if(r.equals(p)) {
+               return true;
+            }
+            if(r instanceof AnnotationType && p instanceof AnnotationType
+                  && (((AnnotationType) r).isInstance((AnnotationType) p)
+                  || ((AnnotationType) p).isInstance((AnnotationType) r))) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
    /**
     * Reads a Caduceus program from the given resource.
     *
@@ -82,14 +114,109 @@ public final class CaduceusProgram implements Serializable, Extractor {
     * @param document the document to execute the program on
     */
    public void execute(@NonNull Document document) {
-      rules.forEach(r -> r.execute(document));
+      run(document);
+   }
+
+   /**
+    * Gets the rules of the program in the order they are defined.
+    *
+    * @return the rules
+    */
+   List<Rule> getRules() {
+      return Collections.unmodifiableList(rules);
+   }
+
+   /**
+    * Gets a query over the annotation fields indexed by a corpus that every document on which at least one rule
+    * triggers satisfies. The query is the disjunction of the prefilters of the rules' triggers (see {@link
+    * com.gengoai.hermes.extraction.regex.TokenRegex#prefilter()}).
+    *
+    * @return the query or an empty Optional if one or more rules do not constrain the documents they can match
+    */
+   public Optional<Query> prefilter() {
+      Query query = null;
+      for(Rule rule : rules) {
+         Optional<Query> ruleQuery = rule.getTrigger().prefilter();
+         if(!ruleQuery.isPresent()) {
+            return Optional.empty();
+         }
+         query = query == null
+                 ? ruleQuery.get()
+                 : Query.or(query, ruleQuery.get());
+      }
+      return Optional.ofNullable(query);
    }
 
    @Override
    public Extraction extract(@NonNull HString hString) {
       Validation.checkArgument(hString instanceof Document, "Caduceus only accepts Document input");
-      return Extraction.fromHStringList(rules.stream()
-                                             .flatMap(r -> r.execute(hString.document()).stream())
-                                             .collect(Collectors.toList()));
+      return Extraction.fromHStringList(run(hString.document()));
+   }
+
+   private List<HString> run(Document document) {
+      List<HString> hits = new ArrayList<>();
+      for(Stage stage : stages()) {
+         if(stage.triggers == null) {
+            //A rule whose trigger reads what it creates must see its own changes while matching
+            hits.addAll(stage.rules.get(0).execute(document));
+         } else {
+            List<List<TokenMatch>> matches = stage.triggers.matchAll(document);
+            for(int i = 0; i < stage.rules.size(); i++) {
+               hits.addAll(stage.rules.get(i).execute(document, matches.get(i)));
+            }
+         }
+      }
+      return hits;
+   }
+
+   private List<Stage> stages() {
+      if(stages == null) {
+         synchronized(this) {
+            if(stages == null) {
+               List<Stage> planned = new ArrayList<>();
+               List<Rule> stage = new ArrayList<>();
+               Set<AnnotatableType> produced = new HashSet<>();
+               for(Rule rule : rules) {
+                  Set<AnnotatableType> read = rule.getTrigger().referencedTypes();
+                  if(dependsOn(read, produced)) {
+                     planned.add(new Stage(stage));
+                     stage = new ArrayList<>();
+                     produced.clear();
+                  }
+                  if(dependsOn(read, rule.getProducedTypes())) {
+                     if(stage.size() > 0) {
+                        planned.add(new Stage(stage));
+                        stage = new ArrayList<>();
+                        produced.clear();
+                     }
+                     planned.add(new Stage(rule));
+                  } else {
+                     stage.add(rule);
+                     produced.addAll(rule.getProducedTypes());
+                  }
+               }
+               if(stage.size() > 0) {
+                  planned.add(new Stage(stage));
+               }
+               stages = planned;
+            }
+         }
+      }
+      return stages;
+   }
+
+   private static class Stage {
+      final List<Rule> rules;
+      final TokenRegexSet triggers;
+
+      private Stage(Rule rule) {
+         this.rules = Collections.singletonList(rule);
+         this.triggers = null;
+      }
+
+      private Stage(List<Rule> rules) {
+         this.rules = rules;
+         this.triggers = new TokenRegexSet(rules.stream().map(Rule::getTrigger).collect(Collectors.toList()));
+      }
    }
 }//END OF CaduceusProgram
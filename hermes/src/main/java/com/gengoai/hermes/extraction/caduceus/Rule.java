@@ -25,6 +25,7 @@ import com.gengoai.collection.multimap.ListMultimap;
 import com.gengoai.collection.multimap.SetMultimap;
 import com.gengoai.hermes.*;
 import com.gengoai.hermes.extraction.lyre.LyreExpression;
+import com.gengoai.hermes.extraction.regex.TokenMatch;
 import com.gengoai.hermes.extraction.regex.TokenMatcher;
 import com.gengoai.hermes.extraction.regex.TokenRegex;
 import com.gengoai.tuple.Tuple2;
@@ -74,76 +75,105 @@ class Rule implements Serializable {
       List<HString> hits = new ArrayList<>();
       TokenMatcher matcher = trigger.matcher(document);
       while(matcher.find()) {
-         ListMultimap<String, Annotation> groups = new ArrayListMultimap<>();
-         ListMultimap<AnnotationProvider, Annotation> providers = new ArrayListMultimap<>();
-
-         //Process all the annotation providers
-         annotationProviders.forEach(ap -> {
-            if(ap.getCapture().equals("*")) {
-               Annotation annotation = createOrGet(document, ap.getType(), matcher.group(),
-                                                   ap.getAttributeMap());
-               groups.put("*", annotation);
-               providers.put(ap, annotation);
-            } else {
-               matcher.group(ap.getCapture()).forEach(g -> {
-                  Annotation annotation = createOrGet(document, ap.getType(), g, ap.getAttributeMap());
-                  groups.put(ap.getCapture(), annotation);
-                  providers.put(ap, annotation);
-               });
-            }
-         });
+         fire(document, matcher.asTokenMatch(), hits);
+      }
+      return hits;
+   }
+
+   /**
+    * Executes the rule over the given document using the given, already found, matches of its trigger.
+    *
+    * @param document the document
+    * @param matches  the matches of the trigger over the document
+    * @return the list of annotations created by the rule
+    */
+   public List<HString> execute(Document document, List<TokenMatch> matches) {
+      List<HString> hits = new ArrayList<>();
+      matches.forEach(match -> fire(document, match, hits));
+      return hits;
+   }
+
+   private void fire(Document document, TokenMatch match, List<HString> hits) {
+      ListMultimap<String, Annotation> groups = new ArrayListMultimap<>();
+      ListMultimap<AnnotationProvider, Annotation> providers = new ArrayListMultimap<>();
 
-         if(!groups.containsKey("*")) {
-            groups.putAll("*", matcher.group().tokens());
+      //Process all the annotation providers
+      annotationProviders.forEach(ap -> {
+         if(ap.getCapture().equals("*")) {
+            Annotation annotation = createOrGet(document, ap.getType(), match.group(),
+                                                ap.getAttributeMap());
+            groups.put("*", annotation);
+            providers.put(ap, annotation);
+         } else {
+            match.group(ap.getCapture()).forEach(g -> {
+               Annotation annotation = createOrGet(document, ap.getType(), g, ap.getAttributeMap());
+               groups.put(ap.getCapture(), annotation);
+               providers.put(ap, annotation);
+            });
          }
+      });
+
+      if(!groups.containsKey("*")) {
+         groups.putAll("*", match.group().tokens());
+      }
 
-         SetMultimap<String, Tuple2<Annotation, Relation>> relations = new HashSetMultimap<>();
-         for(RelationProvider rp : relationProviders) {
-            List<Annotation> sourceAnnotations = getAnnotation(rp.getSource(), groups, matcher);
-            List<Annotation> targetAnnotations = getAnnotation(rp.getTarget(), groups, matcher);
-            for(Annotation source : sourceAnnotations) {
-               for(Annotation target : targetAnnotations) {
-                  relations.put(rp.getName(), Tuple2.of(source,
-                                                        new Relation(rp.getType(), rp.getValue(), target.getId())));
-                  if(rp.isBidirectional()) {
-                     relations.put(rp.getName(), Tuple2.of(target,
-                                                           new Relation(rp.getType(), rp.getValue(), source.getId())));
-                  }
+      SetMultimap<String, Tuple2<Annotation, Relation>> relations = new HashSetMultimap<>();
+      for(RelationProvider rp : relationProviders) {
+         List<Annotation> sourceAnnotations = getAnnotation(rp.getSource(), groups, match);
+         List<Annotation> targetAnnotations = getAnnotation(rp.getTarget(), groups, match);
+         for(Annotation source : sourceAnnotations) {
+            for(Annotation target : targetAnnotations) {
+               relations.put(rp.getName(), Tuple2.of(source,
+                                                     new Relation(rp.getType(), rp.getValue(), target.getId())));
+               if(rp.isBidirectional()) {
+                  relations.put(rp.getName(), Tuple2.of(target,
+                                                        new Relation(rp.getType(), rp.getValue(), source.getId())));
                }
             }
          }
+      }
 
-         Set<String> finalRelations = new HashSet<>();
-         for(RelationProvider rp : relationProviders) {
-            if(relations.keySet().containsAll(rp.getRequired())) {
-               relations.get(rp.getName()).forEach(t -> {
-                  t.getV1().add(t.getV2());
-                  finalRelations.add(rp.getName());
-               });
-            }
+      Set<String> finalRelations = new HashSet<>();
+      for(RelationProvider rp : relationProviders) {
+         if(relations.keySet().containsAll(rp.getRequired())) {
+            relations.get(rp.getName()).forEach(t -> {
+               t.getV1().add(t.getV2());
+               finalRelations.add(rp.getName());
+            });
          }
+      }
 
-         providers.entries()
-                  .stream()
-                  .filter(entry -> !finalRelations.containsAll(entry.getKey().getRequired()))
-                  .forEach(entry -> document.remove(entry.getValue()));
+      providers.entries()
+               .stream()
+               .filter(entry -> !finalRelations.containsAll(entry.getKey().getRequired()))
+               .forEach(entry -> document.remove(entry.getValue()));
 
-         providers.entries()
-                  .stream()
-                  .filter(entry -> finalRelations.containsAll(entry.getKey().getRequired()))
-                  .forEach(entry -> hits.add(entry.getValue()));
-      }
-      return hits;
+      providers.entries()
+               .stream()
+               .filter(entry -> finalRelations.containsAll(entry.getKey().getRequired()))
+               .forEach(entry -> hits.add(entry.getValue()));
+   }
+
+   /**
+    * Gets the types of the annotations and relations the rule creates.
+    *
+    * @return the set of produced annotation and relation types
+    */
+   public Set<AnnotatableType> getProducedTypes() {
+      Set<AnnotatableType> types = new HashSet<>();
+      annotationProviders.forEach(ap -> types.add(ap.getType()));
+      relationProviders.forEach(rp -> types.add(rp.getType()));
+      return types;
    }
 
    private List<Annotation> getAnnotation(Tuple2<String, LyreExpression> point,
                                           ListMultimap<String, Annotation> groups,
-                                          TokenMatcher matcher) {
+                                          TokenMatch match) {
       List<Annotation> annotations;
       if(groups.containsKey(point.v1)) {
          annotations = groups.get(point.v1);
       } else {
-         annotations = matcher.group(point.v1).stream().map(HString::asAnnotation).collect(Collectors.toList());
+         annotations = match.group(point.v1).stream().map(HString::asAnnotation).collect(Collectors.toList());
       }
 
       if(point.v2.getPattern().equals("$_")) {
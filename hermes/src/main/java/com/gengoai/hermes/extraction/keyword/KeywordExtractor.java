@@ -44,4 +44,14 @@ public interface KeywordExtractor extends Extractor, Serializable {
     */
    void fit(@NonNull DocumentCollection corpus);
 
+   /**
+    * Determines if the {@link #fit(DocumentCollection)} method needs to see the corpus in order for the extractor to
+    * work correctly. Extractors that do not collect corpus level statistics should return false.
+    *
+    * @return True if fitting is required, False otherwise
+    */
+   default boolean requiresFit() {
+      return true;
+   }
+
 }//END OF KeywordExtractor
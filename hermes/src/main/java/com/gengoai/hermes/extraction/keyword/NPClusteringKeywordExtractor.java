@@ -147,4 +147,9 @@ public class NPClusteringKeywordExtractor implements KeywordExtractor {
 
    }
 
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
+
 }//END OF NPClusteringKeywordExtractor
@@ -122,4 +122,9 @@ public class RakeKeywordExtractor implements KeywordExtractor {
 
    }
 
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
+
 }//END OF RakeKeywordExtractor
@@ -66,4 +66,9 @@ public class TermKeywordExtractor implements KeywordExtractor {
 
    }
 
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
+
 }//END OF TermSpecExtractor
@@ -23,8 +23,7 @@ import com.gengoai.collection.Lists;
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.collection.multimap.ArrayListMultimap;
 import com.gengoai.collection.multimap.Multimap;
-import com.gengoai.graph.Edge;
-import com.gengoai.graph.Graph;
+import com.gengoai.graph.CSRGraph;
 import com.gengoai.graph.scoring.PageRank;
 import com.gengoai.hermes.HString;
 import com.gengoai.hermes.Types;
@@ -59,7 +58,7 @@ public class TextRank implements KeywordExtractor {
 
    @Override
    public Extraction extract(@NonNull HString hString) {
-      Graph<String> g = Graph.undirected();
+      CSRGraph.Builder<String> g = CSRGraph.builder(false);
 
       //Generate the words for the graph
       List<String> tokens = hString.tokenStream()
@@ -69,7 +68,9 @@ public class TextRank implements KeywordExtractor {
                                    .collect(Collectors.toList());
 
       //Add the tokens to the graph
-      g.addVertices(new HashSet<>(tokens));
+      for(String token : new HashSet<>(tokens)) {
+         g.addVertex(token);
+      }
 
       for(int i = 0; i < hString.tokenLength() - windowSize; i++) {
          String tiStr = hString.tokenAt(i).toLowerCase();
@@ -84,18 +85,12 @@ public class TextRank implements KeywordExtractor {
             if(!g.containsVertex(tjStr)) {
                continue;
             }
-            Edge<String> e;
-            if(g.containsEdge(tiStr, tjStr)) {
-               e = g.getEdge(tiStr, tjStr);
-            } else {
-               e = g.addEdge(tiStr, tjStr);
-            }
-            e.setWeight(e.getWeight() + 1);
+            g.addEdge(tiStr, tjStr);
          }
       }
 
       PageRank<String> pageRank = new PageRank<>(30, 0.85, 0.0001);
-      Counter<String> scores = pageRank.score(g);
+      Counter<String> scores = pageRank.score(g.build());
       scores = scores.topN((int) (scores.size() * ratio));
 
       Multimap<String, HString> lemmaToWord = new ArrayListMultimap<>();
@@ -126,4 +121,9 @@ public class TextRank implements KeywordExtractor {
    public void fit(@NonNull DocumentCollection corpus) {
 
    }
+
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
 }//END OF TextRank
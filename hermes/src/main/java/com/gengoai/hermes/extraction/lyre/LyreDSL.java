@@ -1052,12 +1052,15 @@ public final class LyreDSL {
 
    static Object filter(Object o, SerializablePredicate<Object> function) {
       if (o instanceof Collection) {
-         return postProcess(Cast.<Collection<?>>as(o)
-                                  .stream()
-                                  .map(o2 -> filter(o2, function))
-                                  .filter(Objects::nonNull)
-                                  .collect(Collectors.toList())
-         );
+         Collection<?> c = Cast.as(o);
+         List<Object> output = new ArrayList<>(c.size());
+         for (Object o2 : c) {
+            Object filtered = filter(o2, function);
+            if (filtered != null) {
+               output.add(filtered);
+            }
+         }
+         return postProcess(output);
       }
       return function.test(o)
             ? o
@@ -2483,20 +2486,42 @@ public final class LyreDSL {
                                 o -> process(true, expression.applyAsObject(o), a -> toHString(a).pos()));
    }
 
+   private static boolean isNonBlank(Object value) {
+      //Strings are checked first, as checking them against an interface is comparatively slow (especially when the
+      //same String class is checked against alternating interfaces) and most values are Strings
+      if (value instanceof String) {
+         return Strings.isNotNullOrBlank((String) value);
+      }
+      return !(value instanceof CharSequence) || Strings.isNotNullOrBlank(Cast.<CharSequence>as(value));
+   }
+
+   private static boolean isNonEmptyValue(Object o) {
+      if (o == null) {
+         return false;
+      }
+      if (o instanceof HString && Cast.<HString>as(o).isEmpty()) {
+         return false;
+      }
+      return isNonBlank(o);
+   }
+
    private static Object postProcess(Object o) {
+      //Collections with no non-empty values are null, and with a single non-empty value are that value
+      if (o instanceof String) {
+         return o;
+      }
       if (o instanceof Collection) {
-         Collection<?> c = Cast.<Collection<?>>as(o)
-               .stream()
-               .filter(Objects::nonNull)
-               .filter(h -> !(h instanceof HString) || !Cast.<HString>as(h).isEmpty())
-               .filter(cs -> !(cs instanceof CharSequence) || Strings.isNotNullOrBlank(cs.toString()))
-               .collect(Collectors.toList());
-         if (c.isEmpty()) {
-            return null;
-         }
-         if (c.size() == 1) {
-            return c.iterator().next();
+         Object first = null;
+         int nonEmpty = 0;
+         for (Object v : Cast.<Collection<?>>as(o)) {
+            if (isNonEmptyValue(v)) {
+               if (++nonEmpty > 1) {
+                  return o;
+               }
+               first = v;
+            }
          }
+         return first;
       }
       return o;
    }
@@ -2506,25 +2531,32 @@ public final class LyreDSL {
          return null;
       }
       if (o instanceof Collection) {
-         return postProcess(Cast.<Collection<?>>as(o)
-                                  .stream()
-                                  .map(v -> postProcess(function.apply(v)))
-                                  .filter(Objects::nonNull)
-                                  .filter(cs -> !(cs instanceof CharSequence) || Strings.isNotNullOrBlank(Cast.as(cs)))
-                                  .collect(Collectors.toList()));
+         Collection<?> c = Cast.as(o);
+         List<Object> output = new ArrayList<>(c.size());
+         for (Object v : c) {
+            Object value = postProcess(function.apply(v));
+            if (value != null && isNonBlank(value)) {
+               output.add(value);
+            }
+         }
+         return postProcess(output);
       }
       return postProcess(function.apply(o));
    }
 
    private static Object processPred(Object o, SerializablePredicate<Object> function) {
       if (o instanceof Collection) {
-         return postProcess(Cast.<Collection<?>>as(o)
-                                  .stream()
-                                  .filter(Objects::nonNull)
-                                  .map(o2 -> filter(o2, function))
-                                  .filter(Objects::nonNull)
-                                  .filter(cs -> !(cs instanceof CharSequence) || Strings.isNotNullOrBlank(Cast.as(cs)))
-                                  .collect(Collectors.toList()));
+         Collection<?> c = Cast.as(o);
+         List<Object> output = new ArrayList<>(c.size());
+         for (Object v : c) {
+            Object value = v == null
+                  ? null
+                  : filter(v, function);
+            if (value != null && isNonBlank(value)) {
+               output.add(value);
+            }
+         }
+         return postProcess(output);
       }
       return function.test(o);
    }
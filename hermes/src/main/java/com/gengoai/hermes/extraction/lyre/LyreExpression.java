@@ -25,9 +25,12 @@ package com.gengoai.hermes.extraction.lyre;
 import com.fasterxml.jackson.annotation.*;
 import com.gengoai.Validation;
 import com.gengoai.apollo.ml.observation.Variable;
+import com.gengoai.cache.Cache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.collection.Lists;
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.collection.counter.Counters;
+import com.gengoai.config.Config;
 import com.gengoai.conversion.Cast;
 import com.gengoai.conversion.Converter;
 import com.gengoai.function.CheckedFunction;
@@ -58,6 +61,9 @@ import static com.gengoai.reflection.TypeUtils.parameterizedType;
  * querying (i.e. acting as a Java Predicate) and extracting and transforming (i.e. like a Java Function). Lyre
  * expressions extend from {@link FeaturizingExtractor} allowing them to be used as a feature extractor for machine
  * learning.</p>
+ * <p>Parsed expressions are immutable and are cached by their pattern, so that parsing the same pattern again (e.g.
+ * the same lexicon constraint on many entries) returns the previously parsed expression. The maximum number of cached
+ * expressions can be set using the <code>LyreExpression.parseCacheSize</code> config setting (default 10,000).</p>
  *
  * @author David B. Bracewell
  */
@@ -73,6 +79,12 @@ public final class LyreExpression extends FeaturizingExtractor implements Expres
    };
    private static final ParserGenerator PARSER_GENERATOR = parserGenerator(new Grammar(LyreType.values()),
                                                                            Lexer.create(LyreType.values()));
+   /**
+    * Config setting for the maximum number of parsed expressions to cache
+    */
+   public static final String PARSE_CACHE_SIZE_CONFIG = "LyreExpression.parseCacheSize";
+   private static final Cache<String, LyreExpression> PARSE_CACHE =
+         createParseCache(Config.get(PARSE_CACHE_SIZE_CONFIG).asIntegerValue(10_000));
    private final SerializableFunction<Object, Object> function;
    private final String pattern;
    private final LyreExpressionType type;
@@ -85,6 +97,39 @@ public final class LyreExpression extends FeaturizingExtractor implements Expres
     */
    @JsonCreator
    public static LyreExpression parse(@JsonProperty String pattern) {
+      return parse(pattern, PARSE_CACHE);
+   }
+
+   /**
+    * Parse the given pattern into a {@link LyreExpression} using the given cache of parsed expressions.
+    *
+    * @param pattern the pattern
+    * @param cache   the cache of parsed expressions
+    * @return the LyreExpression Expression
+    */
+   static LyreExpression parse(String pattern, Cache<String, LyreExpression> cache) {
+      return cache.get(pattern, () -> parseUncached(pattern));
+   }
+
+   /**
+    * Creates a cache of parsed expressions holding at most the given number of expressions.
+    *
+    * @param maximumSize the maximum number of parsed expressions to cache
+    * @return the parse cache
+    */
+   static Cache<String, LyreExpression> createParseCache(int maximumSize) {
+      return ConcurrentCache.<String, LyreExpression>builder()
+                            .maximumSize(maximumSize)
+                            .build();
+   }
+
+   /**
+    * Parse the given pattern into a {@link LyreExpression} without consulting the parse cache.
+    *
+    * @param pattern the pattern
+    * @return the LyreExpression Expression
+    */
+   static LyreExpression parseUncached(String pattern) {
       try {
          List<LyreExpression> expressions = PARSER_GENERATOR.create(pattern).evaluateAll(evaluator);
          if(expressions.size() != 1) {
@@ -207,6 +252,8 @@ public final class LyreExpression extends FeaturizingExtractor implements Expres
       Object obj = applyAsObject(object);
       if(obj == null) {
          return Collections.emptyList();
+      } else if(obj instanceof String) {
+         return Collections.singletonList(obj);
       } else if(obj instanceof List) {
          return Cast.as(obj);
       }
@@ -21,9 +21,12 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Alternation.
@@ -62,6 +65,22 @@ final class AlternationTransition implements TransitionFunction, Serializable {
       return parent;
    }
 
+   @Override
+   public Query prefilter() {
+      Query q1 = c1.prefilter();
+      Query q2 = c2.prefilter();
+      if(q1 == null || q2 == null) {
+         return null;
+      }
+      return Query.or(q1, q2);
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      c1.collectTypes(types);
+      c2.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.ALTERNATION;
@@ -22,9 +22,12 @@ package com.gengoai.hermes.extraction.regex;
 import com.gengoai.Tag;
 import com.gengoai.Validation;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type And transition.
@@ -53,6 +56,17 @@ final class AndTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public Query prefilter() {
+      return TransitionFunction.and(left.prefilter(), right.prefilter());
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      left.collectTypes(types);
+      right.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.AND;
@@ -21,11 +21,13 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.AnnotationType;
 import com.gengoai.hermes.HString;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Annotation matcher.
@@ -53,6 +55,12 @@ final class AnnotationTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      types.add(type);
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.ANNOTATION;
@@ -21,10 +21,13 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 import lombok.NonNull;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Group matcher.
@@ -73,6 +76,16 @@ final class GroupTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public Query prefilter() {
+      return child.prefilter();
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return null;
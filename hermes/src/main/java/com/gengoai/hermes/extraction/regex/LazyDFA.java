@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.extraction.regex;
+
+import com.gengoai.collection.multimap.ArrayListMultimap;
+import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.Annotation;
+import com.gengoai.hermes.HString;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * A lazily determinized version of an {@link NFA}. The NFA is compiled into an indexed form, where every node and
+ * every distinct {@link TransitionFunction} is given an integer id, and deterministic states (sets of NFA nodes closed
+ * under epsilon transitions) are created on demand and cached along with their transitions. As token predicates are
+ * arbitrary functions, a transition of a deterministic state is keyed by which of its outgoing transition functions
+ * matched the current token, and each distinct transition function is evaluated at most once per token.
+ * </p>
+ * <p>
+ * Matches are found using a single leftmost-longest scan starting at a given token rather than re-simulating the NFA
+ * from every start position. Threads with different start positions are run together with a thread for a node that
+ * is already covered by a thread with an earlier start being dropped, as both have the same possible ends.
+ * </p>
+ * <p>
+ * Automata with named groups ({@link #isCapturing()}) need the capture-tracking simulation in {@link
+ * NFA#matches(HString, int)}. For these, the automaton is only used to skip start positions at which no match can
+ * begin.
+ * </p>
+ * <p>
+ * Multiple NFAs can be compiled into a single automaton whose accept states are tagged with the index of the pattern
+ * they accept, which allows {@link #longestMatches(List)} to match all patterns in one pass (see {@link
+ * TokenRegexSet}).
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+final class LazyDFA {
+   private static final ListMultimap<String, HString> NO_GROUPS = new ArrayListMultimap<>();
+   private static final int MAX_CACHED_STATES = 10_000;
+   private final boolean capturing;
+   private final int[][] epsilons;
+   private final TransitionFunction[] functions;
+   private final int[] acceptedPattern;
+   private final int numberOfPatterns;
+   private final DState start;
+   private final Map<BitSet, DState> states = new ConcurrentHashMap<>();
+   private final int[][] transitionDestinations;
+   private final int[][] transitionFunctions;
+
+   /**
+    * Instantiates a new LazyDFA compiling the given NFA.
+    *
+    * @param nfa the nfa
+    */
+   LazyDFA(NFA nfa) {
+      this(Collections.singletonList(nfa));
+   }
+
+   /**
+    * Instantiates a new LazyDFA compiling the given NFAs into a single automaton.
+    *
+    * @param nfas the nfas with the index of an NFA in the list being its pattern index
+    */
+   LazyDFA(List<NFA> nfas) {
+      Map<NFA.Node, Integer> nodeIds = new IdentityHashMap<>();
+      List<NFA.Node> nodes = new ArrayList<>();
+      int[] startIds = new int[nfas.size()];
+      int[] patternOf = new int[0];
+      for(int p = 0; p < nfas.size(); p++) {
+         NFA nfa = nfas.get(p);
+         Deque<NFA.Node> queue = new ArrayDeque<>();
+         startIds[p] = nodes.size();
+         nodeIds.put(nfa.start, nodes.size());
+         nodes.add(nfa.start);
+         queue.add(nfa.start);
+         while(!queue.isEmpty()) {
+            NFA.Node node = queue.remove();
+            List<NFA.Node> next = new ArrayList<>(node.epsilons);
+            node.transitions.forEach(t -> next.add(t.destination));
+            for(NFA.Node n : next) {
+               if(!nodeIds.containsKey(n)) {
+                  nodeIds.put(n, nodes.size());
+                  nodes.add(n);
+                  queue.add(n);
+               }
+            }
+         }
+         int from = patternOf.length;
+         patternOf = Arrays.copyOf(patternOf, nodes.size());
+         Arrays.fill(patternOf, from, nodes.size(), p);
+      }
+
+      //Predicates are determined by their type and pattern, so equal predicates of different patterns are shared
+      List<TransitionFunction> functionList = new ArrayList<>();
+      Map<TransitionFunction, Integer> functionIds = new IdentityHashMap<>();
+      Map<String, Integer> predicateIds = new HashMap<>();
+      this.epsilons = new int[nodes.size()][];
+      this.transitionFunctions = new int[nodes.size()][];
+      this.transitionDestinations = new int[nodes.size()][];
+      this.acceptedPattern = new int[nodes.size()];
+      boolean hasGroups = false;
+      for(int i = 0; i < nodes.size(); i++) {
+         NFA.Node node = nodes.get(i);
+         hasGroups |= node.emits || node.consumes;
+         acceptedPattern[i] = node.accepts()
+                              ? patternOf[i]
+                              : -1;
+         epsilons[i] = node.epsilons.stream().mapToInt(nodeIds::get).toArray();
+         transitionFunctions[i] = new int[node.transitions.size()];
+         transitionDestinations[i] = new int[node.transitions.size()];
+         for(int j = 0; j < node.transitions.size(); j++) {
+            NFA.Transition t = node.transitions.get(j);
+            transitionFunctions[i][j] = functionIds.computeIfAbsent(t.transitionFunction, f -> {
+               if(f instanceof PredicateTransition) {
+                  return predicateIds.computeIfAbsent(f.getType() + "::" + f, k -> add(functionList, f));
+               }
+               return add(functionList, f);
+            });
+            transitionDestinations[i][j] = nodeIds.get(t.destination);
+         }
+      }
+      this.functions = functionList.toArray(new TransitionFunction[0]);
+      this.capturing = hasGroups;
+      this.numberOfPatterns = nfas.size();
+      DState[] starts = new DState[nfas.size()];
+      BitSet allStartNodes = new BitSet();
+      for(int p = 0; p < nfas.size(); p++) {
+         BitSet startNodes = new BitSet();
+         startNodes.set(startIds[p]);
+         starts[p] = state(closure(startNodes));
+         allStartNodes.or(starts[p].nodes);
+      }
+      this.start = state(allStartNodes);
+   }
+
+   private static int add(List<TransitionFunction> functions, TransitionFunction function) {
+      functions.add(function);
+      return functions.size() - 1;
+   }
+
+   /**
+    * Determines if the start state of the automaton can be left at the given token, i.e. if the automaton accepts the
+    * empty sequence or one of the transitions out of the start state matches the token.
+    *
+    * @param tokens   the tokens of the input
+    * @param position the position of the token to check
+    * @return True if a match may start at the given position, False if no match can start there
+    */
+   boolean canStart(List<Annotation> tokens, int position) {
+      if(start.accept) {
+         return true;
+      }
+      for(int fn : start.functions) {
+         if(functions[fn].matches(tokens.get(position), NO_GROUPS) > 0) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private BitSet closure(BitSet nodes) {
+      BitSet closure = (BitSet) nodes.clone();
+      Deque<Integer> stack = new ArrayDeque<>();
+      nodes.stream().forEach(stack::push);
+      while(!stack.isEmpty()) {
+         for(int n : epsilons[stack.pop()]) {
+            if(!closure.get(n)) {
+               closure.set(n);
+               stack.push(n);
+            }
+         }
+      }
+      return closure;
+   }
+
+   /**
+    * Finds the leftmost-longest match starting at or after the given token position. Only valid for non-capturing
+    * automata.
+    *
+    * @param tokens the tokens of the input
+    * @param from   the position of the token to start searching from
+    * @return the start and end token positions of the match or null if there is no match
+    */
+   int[] find(List<Annotation> tokens, int from) {
+      final int size = tokens.size();
+      //position -> thread start -> nodes
+      final TreeMap<Integer, TreeMap<Integer, BitSet>> pending = new TreeMap<>();
+      final int[] memo = new int[functions.length];
+      int bestStart = -1;
+      int bestEnd = -1;
+      int position = from;
+      while(true) {
+         TreeMap<Integer, BitSet> threads = pending.remove(position);
+         if(bestStart < 0 && position < size) {
+            if(threads == null) {
+               threads = new TreeMap<>();
+            }
+            threads.computeIfAbsent(position, p -> new BitSet()).or(start.nodes);
+         }
+         if(threads != null) {
+            Arrays.fill(memo, -1);
+            BitSet seen = new BitSet();
+            for(Map.Entry<Integer, BitSet> thread : threads.entrySet()) {
+               int threadStart = thread.getKey();
+               if(bestStart >= 0 && threadStart > bestStart) {
+                  break;
+               }
+               BitSet nodes = thread.getValue();
+               nodes.andNot(seen);
+               if(nodes.isEmpty()) {
+                  continue;
+               }
+               seen.or(nodes);
+               DState state = state(nodes);
+               if(state.accept) {
+                  if(bestStart < 0 || threadStart < bestStart) {
+                     bestStart = threadStart;
+                     bestEnd = position;
+                  } else {
+                     bestEnd = Math.max(bestEnd, position);
+                  }
+               }
+               if(position < size) {
+                  step(state, tokens.get(position), position, threadStart, memo, pending);
+               }
+            }
+         }
+         if(bestStart < 0 && position + 1 < size) {
+            position++;
+         } else if(pending.isEmpty()) {
+            break;
+         } else {
+            position = pending.firstKey();
+         }
+      }
+      if(bestStart < 0) {
+         return null;
+      }
+      return new int[]{bestStart, bestEnd};
+   }
+
+   /**
+    * Finds, in a single pass over the given tokens, the end of the longest match of every pattern for every start
+    * token. Unlike {@link #find(List, int)} threads are not shared between start positions, so that the matches of
+    * every pattern can be determined independently of the other patterns. Only valid for non-capturing automata.
+    *
+    * @param tokens the tokens of the input
+    * @return an array indexed by pattern holding either null if the pattern does not match or an array indexed by
+    * start token position holding the end token position of the longest match (-1 if there is no match)
+    */
+   int[][] longestMatches(List<Annotation> tokens) {
+      final int size = tokens.size();
+      final int[][] longest = new int[numberOfPatterns][];
+      final TreeMap<Integer, TreeMap<Integer, BitSet>> pending = new TreeMap<>();
+      final int[] memo = new int[functions.length];
+      for(int position = 0; position < size || !pending.isEmpty(); position++) {
+         TreeMap<Integer, BitSet> threads = pending.remove(position);
+         if(position < size) {
+            if(threads == null) {
+               threads = new TreeMap<>();
+            }
+            threads.computeIfAbsent(position, p -> new BitSet()).or(start.nodes);
+         } else if(threads == null) {
+            position = pending.firstKey() - 1;
+            continue;
+         }
+         Arrays.fill(memo, -1);
+         for(Map.Entry<Integer, BitSet> thread : threads.entrySet()) {
+            int threadStart = thread.getKey();
+            DState state = state(thread.getValue());
+            for(int pattern : state.acceptedPatterns) {
+               if(longest[pattern] == null) {
+                  longest[pattern] = new int[size];
+                  Arrays.fill(longest[pattern], -1);
+               }
+               longest[pattern][threadStart] = Math.max(longest[pattern][threadStart], position);
+            }
+            if(position < size) {
+               step(state, tokens.get(position), position, threadStart, memo, pending);
+            }
+         }
+      }
+      return longest;
+   }
+
+   /**
+    * Determines if the automaton has named groups and therefore requires capture tracking.
+    *
+    * @return True if capturing, False otherwise
+    */
+   boolean isCapturing() {
+      return capturing;
+   }
+
+   private DState state(BitSet nodes) {
+      DState state = states.get(nodes);
+      if(state == null) {
+         state = new DState((BitSet) nodes.clone());
+         if(states.size() < MAX_CACHED_STATES) {
+            DState existing = states.putIfAbsent(state.nodes, state);
+            if(existing != null) {
+               state = existing;
+            }
+         }
+      }
+      return state;
+   }
+
+   private void step(DState state,
+                     Annotation token,
+                     int position,
+                     int threadStart,
+                     int[] memo,
+                     TreeMap<Integer, TreeMap<Integer, BitSet>> pending) {
+      if(state.functions.length == 0) {
+         return;
+      }
+      BitSet fired = new BitSet();
+      boolean singleTokens = true;
+      int[] lengths = new int[state.functions.length];
+      for(int i = 0; i < state.functions.length; i++) {
+         int fn = state.functions[i];
+         if(memo[fn] < 0) {
+            memo[fn] = functions[fn].matches(token, NO_GROUPS);
+         }
+         lengths[i] = memo[fn];
+         if(lengths[i] == 1) {
+            fired.set(i);
+         } else if(lengths[i] > 1) {
+            singleTokens = false;
+         }
+      }
+
+      if(singleTokens) {
+         if(!fired.isEmpty()) {
+            DState next = state.next.computeIfAbsent(fired, f -> {
+               BitSet destinations = new BitSet();
+               f.stream().forEach(i -> destinations.set(state.destinations[i]));
+               return state(closure(destinations));
+            });
+            pending.computeIfAbsent(position + 1, p -> new TreeMap<>())
+                   .computeIfAbsent(threadStart, s -> new BitSet())
+                   .or(next.nodes);
+         }
+         return;
+      }
+
+      //Transitions consuming more than one token (e.g. annotations) are not cached
+      for(int i = 0; i < state.functions.length; i++) {
+         if(lengths[i] > 0) {
+            BitSet destination = new BitSet();
+            destination.set(state.destinations[i]);
+            pending.computeIfAbsent(position + lengths[i], p -> new TreeMap<>())
+                   .computeIfAbsent(threadStart, s -> new BitSet())
+                   .or(closure(destination));
+         }
+      }
+   }
+
+   private class DState {
+      final boolean accept;
+      final int[] acceptedPatterns;
+      final int[] destinations;
+      final int[] functions;
+      final Map<BitSet, DState> next = new ConcurrentHashMap<>();
+      final BitSet nodes;
+
+      private DState(BitSet nodes) {
+         this.nodes = nodes;
+         this.acceptedPatterns = nodes.stream().map(n -> acceptedPattern[n]).filter(p -> p >= 0).distinct().toArray();
+         this.accept = acceptedPatterns.length > 0;
+         Set<Long> transitions = new LinkedHashSet<>();
+         nodes.stream().forEach(n -> {
+            for(int i = 0; i < transitionFunctions[n].length; i++) {
+               transitions.add(((long) transitionFunctions[n][i] << 32) | transitionDestinations[n][i]);
+            }
+         });
+         this.functions = new int[transitions.size()];
+         this.destinations = new int[transitions.size()];
+         int i = 0;
+         for(long t : transitions) {
+            functions[i] = (int) (t >>> 32);
+            destinations[i] = (int) t;
+            i++;
+         }
+      }
+   }
+
+}//END OF LazyDFA
@@ -21,9 +21,11 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Look ahead transition.
@@ -54,6 +56,12 @@ final class LookAheadTransition implements TransitionFunction, Serializable {
       return nEnd;
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+      lookAhead.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return negativeLookAhead
@@ -46,6 +46,23 @@ public final class NFA implements Serializable {
     * The Start.
     */
    Node start = new Node(false);
+   private transient volatile LazyDFA dfa;
+
+   /**
+    * Gets the lazily determinized version of this NFA, compiling it on first use.
+    *
+    * @return the lazy DFA
+    */
+   LazyDFA dfa() {
+      if(dfa == null) {
+         synchronized(this) {
+            if(dfa == null) {
+               dfa = new LazyDFA(this);
+            }
+         }
+      }
+      return dfa;
+   }
 
    /**
     * Matches the
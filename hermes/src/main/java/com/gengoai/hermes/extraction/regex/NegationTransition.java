@@ -21,9 +21,11 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
 
 import java.io.Serializable;
+import java.util.Set;
 
 final class NegationTransition implements TransitionFunction, Serializable {
    private static final long serialVersionUID = 1L;
@@ -48,6 +50,11 @@ final class NegationTransition implements TransitionFunction, Serializable {
       return parent;
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      c1.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.NEGATION;
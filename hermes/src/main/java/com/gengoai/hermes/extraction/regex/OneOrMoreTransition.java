@@ -21,9 +21,12 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type One or more.
@@ -55,6 +58,16 @@ final class OneOrMoreTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public Query prefilter() {
+      return child.prefilter();
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.ONE_OR_MORE;
@@ -23,6 +23,7 @@ import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
 import com.gengoai.function.SerializablePredicate;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
 
@@ -33,6 +34,7 @@ final class PredicateTransition implements TransitionFunction, Serializable {
    private static final long serialVersionUID = 1L;
    private final String pattern;
    private final SerializablePredicate<? super HString> predicate;
+   private final Query prefilter;
    private final Tag type;
 
    /**
@@ -44,9 +46,25 @@ final class PredicateTransition implements TransitionFunction, Serializable {
    public PredicateTransition(String pattern,
                               SerializablePredicate<? super HString> predicate,
                               Tag type) {
+      this(pattern, predicate, type, null);
+   }
+
+   /**
+    * Instantiates a new Predicate matcher.
+    *
+    * @param pattern   the pattern
+    * @param predicate the predicate
+    * @param type      the type
+    * @param prefilter the query every document containing a matching token satisfies (null if unknown)
+    */
+   public PredicateTransition(String pattern,
+                              SerializablePredicate<? super HString> predicate,
+                              Tag type,
+                              Query prefilter) {
       this.pattern = pattern;
       this.predicate = predicate;
       this.type = type;
+      this.prefilter = prefilter;
    }
 
    @Override
@@ -75,6 +93,11 @@ final class PredicateTransition implements TransitionFunction, Serializable {
              : input.tokenLength();
    }
 
+   @Override
+   public Query prefilter() {
+      return prefilter;
+   }
+
    @Override
    public String toString() {
       return pattern;
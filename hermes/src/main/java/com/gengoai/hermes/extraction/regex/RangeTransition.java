@@ -21,9 +21,12 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Range transition.
@@ -82,6 +85,18 @@ final class RangeTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public Query prefilter() {
+      return low > 0
+             ? child.prefilter()
+             : null;
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.RANGE;
@@ -21,12 +21,12 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.Validation;
-import com.gengoai.collection.multimap.ListMultimap;
 import com.gengoai.conversion.Cast;
 import com.gengoai.conversion.Converter;
 import com.gengoai.conversion.TypeConversionException;
-import com.gengoai.function.SerializableBiFunction;
 import com.gengoai.hermes.*;
+import com.gengoai.hermes.corpus.AnnotationField;
+import com.gengoai.hermes.corpus.Query;
 import com.gengoai.hermes.lexicon.LexiconManager;
 import com.gengoai.hermes.morphology.StopWords;
 import com.gengoai.hermes.morphology.TokenType;
@@ -54,7 +54,10 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
       public void register(Grammar grammar) {
          grammar.prefix(this, (parser, token) -> {
             final String unescaped = Strings.unescape(token.getVariable(0), '\\');
-            return new PredicateTransition(token.getText(), h -> h.contentEqualsIgnoreCase(unescaped), this);
+            return new PredicateTransition(token.getText(),
+                                           h -> h.contentEqualsIgnoreCase(unescaped),
+                                           this,
+                                           tokenPrefilter(AnnotationField.WORD, unescaped));
          });
       }
    },
@@ -65,7 +68,10 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
       public void register(Grammar grammar) {
          grammar.prefix(this, (parser, token) -> {
             final String unescaped = Strings.unescape(token.getVariable(0), '\\');
-            return new PredicateTransition(token.getText(), h -> h.contentEquals(unescaped), this);
+            return new PredicateTransition(token.getText(),
+                                           h -> h.contentEquals(unescaped),
+                                           this,
+                                           tokenPrefilter(AnnotationField.WORD, unescaped));
          });
       }
    },
@@ -90,7 +96,10 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
       public void register(Grammar grammar) {
          grammar.prefix(this, (parser, token) -> {
             final String unescaped = Strings.unescape(token.getVariable(0), '\\');
-            return new PredicateTransition(token.getText(), h -> h.getLemma().equalsIgnoreCase(unescaped), this);
+            return new PredicateTransition(token.getText(),
+                                           h -> h.getLemma().equalsIgnoreCase(unescaped),
+                                           this,
+                                           tokenPrefilter(AnnotationField.LEMMA, unescaped));
          });
       }
    },
@@ -121,7 +130,7 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
             AttributeType<?> type = h.asAnnotation().getType().getTagAttribute();
             final Object value = type.decode(token.getVariable(0));
             return h.attributeIsA(type, value);
-         }, this));
+         }, this, posPrefilter(token.getVariable(0))));
       }
    },
    NUMERIC_ATTRIBUTE(re(e('$'),
@@ -338,7 +347,7 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
                                           Strings.unescape(token.getVariable(1), '\\'),
                                           token.getText(),
                                           false,
-                                          getRelationMatcher(parser, token));
+                                          getChildTransition(parser, token));
          });
       }
    },
@@ -354,7 +363,7 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
                                           Strings.unescape(token.getVariable(1), '\\'),
                                           token.getText(),
                                           true,
-                                          getRelationMatcher(parser, token));
+                                          getChildTransition(parser, token));
          });
       }
    },
@@ -368,7 +377,7 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
                                           Strings.unescape(token.getVariable(0), '\\'),
                                           token.getText(),
                                           false,
-                                          getRelationMatcher(parser, token));
+                                          getChildTransition(parser, token));
          });
       }
    },
@@ -381,7 +390,7 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
                                                                         Strings.unescape(token.getVariable(0), '\\'),
                                                                         token.getText(),
                                                                         true,
-                                                                        getRelationMatcher(parser, token)));
+                                                                        getChildTransition(parser, token)));
       }
    },
    LOOKAHEAD(re(e('('), e('?'), e('>'))) {
@@ -517,24 +526,30 @@ enum RegexTypes implements TokenDef, GrammarRegistrable {
       return new PredicateTransition(".", h -> true, ANY);
    }
 
-   private static SerializableBiFunction<HString, ListMultimap<String, HString>, Integer> getRelationMatcher(Parser parser,
-                                                                                                             ParserToken token) throws
-                                                                                                                                ParseException {
-      ParserToken next = parser.peek();
-      SerializableBiFunction<HString, ListMultimap<String, HString>, Integer> matcher;
-      if(next.isInstance(OPEN_PARENS) && next.getStartOffset() == token.getEndOffset()) {
-         matcher = asSequence(parser.parseExpressionList(OPEN_PARENS, CLOSE_PARENS, null))::matches;
-      } else {
-         matcher = (h, m) -> 1;
-      }
-      return matcher;
-   }
-
    @Override
    public String getPattern() {
       return pattern;
    }
 
+   private static Query posPrefilter(String tag) {
+      //Tags are only prefiltered when applied to tokens, i.e. not nested in an annotation transition
+      try {
+         PartOfSpeech pos = PartOfSpeech.valueOf(tag);
+         return pos == PartOfSpeech.ANY
+                ? null
+                : AnnotationField.POS.requirement(pos.name());
+      } catch(IllegalArgumentException e) {
+         return null;
+      }
+   }
+
+   private static Query tokenPrefilter(AnnotationField field, String value) {
+      if(Strings.isNullOrBlank(value) || value.chars().anyMatch(Character::isWhitespace)) {
+         return null;
+      }
+      return field.requirement(value);
+   }
+
    @Override
    public void register(Grammar grammar) {
 
@@ -21,6 +21,7 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.HString;
 import com.gengoai.hermes.RelationType;
@@ -29,7 +30,7 @@ import com.gengoai.string.Strings;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.BiFunction;
+import java.util.Set;
 
 /**
  * The type Relation transition.
@@ -40,7 +41,7 @@ final class RelationTransition implements TransitionFunction, Serializable {
     * The Is outgoing.
     */
    final boolean isOutgoing;
-   private final BiFunction<? super HString, ListMultimap<String,HString>, Integer> matcher;
+   private final TransitionFunction child;
    private final String pattern;
    private final RelationType type;
    private final String value;
@@ -52,15 +53,15 @@ final class RelationTransition implements TransitionFunction, Serializable {
     * @param value      the value
     * @param pattern    the pattern
     * @param isOutgoing the is outgoing
-    * @param matcher    the matcher
+    * @param child      the transition the relation targets must match
     */
    public RelationTransition(RelationType type,
                              String value,
                              String pattern,
                              boolean isOutgoing,
-                             BiFunction<? super HString, ListMultimap<String,HString>, Integer> matcher) {
+                             TransitionFunction child) {
       this.pattern = pattern;
-      this.matcher = matcher;
+      this.child = child;
       this.value = value;
       this.type = type;
       this.isOutgoing = isOutgoing;
@@ -87,6 +88,12 @@ final class RelationTransition implements TransitionFunction, Serializable {
              : input.asAnnotation().incoming(type, value);
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      types.add(type);
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return isOutgoing
@@ -97,7 +104,7 @@ final class RelationTransition implements TransitionFunction, Serializable {
    @Override
    public int matches(HString input, ListMultimap<String, HString> namedGroups) {
       for(Annotation a : getTargets(input)) {
-         if(matcher.apply(a,namedGroups) > 0) {
+         if(child.matches(a, namedGroups) > 0) {
             return input.tokenLength();
          }
       }
@@ -107,7 +114,7 @@ final class RelationTransition implements TransitionFunction, Serializable {
    @Override
    public int nonMatches(HString input, ListMultimap<String, HString> namedGroups) {
       for(Annotation a : getTargets(input)) {
-         if(matcher.apply(a,namedGroups) > 0) {
+         if(child.matches(a, namedGroups) > 0) {
             return 0;
          }
       }
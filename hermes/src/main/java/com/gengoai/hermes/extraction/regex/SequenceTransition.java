@@ -21,10 +21,13 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Sequence.
@@ -62,6 +65,17 @@ final class SequenceTransition implements TransitionFunction, Serializable {
       return base;
    }
 
+   @Override
+   public Query prefilter() {
+      return TransitionFunction.and(c1.prefilter(), c2.prefilter());
+   }
+
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      c1.collectTypes(types);
+      c2.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.OPEN_PARENS;
@@ -20,6 +20,7 @@
 package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Validation;
+import com.gengoai.collection.multimap.ArrayListMultimap;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.HString;
 
@@ -37,6 +38,7 @@ import java.util.Set;
  */
 public class TokenMatcher {
    private final NFA automaton;
+   private final LazyDFA dfa;
    private final HString input;
    private final List<Annotation> tokens;
    private int last = 0;
@@ -45,12 +47,14 @@ public class TokenMatcher {
 
    TokenMatcher(NFA automaton, HString input) {
       this.automaton = automaton;
+      this.dfa = automaton.dfa();
       this.input = input;
       this.tokens = input.tokens();
    }
 
    TokenMatcher(NFA automaton, HString input, int start) {
       this.automaton = automaton;
+      this.dfa = automaton.dfa();
       this.input = input;
       this.last = start;
       this.tokens = input.tokens();
@@ -77,12 +81,30 @@ public class TokenMatcher {
     */
    public boolean find() {
       start = last;
-      for(; start < tokens.size(); start++) {
-         match = automaton.matches(input, start);
-         if(match.getTokenEnd() != -1) {
-            last = match.getTokenEnd();
+      if(!dfa.isCapturing()) {
+         //Single leftmost-longest scan over the tokens
+         int[] span = dfa.find(tokens, start);
+         if(span != null) {
+            start = span[0];
+            int end = span[1] == start
+                      ? start + 1
+                      : span[1];
+            match = new TokenMatch(input, start, end, new ArrayListMultimap<>());
+            last = end;
             return true;
          }
+      } else {
+         //Named groups require capture tracking, but only start where the automaton can leave its start state
+         for(; start < tokens.size(); start++) {
+            if(!dfa.canStart(tokens, start)) {
+               continue;
+            }
+            match = automaton.matches(input, start);
+            if(match.getTokenEnd() != -1) {
+               last = match.getTokenEnd();
+               return true;
+            }
+         }
       }
       start = -1;
       match = new TokenMatch(input, -1, -1, null);
@@ -24,7 +24,9 @@ package com.gengoai.hermes.extraction.regex;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 import com.gengoai.hermes.extraction.Extraction;
 import com.gengoai.hermes.extraction.Extractor;
 import com.gengoai.parsing.*;
@@ -33,9 +35,7 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static com.gengoai.parsing.ParserGenerator.parserGenerator;
 
@@ -77,10 +77,16 @@ public final class TokenRegex implements Serializable, Extractor {
    private static final long serialVersionUID = 1L;
    private final NFA nfa;
    private final String pattern;
+   private final Query prefilter;
+   private final Set<AnnotatableType> referencedTypes;
 
    private TokenRegex(TransitionFunction transitionFunction) {
       this.nfa = transitionFunction.construct();
       this.pattern = transitionFunction.toString();
+      this.prefilter = transitionFunction.prefilter();
+      Set<AnnotatableType> types = new HashSet<>();
+      transitionFunction.collectTypes(types);
+      this.referencedTypes = Collections.unmodifiableSet(types);
    }
 
    /**
@@ -161,6 +167,28 @@ public final class TokenRegex implements Serializable, Extractor {
       return matchFirst(text).map(h -> h.length() == text.length()).orElse(false);
    }
 
+   /**
+    * Gets a query over the annotation fields indexed by a corpus (see {@link
+    * com.gengoai.hermes.corpus.AnnotationField}) that every document containing a match of this pattern satisfies. The
+    * query can be used to rule out documents before running the pattern over them.
+    *
+    * @return the query or an empty Optional if the pattern does not constrain the documents it can match
+    */
+   public Optional<Query> prefilter() {
+      return Optional.ofNullable(prefilter);
+   }
+
+   /**
+    * Gets the types of the annotations and relations, other than tokens, that the pattern reads when matching, e.g.
+    * <code>ENTITY</code> for <code>@ENTITY</code>. A pattern's matches over a document can only change when
+    * annotations or relations of one of these types are added to or removed from the document.
+    *
+    * @return the set of referenced annotation and relation types
+    */
+   public Set<AnnotatableType> referencedTypes() {
+      return referencedTypes;
+   }
+
    /**
     * @return The token regex pattern as a string
     */
@@ -168,6 +196,10 @@ public final class TokenRegex implements Serializable, Extractor {
       return pattern;
    }
 
+   NFA nfa() {
+      return nfa;
+   }
+
    @Override
    public String toString() {
       return pattern;
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.extraction.regex;
+
+import com.gengoai.collection.multimap.ArrayListMultimap;
+import com.gengoai.hermes.Annotation;
+import com.gengoai.hermes.HString;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A set of {@link TokenRegex} that are matched against an input together. The patterns are compiled into a single
+ * automaton whose accept states are tagged with the pattern they belong to, so that the matches of all patterns are
+ * found in one pass over the tokens of the input with each token predicate being evaluated at most once per token.
+ * The matches found for each pattern are the same as those found by iterating over a {@link TokenMatcher} for the
+ * pattern.
+ * </p>
+ * <p>
+ * Patterns with named groups need capture tracking and are matched individually using their own {@link
+ * TokenMatcher}.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+public final class TokenRegexSet implements Serializable {
+   private static final long serialVersionUID = 1L;
+   private final List<TokenRegex> patterns;
+   private transient volatile Compiled compiled;
+
+   /**
+    * Instantiates a new TokenRegexSet.
+    *
+    * @param patterns the patterns in the set
+    */
+   public TokenRegexSet(@NonNull List<TokenRegex> patterns) {
+      this.patterns = new ArrayList<>(patterns);
+   }
+
+   private Compiled compiled() {
+      if(compiled == null) {
+         synchronized(this) {
+            if(compiled == null) {
+               compiled = new Compiled(patterns);
+            }
+         }
+      }
+      return compiled;
+   }
+
+   /**
+    * Gets the pattern at the given index
+    *
+    * @param index the index of the pattern
+    * @return the pattern
+    */
+   public TokenRegex get(int index) {
+      return patterns.get(index);
+   }
+
+   /**
+    * Finds the matches of every pattern in the set over the given input.
+    *
+    * @param input the input to match against
+    * @return a list, in the same order as the patterns in the set, of the matches of each pattern
+    */
+   public List<List<TokenMatch>> matchAll(@NonNull HString input) {
+      Compiled c = compiled();
+      List<Annotation> tokens = input.tokens();
+      int[][] longest = c.dfa == null
+                        ? new int[0][]
+                        : c.dfa.longestMatches(tokens);
+      List<List<TokenMatch>> matches = new ArrayList<>();
+      for(int i = 0; i < patterns.size(); i++) {
+         int combined = c.combinedIndex[i];
+         if(combined < 0) {
+            List<TokenMatch> patternMatches = new ArrayList<>();
+            TokenMatcher matcher = patterns.get(i).matcher(input);
+            while(matcher.find()) {
+               patternMatches.add(matcher.asTokenMatch());
+            }
+            matches.add(patternMatches);
+         } else if(longest[combined] == null) {
+            matches.add(Collections.emptyList());
+         } else {
+            //Leftmost-longest non-overlapping matches as found by TokenMatcher
+            List<TokenMatch> patternMatches = new ArrayList<>();
+            int[] ends = longest[combined];
+            for(int start = 0; start < ends.length; start++) {
+               if(ends[start] >= 0) {
+                  int end = ends[start] == start
+                            ? start + 1
+                            : ends[start];
+                  patternMatches.add(new TokenMatch(input, start, end, new ArrayListMultimap<>()));
+                  start = end - 1;
+               }
+            }
+            matches.add(patternMatches);
+         }
+      }
+      return matches;
+   }
+
+   /**
+    * @return the number of patterns in the set
+    */
+   public int size() {
+      return patterns.size();
+   }
+
+   @Override
+   public String toString() {
+      return "TokenRegexSet" + patterns;
+   }
+
+   private static class Compiled {
+      final int[] combinedIndex;
+      final LazyDFA dfa;
+
+      private Compiled(List<TokenRegex> patterns) {
+         this.combinedIndex = new int[patterns.size()];
+         List<NFA> nfas = new ArrayList<>();
+         for(int i = 0; i < patterns.size(); i++) {
+            NFA nfa = patterns.get(i).nfa();
+            if(nfa.dfa().isCapturing()) {
+               combinedIndex[i] = -1;
+            } else {
+               combinedIndex[i] = nfas.size();
+               nfas.add(nfa);
+            }
+         }
+         this.dfa = nfas.isEmpty()
+                    ? null
+                    : new LazyDFA(nfas);
+      }
+   }
+
+}//END OF TokenRegexSet
@@ -20,9 +20,13 @@
 package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
+import com.gengoai.hermes.corpus.Query;
 import com.gengoai.parsing.Expression;
 
+import java.util.Set;
+
 interface TransitionFunction extends Expression {
 
    /**
@@ -48,4 +52,39 @@ interface TransitionFunction extends Expression {
     */
    int nonMatches(HString input, ListMultimap<String, HString> namedGroups);
 
+   /**
+    * Gets a query over the indexed annotation fields that every document containing a match must satisfy.
+    *
+    * @return the query or null if no such query can be determined
+    */
+   default Query prefilter() {
+      return null;
+   }
+
+   /**
+    * Adds the types of the annotations and relations (other than the tokens being matched) that are read when
+    * matching the transition to the given set.
+    *
+    * @param types the set to add the types to
+    */
+   default void collectTypes(Set<AnnotatableType> types) {
+
+   }
+
+   /**
+    * Combines the prefilter queries of two transitions that must both match
+    *
+    * @param q1 the first query (possibly null)
+    * @param q2 the second query (possibly null)
+    * @return the combined query or null if both are null
+    */
+   static Query and(Query q1, Query q2) {
+      if(q1 == null) {
+         return q2;
+      } else if(q2 == null) {
+         return q1;
+      }
+      return Query.and(q1, q2);
+   }
+
 }//END OF TransitionFunction
@@ -21,9 +21,11 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Kleene star.
@@ -56,6 +58,11 @@ final class ZeroOrMoreTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.ZERO_OR_MORE;
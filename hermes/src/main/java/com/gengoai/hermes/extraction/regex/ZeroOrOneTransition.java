@@ -21,9 +21,11 @@ package com.gengoai.hermes.extraction.regex;
 
 import com.gengoai.Tag;
 import com.gengoai.collection.multimap.ListMultimap;
+import com.gengoai.hermes.AnnotatableType;
 import com.gengoai.hermes.HString;
 
 import java.io.Serializable;
+import java.util.Set;
 
 /**
  * The type Zero or one.
@@ -55,6 +57,11 @@ final class ZeroOrOneTransition implements TransitionFunction, Serializable {
       return nfa;
    }
 
+   @Override
+   public void collectTypes(Set<AnnotatableType> types) {
+      child.collectTypes(types);
+   }
+
    @Override
    public Tag getType() {
       return RegexTypes.ZERO_OR_ONE;
@@ -21,7 +21,7 @@ package com.gengoai.hermes.extraction.summarization;
 
 import com.gengoai.apollo.math.statistics.measure.Similarity;
 import com.gengoai.collection.counter.Counter;
-import com.gengoai.graph.Graph;
+import com.gengoai.graph.CSRGraph;
 import com.gengoai.graph.scoring.PageRank;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.HString;
@@ -63,8 +63,10 @@ public class TextRankSummarizer implements Summarizer {
    @Override
    public Extraction extract(@NonNull HString hString) {
       List<Annotation> sentences = hString.sentences();
-      Graph<Annotation> g = Graph.undirected();
-      g.addVertices(sentences);
+      CSRGraph.Builder<Annotation> g = CSRGraph.builder(false);
+      for (Annotation sentence : sentences) {
+         g.addVertex(sentence);
+      }
 
       for (int i = 0; i < sentences.size(); i++) {
          Annotation si = sentences.get(i);
@@ -78,7 +80,7 @@ public class TextRankSummarizer implements Summarizer {
       }
 
       PageRank<Annotation> pageRank = new PageRank<>(30, 0.85, 0.0001);
-      Counter<Annotation> scores = pageRank.score(g);
+      Counter<Annotation> scores = pageRank.score(g.build());
       int summaryLength = numberOfSentences > 0
             ? numberOfSentences
             : (int) Math.floor(sentences.size() * ratio);
@@ -92,4 +94,9 @@ public class TextRankSummarizer implements Summarizer {
       similarityMeasure.fit(corpus);
    }
 
+   @Override
+   public boolean requiresFit() {
+      return similarityMeasure.requiresFit();
+   }
+
 }//END OF TextRankSummarizer
@@ -24,7 +24,7 @@ package com.gengoai.hermes.lexicon;
 import com.gengoai.Language;
 import com.gengoai.Validation;
 import com.gengoai.cache.Cache;
-import com.gengoai.cache.LRUCache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.function.Unchecked;
 import com.gengoai.hermes.HString;
 import com.gengoai.hermes.Hermes;
@@ -130,7 +130,9 @@ public final class LexiconManager implements Serializable {
          return 0;
       }
    };
-   private static final Cache<String, Lexicon> lexiconCache = new LRUCache<>(500);
+   private static final Cache<String, Lexicon> lexiconCache = ConcurrentCache.<String, Lexicon>builder()
+                                                                                .maximumSize(500)
+                                                                                .build();
    private static final long serialVersionUID = 1L;
 
    private LexiconManager() {
@@ -3023,13 +3023,62 @@ public class StandardTokenizer {
 
   /* user code: */
 
+private static final Tokenizer.Token OFFSETS_ONLY = new Tokenizer.Token("", null, 0, 0, 0);
 private int index;
+private boolean offsetsOnly;
+private TokenType lastType;
 
 private final int yychar(){
     return yychar;
 }
 
+/**
+ * Resets the tokenizer to read from the given reader, reusing its internal buffers.
+ *
+ * @param reader the new input reader
+ */
+public final void reset(java.io.Reader reader){
+    yyreset(reader);
+    index = 0;
+    offsetsOnly = false;
+}
+
+/**
+ * Scans the next token without creating a token object or copying its text. The offsets of the scanned token are
+ * available from {@link #tokenStart()} and {@link #tokenEnd()}.
+ *
+ * @return the type of the next token or null if there are no more tokens
+ * @throws java.io.IOException Something went wrong reading the input
+ */
+public final TokenType nextType() throws java.io.IOException{
+    offsetsOnly = true;
+    try {
+        return next() == null ? null : lastType;
+    } finally {
+        offsetsOnly = false;
+    }
+}
+
+/**
+ * @return the character offset of the start of the last scanned token
+ */
+public final int tokenStart(){
+    return yychar;
+}
+
+/**
+ * @return the character offset of the end (exclusive) of the last scanned token
+ */
+public final int tokenEnd(){
+    return yychar + yylength();
+}
+
 private Tokenizer.Token attachToken(TokenType type){
+  if(offsetsOnly){
+    lastType = type;
+    index++;
+    return OFFSETS_ONLY;
+  }
   Tokenizer.Token token=new Tokenizer.Token( yytext() , type, yychar(), yychar()+yylength(), index);
   index++;
   return token;
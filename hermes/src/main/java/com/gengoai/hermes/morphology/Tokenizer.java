@@ -55,6 +55,38 @@ public interface Tokenizer {
       return tokenize(new StringReader(input));
    }
 
+   /**
+    * Tokenizes the given string passing only the type, character offsets, and properties of each token to the given
+    * handler. This is meant for consumers, such as token annotators, which do not need the token text or a {@link
+    * Token} object.
+    *
+    * @param input   the input String
+    * @param handler the handler to pass the token type, offsets, and properties to
+    */
+   default void tokenize(@NonNull String input, @NonNull TokenHandler handler) {
+      for (Token token : tokenize(input)) {
+         handler.handle(token.type, token.charStartIndex, token.charEndIndex, token.properties);
+      }
+   }
+
+   /**
+    * Receives the type, character offsets, and properties of tokens.
+    */
+   @FunctionalInterface
+   interface TokenHandler {
+
+      /**
+       * Handles a token.
+       *
+       * @param type       the type of token
+       * @param startChar  the first character offset
+       * @param endChar    the last character offset (exclusive)
+       * @param properties the properties assigned to the token by the tokenizer
+       */
+      void handle(TokenType type, int startChar, int endChar, Map<AttributeType<?>, Object> properties);
+
+   }
+
 
    /**
     * An internal token
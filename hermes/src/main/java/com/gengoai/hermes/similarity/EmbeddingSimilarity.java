@@ -61,4 +61,9 @@ public class EmbeddingSimilarity implements HStringSimilarity, Serializable {
 
    }
 
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
+
 }//END OF EmbeddingSimilarity
@@ -90,4 +90,9 @@ public class ExtractorBasedSimilarity implements HStringSimilarity {
    public void fit(@NonNull DocumentCollection corpus) {
 
    }
+
+   @Override
+   public boolean requiresFit() {
+      return false;
+   }
 }//END OF TokenSimilarity
@@ -47,4 +47,14 @@ public interface HStringSimilarity {
     */
    void fit(@NonNull DocumentCollection corpus);
 
+   /**
+    * Determines if the {@link #fit(DocumentCollection)} method needs to see the corpus in order for the similarity measure to
+    * work correctly. Similarity measures that do not collect corpus level statistics should return false.
+    *
+    * @return True if fitting is required, False otherwise
+    */
+   default boolean requiresFit() {
+      return true;
+   }
+
 }//END OF HStringSimilarity
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.workflow;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.gengoai.hermes.corpus.DocumentCollection;
+
+/**
+ * <p>An {@link Action} whose work can be expressed one document at a time. Instead of processing the entire
+ * collection, a document action creates a {@link DocumentProcessor} which is applied to every document and then
+ * finished once all documents have been seen. Actions that accumulate results (e.g. term counts) should create their
+ * accumulators when creating the processor and add the accumulated values to the context when it is finished.</p>
+ * <p>Because the per-document work is independent of the traversal, a {@link FusedWorkflow} is able to run
+ * consecutive document actions in a single pass over the collection. An action that requires a global view of the
+ * corpus as modified by the actions before it (e.g. fitting document frequencies) when creating its processor should
+ * return <code>true</code> for {@link #isBarrier()}.</p>
+ *
+ * @author David B. Bracewell
+ */
+public interface DocumentAction extends Action {
+
+   /**
+    * Creates the processor that will be applied to each document in the given corpus.
+    *
+    * @param corpus  the corpus that will be processed
+    * @param context the context
+    * @return the document processor
+    * @throws Exception Something went wrong creating the processor
+    */
+   DocumentProcessor createProcessor(DocumentCollection corpus, Context context) throws Exception;
+
+   /**
+    * Determines if the action requires a global pass over the corpus (as modified by all previous actions) when
+    * creating its processor.
+    *
+    * @return True if previous actions must be fully applied before this action's processor is created, False otherwise
+    */
+   @JsonIgnore
+   default boolean isBarrier() {
+      return false;
+   }
+
+   @Override
+   default DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
+      DocumentProcessor processor = createProcessor(corpus, context);
+      DocumentCollection processed = corpus.update(getClass().getSimpleName(), processor::process).cache();
+      //Force the update on lazy collections so that any accumulated values are available when finishing
+      processed.size();
+      return processor.finish(processed, context);
+   }
+
+}//END OF DocumentAction
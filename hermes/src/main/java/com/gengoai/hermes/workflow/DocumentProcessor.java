@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.workflow;
+
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.corpus.DocumentCollection;
+
+import java.io.Serializable;
+
+/**
+ * <p>Per-document unit of work created by a {@link DocumentAction}. Processors must be thread safe as documents may be
+ * processed in parallel and must be serializable as they may be distributed.</p>
+ *
+ * @author David B. Bracewell
+ */
+@FunctionalInterface
+public interface DocumentProcessor extends Serializable {
+
+   /**
+    * Completes the processing after all documents have been processed.
+    *
+    * @param corpus  the corpus that was processed
+    * @param context the context
+    * @return the corpus
+    * @throws Exception Something went wrong finishing the processing
+    */
+   default DocumentCollection finish(DocumentCollection corpus, Context context) throws Exception {
+      return corpus;
+   }
+
+   /**
+    * Processes a single document.
+    *
+    * @param document the document to process
+    */
+   void process(Document document);
+
+}//END OF DocumentProcessor
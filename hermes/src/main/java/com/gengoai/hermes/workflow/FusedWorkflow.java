@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.workflow;
+
+import com.fasterxml.jackson.annotation.*;
+import com.gengoai.LogUtils;
+import com.gengoai.Stopwatch;
+import com.gengoai.application.Option;
+import com.gengoai.collection.Lists;
+import com.gengoai.function.SerializableConsumer;
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.corpus.DocumentCollection;
+import com.gengoai.json.Json;
+import com.gengoai.json.JsonEntry;
+import com.gengoai.stream.MLongAccumulator;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.gengoai.LogUtils.logInfo;
+
+/**
+ * <p>A workflow that processes the same list of {@link Action}s as a {@link SequentialWorkflow}, but fuses
+ * consecutive {@link DocumentAction}s into a single pass over the document collection. Each pass applies the
+ * document processors of its actions one after another to each document and shares a single traversal (and in the
+ * case of a persistent corpus a single decode and write) of the documents.</p>
+ *
+ * <p>A pass ends, i.e. a barrier is inserted, when an action is not a {@link DocumentAction} or when a {@link
+ * DocumentAction} reports that it is a barrier, meaning it needs to see the corpus as modified by the actions before
+ * it. Note that the previous state of actions (see {@link Action#loadPreviousState(DocumentCollection, Context)}) is
+ * loaded against the collection as it was at the start of the current pass.</p>
+ *
+ * <p>Timing information is logged for each action and includes the time to create its processor, the combined
+ * time spent processing documents (summed over all threads), and the time to finish the action.</p>
+ *
+ * @author David B. Bracewell
+ */
+@ToString
+@JsonTypeName("Fused")
+@JsonAutoDetect(
+      fieldVisibility = JsonAutoDetect.Visibility.NONE,
+      setterVisibility = JsonAutoDetect.Visibility.NONE,
+      getterVisibility = JsonAutoDetect.Visibility.NONE,
+      isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+      creatorVisibility = JsonAutoDetect.Visibility.NONE
+)
+@NoArgsConstructor(force = true, access = AccessLevel.PRIVATE)
+public final class FusedWorkflow implements Workflow {
+   public static final String TYPE = "Fused";
+   private static final long serialVersionUID = 1L;
+   @Option(description = "List of actions to perform run")
+   private List<Action> actions = new ArrayList<>();
+   private Context startingContext = new Context();
+
+   /**
+    * Instantiates a new FusedWorkflow.
+    *
+    * @param actions the actions
+    */
+   public FusedWorkflow(@NonNull Iterable<Action> actions) {
+      this.actions = Lists.asArrayList(actions);
+   }
+
+   @JsonCreator
+   private FusedWorkflow(@JsonProperty JsonEntry entry) {
+      startingContext = BaseWorkflowIO.readDefaultContext(entry);
+      Map<String, JsonEntry> beans = BaseWorkflowIO.readBeans(entry);
+      Map<String, Action> singletons = new HashMap<>();
+      Iterator<JsonEntry> itr = entry.getProperty("actions").elementIterator();
+      try {
+         int idx = 0;
+         while (itr.hasNext()) {
+            JsonEntry a = itr.next();
+            if (a.isString()) {
+               String name = a.asString();
+               Action action = BaseWorkflowIO.createBean(name, beans.get(name), singletons);
+               actions.add(action);
+            } else {
+               actions.add(BaseWorkflowIO.createBean("idx-" + idx, a, singletons));
+            }
+            idx++;
+         }
+      } catch (Exception e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static String format(long nanos) {
+      return Duration.ofNanos(nanos)
+                     .toString()
+                     .substring(2)
+                     .replaceAll("(\\d[HMS])(?!$)", "$1 ")
+                     .toLowerCase();
+   }
+
+   private static String name(Action action) {
+      return action.getClass().getSimpleName();
+   }
+
+   @Override
+   public Context getStartingContext() {
+      return startingContext.copy();
+   }
+
+   @Override
+   public void setStartingContext(Context context) {
+      this.startingContext = context.copy();
+   }
+
+   @Override
+   public String getType() {
+      return TYPE;
+   }
+
+   /**
+    * Plans the passes over the corpus that will be made for the actions in this workflow. Each element of the
+    * returned list is a pass, where passes of {@link DocumentAction}s may contain multiple actions and all other
+    * actions are run in a pass of their own.
+    *
+    * @return the list of passes
+    */
+   public List<List<Action>> plan() {
+      List<List<Action>> passes = new ArrayList<>();
+      List<Action> pass = new ArrayList<>();
+      for (Action action : actions) {
+         if (!(action instanceof DocumentAction) || ((DocumentAction) action).isBarrier()) {
+            if (pass.size() > 0) {
+               passes.add(pass);
+               pass = new ArrayList<>();
+            }
+         }
+         if (action instanceof DocumentAction) {
+            pass.add(action);
+         } else {
+            passes.add(Collections.singletonList(action));
+         }
+      }
+      if (pass.size() > 0) {
+         passes.add(pass);
+      }
+      return passes;
+   }
+
+   @Override
+   public DocumentCollection process(@NonNull DocumentCollection input,
+                                     @NonNull Context context) throws Exception {
+      DocumentCollection corpus = input;
+      context.merge(startingContext);
+      Stopwatch sw = Stopwatch.createStarted();
+      for (List<Action> pass : plan()) {
+         List<Action> toCompute = new ArrayList<>();
+         for (Action action : pass) {
+            if (!action.getOverrideStatus() && action.loadPreviousState(corpus, context) == State.LOADED) {
+               logInfo(LogUtils.getLogger(getClass()), "Completed {0} [Loaded]", name(action));
+            } else {
+               toCompute.add(action);
+            }
+         }
+         if (toCompute.isEmpty()) {
+            continue;
+         }
+         if (toCompute.get(0) instanceof DocumentAction) {
+            corpus = runPass(corpus, context, toCompute);
+         } else {
+            Action action = toCompute.get(0);
+            Stopwatch actionTime = Stopwatch.createStarted();
+            logInfo(LogUtils.getLogger(getClass()), "Running {0}...", name(action));
+            corpus = action.process(corpus, context);
+            logInfo(LogUtils.getLogger(getClass()), "Completed {0} [Computed] ({1})", name(action), actionTime);
+         }
+      }
+      logInfo(LogUtils.getLogger(getClass()), "Completed Workflow in " + sw);
+      return corpus;
+   }
+
+   private DocumentCollection runPass(DocumentCollection corpus,
+                                      Context context,
+                                      List<Action> pass) throws Exception {
+      final String passName = pass.stream().map(FusedWorkflow::name).collect(Collectors.joining(", "));
+      logInfo(LogUtils.getLogger(getClass()), "Running [{0}] in a single pass...", passName);
+      final long[] prepareTimes = new long[pass.size()];
+      final List<DocumentProcessor> processors = new ArrayList<>();
+      final List<MLongAccumulator> processTimes = new ArrayList<>();
+      for (int i = 0; i < pass.size(); i++) {
+         Stopwatch prepareTime = Stopwatch.createStarted();
+         processors.add(((DocumentAction) pass.get(i)).createProcessor(corpus, context));
+         processTimes.add(corpus.getStreamingContext().longAccumulator());
+         prepareTimes[i] = prepareTime.getElapsedTime();
+      }
+
+      Stopwatch passTime = Stopwatch.createStarted();
+      DocumentCollection processed = corpus.update(passName, new FusedProcessor(processors, processTimes)).cache();
+      //Force the update on lazy collections so that any accumulated values are available when finishing
+      processed.size();
+      passTime.stop();
+
+      for (int i = 0; i < pass.size(); i++) {
+         Stopwatch finishTime = Stopwatch.createStarted();
+         processed = processors.get(i).finish(processed, context);
+         logInfo(LogUtils.getLogger(getClass()),
+                 "Completed {0} [Computed] (prepare={1}, process={2}, finish={3})",
+                 name(pass.get(i)),
+                 format(prepareTimes[i]),
+                 format(processTimes.get(i).value()),
+                 finishTime);
+      }
+      logInfo(LogUtils.getLogger(getClass()), "Completed pass [{0}] in {1}", passName, passTime);
+      return processed;
+   }
+
+   @JsonValue
+   protected JsonEntry toEntry() {
+      JsonEntry obj = BaseWorkflowIO.serialize(this);
+      JsonEntry actionArray = JsonEntry.array();
+      for (Action action : actions) {
+         JsonEntry ao = JsonEntry.object();
+         ao.mergeObject(Json.asJsonEntry(action));
+         actionArray.addValue(ao);
+      }
+      obj.addProperty("actions", actionArray);
+      return obj;
+   }
+
+   private static class FusedProcessor implements SerializableConsumer<Document> {
+      private static final long serialVersionUID = 1L;
+      private final List<DocumentProcessor> processors;
+      private final List<MLongAccumulator> processTimes;
+
+      private FusedProcessor(List<DocumentProcessor> processors, List<MLongAccumulator> processTimes) {
+         this.processors = processors;
+         this.processTimes = processTimes;
+      }
+
+      @Override
+      public void accept(Document document) {
+         for (int i = 0; i < processors.size(); i++) {
+            long start = System.nanoTime();
+            processors.get(i).process(document);
+            processTimes.get(i).add(System.nanoTime() - start);
+         }
+      }
+   }
+
+}//END OF FusedWorkflow
@@ -42,7 +42,8 @@ import java.io.Serializable;
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME)
 @JsonSubTypes({
-      @JsonSubTypes.Type(value = SequentialWorkflow.class, name = "Sequential")
+      @JsonSubTypes.Type(value = SequentialWorkflow.class, name = "Sequential"),
+      @JsonSubTypes.Type(value = FusedWorkflow.class, name = "Fused")
 })
 public interface Workflow extends Serializable {
 
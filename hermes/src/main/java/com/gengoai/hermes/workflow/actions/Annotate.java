@@ -20,11 +20,13 @@
 package com.gengoai.hermes.workflow.actions;
 
 import com.gengoai.hermes.AnnotatableType;
+import com.gengoai.hermes.AnnotationPipeline;
 import com.gengoai.hermes.Types;
 import com.gengoai.hermes.corpus.DocumentCollection;
-import com.gengoai.hermes.workflow.Action;
 import com.gengoai.hermes.workflow.ActionDescription;
 import com.gengoai.hermes.workflow.Context;
+import com.gengoai.hermes.workflow.DocumentAction;
+import com.gengoai.hermes.workflow.DocumentProcessor;
 import com.gengoai.string.Strings;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -43,7 +45,7 @@ import static com.gengoai.LogUtils.logConfig;
 @Log
 @MetaInfServices
 @NoArgsConstructor
-public class Annotate implements Action {
+public class Annotate implements DocumentAction {
    public static final String ANNOTATABLE_TYPE_CONFIG = "ANNOTATE_TYPES";
    private static final long serialVersionUID = 1L;
    private AnnotatableType[] types = Types.BASE_ANNOTATIONS;
@@ -68,20 +70,28 @@ public class Annotate implements Action {
                          .toArray(AnnotatableType[]::new);
    }
 
+   @Override
+   public DocumentProcessor createProcessor(@NonNull DocumentCollection corpus, @NonNull Context context) {
+      AnnotationPipeline pipeline = new AnnotationPipeline(resolveTypes(context));
+      return pipeline::annotate;
+   }
+
    @Override
    public DocumentCollection process(@NonNull DocumentCollection corpus, @NonNull Context context) throws Exception {
+      return corpus.annotate(resolveTypes(context));
+   }
+
+   private AnnotatableType[] resolveTypes(Context context) {
       String contextTypes = context.getString(ANNOTATABLE_TYPE_CONFIG);
+      AnnotatableType[] types = this.types;
       if (Strings.isNotNullOrBlank(contextTypes)) {
-         AnnotatableType[] types = Strings.split(contextTypes, ',')
-                                          .stream()
-                                          .map(AnnotatableType::valueOf)
-                                          .toArray(AnnotatableType[]::new);
-         logConfig(log, "Annotating corpus for {0}", Arrays.toString(types));
-         return corpus.annotate(types);
-      } else {
-         logConfig(log, "Annotating corpus for {0}", Arrays.toString(types));
-         return corpus.annotate(types);
+         types = Strings.split(contextTypes, ',')
+                        .stream()
+                        .map(AnnotatableType::valueOf)
+                        .toArray(AnnotatableType[]::new);
       }
+      logConfig(log, "Annotating corpus for {0}", Arrays.toString(types));
+      return types;
    }
 
    @Override
@@ -21,12 +21,14 @@ package com.gengoai.hermes.workflow.actions;
 
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.conversion.Cast;
+import com.gengoai.hermes.Document;
 import com.gengoai.hermes.Types;
 import com.gengoai.hermes.corpus.DocumentCollection;
 import com.gengoai.hermes.extraction.keyword.*;
-import com.gengoai.hermes.workflow.Action;
 import com.gengoai.hermes.workflow.ActionDescription;
 import com.gengoai.hermes.workflow.Context;
+import com.gengoai.hermes.workflow.DocumentAction;
+import com.gengoai.hermes.workflow.DocumentProcessor;
 import com.gengoai.stream.MCounterAccumulator;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -38,7 +40,7 @@ import java.util.List;
 
 @Data
 @NoArgsConstructor
-public class KeywordExtraction implements Action {
+public class KeywordExtraction implements DocumentAction {
    private static final long serialVersionUID = 1L;
    private int N = Integer.MAX_VALUE;
    private KeywordExtractor extractor = new TermKeywordExtractor();
@@ -49,22 +51,43 @@ public class KeywordExtraction implements Action {
    }
 
    @Override
-   public DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
+   public DocumentProcessor createProcessor(DocumentCollection corpus, Context context) {
       extractor.fit(corpus);
       final MCounterAccumulator<String> globalKeywordCounts = keepGlobalCounts
             ? corpus.getStreamingContext().counterAccumulator()
             : null;
-      corpus.update("KeywordExtraction", doc -> {
-         List<String> keywords = new ArrayList<>(extractor.extract(doc).count().topN(N).items());
-         doc.put(Types.KEYWORDS, keywords);
-         if (keepGlobalCounts) {
-            keywords.forEach(k -> globalKeywordCounts.increment(k, 1));
+      return new DocumentProcessor() {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public DocumentCollection finish(DocumentCollection corpus, Context context) {
+            if (keepGlobalCounts) {
+               context.property(Types.KEYWORDS.name(), globalKeywordCounts.value());
+            }
+            return corpus;
          }
-      });
-      if (keepGlobalCounts) {
-         context.property(Types.KEYWORDS.name(), globalKeywordCounts.value());
-      }
-      return corpus;
+
+         @Override
+         public void process(Document document) {
+            List<String> keywords = new ArrayList<>(extractor.extract(document).count().topN(N).items());
+            document.put(Types.KEYWORDS, keywords);
+            if (keepGlobalCounts) {
+               keywords.forEach(k -> globalKeywordCounts.increment(k, 1));
+            }
+         }
+      };
+   }
+
+   @Override
+   public boolean isBarrier() {
+      return extractor.requiresFit();
+   }
+
+   @Override
+   public DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
+      DocumentProcessor processor = createProcessor(corpus, context);
+      corpus.update("KeywordExtraction", processor::process);
+      return processor.finish(corpus, context);
    }
 
    public void setAlgorithm(@NonNull String name) {
@@ -27,9 +27,10 @@ import com.gengoai.hermes.extraction.Extraction;
 import com.gengoai.hermes.extraction.summarization.Summarizer;
 import com.gengoai.hermes.extraction.summarization.TextRankSummarizer;
 import com.gengoai.hermes.similarity.ExtractorBasedSimilarity;
-import com.gengoai.hermes.workflow.Action;
 import com.gengoai.hermes.workflow.ActionDescription;
 import com.gengoai.hermes.workflow.Context;
+import com.gengoai.hermes.workflow.DocumentAction;
+import com.gengoai.hermes.workflow.DocumentProcessor;
 import lombok.Data;
 import org.kohsuke.MetaInfServices;
 
@@ -37,7 +38,7 @@ import org.kohsuke.MetaInfServices;
  * @author David B. Bracewell
  */
 @Data
-public class Summarize implements Action {
+public class Summarize implements DocumentAction {
    private static final long serialVersionUID = 1L;
    private Summarizer summarizer = new TextRankSummarizer(
          new ExtractorBasedSimilarity(Similarity.Cosine)
@@ -45,12 +46,22 @@ public class Summarize implements Action {
 
 
    @Override
-   public DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
+   public DocumentProcessor createProcessor(DocumentCollection corpus, Context context) {
       summarizer.fit(corpus);
-      return corpus.update("KeywordExtraction", doc -> {
+      return doc -> {
          Extraction summary = summarizer.extract(doc);
          doc.put(Types.SUMMARY, Lists.asArrayList(summary.string()));
-      });
+      };
+   }
+
+   @Override
+   public boolean isBarrier() {
+      return summarizer.requiresFit();
+   }
+
+   @Override
+   public DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
+      return corpus.update("KeywordExtraction", createProcessor(corpus, context)::process);
    }
 
    @MetaInfServices
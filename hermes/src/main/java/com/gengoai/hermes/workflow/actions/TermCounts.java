@@ -21,12 +21,15 @@ package com.gengoai.hermes.workflow.actions;
 
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.conversion.Cast;
+import com.gengoai.hermes.Document;
 import com.gengoai.hermes.corpus.DocumentCollection;
 import com.gengoai.hermes.extraction.Extractor;
 import com.gengoai.hermes.extraction.TermExtractor;
-import com.gengoai.hermes.workflow.Action;
 import com.gengoai.hermes.workflow.ActionDescription;
 import com.gengoai.hermes.workflow.Context;
+import com.gengoai.hermes.workflow.DocumentAction;
+import com.gengoai.hermes.workflow.DocumentProcessor;
+import com.gengoai.stream.MCounterAccumulator;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -37,7 +40,7 @@ import org.kohsuke.MetaInfServices;
  *
  * @author David B. Bracewell
  */
-public class TermCounts implements Action {
+public class TermCounts implements DocumentAction {
    /**
     * The constant EXTRACTED_TERMS.
     */
@@ -66,6 +69,31 @@ public class TermCounts implements Action {
       return corpus;
    }
 
+   @Override
+   public DocumentProcessor createProcessor(@NonNull DocumentCollection corpus, @NonNull Context context) {
+      final MCounterAccumulator<String> counts = corpus.getStreamingContext().counterAccumulator();
+      return new DocumentProcessor() {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public DocumentCollection finish(DocumentCollection corpus, Context context) {
+            context.property(EXTRACTED_TERMS, counts.value());
+            return onComplete(corpus, context, counts.value());
+         }
+
+         @Override
+         public void process(Document document) {
+            if (documentFrequencies) {
+               extractor.extract(document)
+                        .count()
+                        .forEach((term, count) -> counts.increment(term, 1.0));
+            } else {
+               counts.merge(extractor.extract(document).count());
+            }
+         }
+      };
+   }
+
    @Override
    public DocumentCollection process(DocumentCollection corpus, Context context) throws Exception {
       Counter<String> counts;
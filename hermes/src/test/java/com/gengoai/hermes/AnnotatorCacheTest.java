@@ -28,8 +28,14 @@ import com.gengoai.hermes.annotator.DefaultTokenAnnotator;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -65,6 +71,34 @@ public class AnnotatorCacheTest {
     assertNotEquals(DummyTokenAnnotator.class, AnnotatorCache.getInstance().get(Types.TOKEN, Language.CHINESE).getClass());
   }
 
+  @Test
+  public void testConcurrentGet() throws Exception {
+    AnnotatorCache.getInstance().clear();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Annotator>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(executor.submit(() -> AnnotatorCache.getInstance().get(Types.TOKEN, Language.ENGLISH)));
+    }
+    Annotator first = futures.get(0).get();
+    for (Future<Annotator> future : futures) {
+      assertSame(first, future.get());
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    Config.setProperty(AnnotatorCache.WARM_UP_ITERATIONS, "5");
+    AnnotatorCache.getInstance().clear();
+    AnnotatorCache.getInstance().warmUp(Language.ENGLISH, Types.TOKEN, Types.SENTENCE).get(1, TimeUnit.MINUTES);
+    assertTrue(AnnotatorCache.getInstance().isReady());
+    assertTrue(AnnotatorCache.getInstance().isReady(Types.TOKEN, Language.ENGLISH));
+    assertTrue(AnnotatorCache.getInstance().isReady(Types.SENTENCE, Language.ENGLISH));
+    AnnotatorCache.getInstance().clear();
+    assertFalse(AnnotatorCache.getInstance().isReady(Types.TOKEN, Language.ENGLISH));
+    assertFalse(AnnotatorCache.getInstance().isReady(Types.SENTENCE, Language.ENGLISH));
+  }
+
   private static class DummyTokenAnnotator extends Annotator {
 
     @Override
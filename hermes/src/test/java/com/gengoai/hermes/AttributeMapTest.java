@@ -0,0 +1,101 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.morphology.PennTreeBank;
+import com.gengoai.io.resource.ByteArrayResource;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.json.Json;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.gengoai.hermes.Types.*;
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class AttributeMapTest {
+
+   @Before
+   public void setUp() throws Exception {
+      Config.initializeTest();
+   }
+
+   @Test
+   public void putGetRemove() {
+      AttributeMap map = new AttributeMap();
+      assertTrue(map.isEmpty());
+      assertNull(map.get(LEMMA));
+      map.put(LEMMA, "walk");
+      map.put(PART_OF_SPEECH, PennTreeBank.VBG);
+      map.put(CATEGORY_TAG, BasicCategories.ABSTRACT_ENTITY);
+      map.put(CONFIDENCE, 0.5);
+      map.put(STEM, "walk");
+      assertEquals(5, map.size());
+      assertEquals("walk", map.get(LEMMA));
+      assertEquals(PennTreeBank.VBG, map.get(PART_OF_SPEECH));
+      assertEquals("walk", map.put(LEMMA, "run"));
+      assertEquals("run", map.get(LEMMA));
+      assertEquals(5, map.size());
+
+      assertEquals(0.5, map.remove(CONFIDENCE));
+      assertFalse(map.containsKey(CONFIDENCE));
+      assertEquals(4, map.size());
+      assertEquals("default", map.getOrDefault(TITLE, "default"));
+
+      //Insertion order is kept
+      assertEquals(Arrays.asList(LEMMA, PART_OF_SPEECH, CATEGORY_TAG, STEM), Arrays.asList(map.keySet().toArray()));
+
+      Iterator<Map.Entry<AttributeType<?>, Object>> itr = map.entrySet().iterator();
+      itr.next();
+      itr.remove();
+      assertFalse(map.containsKey(LEMMA));
+      assertEquals(3, map.size());
+
+      map.put(LEMMA, null);
+      assertEquals(3, map.size());
+      map.clear();
+      assertTrue(map.isEmpty());
+   }
+
+   @Test
+   public void serialization() throws Exception {
+      AttributeMap map = new AttributeMap();
+      map.put(LEMMA, "walk");
+      map.put(PART_OF_SPEECH, PennTreeBank.VBG);
+
+      AttributeMap fromJson = Json.parse(Json.dumps(map), AttributeMap.class);
+      assertEquals(map, fromJson);
+
+      Resource resource = new ByteArrayResource();
+      resource.writeObject(map);
+      AttributeMap deserialized = resource.readObject();
+      assertEquals(map, deserialized);
+   }
+
+}//END OF AttributeMapTest
@@ -0,0 +1,126 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes;
+
+import com.gengoai.collection.tree.Span;
+import com.gengoai.config.Config;
+import com.gengoai.hermes.morphology.PartOfSpeech;
+
+/**
+ * <p>Measures the retained heap of a {@link Document} annotated with tokens (part-of-speech, lemma and a dependency
+ * relation to the previous token), phrase chunks and sentences, along with the time to build it and to walk its
+ * tokens.</p>
+ * <p>Usage: <code>DocumentMemoryBenchmark [tokens]</code> where tokens defaults to 100,000.</p>
+ *
+ * @author David B. Bracewell
+ */
+public class DocumentMemoryBenchmark {
+   private static final String[] WORDS = {"the", "senate", "passed", "a", "spending", "bill", "on", "tuesday"};
+   private static final PartOfSpeech[] TAGS = {PartOfSpeech.DETERMINER, PartOfSpeech.NOUN, PartOfSpeech.VERB,
+         PartOfSpeech.DETERMINER, PartOfSpeech.NOUN, PartOfSpeech.NOUN, PartOfSpeech.ADPOSITION, PartOfSpeech.NOUN};
+
+   private static Document build(int tokens) {
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < tokens; i++) {
+         text.append(WORDS[i % WORDS.length]).append(' ');
+      }
+      Document document = Document.create(text.toString());
+      int start = 0;
+      int chunkStart = 0;
+      int sentenceStart = 0;
+      Annotation previous = null;
+      for (int i = 0; i < tokens; i++) {
+         String word = WORDS[i % WORDS.length];
+         Document.AnnotationBuilder builder = document.annotationBuilder(Types.TOKEN)
+                                                     .bounds(Span.of(start, start + word.length()))
+                                                     .attribute(Types.PART_OF_SPEECH, TAGS[i % TAGS.length])
+                                                     .attribute(Types.LEMMA, word);
+         if (previous != null) {
+            builder.relation(new Relation(Types.DEPENDENCY, "dep", previous.getId()));
+         }
+         previous = builder.createAttached();
+         int end = start + word.length();
+         if (i % 3 == 2) {
+            document.annotationBuilder(Types.PHRASE_CHUNK)
+                    .bounds(Span.of(chunkStart, end))
+                    .attribute(Types.PART_OF_SPEECH, PartOfSpeech.NOUN)
+                    .createAttached();
+            chunkStart = end + 1;
+         }
+         if (i % 20 == 19) {
+            document.annotationBuilder(Types.SENTENCE).bounds(Span.of(sentenceStart, end)).createAttached();
+            sentenceStart = end + 1;
+         }
+         start = end + 1;
+      }
+      document.setCompleted(Types.TOKEN, "benchmark");
+      document.setCompleted(Types.PART_OF_SPEECH, "benchmark");
+      document.setCompleted(Types.LEMMA, "benchmark");
+      document.setCompleted(Types.DEPENDENCY, "benchmark");
+      document.setCompleted(Types.PHRASE_CHUNK, "benchmark");
+      document.setCompleted(Types.SENTENCE, "benchmark");
+      return document;
+   }
+
+   private static long usedMemory() throws InterruptedException {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 5; i++) {
+         System.gc();
+         Thread.sleep(50);
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   public static void main(String[] args) throws Exception {
+      Config.initialize("DocumentMemoryBenchmark", new String[0], "com.gengoai.hermes");
+      final int tokens = args.length > 0
+            ? Integer.parseInt(args[0])
+            : 100_000;
+
+      //Warm up
+      build(tokens / 10);
+
+      long before = usedMemory();
+      long start = System.nanoTime();
+      Document document = build(tokens);
+      long buildTime = System.nanoTime() - start;
+      long retained = usedMemory() - before;
+      long textBytes = document.length() * 2L;
+      int annotations = document.annotations().size();
+
+      start = System.nanoTime();
+      long walked = 0;
+      for (Annotation sentence : document.sentences()) {
+         for (Annotation token : sentence.tokens()) {
+            walked += token.pos().isNoun() ? token.dependency().v2.length() : 1;
+         }
+      }
+      long walkTime = System.nanoTime() - start;
+
+      System.out.printf("Tokens: %,d, Annotations: %,d%n", tokens, annotations);
+      System.out.printf("Retained heap: %,.1f MB (%,d bytes/annotation excluding text)%n",
+                        retained / 1e6, (retained - textBytes) / annotations);
+      System.out.printf("Build: %,.0f ms, Sentence/token walk: %,.0f ms (%d)%n",
+                        buildTime / 1e6, walkTime / 1e6, walked);
+   }
+
+}//END OF DocumentMemoryBenchmark
@@ -0,0 +1,118 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes;
+
+import com.gengoai.config.Config;
+import com.gengoai.conversion.Cast;
+import com.gengoai.hermes.morphology.PartOfSpeech;
+import com.gengoai.stream.spark.SparkKryoRegistrator;
+import org.apache.spark.SparkConf;
+import org.apache.spark.serializer.KryoSerializer;
+import org.apache.spark.serializer.SerializerInstance;
+import org.junit.Before;
+import org.junit.Test;
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class HermesKryoRegistrationTest {
+   private static final ClassTag<Object> OBJECT = ClassTag$.MODULE$.apply(Object.class);
+   private SerializerInstance serializer;
+
+   @Before
+   public void setUp() throws Exception {
+      Config.initializeTest();
+      serializer = new KryoSerializer(new SparkConf().set("spark.kryo.registrator",
+                                                           SparkKryoRegistrator.class.getName())).newInstance();
+   }
+
+   private <T> T roundTrip(T object) {
+      return Cast.as(serializer.deserialize(serializer.serialize(object, OBJECT), OBJECT));
+   }
+
+   @Test
+   public void document() throws Exception {
+      Document document = DocumentFactory.getInstance().create("1", "John bought a car. It was red.");
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      document.tokenAt(1).put(Types.PART_OF_SPEECH, PartOfSpeech.VERB);
+      document.put(Types.TITLE, "Cars");
+      Document copy = roundTrip(document);
+      assertEquals(document.toJson(), copy.toJson());
+      assertSame(PartOfSpeech.VERB, copy.tokenAt(1).pos());
+      assertTrue(copy.isCompleted(Types.SENTENCE));
+   }
+
+   @Test
+   public void annotations() throws Exception {
+      Document document = DocumentFactory.getInstance().create("1", "John bought a car. It was red.");
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      List<Annotation> sentences = roundTrip(new ArrayList<>(document.sentences()));
+      assertEquals(2, sentences.size());
+      assertEquals("John bought a car.", sentences.get(0).toString());
+      assertEquals("It was red.", sentences.get(1).toString());
+      assertSame(sentences.get(0).document(), sentences.get(1).document());
+   }
+
+   @Test
+   public void detachedAnnotation() throws Exception {
+      Document document = DocumentFactory.getInstance().create("1", "John bought a car. It was red.");
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      Annotation detached = document.annotationBuilder(Types.ENTITY)
+                                    .bounds(document.tokenAt(0))
+                                    .attribute(Types.CONFIDENCE, 0.75)
+                                    .createDetached();
+      Annotation copy = roundTrip(detached);
+      assertNotNull(copy);
+      assertEquals("John", copy.toString());
+      assertEquals(Types.ENTITY, copy.getType());
+      assertEquals(0.75, copy.attribute(Types.CONFIDENCE), 0);
+      assertTrue(copy.document().annotations(Types.ENTITY).isEmpty());
+   }
+
+   @Test
+   public void orphanedAnnotation() throws Exception {
+      Annotation orphan = Fragments.orphanedAnnotation(Types.ENTITY);
+      orphan.put(Types.CONFIDENCE, 0.5);
+      Annotation copy = roundTrip(orphan);
+      assertNull(copy.document());
+      assertEquals(Types.ENTITY, copy.getType());
+      assertEquals(0.5, copy.attribute(Types.CONFIDENCE), 0);
+   }
+
+   @Test
+   public void attributeMap() throws Exception {
+      AttributeMap map = new AttributeMap();
+      map.put(Types.TITLE, "Cars");
+      map.put(Types.PART_OF_SPEECH, PartOfSpeech.NOUN);
+      AttributeMap copy = roundTrip(map);
+      assertEquals("Cars", copy.get(Types.TITLE));
+      assertSame(PartOfSpeech.NOUN, copy.get(Types.PART_OF_SPEECH));
+   }
+
+}//END OF HermesKryoRegistrationTest
@@ -0,0 +1,160 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes;
+
+import com.gengoai.config.Config;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.stream.spark.SparkKryoRegistrator;
+import org.apache.spark.SparkConf;
+import org.apache.spark.serializer.JavaSerializer;
+import org.apache.spark.serializer.KryoSerializer;
+import org.apache.spark.serializer.Serializer;
+import org.apache.spark.serializer.SerializerInstance;
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * <p>Compares the size and speed of the serializers Spark uses when shuffling and caching documents: Java
+ * serialization (Spark's default) and Kryo with the classes registered by the {@link SparkKryoRegistrator}. The
+ * serializers are called directly, in a single JVM, rather than through a Spark job.</p>
+ * <p>Usage: <code>SparkSerializationBenchmark [documents] [iterations] [corpus]</code> where corpus is a file or
+ * directory of plain text news articles (one article per file) from which the first <code>documents</code> (default
+ * 2,000) articles are used. When no corpus is given, documents are built from a fixed seeded shuffle of built-in news
+ * sentences, so that repeated runs use the same documents. Every document is tokenized and sentence split.</p>
+ *
+ * @author David B. Bracewell
+ */
+public class SparkSerializationBenchmark {
+   private static final ClassTag<Object> OBJECT = ClassTag$.MODULE$.apply(Object.class);
+   private static final String[] SENTENCES = {
+         "WASHINGTON (Reuters) - The U.S. Senate on Tuesday passed a $1.2 trillion spending bill, sending the " +
+               "measure to President Biden's desk hours before a midnight deadline.",
+         "Sen. Chuck Schumer said the vote (71-29) showed \"bipartisanship is alive and well\" -- though critics, " +
+               "including Mr. Lee of Utah, called it a missed opportunity.",
+         "Shares of Acme Corp. rose 3.5% to $42.17 in early trading.",
+         "LONDON (AP) - Britain's central bank held interest rates at 5.25% on Thursday, citing signs that " +
+               "inflation was easing faster than expected.",
+         "The decision was backed by six of the nine members of the Monetary Policy Committee.",
+         "TOKYO - Toyota Motor Corp. said it would invest 1.4 trillion yen in battery production in Japan and the " +
+               "United States over the next five years.",
+         "Analysts at Nomura said the plan could lift annual output to 200 GWh by 2030.",
+         "Officials in Nairobi said heavy rains had displaced more than 40,000 people across eastern Kenya since " +
+               "late October.",
+         "The Red Cross has set up temporary shelters in schools and churches, according to a statement issued " +
+               "on Sunday.",
+         "In a separate development, the World Health Organization warned of a rising risk of cholera in the " +
+               "flooded areas."
+   };
+
+   private static List<String> loadCorpus(int numberOfDocuments, String corpus) throws Exception {
+      List<String> texts = new ArrayList<>();
+      if (corpus != null) {
+         Resource resource = Resources.from(corpus);
+         if (resource.isDirectory()) {
+            for (Resource child : resource.getChildren(true)) {
+               if (texts.size() >= numberOfDocuments) {
+                  break;
+               }
+               if (!child.isDirectory()) {
+                  texts.add(child.readToString());
+               }
+            }
+         } else {
+            texts.add(resource.readToString());
+         }
+         return texts;
+      }
+      Random random = new Random(1234);
+      for (int i = 0; i < numberOfDocuments; i++) {
+         List<String> sentences = new ArrayList<>(Arrays.asList(SENTENCES));
+         Collections.shuffle(sentences, random);
+         texts.add(String.join(" ", sentences.subList(0, 3 + random.nextInt(SENTENCES.length - 2))));
+      }
+      return texts;
+   }
+
+   public static void main(String[] args) throws Exception {
+      Config.initialize("SparkSerializationBenchmark", new String[0], "com.gengoai.hermes");
+      final int numberOfDocuments = args.length > 0
+            ? Integer.parseInt(args[0])
+            : 2_000;
+      final int iterations = args.length > 1
+            ? Integer.parseInt(args[1])
+            : 5;
+      List<String> texts = loadCorpus(numberOfDocuments, args.length > 2
+                                                         ? args[2]
+                                                         : null);
+      List<Document> documents = new ArrayList<>();
+      for (int i = 0; i < texts.size(); i++) {
+         Document document = DocumentFactory.getInstance().create(Integer.toString(i), texts.get(i));
+         document.annotate(Types.TOKEN, Types.SENTENCE);
+         document.put(Types.TITLE, "Document " + i);
+         documents.add(document);
+      }
+      System.out.printf("Documents: %,d, Tokens: %,d, Iterations: %d%n",
+                        documents.size(),
+                        documents.stream().mapToLong(Document::tokenLength).sum(),
+                        iterations);
+      SparkConf conf = new SparkConf().set("spark.kryo.registrator", SparkKryoRegistrator.class.getName());
+      run("Java", new JavaSerializer(conf), documents, iterations);
+      run("Kryo", new KryoSerializer(conf), documents, iterations);
+   }
+
+   private static void run(String name, Serializer serializer, List<Document> documents, int iterations) {
+      SerializerInstance instance = serializer.newInstance();
+      List<ByteBuffer> buffers = new ArrayList<>();
+      //Warm up
+      for (Document document : documents) {
+         instance.deserialize(instance.serialize(document, OBJECT), OBJECT);
+      }
+      long bytes = 0;
+      long serializeTime = 0;
+      long deserializeTime = 0;
+      for (int i = 0; i < iterations; i++) {
+         buffers.clear();
+         long start = System.nanoTime();
+         for (Document document : documents) {
+            buffers.add(instance.serialize(document, OBJECT));
+         }
+         serializeTime += System.nanoTime() - start;
+         start = System.nanoTime();
+         for (ByteBuffer buffer : buffers) {
+            instance.deserialize(buffer.duplicate(), OBJECT);
+         }
+         deserializeTime += System.nanoTime() - start;
+      }
+      for (ByteBuffer buffer : buffers) {
+         bytes += buffer.remaining();
+      }
+      double total = (double) documents.size() * iterations;
+      System.out.printf("%s: %,d bytes/document, serialize %,.1f us/document, deserialize %,.1f us/document%n",
+                        name,
+                        bytes / documents.size(),
+                        serializeTime / total / 1_000,
+                        deserializeTime / total / 1_000);
+   }
+
+}//END OF SparkSerializationBenchmark
@@ -25,6 +25,7 @@ import com.gengoai.Language;
 import com.gengoai.config.Config;
 import com.gengoai.hermes.Annotation;
 import com.gengoai.hermes.Document;
+import com.gengoai.hermes.DocumentFactory;
 import com.gengoai.hermes.Types;
 import com.gengoai.hermes.lexicon.Lexicon;
 import com.gengoai.hermes.lexicon.LexiconEntry;
@@ -78,4 +79,25 @@ public class FuzzyLexiconAnnotatorTest {
 
    }
 
+   @Test
+   public void testMixedWordsAndLemmas() {
+      Config.initializeTest();
+      Document document = DocumentFactory.getInstance().create("He kicked the old buckets yesterday.");
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      for(Annotation token : document.tokens()) {
+         token.put(Types.LEMMA, token.toLowerCase());
+      }
+      document.tokenAt(1).put(Types.LEMMA, "kick");
+      document.tokenAt(4).put(Types.LEMMA, "bucket");
+
+      //Neither all words nor all lemmas are within a distance of one of the phrase
+      Lexicon lexicon = new TrieLexicon("TEST", false);
+      lexicon.add(LexiconEntry.of("kicked the bucket", "IDIOM", 3));
+      new FuzzyLexiconAnnotator(Types.LEXICON_MATCH, Types.TAG, lexicon, Language.ENGLISH, 1).annotateImpl(document);
+      List<Annotation> annotationList = document.annotations(Types.LEXICON_MATCH);
+      assertEquals(1, annotationList.size());
+      assertEquals("kicked the old buckets", annotationList.get(0).toString());
+      assertEquals("IDIOM", annotationList.get(0).getTag().name());
+   }
+
 }
\ No newline at end of file
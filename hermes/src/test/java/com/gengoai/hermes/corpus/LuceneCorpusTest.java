@@ -0,0 +1,264 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.corpus;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.Annotation;
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.DocumentFactory;
+import com.gengoai.hermes.Entities;
+import com.gengoai.hermes.Types;
+import com.gengoai.hermes.extraction.NGramExtractor;
+import com.gengoai.hermes.extraction.TermExtractor;
+import com.gengoai.hermes.extraction.lyre.LyreDSL;
+import com.gengoai.hermes.extraction.regex.TokenRegex;
+import com.gengoai.hermes.morphology.PartOfSpeech;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.tuple.Tuples;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class LuceneCorpusTest {
+   private Resource location;
+   private Corpus corpus;
+
+   private static Document create(String id, String content, PartOfSpeech... pos) {
+      Document document = DocumentFactory.getInstance().create(id, content);
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      for(int i = 0; i < pos.length; i++) {
+         document.tokenAt(i).put(Types.PART_OF_SPEECH, pos[i]);
+      }
+      document.setCompleted(Types.PART_OF_SPEECH, "TEST");
+      return document;
+   }
+
+   private static Set<String> ids(DocumentCollection collection) {
+      return collection.stream().map(Document::getId).collect().stream().collect(Collectors.toSet());
+   }
+
+   @Before
+   public void setUp() throws Exception {
+      Config.initializeTest();
+      location = Resources.temporaryDirectory();
+      corpus = Corpus.open(location);
+      corpus.add(create("1", "John bought a car.",
+                        PartOfSpeech.NOUN, PartOfSpeech.VERB, PartOfSpeech.DETERMINER, PartOfSpeech.NOUN));
+      corpus.add(create("2", "Mary bought bread.",
+                        PartOfSpeech.NOUN, PartOfSpeech.VERB, PartOfSpeech.NOUN));
+      corpus.add(create("3", "The car was red.",
+                        PartOfSpeech.DETERMINER, PartOfSpeech.NOUN, PartOfSpeech.VERB, PartOfSpeech.ADJECTIVE));
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      corpus.close();
+      location.delete(true);
+      //Tests change the search page size and n-gram order, which must not leak into other tests
+      Config.initializeTest();
+   }
+
+   @Test
+   public void annotationQuery() throws Exception {
+      assertEquals(Set.of("1", "2"), ids(corpus.query("@word='bought'")));
+      assertEquals(Set.of("2"), ids(corpus.query("[@word='bought' @pos='NOUN']")));
+      assertEquals(Set.of("1", "3"), ids(corpus.query("[@pos='DETERMINER' @word='car']")));
+      assertEquals(Set.of("3"), ids(corpus.query("@pos='ADJECTIVE' AND 'red'")));
+
+      //The same queries evaluated without the index
+      Query query = QueryParser.parse("[@word='bought' @pos='NOUN']");
+      assertTrue(query.matches(corpus.getDocument("2")));
+      assertFalse(query.matches(corpus.getDocument("1")));
+   }
+
+   @Test
+   public void entityQuery() throws Exception {
+      Document document = create("4", "Mary left on Monday.",
+                                 PartOfSpeech.NOUN, PartOfSpeech.VERB, PartOfSpeech.ADPOSITION, PartOfSpeech.NOUN);
+      Annotation monday = document.tokenAt(3);
+      document.createAnnotation(Types.ENTITY, monday.start(), monday.end(), Map.of(Types.ENTITY_TYPE, Entities.DATE));
+      document.setCompleted(Types.ENTITY, "TEST");
+      corpus.add(document);
+
+      //Child entity types are found by their label as well as their full name and parents
+      assertEquals(Set.of("4"), ids(corpus.query("@entity='DATE'")));
+      assertEquals(Set.of("4"), ids(corpus.query("@entity='date'")));
+      assertEquals(Set.of("4"), ids(corpus.query("@entity='DATE_TIME$DATE'")));
+      assertEquals(Set.of("4"), ids(corpus.query("@entity='DATE_TIME'")));
+      assertEquals(Set.of("4"), ids(corpus.query("[@word='on' @entity='DATE']")));
+      assertTrue(corpus.query("@entity='TIME'").isEmpty());
+
+      Query query = QueryParser.parse("[@word='on' @entity='DATE']");
+      assertTrue(query.matches(corpus.getDocument("4")));
+      assertFalse(query.matches(corpus.getDocument("1")));
+   }
+
+   @Test
+   public void searchResults() throws Exception {
+      Config.setProperty(LuceneCorpus.SEARCH_PAGE_SIZE_CONFIG, "1");
+      SearchResults results = corpus.query("'car' OR 'bread'");
+      assertEquals(3, results.size());
+      assertFalse(results.isEmpty());
+      assertEquals(Set.of("1", "2", "3"), ids(results));
+      assertEquals(Set.of("1", "2", "3"),
+                   results.hits().map(SearchHit::getId).collect().stream().collect(Collectors.toSet()));
+      assertTrue(results.hits().filter(h -> h.getScore() <= 0).isEmpty());
+      assertEquals(List.of("1", "2", "3"), results.inIndexOrder().hits().map(SearchHit::getId).collect());
+
+      SearchResults refined = results.query(Query.annotation(AnnotationField.WORD, "bought"));
+      assertEquals(2, refined.size());
+      assertEquals(Set.of("1", "2"), ids(refined.inIndexOrder()));
+      assertTrue(corpus.query("'airplane'").isEmpty());
+   }
+
+   @Test
+   public void statistics() throws Exception {
+      Config.setProperty(LuceneCorpus.NGRAM_ORDER_CONFIG, "2");
+      corpus.update(corpus.getDocument("1"));
+      corpus.update(corpus.getDocument("2"));
+      corpus.update(corpus.getDocument("3"));
+      corpus.remove("3");
+      DocumentCollection memory = DocumentCollection.create(corpus.getDocument("1"), corpus.getDocument("2"));
+
+      TermExtractor lower = TermExtractor.builder().toLowerCase().build();
+      assertEquals(memory.termCount(lower), corpus.termCount(lower));
+      assertEquals(memory.documentCount(lower), corpus.documentCount(lower));
+      assertEquals(1.0, corpus.documentCount(lower).get("car"), 0);
+      assertEquals(memory.documentCount(LyreDSL.lower(LyreDSL.annotation(Types.TOKEN))),
+                   corpus.documentCount(LyreDSL.lower(LyreDSL.annotation(Types.TOKEN))));
+
+      NGramExtractor nGrams = NGramExtractor.builder(1, 2).toLowerCase().build();
+      assertEquals(memory.nGramCount(nGrams), corpus.nGramCount(nGrams));
+      assertEquals(1.0, corpus.nGramCount(nGrams).get(Tuples.$("john", "bought")), 0);
+
+      try(IndexReader reader = ((LuceneCorpus) corpus).getIndexReader()) {
+         IndexStatistics statistics = new IndexStatistics(reader);
+         assertTrue(statistics.termCount(lower).isPresent());
+         assertTrue(statistics.nGramCount(nGrams).isPresent());
+         assertFalse(statistics.nGramCount(NGramExtractor.trigrams().toLowerCase().build()).isPresent());
+         assertFalse(statistics.termCount(TermExtractor.builder().build()).isPresent());
+      }
+
+      //Not answerable from the index
+      NGramExtractor trigrams = NGramExtractor.trigrams().toLowerCase().build();
+      assertEquals(memory.nGramCount(trigrams), corpus.nGramCount(trigrams));
+      TermExtractor filtered = TermExtractor.builder().toLowerCase().ignoreStopwords().build();
+      assertEquals(memory.termCount(filtered), corpus.termCount(filtered));
+   }
+
+   /**
+    * Writes the documents of the corpus as an index from before the token-aligned fields existed, i.e. tokens are
+    * completed, but there is no @tokens field.
+    */
+   private Resource writeLegacyIndex() throws Exception {
+      Resource legacyLocation = Resources.temporaryDirectory();
+      try(IndexWriter writer = new IndexWriter(FSDirectory.open(legacyLocation.asFile().orElseThrow().toPath()),
+                                               new IndexWriterConfig(new StandardAnalyzer()))) {
+         for(String id : List.of("1", "2", "3")) {
+            Document document = corpus.getDocument(id);
+            org.apache.lucene.document.Document iDoc = new org.apache.lucene.document.Document();
+            iDoc.add(new StringField(LuceneCorpus.ID_FIELD, id, Field.Store.YES));
+            iDoc.add(new StoredField(LuceneCorpus.JSON_FIELD, document.toJson().getBytes(StandardCharsets.UTF_8)));
+            iDoc.add(new TextField(LuceneCorpus.CONTENT_FIELD, document.toString(), Field.Store.NO));
+            document.completed().forEach(type -> iDoc.add(new TextField(LuceneCorpus.ANNOTATIONS_FIELD,
+                                                                        type.canonicalName(),
+                                                                        Field.Store.NO)));
+            writer.addDocument(iDoc);
+         }
+      }
+      return legacyLocation;
+   }
+
+   @Test
+   public void legacyIndexStatistics() throws Exception {
+      Resource legacyLocation = writeLegacyIndex();
+      TermExtractor lower = TermExtractor.builder().toLowerCase().build();
+      try(Corpus legacy = Corpus.open(legacyLocation)) {
+         try(IndexReader reader = ((LuceneCorpus) legacy).getIndexReader()) {
+            assertFalse(new IndexStatistics(reader).termCount(lower).isPresent());
+         }
+         assertEquals(corpus.termCount(lower), legacy.termCount(lower));
+         assertEquals(corpus.documentCount(lower), legacy.documentCount(lower));
+         assertEquals(2.0, legacy.documentCount(lower).get("bought"), 0);
+
+         //A segment with the token field does not make the legacy documents in other segments indexed
+         legacy.update(legacy.getDocument("3"));
+         try(IndexReader reader = ((LuceneCorpus) legacy).getIndexReader()) {
+            assertFalse(new IndexStatistics(reader).termCount(lower).isPresent());
+         }
+         assertEquals(corpus.termCount(lower), legacy.termCount(lower));
+      } finally {
+         legacyLocation.delete(true);
+      }
+   }
+
+   @Test
+   public void legacyIndexPrefilter() throws Exception {
+      Resource legacyLocation = writeLegacyIndex();
+      try(Corpus legacy = Corpus.open(legacyLocation)) {
+         TokenRegex regex = TokenRegex.compile("'bought' #NOUN");
+         assertEquals(Set.of("1", "2", "3"), ids(legacy.query(regex.prefilter().orElseThrow())));
+         legacy.apply(regex, m -> m.group().document().put(Types.TITLE, "MATCHED"));
+         assertEquals("MATCHED", legacy.getDocument("2").attribute(Types.TITLE));
+         assertNull(legacy.getDocument("1").attribute(Types.TITLE));
+
+         //Documents rewritten by the update are re-indexed with the token fields and can be ruled out again
+         assertEquals(Set.of("1", "3"), ids(legacy.query(Query.not(Query.indexed(AnnotationField.WORD)))));
+         legacy.update(legacy.getDocument("3"));
+         assertEquals(Set.of("1", "2"), ids(legacy.query(regex.prefilter().orElseThrow())));
+      } finally {
+         legacyLocation.delete(true);
+      }
+   }
+
+   @Test
+   public void tokenRegexPrefilter() throws Exception {
+      TokenRegex regex = TokenRegex.compile("'bought' #NOUN");
+      assertTrue(regex.prefilter().isPresent());
+      assertEquals(Set.of("1", "2"), ids(corpus.query(regex.prefilter().get())));
+      assertFalse(TokenRegex.compile("'bought'?").prefilter().isPresent());
+
+      corpus.apply(regex, m -> m.group().document().put(Types.TITLE, "MATCHED"));
+      assertEquals("MATCHED", corpus.getDocument("2").attribute(Types.TITLE));
+      assertNull(corpus.getDocument("1").attribute(Types.TITLE));
+      assertNull(corpus.getDocument("3").attribute(Types.TITLE));
+   }
+
+}//END OF LuceneCorpusTest
@@ -0,0 +1,111 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.en;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.morphology.Tokenizer;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Measures the throughput (tokens per second) of the {@link ENTokenizer} using both the {@link Tokenizer.Token}
+ * iterator and the offsets only token stream used by the token annotator.</p>
+ * <p>Usage: <code>ENTokenizerBenchmark [corpus] [iterations]</code> where corpus is a file or directory of plain
+ * text news articles (one article per file). When no corpus is given a short built-in news passage is used.</p>
+ *
+ * @author David B. Bracewell
+ */
+public class ENTokenizerBenchmark {
+   private static final String SAMPLE =
+         "WASHINGTON (Reuters) - The U.S. Senate on Tuesday passed a $1.2 trillion spending bill, sending the " +
+               "measure to President Biden's desk hours before a midnight deadline. Sen. Chuck Schumer said the " +
+               "vote (71-29) showed \"bipartisanship is alive and well\" -- though critics, including Mr. Lee of " +
+               "Utah, called it a missed opportunity. Details are available at https://www.senate.gov/votes. " +
+               "Shares of Acme Corp. rose 3.5% to $42.17 in early trading on the N.Y.S.E. :-)";
+
+   private static List<String> loadCorpus(String[] args) throws Exception {
+      List<String> documents = new ArrayList<>();
+      if (args.length > 0) {
+         Resource corpus = Resources.from(args[0]);
+         if (corpus.isDirectory()) {
+            for (Resource child : corpus.getChildren(true)) {
+               if (!child.isDirectory()) {
+                  documents.add(child.readToString());
+               }
+            }
+         } else {
+            documents.add(corpus.readToString());
+         }
+      } else {
+         for (int i = 0; i < 1_000; i++) {
+            documents.add(SAMPLE);
+         }
+      }
+      return documents;
+   }
+
+   public static void main(String[] args) throws Exception {
+      Config.initialize("ENTokenizerBenchmark", new String[0], "com.gengoai.hermes");
+      final List<String> documents = loadCorpus(args);
+      final int iterations = args.length > 1
+            ? Integer.parseInt(args[1])
+            : 10;
+      final ENTokenizer tokenizer = new ENTokenizer();
+
+      //Warm up
+      run(tokenizer, documents, true);
+      run(tokenizer, documents, false);
+
+      long tokens = 0;
+      long iteratorTime = 0;
+      long offsetsTime = 0;
+      for (int i = 0; i < iterations; i++) {
+         long start = System.nanoTime();
+         tokens += run(tokenizer, documents, true);
+         iteratorTime += System.nanoTime() - start;
+         start = System.nanoTime();
+         run(tokenizer, documents, false);
+         offsetsTime += System.nanoTime() - start;
+      }
+      System.out.printf("Documents: %,d, Tokens per pass: %,d%n", documents.size(), tokens / iterations);
+      System.out.printf("Token iterator: %,.0f tokens/sec%n", tokens / (iteratorTime / 1e9));
+      System.out.printf("Offsets stream: %,.0f tokens/sec%n", tokens / (offsetsTime / 1e9));
+   }
+
+   private static long run(ENTokenizer tokenizer, List<String> documents, boolean materialize) {
+      final long[] count = {0};
+      for (String document : documents) {
+         if (materialize) {
+            for (Tokenizer.Token ignored : tokenizer.tokenize(document)) {
+               count[0]++;
+            }
+         } else {
+            tokenizer.tokenize(document, (type, start, end, properties) -> count[0]++);
+         }
+      }
+      return count[0];
+   }
+
+}//END OF ENTokenizerBenchmark
@@ -0,0 +1,114 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.en;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.morphology.TokenType;
+import com.gengoai.hermes.morphology.Tokenizer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class ENTokenizerTest {
+   private static final String TEXT = "Mr. Smith paid $100 for the U.S.A. domain at http://www.example.com :-) -- right?";
+   private ENTokenizer tokenizer;
+
+   @Before
+   public void setUp() throws Exception {
+      Config.initializeTest();
+      tokenizer = new ENTokenizer();
+   }
+
+   private List<String> texts(Iterable<Tokenizer.Token> tokens) {
+      List<String> texts = new ArrayList<>();
+      tokens.forEach(t -> texts.add(t.text));
+      return texts;
+   }
+
+   @Test
+   public void tokenize() {
+      List<Tokenizer.Token> tokens = new ArrayList<>();
+      tokenizer.tokenize(TEXT).forEach(tokens::add);
+      assertEquals("Mr.", tokens.get(0).text);
+      assertEquals("Smith", tokens.get(1).text);
+      assertTrue(tokens.stream().anyMatch(t -> t.type.isInstance(TokenType.MONEY)));
+      assertTrue(tokens.stream().anyMatch(t -> t.type.isInstance(TokenType.URL)));
+      assertTrue(tokens.stream().anyMatch(t -> t.type.isInstance(TokenType.EMOTICON)));
+      for (int i = 0; i < tokens.size(); i++) {
+         Tokenizer.Token token = tokens.get(i);
+         assertEquals(token.text, TEXT.substring(token.charStartIndex, token.charEndIndex));
+      }
+   }
+
+   @Test
+   public void offsets() {
+      assertSameOffsets(TEXT);
+      assertSameOffsets("The U.S. economy grew 2.5% in Q3, e.g. $3.2 billion -- or US$ 40,000 per worker.");
+      assertSameOffsets("Visit www.example.foo/path or https://gengoai.com/docs?q=1 ;) and then stop. ");
+      assertSameOffsets("  well-known --- pre-trained models :( cost $ 5 ... Dr. Jones, Ph.D. said no!!");
+      assertSameOffsets("end with an abbreviation etc.");
+      assertSameOffsets("   ");
+   }
+
+   private void assertSameOffsets(String text) {
+      List<Tokenizer.Token> tokens = new ArrayList<>();
+      tokenizer.tokenize(text).forEach(tokens::add);
+      List<int[]> offsets = new ArrayList<>();
+      List<TokenType> types = new ArrayList<>();
+      tokenizer.tokenize(text, (type, start, end, properties) -> {
+         types.add(type);
+         offsets.add(new int[]{start, end});
+      });
+      assertEquals(text, tokens.size(), offsets.size());
+      for (int i = 0; i < tokens.size(); i++) {
+         assertEquals(text, tokens.get(i).type, types.get(i));
+         assertEquals(text, tokens.get(i).charStartIndex, offsets.get(i)[0]);
+         assertEquals(text, tokens.get(i).charEndIndex, offsets.get(i)[1]);
+      }
+   }
+
+   @Test
+   public void scannerReuse() {
+      List<String> expected = texts(tokenizer.tokenize(TEXT));
+      //Sequential reuse of the thread's scanner
+      for (int i = 0; i < 5; i++) {
+         assertEquals(expected, texts(tokenizer.tokenize(TEXT)));
+      }
+      //Interleaved iterators on the same thread do not share a scanner
+      Iterator<Tokenizer.Token> first = tokenizer.tokenize(TEXT).iterator();
+      Iterator<Tokenizer.Token> second = tokenizer.tokenize("A different sentence.").iterator();
+      assertEquals("Mr.", first.next().text);
+      assertEquals("A", second.next().text);
+      assertEquals("Smith", first.next().text);
+      assertEquals("different", second.next().text);
+      assertEquals(expected, texts(tokenizer.tokenize(TEXT)));
+   }
+
+}//END OF ENTokenizerTest
@@ -22,15 +22,14 @@
 package com.gengoai.hermes.extraction.caduceus;
 
 import com.gengoai.config.Config;
-import com.gengoai.hermes.Annotation;
-import com.gengoai.hermes.Document;
-import com.gengoai.hermes.RelationType;
-import com.gengoai.hermes.Types;
+import com.gengoai.hermes.*;
 import com.gengoai.hermes.annotator.DocumentProvider;
 import com.gengoai.io.Resources;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -39,6 +38,54 @@ import static org.junit.Assert.*;
  */
 public class CaduceusProgramTest {
 
+   private static String describe(HString hString) {
+      String description = hString.start() + ":" + hString.end() + ":" + hString;
+      if(hString instanceof Annotation) {
+         Annotation annotation = (Annotation) hString;
+         description += ":" + annotation.getType() + ":" + annotation.attribute(Types.ENTITY_TYPE);
+      }
+      return description;
+   }
+
+   private static List<String> describeEntities(Document document) {
+      return document.annotations(Types.ENTITY).stream()
+                     .map(entity -> describe(entity) + entity.outgoingRelationStream()
+                                                             .map(r -> r.getType() + "=" + r.getValue() + "->"
+                                                                   + describe(r.getTarget(document)))
+                                                             .sorted()
+                                                             .collect(Collectors.toList()))
+                     .collect(Collectors.toList());
+   }
+
+   @Test
+   public void stagedMatchesSequential() throws Exception {
+      Config.initializeTest();
+      CaduceusProgram program = CaduceusProgram.read(
+         Resources.fromClasspath("com/gengoai/hermes/extraction/caduceus/staged.cg"));
+
+      Document staged = DocumentProvider.getDocument();
+      staged.annotate(Types.TOKEN, Types.SENTENCE);
+      List<String> stagedHits = new ArrayList<>();
+      program.extract(staged).forEach(h -> stagedHits.add(describe(h)));
+
+      //Rules executed one after another with their own trigger, as before staging
+      Document sequential = DocumentProvider.getDocument();
+      sequential.annotate(Types.TOKEN, Types.SENTENCE);
+      List<String> sequentialHits = new ArrayList<>();
+      for(Rule rule : program.getRules()) {
+         rule.execute(sequential).forEach(h -> sequentialHits.add(describe(h)));
+      }
+
+      assertEquals(sequentialHits, stagedHits);
+      assertEquals(describeEntities(sequential), describeEntities(staged));
+
+      List<Annotation> entities = staged.annotations(Types.ENTITY);
+      assertTrue(entities.stream().noneMatch(e -> e.attribute(Types.ENTITY_TYPE).name().equals("TITLE")));
+      assertTrue(entities.stream().anyMatch(e -> e.contentEquals("White Rabbit")));
+      assertTrue(entities.stream().anyMatch(e -> e.attribute(Types.ENTITY_TYPE).name().equals("AGENT")));
+      assertTrue(entities.stream().anyMatch(e -> e.hasOutgoingRelation(RelationType.make("ATTRIBUTE"))));
+   }
+
    @Test
    public void testExecute() throws Exception {
       Config.initializeTest();
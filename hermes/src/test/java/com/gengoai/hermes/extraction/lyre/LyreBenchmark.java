@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.extraction.lyre;
+
+import com.gengoai.config.Config;
+import com.gengoai.hermes.Annotation;
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.DocumentFactory;
+import com.gengoai.hermes.Types;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * <p>Measures the cost of parsing common feature expressions with and without the parse cache and the throughput
+ * (tokens per second) of applying them to the tokens of a document. For reference, the throughput of hand-written
+ * Java equivalents of some of the expressions is measured as well, which bounds what compiling expressions could
+ * gain.</p>
+ * <p>Usage: <code>LyreBenchmark [iterations]</code></p>
+ *
+ * @author David B. Bracewell
+ */
+public class LyreBenchmark {
+   private static final String[] EXPRESSIONS = {
+         "lower",
+         "lemma",
+         "pos",
+         "isUpper",
+         "isContentWord",
+         "cxt($_, -1)",
+         "binary{'WORD'}(@TOKEN)",
+         "filter( @TOKEN, isContentWord )",
+         "if( isStopWord, null, lower )",
+         "$_ + 'ss'"
+   };
+   private static final Map<String, Function<Annotation, List<?>>> HAND_WRITTEN = new LinkedHashMap<>();
+   private static final String SAMPLE =
+         "WASHINGTON (Reuters) - The U.S. Senate on Tuesday passed a $1.2 trillion spending bill, sending the " +
+               "measure to President Biden's desk hours before a midnight deadline. Sen. Chuck Schumer said the " +
+               "vote (71-29) showed \"bipartisanship is alive and well\" -- though critics, including Mr. Lee of " +
+               "Utah, called it a missed opportunity. Shares of Acme Corp. rose 3.5% to $42.17 in early trading.";
+
+   static {
+      HAND_WRITTEN.put("lower (hand-written)", token -> Collections.singletonList(token.toString().toLowerCase()));
+      HAND_WRITTEN.put("lemma (hand-written)", token -> Collections.singletonList(token.getLemma()));
+      HAND_WRITTEN.put("$_ + 'ss' (hand-written)", token -> Collections.singletonList(token.toString() + "ss"));
+   }
+
+   public static void main(String[] args) throws Exception {
+      Config.initialize("LyreBenchmark", new String[0], "com.gengoai.hermes");
+      final int iterations = args.length > 0
+            ? Integer.parseInt(args[0])
+            : 200;
+      Document document = DocumentFactory.getInstance().create(SAMPLE);
+      document.annotate(Types.TOKEN, Types.SENTENCE);
+      List<Annotation> tokens = document.tokens();
+
+      //Warm up
+      for (int i = 0; i < 10; i++) {
+         parse(false);
+         parse(true);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+         parse(false);
+      }
+      long uncached = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+         parse(true);
+      }
+      long cached = System.nanoTime() - start;
+      long parsed = (long) iterations * EXPRESSIONS.length;
+      System.out.printf("Parse (uncached): %,.0f expressions/sec%n", parsed / (uncached / 1e9));
+      System.out.printf("Parse (cached): %,.0f expressions/sec%n", parsed / (cached / 1e9));
+
+      for (String pattern : EXPRESSIONS) {
+         LyreExpression expression = LyreExpression.parse(pattern);
+         throughput(pattern, expression::applyAsList, tokens, iterations);
+      }
+      for (Map.Entry<String, Function<Annotation, List<?>>> e : HAND_WRITTEN.entrySet()) {
+         throughput(e.getKey(), e.getValue(), tokens, iterations);
+      }
+   }
+
+   private static void throughput(String name,
+                                  Function<Annotation, List<?>> function,
+                                  List<Annotation> tokens,
+                                  int iterations) {
+      for (int i = 0; i < 100; i++) {
+         apply(function, tokens);
+      }
+      long start = System.nanoTime();
+      long checksum = 0;
+      for (int i = 0; i < iterations * 10; i++) {
+         checksum += apply(function, tokens);
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("%-35s %,15.0f tokens/sec (%d)%n",
+                        name,
+                        (double) iterations * 10 * tokens.size() / (elapsed / 1e9),
+                        checksum);
+   }
+
+   private static int apply(Function<Annotation, List<?>> function, List<Annotation> tokens) {
+      int count = 0;
+      for (Annotation token : tokens) {
+         count += function.apply(token).size();
+      }
+      return count;
+   }
+
+   private static void parse(boolean cached) {
+      for (String pattern : EXPRESSIONS) {
+         if (cached) {
+            LyreExpression.parse(pattern);
+         } else {
+            LyreExpression.parseUncached(pattern);
+         }
+      }
+   }
+
+}//END OF LyreBenchmark
@@ -22,6 +22,8 @@
 
 package com.gengoai.hermes.extraction.lyre;
 
+import com.gengoai.cache.Cache;
+import com.gengoai.cache.ConcurrentCache;
 import com.gengoai.collection.tree.Span;
 import com.gengoai.config.Config;
 import com.gengoai.conversion.Cast;
@@ -570,6 +572,69 @@ public class LyreExpressionTest {
                  h -> 1.0);
    }
 
+   @Test
+   public void parseCache() {
+      final String pattern = "lower($_) = 'alice'";
+      final LyreExpression expression = LyreExpression.parse(pattern);
+      assertSame(expression, LyreExpression.parse(pattern));
+      assertNotSame(expression, LyreExpression.parseUncached(pattern));
+
+      final Cache<String, LyreExpression> cache = LyreExpression.createParseCache(100);
+      final LyreExpression cached = LyreExpression.parse(pattern, cache);
+      assertTrue(cache.containsKey(pattern));
+      assertEquals(1, cache.size());
+      assertSame(cached, LyreExpression.parse(pattern, cache));
+      assertEquals(1, cache.size());
+   }
+
+   @Test
+   public void parseCacheEviction() {
+      final ConcurrentCache<String, LyreExpression> cache = Cast.as(LyreExpression.createParseCache(2));
+      final Map<String, LyreExpression> parsed = new LinkedHashMap<>();
+      for(int i = 0; i < 20; i++) {
+         String pattern = "len($_) > " + i;
+         parsed.put(pattern, LyreExpression.parse(pattern, cache));
+      }
+      cache.cleanUp();
+      assertTrue(cache.size() <= 2);
+
+      int evicted = 0;
+      for(Map.Entry<String, LyreExpression> entry : parsed.entrySet()) {
+         if(!cache.containsKey(entry.getKey())) {
+            evicted++;
+            LyreExpression reparsed = LyreExpression.parse(entry.getKey(), cache);
+            assertNotSame(entry.getValue(), reparsed);
+            assertEquals(entry.getValue().getPattern(), reparsed.getPattern());
+            for(Annotation token : document.tokens()) {
+               assertEquals(entry.getValue().test(token), reparsed.test(token));
+            }
+         }
+      }
+      assertTrue(evicted >= 18);
+   }
+
+   @Test
+   public void parseCacheMatchesUncached() {
+      for(String pattern : List.of("lower($_)",
+                                   "len($_) > 3",
+                                   "$_ ~= /^[A-Z]/",
+                                   "#NOUN($_)",
+                                   "lemma($_)",
+                                   "[1,2, 'abc']",
+                                   "if( $_ = 'Alice', 'yes', 'no' )")) {
+         LyreExpression cached = LyreExpression.parse(pattern);
+         LyreExpression fresh = LyreExpression.parseUncached(pattern);
+         assertEquals(fresh.getPattern(), cached.getPattern());
+         assertEquals(fresh.getType(), cached.getType());
+         for(Annotation token : document.tokens()) {
+            assertEquals(pattern, fresh.test(token), cached.test(token));
+            assertEquals(pattern, fresh.apply(token), cached.apply(token));
+            assertEquals(pattern, fresh.applyAsDouble(token), cached.applyAsDouble(token), 0d);
+            assertEquals(pattern, fresh.applyAsList(token), cached.applyAsList(token));
+         }
+      }
+   }
+
    @Test
    public void pos() {
       final Document pos = Document.create("I am a test.");
@@ -30,6 +30,9 @@ import com.gengoai.hermes.morphology.PartOfSpeech;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -165,6 +168,55 @@ public class TokenRegexTest {
       assertFalse(matcher.find());
    }
 
+   @Test
+   public void testLazyDFAMatchesNFA() throws Exception {
+      String[] patterns = {
+            "#NOUN+ #VERB+ #NOUN+",
+            "'John' | 'Sally'",
+            "^ ('John' | 'Sally')",
+            "@ENTITY{1,2}",
+            "@ENTITY #VERB? #NOUN*",
+            "#DETERMINER? #NOUN ( #ADPOSITION #NUMERAL )?",
+            "( /^john$/i | /^sally$/i ) (?!> #NUMERAL)",
+            "#NOUN*",
+            "#NOUN{2,3} | #ADPOSITION #DETERMINER"
+      };
+      for(String pattern : patterns) {
+         //Wrapping the pattern in a named group forces the capture-tracking NFA simulation
+         TokenMatcher dfa = TokenRegex.compile(pattern).matcher(document);
+         TokenMatcher nfa = TokenRegex.compile("(?<ALL> " + pattern + ")").matcher(document);
+         while(nfa.find()) {
+            assertTrue(pattern, dfa.find());
+            assertEquals(pattern, nfa.start(), dfa.start());
+            assertEquals(pattern, nfa.end(), dfa.end());
+         }
+         assertFalse(pattern, dfa.find());
+      }
+   }
+
+   @Test
+   public void testRegexSet() throws Exception {
+      List<TokenRegex> patterns = Arrays.asList(TokenRegex.compile("#NOUN+ #VERB+ #NOUN+"),
+                                                TokenRegex.compile("'John' | 'Sally'"),
+                                                TokenRegex.compile("@ENTITY{1,2}"),
+                                                TokenRegex.compile("(?<PERSON> #NOUN) (?<ACTION> #VERB)"),
+                                                TokenRegex.compile("#NOUN*"),
+                                                TokenRegex.compile("'nothing'"));
+      List<List<TokenMatch>> matches = new TokenRegexSet(patterns).matchAll(document);
+      assertEquals(patterns.size(), matches.size());
+      for(int i = 0; i < patterns.size(); i++) {
+         TokenMatcher matcher = patterns.get(i).matcher(document);
+         for(TokenMatch match : matches.get(i)) {
+            assertTrue(matcher.find());
+            assertEquals(matcher.start(), match.getTokenStart());
+            assertEquals(matcher.end(), match.getTokenEnd());
+            assertEquals(matcher.groupNames(), match.groupNames());
+         }
+         assertFalse(matcher.find());
+      }
+      assertEquals("met", matches.get(3).get(0).group("ACTION").get(0).toString());
+   }
+
    @Test
    public void testLexiconMatch() throws Exception {
       TokenMatcher matcher = TokenRegex.compile("%testing.lexicon").matcher(document);
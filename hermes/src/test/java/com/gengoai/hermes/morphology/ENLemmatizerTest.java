@@ -60,6 +60,16 @@ public class ENLemmatizerTest {
     //Walking may be correct if we do not the pos
     assertEquals("walking", lemmatizer.lemmatize("walking"));
 
+    //Multi-word lemmas
+    assertEquals("kick the bucket", lemmatizer.lemmatize("kicked the bucket", PartOfSpeech.VERB));
+    assertEquals("kick the bucket", lemmatizer.lemmatize("kicks the bucket", PartOfSpeech.VERB));
+
+    //Repeated lookups are served from the compiled table and memo
+    for (int i = 0; i < 3; i++) {
+      assertEquals("walk", lemmatizer.lemmatize("Walking", PennTreeBank.VBG));
+      assertEquals("knife", lemmatizer.lemmatize("knives", PennTreeBank.NNS));
+    }
+
 //    Document document = DocumentFactory.getInstance().create("I was walking to the shore.", Language.ENGLISH);
 //    Pipeline.process(document, Types.TOKEN, Types.SENTENCE);
 //    assertEquals("walking", lemmatizer.lemmatize(document.find("walking")));
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.hermes.workflow;
+
+import com.gengoai.collection.counter.Counter;
+import com.gengoai.config.Config;
+import com.gengoai.hermes.Document;
+import com.gengoai.hermes.DocumentFactory;
+import com.gengoai.hermes.Types;
+import com.gengoai.hermes.corpus.DocumentCollection;
+import com.gengoai.hermes.workflow.actions.Annotate;
+import com.gengoai.hermes.workflow.actions.ImportDocuments;
+import com.gengoai.hermes.workflow.actions.KeywordExtraction;
+import com.gengoai.hermes.workflow.actions.TermCounts;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class FusedWorkflowTest {
+
+   @Before
+   public void setUp() throws Exception {
+      Config.initializeTest();
+   }
+
+   private DocumentCollection documents() {
+      return DocumentCollection.create(DocumentFactory.getInstance().create("This is the first document."),
+                                       DocumentFactory.getInstance().create("This is the second document."),
+                                       DocumentFactory.getInstance().create("This is the third document."));
+   }
+
+   @Test
+   public void plan() {
+      Annotate annotate = new Annotate();
+      TermCounts termCounts = new TermCounts();
+      KeywordExtraction tf = new KeywordExtraction();
+      KeywordExtraction tfidf = new KeywordExtraction();
+      tfidf.setAlgorithm("tfidf");
+      ImportDocuments importDocuments = new ImportDocuments();
+      FusedWorkflow workflow = new FusedWorkflow(Arrays.asList(annotate,
+                                                               termCounts,
+                                                               tf,
+                                                               tfidf,
+                                                               importDocuments,
+                                                               termCounts));
+      List<List<Action>> passes = workflow.plan();
+      assertEquals(4, passes.size());
+      assertEquals(Arrays.asList(annotate, termCounts, tf), passes.get(0));
+      assertEquals(Arrays.asList(tfidf), passes.get(1));
+      assertEquals(Arrays.asList(importDocuments), passes.get(2));
+      assertEquals(Arrays.asList(termCounts), passes.get(3));
+   }
+
+   @Test
+   public void process() throws Exception {
+      Annotate annotate = new Annotate();
+      annotate.setTypes(new String[]{"TOKEN", "SENTENCE"});
+      TermCounts termCounts = new TermCounts();
+      KeywordExtraction keywords = new KeywordExtraction();
+      keywords.setKeepGlobalCounts(true);
+      FusedWorkflow workflow = new FusedWorkflow(Arrays.asList(annotate, termCounts, keywords));
+      Context context = new Context();
+      DocumentCollection processed = workflow.process(documents(), context);
+
+      Counter<String> expected = documents().annotate(Types.TOKEN, Types.SENTENCE)
+                                            .termCount(termCounts.getExtractor());
+      assertEquals(expected, TermCounts.getTermCounts(context));
+      assertEquals(3, KeywordExtraction.getKeywords(context).get("document"), 0d);
+      for (Document document : processed) {
+         assertTrue(document.isCompleted(Types.TOKEN));
+         assertTrue(document.attribute(Types.KEYWORDS).contains("document"));
+      }
+   }
+
+}//END OF FusedWorkflowTest
@@ -128,5 +128,14 @@ public final class HierarchicalRegistry<T extends HierarchicalEnumValue> extends
       return registry.computeIfAbsent(normalize(name), newInstance);
    }
 
+   @Override
+   public T valueOf(String name) {
+      String norm = normalize(name);
+      if(!registry.containsKey(norm) && labelToNodeMap.containsKey(norm)) {
+         return registry.get(labelToNodeMap.get(norm));
+      }
+      return super.valueOf(name);
+   }
+
 
 }//END OF HierarchicalRegistry
@@ -0,0 +1,83 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.cache;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * <p>Immutable snapshot of the statistics recorded by a {@link ConcurrentCache}. Load times are in nanoseconds.</p>
+ *
+ * @author David B. Bracewell
+ */
+@Value
+public class CacheStats implements Serializable {
+   private static final long serialVersionUID = 1L;
+   long hitCount;
+   long missCount;
+   long loadSuccessCount;
+   long loadFailureCount;
+   long totalLoadTime;
+   long evictionCount;
+   long evictionWeight;
+
+   /**
+    * Calculates the average time in nanoseconds spent loading new values.
+    *
+    * @return the average load penalty
+    */
+   public double averageLoadPenalty() {
+      long loads = loadSuccessCount + loadFailureCount;
+      return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+   }
+
+   /**
+    * Calculates the ratio of requests that were hits
+    *
+    * @return the hit rate (1.0 when no requests have been made)
+    */
+   public double hitRate() {
+      long requests = requestCount();
+      return requests == 0 ? 1.0 : (double) hitCount / requests;
+   }
+
+   /**
+    * Calculates the ratio of requests that were misses
+    *
+    * @return the miss rate (0.0 when no requests have been made)
+    */
+   public double missRate() {
+      long requests = requestCount();
+      return requests == 0 ? 0.0 : (double) missCount / requests;
+   }
+
+   /**
+    * The total number of lookups, i.e. hits plus misses.
+    *
+    * @return the request count
+    */
+   public long requestCount() {
+      return hitCount + missCount;
+   }
+
+}//END OF CacheStats
@@ -0,0 +1,574 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.cache;
+
+import com.gengoai.Validation;
+import com.gengoai.function.SerializableFunction;
+import com.gengoai.function.SerializableSupplier;
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * <p>A bounded cache designed for high concurrency. Reads are lock-free and are recorded into striped, lossy buffers
+ * that are replayed against the eviction policy in batches. The eviction policy is Window TinyLFU, where new entries
+ * are added to a small LRU admission window (1% of the capacity) and entries leaving the window are only admitted into
+ * the main segmented LRU if their estimated access frequency is greater than the entry they would evict. This keeps
+ * the cache from being flushed by one-off scans while still accepting bursts of recent keys.</p>
+ *
+ * <p>Values that are not cached are loaded at most once per key regardless of the number of concurrent callers
+ * requesting them. The loader is run without holding any lock so that loading one key never blocks reads or loads of
+ * other keys.</p>
+ *
+ * <p>Caches are bound either by the number of entries (<code>maximumSize</code>) or by the total weight of their
+ * entries (<code>maximumWeight</code> and a {@link Weigher}). Entries can optionally expire after a fixed duration
+ * from when they were written or last accessed. Expired entries are removed when they are next read or during the
+ * periodic maintenance of the eviction policy. Hit, miss, load and eviction statistics are recorded when
+ * <code>recordStats</code> is set.</p>
+ * <pre>
+ * {@code
+ *  Cache<String, Model> cache = ConcurrentCache.<String,Model>builder()
+ *                                              .maximumWeight(1_000_000)
+ *                                              .weigher((name, model) -> model.size())
+ *                                              .expireAfterAccess(Duration.ofMinutes(10))
+ *                                              .recordStats(true)
+ *                                              .build();
+ * }
+ * </pre>
+ *
+ * @param <K> the key type parameter
+ * @param <V> the value type parameter
+ * @author David B. Bracewell
+ */
+public class ConcurrentCache<K, V> implements Cache<K, V> {
+   private static final int READ_BUFFER_SIZE = 64;
+   private static final int READ_BUFFER_DRAIN_THRESHOLD = 16;
+   private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+   private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+   private final ReentrantLock evictionLock = new ReentrantLock();
+   private final ArrayBlockingQueue<Node<K, V>>[] readBuffers;
+   private final FrequencySketch sketch;
+   private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+   private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+   private final AccessOrderQueue<K, V> protectedSegment = new AccessOrderQueue<>();
+   private final long maximumWeight;
+   private final long windowMaximum;
+   private final long protectedMaximum;
+   private final Weigher<? super K, ? super V> weigher;
+   private final long expireAfterWriteNanos;
+   private final long expireAfterAccessNanos;
+   private final SerializableFunction<? super K, ? extends V> loader;
+   private final boolean recordStats;
+   private final LongAdder hitCount = new LongAdder();
+   private final LongAdder missCount = new LongAdder();
+   private final LongAdder loadSuccessCount = new LongAdder();
+   private final LongAdder loadFailureCount = new LongAdder();
+   private final LongAdder totalLoadTime = new LongAdder();
+   private final LongAdder evictionCount = new LongAdder();
+   private final LongAdder evictionWeight = new LongAdder();
+   private volatile long weightedSize = 0;
+   private long windowWeight = 0;
+   private long protectedWeight = 0;
+
+   /**
+    * Instantiates a new ConcurrentCache. Either <code>maximumSize</code> or <code>maximumWeight</code> must be given,
+    * where <code>maximumWeight</code> requires a <code>weigher</code>.
+    *
+    * @param maximumSize       the maximum number of entries in the cache
+    * @param maximumWeight     the maximum total weight of the entries in the cache
+    * @param weigher           the weigher used to calculate the weight of entries (only used with maximumWeight)
+    * @param expireAfterWrite  the duration after an entry is written that it should expire (null for no expiration)
+    * @param expireAfterAccess the duration after an entry is last accessed that it should expire (null for no
+    *                          expiration)
+    * @param loader            optional function used to calculate values for missing keys on {@link #get(Object)}
+    * @param recordStats       True record cache statistics
+    */
+   @Builder
+   @SuppressWarnings("unchecked")
+   private ConcurrentCache(long maximumSize,
+                           long maximumWeight,
+                           Weigher<? super K, ? super V> weigher,
+                           Duration expireAfterWrite,
+                           Duration expireAfterAccess,
+                           SerializableFunction<? super K, ? extends V> loader,
+                           boolean recordStats) {
+      Validation.checkArgument(maximumSize > 0 ^ maximumWeight > 0,
+                               "Exactly one of maximumSize or maximumWeight must be greater than zero.");
+      Validation.checkArgument(maximumWeight <= 0 || weigher != null, "A weigher is required for maximumWeight.");
+      if (maximumSize > 0) {
+         this.maximumWeight = maximumSize;
+         this.weigher = Weigher.singleton();
+      } else {
+         this.maximumWeight = maximumWeight;
+         this.weigher = weigher;
+      }
+      this.windowMaximum = Math.max(1, this.maximumWeight / 100);
+      this.protectedMaximum = (long) ((this.maximumWeight - windowMaximum) * 0.8);
+      this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+      this.expireAfterAccessNanos = expireAfterAccess == null ? 0 : expireAfterAccess.toNanos();
+      this.loader = loader;
+      this.recordStats = recordStats;
+      this.sketch = new FrequencySketch(Math.min(this.maximumWeight, 1024));
+      int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+      this.readBuffers = new ArrayBlockingQueue[stripes];
+      for (int i = 0; i < stripes; i++) {
+         this.readBuffers[i] = new ArrayBlockingQueue<>(READ_BUFFER_SIZE);
+      }
+   }
+
+   private void addToPolicy(Node<K, V> node) {
+      //The node was replaced or removed before it could be added
+      if (data.get(node.key) != node) {
+         return;
+      }
+      node.queue = window;
+      window.addLast(node);
+      windowWeight += node.weight;
+      weightedSize += node.weight;
+      sketch.increment(node.key);
+      if (data.size() > sketch.capacity()) {
+         sketch.ensureCapacity(Math.min(data.size() * 2L, maximumWeight));
+      }
+   }
+
+   private void afterRead(Node<K, V> node) {
+      ArrayBlockingQueue<Node<K, V>> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+      if (!buffer.offer(node) || buffer.size() >= READ_BUFFER_DRAIN_THRESHOLD) {
+         tryToMaintain();
+      }
+   }
+
+   /**
+    * Performs any pending maintenance, i.e. replaying recorded reads against the eviction policy, and removes all
+    * expired entries from the cache.
+    */
+   public void cleanUp() {
+      evictionLock.lock();
+      try {
+         maintain();
+         if (expireAfterAccessNanos > 0 || expireAfterWriteNanos > 0) {
+            long now = System.nanoTime();
+            for (Node<K, V> node : data.values()) {
+               if (isExpired(node, now) && data.remove(node.key, node)) {
+                  removeFromPolicy(node, true);
+               }
+            }
+         }
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   @Override
+   public boolean containsKey(K key) {
+      Node<K, V> node = data.get(key);
+      return node != null && !isExpired(node, System.nanoTime());
+   }
+
+   private void drainReadBuffers() {
+      for (ArrayBlockingQueue<Node<K, V>> buffer : readBuffers) {
+         Node<K, V> node;
+         while ((node = buffer.poll()) != null) {
+            onAccess(node);
+         }
+      }
+   }
+
+   private void evict(Node<K, V> node) {
+      if (data.remove(node.key, node)) {
+         removeFromPolicy(node, true);
+      } else {
+         removeFromPolicy(node, false);
+      }
+   }
+
+   private void evictEntries() {
+      while (windowWeight > windowMaximum && window.first != null) {
+         Node<K, V> candidate = window.removeFirst();
+         windowWeight -= candidate.weight;
+         candidate.queue = probation;
+         probation.addLast(candidate);
+         while (weightedSize > maximumWeight && candidate.queue != null) {
+            Node<K, V> victim = probation.first != candidate
+                                ? probation.first
+                                : protectedSegment.first;
+            if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+               evict(candidate);
+            } else {
+               evict(victim);
+            }
+         }
+      }
+      while (weightedSize > maximumWeight) {
+         Node<K, V> victim = probation.first != null
+                             ? probation.first
+                             : protectedSegment.first != null
+                               ? protectedSegment.first
+                               : window.first;
+         if (victim == null) {
+            break;
+         }
+         evict(victim);
+      }
+   }
+
+   private void expireEntries() {
+      if (expireAfterAccessNanos <= 0 && expireAfterWriteNanos <= 0) {
+         return;
+      }
+      long now = System.nanoTime();
+      for (AccessOrderQueue<K, V> queue : List.of(window, probation, protectedSegment)) {
+         while (queue.first != null && isExpired(queue.first, now)) {
+            evict(queue.first);
+         }
+      }
+   }
+
+   @Override
+   public V get(K key) {
+      V value = getIfPresent(key);
+      if (value == null && loader != null) {
+         return load(key, loader);
+      }
+      return value;
+   }
+
+   @Override
+   public V get(K key, SerializableSupplier<? extends V> supplier) {
+      V value = getIfPresent(key);
+      if (value == null) {
+         return load(key, k -> supplier.get());
+      }
+      return value;
+   }
+
+   private V getIfPresent(K key) {
+      Node<K, V> node = data.get(key);
+      if (node == null) {
+         record(missCount);
+         return null;
+      }
+      long now = System.nanoTime();
+      if (isExpired(node, now)) {
+         record(missCount);
+         if (data.remove(key, node)) {
+            evictionLock.lock();
+            try {
+               removeFromPolicy(node, true);
+            } finally {
+               evictionLock.unlock();
+            }
+         }
+         return null;
+      }
+      if (expireAfterAccessNanos > 0) {
+         node.accessTime = now;
+      }
+      record(hitCount);
+      afterRead(node);
+      return node.value;
+   }
+
+   @Override
+   public void invalidate(K key) {
+      Node<K, V> node = data.remove(key);
+      if (node != null) {
+         evictionLock.lock();
+         try {
+            removeFromPolicy(node, false);
+         } finally {
+            evictionLock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public void invalidateAll() {
+      evictionLock.lock();
+      try {
+         drainReadBuffers();
+         data.clear();
+         for (AccessOrderQueue<K, V> queue : List.of(window, probation, protectedSegment)) {
+            while (queue.first != null) {
+               queue.removeFirst().queue = null;
+            }
+         }
+         windowWeight = 0;
+         protectedWeight = 0;
+         weightedSize = 0;
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   private boolean isExpired(Node<K, V> node, long now) {
+      return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+            || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+   }
+
+   private V load(K key, Function<? super K, ? extends V> function) {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+      if (inFlight != null) {
+         try {
+            return inFlight.join();
+         } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+               throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+               throw (Error) e.getCause();
+            }
+            throw e;
+         }
+      }
+      try {
+         //Another thread may have finished loading the key before this thread started its load
+         Node<K, V> node = data.get(key);
+         if (node != null && !isExpired(node, System.nanoTime())) {
+            future.complete(node.value);
+            return node.value;
+         }
+         long start = System.nanoTime();
+         V value;
+         try {
+            value = function.apply(key);
+         } catch (RuntimeException | Error e) {
+            record(loadFailureCount);
+            record(totalLoadTime, System.nanoTime() - start);
+            future.completeExceptionally(e);
+            throw e;
+         }
+         record(totalLoadTime, System.nanoTime() - start);
+         if (value == null) {
+            record(loadFailureCount);
+         } else {
+            record(loadSuccessCount);
+            put(key, value);
+         }
+         future.complete(value);
+         return value;
+      } finally {
+         loading.remove(key, future);
+      }
+   }
+
+   private void maintain() {
+      drainReadBuffers();
+      expireEntries();
+      evictEntries();
+   }
+
+   private void onAccess(Node<K, V> node) {
+      if (node.queue == null) {
+         return;
+      }
+      sketch.increment(node.key);
+      if (node.queue == probation) {
+         probation.remove(node);
+         node.queue = protectedSegment;
+         protectedSegment.addLast(node);
+         protectedWeight += node.weight;
+         while (protectedWeight > protectedMaximum && protectedSegment.first != null) {
+            Node<K, V> demoted = protectedSegment.removeFirst();
+            protectedWeight -= demoted.weight;
+            demoted.queue = probation;
+            probation.addLast(demoted);
+         }
+      } else {
+         node.queue.moveToLast(node);
+      }
+   }
+
+   @Override
+   public void put(K key, V value) {
+      Validation.notNull(value, "Cannot cache null values");
+      int weight = weigher.weigh(key, value);
+      Validation.checkArgument(weight >= 0, "Weight must be non-negative");
+      Node<K, V> node = new Node<>(key, value, weight, System.nanoTime());
+      Node<K, V> old = data.put(key, node);
+      evictionLock.lock();
+      try {
+         drainReadBuffers();
+         if (old != null) {
+            removeFromPolicy(old, false);
+         }
+         addToPolicy(node);
+         expireEntries();
+         evictEntries();
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   private void record(LongAdder counter) {
+      if (recordStats) {
+         counter.increment();
+      }
+   }
+
+   private void record(LongAdder counter, long value) {
+      if (recordStats) {
+         counter.add(value);
+      }
+   }
+
+   private void removeFromPolicy(Node<K, V> node, boolean evicted) {
+      if (node.queue == null) {
+         return;
+      }
+      node.queue.remove(node);
+      if (node.queue == window) {
+         windowWeight -= node.weight;
+      } else if (node.queue == protectedSegment) {
+         protectedWeight -= node.weight;
+      }
+      weightedSize -= node.weight;
+      node.queue = null;
+      if (evicted) {
+         record(evictionCount);
+         record(evictionWeight, node.weight);
+      }
+   }
+
+   @Override
+   public long size() {
+      return data.size();
+   }
+
+   /**
+    * Gets a snapshot of the statistics recorded for this cache. All values will be zero if the cache was not built
+    * with <code>recordStats</code>.
+    *
+    * @return the cache statistics
+    */
+   public CacheStats stats() {
+      return new CacheStats(hitCount.sum(),
+                            missCount.sum(),
+                            loadSuccessCount.sum(),
+                            loadFailureCount.sum(),
+                            totalLoadTime.sum(),
+                            evictionCount.sum(),
+                            evictionWeight.sum());
+   }
+
+   @Override
+   public String toString() {
+      return "ConcurrentCache{" +
+            "size=" + size() +
+            ", weightedSize=" + weightedSize +
+            ", maximumWeight=" + maximumWeight +
+            '}';
+   }
+
+   private void tryToMaintain() {
+      if (evictionLock.tryLock()) {
+         try {
+            maintain();
+         } finally {
+            evictionLock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Gets the total weight of the entries currently in the cache.
+    *
+    * @return the weighted size
+    */
+   public long weightedSize() {
+      return weightedSize;
+   }
+
+   private static class AccessOrderQueue<K, V> {
+      private Node<K, V> first;
+      private Node<K, V> last;
+
+      private void addLast(Node<K, V> node) {
+         node.prev = last;
+         node.next = null;
+         if (last == null) {
+            first = node;
+         } else {
+            last.next = node;
+         }
+         last = node;
+      }
+
+      private void moveToLast(Node<K, V> node) {
+         if (node != last) {
+            remove(node);
+            addLast(node);
+         }
+      }
+
+      private void remove(Node<K, V> node) {
+         if (node.prev == null) {
+            first = node.next;
+         } else {
+            node.prev.next = node.next;
+         }
+         if (node.next == null) {
+            last = node.prev;
+         } else {
+            node.next.prev = node.prev;
+         }
+         node.prev = null;
+         node.next = null;
+      }
+
+      private Node<K, V> removeFirst() {
+         Node<K, V> node = first;
+         remove(node);
+         return node;
+      }
+   }
+
+   private static class Node<K, V> {
+      private final K key;
+      private final V value;
+      private final int weight;
+      private final long writeTime;
+      private volatile long accessTime;
+      //Guarded by the eviction lock
+      private AccessOrderQueue<K, V> queue;
+      private Node<K, V> prev;
+      private Node<K, V> next;
+
+      private Node(K key, V value, int weight, long now) {
+         this.key = key;
+         this.value = value;
+         this.weight = weight;
+         this.writeTime = now;
+         this.accessTime = now;
+      }
+   }
+
+}//END OF ConcurrentCache
@@ -0,0 +1,145 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.cache;
+
+/**
+ * <p>A Count-Min sketch of 4-bit counters used to estimate the access frequency of cache keys for TinyLFU admission.
+ * Each long in the table holds sixteen counters and every key maps to four counters (one per hash function) within a
+ * single long. Counts are periodically halved once the number of increments reaches ten times the capacity so that
+ * the sketch favors recent history.</p>
+ *
+ * <p>The sketch is not thread safe and is expected to be guarded by the owning cache's eviction lock.</p>
+ *
+ * @author David B. Bracewell
+ */
+final class FrequencySketch {
+   private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final long ONE_MASK = 0x1111111111111111L;
+   private static final int MAXIMUM_CAPACITY = 1 << 30;
+   private long[] table;
+   private int tableMask;
+   private int sampleSize;
+   private int size;
+
+   /**
+    * Instantiates a new FrequencySketch.
+    *
+    * @param expectedSize the expected number of distinct keys
+    */
+   FrequencySketch(long expectedSize) {
+      ensureCapacity(expectedSize);
+   }
+
+   private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+   }
+
+   /**
+    * Gets the capacity of the sketch.
+    *
+    * @return the capacity
+    */
+   int capacity() {
+      return table.length;
+   }
+
+   /**
+    * Increases the size of the sketch to accommodate the given number of keys. Counts are discarded when the sketch
+    * is resized.
+    *
+    * @param expectedSize the expected number of distinct keys
+    */
+   void ensureCapacity(long expectedSize) {
+      int capacity = (int) Math.min(Math.max(expectedSize, 16), MAXIMUM_CAPACITY);
+      if (table != null && table.length >= capacity) {
+         return;
+      }
+      table = new long[Integer.highestOneBit(capacity - 1) << 1];
+      tableMask = table.length - 1;
+      sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+      size = 0;
+   }
+
+   /**
+    * Estimates the frequency of the given element (max of 15).
+    *
+    * @param element the element
+    * @return the estimated frequency
+    */
+   int frequency(Object element) {
+      int hash = spread(element.hashCode());
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+         int index = indexOf(hash, i);
+         int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+         frequency = Math.min(frequency, count);
+      }
+      return frequency;
+   }
+
+   /**
+    * Increments the frequency of the given element.
+    *
+    * @param element the element
+    */
+   void increment(Object element) {
+      int hash = spread(element.hashCode());
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size >= sampleSize) {
+         reset();
+      }
+   }
+
+   private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+         table[index] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+   }
+
+   private void reset() {
+      int odd = 0;
+      for (int i = 0; i < table.length; i++) {
+         odd += Long.bitCount(table[i] & ONE_MASK);
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size = (size >>> 1) - (odd >>> 2);
+   }
+
+}//END OF FrequencySketch
@@ -0,0 +1,57 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.cache;
+
+import java.io.Serializable;
+
+/**
+ * <p>Calculates the weight of a cache entry, which is used by a {@link ConcurrentCache} to determine when entries need
+ * to be evicted. Weights are calculated once when the entry is added to the cache and must be non-negative.</p>
+ *
+ * @param <K> the key type parameter
+ * @param <V> the value type parameter
+ * @author David B. Bracewell
+ */
+@FunctionalInterface
+public interface Weigher<K, V> extends Serializable {
+
+   /**
+    * Weigher that gives every entry a weight of one, i.e. bounds the cache by its number of entries.
+    *
+    * @param <K> the key type parameter
+    * @param <V> the value type parameter
+    * @return the weigher
+    */
+   static <K, V> Weigher<K, V> singleton() {
+      return (k, v) -> 1;
+   }
+
+   /**
+    * Calculates the weight of the given key-value pair
+    *
+    * @param key   the key
+    * @param value the value
+    * @return the weight (must be non-negative)
+    */
+   int weigh(K key, V value);
+
+}//END OF Weigher
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.collection.disk;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Defines when calls to {@link MapDBHandle#commit()} are written to disk and when the underlying store is compacted,
+ * as well as the durability settings of the store.
+ * </p>
+ * <ul>
+ *    <li><b>commitEvery</b> - the number of commit requests grouped into a single commit (default 1).</li>
+ *    <li><b>commitIntervalMillis</b> - when greater than zero, a commit request is written if at least this many
+ *    milliseconds have passed since the last commit, even if fewer than <code>commitEvery</code> requests are
+ *    pending (default 0).</li>
+ *    <li><b>compactionThreshold</b> - after a commit the store is compacted if its free space is at least this
+ *    fraction of its total size. A value of 0 compacts after every commit and a value greater than 1 only compacts
+ *    when {@link MapDBHandle#compact()} is called (default 0.5).</li>
+ *    <li><b>writeAheadLog</b> - True to write changes through a write-ahead log so that commits are atomic and the
+ *    store survives crashes, False to write directly to the store, which may corrupt the store if the JVM dies before
+ *    it is closed and is not necessarily faster as the log also buffers writes (default true).</li>
+ *    <li><b>syncOnCommit</b> - True to sync the file to disk on every commit (default true).</li>
+ * </ul>
+ * <p>
+ * Note that the durability settings are applied when the database file is first opened in the JVM and are shared by
+ * all handles to the same file.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+@Value
+@Builder(toBuilder = true)
+public class CommitPolicy implements Serializable {
+   private static final long serialVersionUID = 1L;
+   /**
+    * The default policy, which commits on every request and compacts when half of the store is free space.
+    */
+   public static final CommitPolicy DEFAULT = builder().build();
+   int commitEvery;
+   long commitIntervalMillis;
+   double compactionThreshold;
+   boolean writeAheadLog;
+   boolean syncOnCommit;
+
+   /**
+    * Creates a builder initialized with the default settings
+    *
+    * @return the builder
+    */
+   public static CommitPolicyBuilder builder() {
+      return new CommitPolicyBuilder().commitEvery(1)
+                                      .commitIntervalMillis(0)
+                                      .compactionThreshold(0.5)
+                                      .writeAheadLog(true)
+                                      .syncOnCommit(true);
+   }
+
+}//END OF CommitPolicy
@@ -48,6 +48,8 @@ import java.util.Set;
  *                   .build();
  * }
  * </pre>
+ * <p>An optional {@link CommitPolicy} can be given to the builder to group commits, control when the file is
+ * compacted, and trade durability for write throughput.</p>
  * <p>Once an DiskMap instance is constructed it acts like regular Java Map.</p>
  *
  * @param <K> the key type parameter
@@ -64,9 +66,17 @@ public class DiskMap<K, V> implements Map<K, V>, AutoCloseable, Serializable {
 
 
    @Builder
-   private DiskMap(@NonNull Resource file, String namespace, boolean compressed, boolean readOnly) {
+   private DiskMap(@NonNull Resource file,
+                 String namespace,
+                 boolean compressed,
+                 boolean readOnly,
+                 CommitPolicy commitPolicy) {
       this.nameSpace = Validation.notNullOrBlank(namespace);
-      this.handle = ResourceMonitor.monitor(new MapDBHandle(file, compressed));
+      this.handle = ResourceMonitor.monitor(new MapDBHandle(file,
+                                                            compressed,
+                                                            commitPolicy == null
+                                                            ? CommitPolicy.DEFAULT
+                                                            : commitPolicy));
       this.readOnly = readOnly;
    }
 
@@ -81,12 +91,19 @@ public class DiskMap<K, V> implements Map<K, V>, AutoCloseable, Serializable {
    }
 
    /**
-    * Commits any changes made to disk.
+    * Commits any changes made to disk according to the {@link CommitPolicy} the collection was built with.
     */
    public void commit() {
       handle.object.commit();
    }
 
+   /**
+    * Compacts the underlying store, reclaiming the space of deleted and overwritten records.
+    */
+   public void compact() {
+      handle.object.compact();
+   }
+
    @Override
    public boolean containsKey(Object o) {
       return delegate().containsKey(o);
@@ -47,6 +47,8 @@ import java.util.Queue;
  *                   .build();
  * }
  * </pre>
+ * <p>An optional {@link CommitPolicy} can be given to the builder to group commits, control when the file is
+ * compacted, and trade durability for write throughput.</p>
  * <p>Once an DiskQueue instance is constructed it acts like regular Java Queue.</p>
  *
  * @param <E> the element type parameter
@@ -61,9 +63,17 @@ public class DiskQueue<E> implements Queue<E>, Serializable, AutoCloseable {
    private volatile transient Queue<E> queue;
 
    @Builder
-   private DiskQueue(@NonNull Resource file, String namespace, boolean compressed, boolean readOnly) {
+   private DiskQueue(@NonNull Resource file,
+                   String namespace,
+                   boolean compressed,
+                   boolean readOnly,
+                   CommitPolicy commitPolicy) {
       this.nameSpace = Validation.notNullOrBlank(namespace);
-      this.handle = ResourceMonitor.monitor(new MapDBHandle(file, compressed));
+      this.handle = ResourceMonitor.monitor(new MapDBHandle(file,
+                                                            compressed,
+                                                            commitPolicy == null
+                                                            ? CommitPolicy.DEFAULT
+                                                            : commitPolicy));
       this.readOnly = readOnly;
    }
 
@@ -97,12 +107,19 @@ public class DiskQueue<E> implements Queue<E>, Serializable, AutoCloseable {
    }
 
    /**
-    * Commit.
+    * Commits any changes made to disk according to the {@link CommitPolicy} the collection was built with.
     */
    public void commit() {
       handle.object.commit();
    }
 
+   /**
+    * Compacts the underlying store, reclaiming the space of deleted and overwritten records.
+    */
+   public void compact() {
+      handle.object.compact();
+   }
+
    @Override
    public boolean contains(Object o) {
       return delegate().contains(o);
@@ -23,10 +23,12 @@ import com.gengoai.function.Unchecked;
 import com.gengoai.io.Resources;
 import com.gengoai.io.resource.Resource;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.java.Log;
 import org.mapdb.Atomic;
 import org.mapdb.DB;
+import org.mapdb.Store;
 
 import java.io.File;
 import java.io.Serializable;
@@ -42,15 +44,31 @@ public final class MapDBHandle implements Serializable, AutoCloseable {
    private static final long serialVersionUID = 1L;
    private final boolean compressed;
    private final File file;
+   @Getter
+   private final CommitPolicy commitPolicy;
    private volatile transient DB store;
+   private transient int pendingCommits = 0;
+   private transient long lastCommit = System.currentTimeMillis();
 
    /**
-    * Instantiates a new MapDBHandle.
+    * Instantiates a new MapDBHandle using the {@link CommitPolicy#DEFAULT} commit policy.
     *
     * @param resource   the file containing the MapDB
     * @param compressed True if compression is used
     */
    public MapDBHandle(@NonNull Resource resource, boolean compressed) {
+      this(resource, compressed, CommitPolicy.DEFAULT);
+   }
+
+   /**
+    * Instantiates a new MapDBHandle.
+    *
+    * @param resource     the file containing the MapDB
+    * @param compressed   True if compression is used
+    * @param commitPolicy the policy determining when changes are committed and the store compacted
+    */
+   public MapDBHandle(@NonNull Resource resource, boolean compressed, @NonNull CommitPolicy commitPolicy) {
+      this.commitPolicy = commitPolicy;
       this.file = resource.asFile()
                           .orElseGet(Unchecked.supplier(() -> {
                              Resource tempDir = Resources.temporaryDirectory();
@@ -68,14 +86,48 @@ public final class MapDBHandle implements Serializable, AutoCloseable {
 
    @Override
    public void close() throws Exception {
+      synchronized (this) {
+         if (pendingCommits > 0 && !isClosed()) {
+            commitNow();
+         }
+      }
       MapDBRegistry.close(file);
    }
 
    /**
-    * Commits changes made to the database
+    * Requests that changes made to the database be committed. Requests are grouped according to the handle's {@link
+    * CommitPolicy}, with pending requests written when the handle is closed.
+    */
+   public synchronized void commit() {
+      pendingCommits++;
+      if (pendingCommits >= commitPolicy.getCommitEvery() ||
+            (commitPolicy.getCommitIntervalMillis() > 0 &&
+                  System.currentTimeMillis() - lastCommit >= commitPolicy.getCommitIntervalMillis())) {
+         commitNow();
+      }
+   }
+
+   /**
+    * Commits changes made to the database regardless of the commit policy and compacts the store if its free space
+    * exceeds the policy's compaction threshold.
+    */
+   public synchronized void commitNow() {
+      getStore().commit();
+      pendingCommits = 0;
+      lastCommit = System.currentTimeMillis();
+      if (getFreeSpaceRatio() >= commitPolicy.getCompactionThreshold()) {
+         logFine(log, "Compacting {0}", file);
+         getStore().compact();
+      }
+   }
+
+   /**
+    * Commits any outstanding changes and compacts the database, reclaiming the space of deleted and overwritten
+    * records.
     */
-   public void commit() {
+   public synchronized void compact() {
       getStore().commit();
+      pendingCommits = 0;
       getStore().compact();
    }
 
@@ -121,6 +173,23 @@ public final class MapDBHandle implements Serializable, AutoCloseable {
       return getStore().getAtomicLong(name);
    }
 
+   /**
+    * Gets the fraction of the database file that is free space, i.e. the space that would be reclaimed by compaction.
+    *
+    * @return the free space ratio or 0 if it cannot be determined
+    */
+   public double getFreeSpaceRatio() {
+      try {
+         Store engine = Store.forDB(getStore());
+         long size = engine.getCurrSize();
+         return size <= 0
+                ? 0
+                : (double) engine.getFreeSize() / size;
+      } catch (RuntimeException e) {
+         return 0;
+      }
+   }
+
    /**
     * Gets the database store object
     *
@@ -130,7 +199,7 @@ public final class MapDBHandle implements Serializable, AutoCloseable {
       if (store == null || store.isClosed()) {
          synchronized (this) {
             if (store == null || store.isClosed()) {
-               store = MapDBRegistry.get(file, compressed);
+               store = MapDBRegistry.get(file, compressed, commitPolicy);
             }
          }
       }
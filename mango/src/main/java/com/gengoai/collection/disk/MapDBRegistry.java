@@ -56,11 +56,17 @@ final class MapDBRegistry {
       return false;
    }
 
-   public static DB get(@NonNull File databaseFile, boolean compressed) {
+   public static DB get(@NonNull File databaseFile, boolean compressed, @NonNull CommitPolicy commitPolicy) {
       final DBMaker builder = DBMaker.newFileDB(databaseFile);
       if (compressed) {
          builder.compressionEnable();
       }
+      if (!commitPolicy.isWriteAheadLog()) {
+         builder.transactionDisable();
+      }
+      if (!commitPolicy.isSyncOnCommit()) {
+         builder.commitFileSyncDisable();
+      }
       lock.lock();
       try {
          stores.computeIfAbsent(databaseFile, f -> builder.make());
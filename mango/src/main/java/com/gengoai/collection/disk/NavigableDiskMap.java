@@ -44,6 +44,8 @@ import java.util.*;
  *                   .build();
  * }
  * </pre>
+ * <p>An optional {@link CommitPolicy} can be given to the builder to group commits, control when the file is
+ * compacted, and trade durability for write throughput.</p>
  * <p>Once an NavigableDiskMap instance is constructed it acts like regular Java NavigableMap.</p>
  *
  * @param <K> the key type parameter
@@ -60,9 +62,17 @@ public final class NavigableDiskMap<K, V> implements NavigableMap<K, V>, Seriali
 
 
    @Builder
-   private NavigableDiskMap(@NonNull Resource file, String namespace, boolean compressed, boolean readOnly) {
+   private NavigableDiskMap(@NonNull Resource file,
+                          String namespace,
+                          boolean compressed,
+                          boolean readOnly,
+                          CommitPolicy commitPolicy) {
       this.nameSpace = Validation.notNullOrBlank(namespace);
-      this.handle = ResourceMonitor.monitor(new MapDBHandle(file, compressed));
+      this.handle = ResourceMonitor.monitor(new MapDBHandle(file,
+                                                            compressed,
+                                                            commitPolicy == null
+                                                            ? CommitPolicy.DEFAULT
+                                                            : commitPolicy));
       this.readOnly = readOnly;
    }
 
@@ -87,12 +97,19 @@ public final class NavigableDiskMap<K, V> implements NavigableMap<K, V>, Seriali
    }
 
    /**
-    * Commit.
+    * Commits any changes made to disk according to the {@link CommitPolicy} the collection was built with.
     */
    public void commit() {
       handle.object.commit();
    }
 
+   /**
+    * Compacts the underlying store, reclaiming the space of deleted and overwritten records.
+    */
+   public void compact() {
+      handle.object.compact();
+   }
+
    @Override
    public Comparator<? super K> comparator() {
       return delegate().comparator();
@@ -5,7 +5,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.gengoai.collection.Lists;
-import com.gengoai.collection.Sets;
 import com.gengoai.conversion.Cast;
 import com.gengoai.stream.Streams;
 import lombok.NonNull;
@@ -447,6 +446,98 @@ public class IntervalTree<T extends Span> implements Collection<T>, Serializable
       }
    }
 
+   /**
+    * Set of the items sharing the span of a node. Nodes rarely have more than a few items, so the items are kept in an
+    * array and searched linearly, which is far more compact than a hash set per node.
+    */
+   private static class ItemSet<T> extends AbstractSet<T> implements Serializable {
+      private static final long serialVersionUID = 1L;
+      private Object[] items;
+      private int size;
+
+      private ItemSet(T item) {
+         this.items = new Object[]{item};
+         this.size = 1;
+      }
+
+      @Override
+      public boolean add(T item) {
+         if(contains(item)) {
+            return false;
+         }
+         if(size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+         }
+         items[size++] = item;
+         return true;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return indexOf(o) >= 0;
+      }
+
+      private int indexOf(Object o) {
+         for(int i = 0; i < size; i++) {
+            if(Objects.equals(items[i], o)) {
+               return i;
+            }
+         }
+         return -1;
+      }
+
+      @Override
+      public Iterator<T> iterator() {
+         return new Iterator<>() {
+            private int index = 0;
+            private boolean canRemove = false;
+
+            @Override
+            public boolean hasNext() {
+               return index < size;
+            }
+
+            @Override
+            public T next() {
+               if(!hasNext()) {
+                  throw new NoSuchElementException();
+               }
+               canRemove = true;
+               return Cast.as(items[index++]);
+            }
+
+            @Override
+            public void remove() {
+               if(!canRemove) {
+                  throw new IllegalStateException();
+               }
+               removeAt(--index);
+               canRemove = false;
+            }
+         };
+      }
+
+      @Override
+      public boolean remove(Object o) {
+         int index = indexOf(o);
+         if(index < 0) {
+            return false;
+         }
+         removeAt(index);
+         return true;
+      }
+
+      private void removeAt(int index) {
+         System.arraycopy(items, index + 1, items, index, size - index - 1);
+         items[--size] = null;
+      }
+
+      @Override
+      public int size() {
+         return size;
+      }
+   }
+
    private class Node extends SimpleSpan implements Serializable, Iterable<T> {
       private static final long serialVersionUID = 1L;
       private boolean color;
@@ -468,7 +559,7 @@ public class IntervalTree<T extends Span> implements Collection<T>, Serializable
       private Node(T span) {
          super(span.start(), span.end());
          this.color = RED;
-         this.items = Sets.hashSetOf(span);
+         this.items = new ItemSet<>(span);
          this.max = span.end();
       }
 
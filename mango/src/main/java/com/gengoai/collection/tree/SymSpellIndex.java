@@ -0,0 +1,452 @@
+package com.gengoai.collection.tree;
+
+import com.gengoai.Validation;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>A precomputed fuzzy index based on the <a href="https://github.com/wolfgarbe/SymSpell">symmetric delete</a>
+ * algorithm for finding all keys within a bounded Levenshtein distance of a query. At index time, every key has all
+ * variants that can be created by deleting up to <code>maxDistance</code> symbols from its first
+ * <code>prefixLength</code> symbols added to a hash table. At query time the same deletes are generated for the query
+ * and each key sharing a delete is verified using a bounded edit distance. Only the deletes of the query need to be
+ * generated, which makes lookups independent of the size of the alphabet.</p>
+ *
+ * <p>Keys are treated as sequences of symbols, which allows the index to be used both for character-level
+ * suggestions, see {@link #forStrings(int)}, and token-level phrase matching, see {@link #forTokens(int)}. The index
+ * is not thread safe for concurrent modification.</p>
+ *
+ * @param <K> the key type
+ * @author David B. Bracewell
+ */
+public abstract class SymSpellIndex<K> implements Serializable {
+   /**
+    * The default number of leading symbols of a key that deletes are generated for.
+    */
+   public static final int DEFAULT_PREFIX_LENGTH = 7;
+   private static final long serialVersionUID = 1L;
+   private final int maxDistance;
+   private final int prefixLength;
+   private final Map<K, Integer> ids = new HashMap<>();
+   private final List<K> keys = new ArrayList<>();
+   private final List<int[]> sequences = new ArrayList<>();
+   private final DeleteTable deletes = new DeleteTable();
+
+   /**
+    * Instantiates a new SymSpellIndex.
+    *
+    * @param maxDistance  the maximum edit distance supported by lookups
+    * @param prefixLength the number of leading symbols of a key that deletes are generated for
+    */
+   protected SymSpellIndex(int maxDistance, int prefixLength) {
+      Validation.checkArgument(maxDistance >= 0, "Maximum distance must be >= 0");
+      Validation.checkArgument(prefixLength > maxDistance, "Prefix length must be > maximum distance");
+      this.maxDistance = maxDistance;
+      this.prefixLength = prefixLength;
+   }
+
+   /**
+    * Creates an index for character-level lookups over strings using the {@link #DEFAULT_PREFIX_LENGTH}.
+    *
+    * @param maxDistance the maximum edit distance supported by lookups
+    * @return the index
+    */
+   public static SymSpellIndex<String> forStrings(int maxDistance) {
+      return forStrings(maxDistance, Math.max(DEFAULT_PREFIX_LENGTH, maxDistance + 1));
+   }
+
+   /**
+    * Creates an index for character-level lookups over strings.
+    *
+    * @param maxDistance  the maximum edit distance supported by lookups
+    * @param prefixLength the number of leading characters of a key that deletes are generated for
+    * @return the index
+    */
+   public static SymSpellIndex<String> forStrings(int maxDistance, int prefixLength) {
+      return new StringIndex(maxDistance, prefixLength);
+   }
+
+   /**
+    * Creates an index for token-level lookups over phrases, i.e. lists of tokens, using the {@link
+    * #DEFAULT_PREFIX_LENGTH}.
+    *
+    * @param maxDistance the maximum edit distance (in tokens) supported by lookups
+    * @return the index
+    */
+   public static SymSpellIndex<List<String>> forTokens(int maxDistance) {
+      return forTokens(maxDistance, Math.max(DEFAULT_PREFIX_LENGTH, maxDistance + 1));
+   }
+
+   /**
+    * Creates an index for token-level lookups over phrases, i.e. lists of tokens.
+    *
+    * @param maxDistance  the maximum edit distance (in tokens) supported by lookups
+    * @param prefixLength the number of leading tokens of a key that deletes are generated for
+    * @return the index
+    */
+   public static SymSpellIndex<List<String>> forTokens(int maxDistance, int prefixLength) {
+      return new TokenIndex(maxDistance, prefixLength);
+   }
+
+   private static long hash(int[] sequence, int length, int[] skip, int numSkip) {
+      long h = 0xcbf29ce484222325L;
+      int s = 0;
+      for(int i = 0; i < length; i++) {
+         if(s < numSkip && skip[s] == i) {
+            s++;
+            continue;
+         }
+         h ^= sequence[i];
+         h *= 0x100000001b3L;
+      }
+      h ^= (h >>> 33);
+      h *= 0xff51afd7ed558ccdL;
+      h ^= (h >>> 33);
+      return h;
+   }
+
+   /**
+    * Calculates the Levenshtein distance between the two sequences stopping early when it is guaranteed to be greater
+    * than the given maximum.
+    *
+    * @param s1  the first sequence
+    * @param s2  the second sequence
+    * @param max the maximum distance of interest
+    * @return the distance or <code>max + 1</code> if the distance is greater than the maximum
+    */
+   static int distance(int[] s1, int[] s2, int max) {
+      if(Math.abs(s1.length - s2.length) > max) {
+         return max + 1;
+      }
+      int[] previous = new int[s2.length + 1];
+      int[] current = new int[s2.length + 1];
+      for(int j = 0; j < previous.length; j++) {
+         previous[j] = j;
+      }
+      for(int i = 1; i <= s1.length; i++) {
+         current[0] = i;
+         int rowMin = i;
+         for(int j = 1; j <= s2.length; j++) {
+            int cost = s1[i - 1] == s2[j - 1]
+                       ? 0
+                       : 1;
+            current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            rowMin = Math.min(rowMin, current[j]);
+         }
+         if(rowMin > max) {
+            return max + 1;
+         }
+         int[] tmp = previous;
+         previous = current;
+         current = tmp;
+      }
+      return Math.min(previous[s2.length], max + 1);
+   }
+
+   /**
+    * Adds the given key to the index.
+    *
+    * @param key the key
+    * @return True if the key was added, False if it was already in the index
+    */
+   public boolean add(@NonNull K key) {
+      if(ids.containsKey(key)) {
+         return false;
+      }
+      K copy = copy(key);
+      int id = keys.size();
+      int[] sequence = encode(copy, true);
+      ids.put(copy, id);
+      keys.add(copy);
+      sequences.add(sequence);
+      for(long h : variants(sequence, maxDistance)) {
+         deletes.put(h, id);
+      }
+      return true;
+   }
+
+   /**
+    * Adds all the given keys to the index
+    *
+    * @param keys the keys
+    */
+   public void addAll(@NonNull Iterable<? extends K> keys) {
+      keys.forEach(this::add);
+   }
+
+   /**
+    * Checks if the given key is in the index
+    *
+    * @param key the key
+    * @return True if the key is in the index
+    */
+   public boolean contains(K key) {
+      return key != null && ids.containsKey(key);
+   }
+
+   /**
+    * Copies the key before it is stored so that later modification of mutable keys does not corrupt the index.
+    *
+    * @param key the key
+    * @return the copy
+    */
+   protected abstract K copy(K key);
+
+   private long[] variants(int[] sequence, int distance) {
+      int length = Math.min(sequence.length, prefixLength);
+      LongList out = new LongList();
+      generate(sequence, length, 0, Math.min(distance, length), new int[distance], 0, out);
+      return out.sortedUnique();
+   }
+
+   /**
+    * Encodes the given key as a sequence of integer symbols.
+    *
+    * @param key    the key
+    * @param extend True if previously unseen symbols should be assigned a new id, False if they should be mapped to
+    *               an id that cannot match any indexed symbol.
+    * @return the encoded key
+    */
+   protected abstract int[] encode(K key, boolean extend);
+
+   private void generate(int[] sequence, int length, int start, int remaining, int[] skip, int numSkip, LongList out) {
+      out.add(hash(sequence, length, skip, numSkip));
+      if(remaining == 0) {
+         return;
+      }
+      for(int i = start; i < length; i++) {
+         skip[numSkip] = i;
+         generate(sequence, length, i + 1, remaining - 1, skip, numSkip + 1, out);
+      }
+   }
+
+   /**
+    * Gets the maximum edit distance supported by lookups.
+    *
+    * @return the maximum distance
+    */
+   public int getMaxDistance() {
+      return maxDistance;
+   }
+
+   /**
+    * Finds all keys within the maximum distance of the index of the given query.
+    *
+    * @param query the query
+    * @return map of key to edit distance
+    */
+   public Map<K, Integer> lookup(@NonNull K query) {
+      return lookup(query, maxDistance);
+   }
+
+   /**
+    * Finds all keys within the given maximum distance of the given query.
+    *
+    * @param query       the query
+    * @param maxDistance the maximum edit distance, which must be less than or equal to the maximum distance of the
+    *                    index.
+    * @return map of key to edit distance
+    */
+   public Map<K, Integer> lookup(@NonNull K query, int maxDistance) {
+      Validation.checkArgument(maxDistance >= 0 && maxDistance <= this.maxDistance,
+                               () -> "Distance must be in [0, " + this.maxDistance + "], but was " + maxDistance);
+      Map<K, Integer> results = new HashMap<>();
+      if(ids.isEmpty()) {
+         return results;
+      }
+      int[] sequence = encode(query, false);
+      Set<Integer> seen = new HashSet<>();
+      for(long h : variants(sequence, maxDistance)) {
+         for(int p = deletes.head(h); p >= 0; p = deletes.next(p)) {
+            int id = deletes.id(p);
+            int[] candidate = sequences.get(id);
+            if(candidate == null || !seen.add(id)) {
+               continue;
+            }
+            int d = distance(sequence, candidate, maxDistance);
+            if(d <= maxDistance) {
+               results.put(keys.get(id), d);
+            }
+         }
+      }
+      return results;
+   }
+
+   /**
+    * Removes the given key from the index.
+    *
+    * @param key the key
+    * @return True if the key was removed, False if it was not in the index
+    */
+   public boolean remove(Object key) {
+      Integer id = key == null
+                   ? null
+                   : ids.remove(key);
+      if(id == null) {
+         return false;
+      }
+      //Deletes of removed keys stay in the table and are skipped during lookup
+      keys.set(id, null);
+      sequences.set(id, null);
+      return true;
+   }
+
+   /**
+    * The number of keys in the index
+    *
+    * @return the number of keys
+    */
+   public int size() {
+      return ids.size();
+   }
+
+   private static class StringIndex extends SymSpellIndex<String> {
+      private static final long serialVersionUID = 1L;
+
+      private StringIndex(int maxDistance, int prefixLength) {
+         super(maxDistance, prefixLength);
+      }
+
+      @Override
+      protected String copy(String key) {
+         return key;
+      }
+
+      @Override
+      protected int[] encode(String key, boolean extend) {
+         int[] sequence = new int[key.length()];
+         for(int i = 0; i < sequence.length; i++) {
+            sequence[i] = key.charAt(i);
+         }
+         return sequence;
+      }
+   }
+
+   private static class TokenIndex extends SymSpellIndex<List<String>> {
+      private static final long serialVersionUID = 1L;
+      private final Map<String, Integer> vocabulary = new HashMap<>();
+
+      private TokenIndex(int maxDistance, int prefixLength) {
+         super(maxDistance, prefixLength);
+      }
+
+      @Override
+      protected List<String> copy(List<String> key) {
+         return Collections.unmodifiableList(new ArrayList<>(key));
+      }
+
+      @Override
+      protected int[] encode(List<String> key, boolean extend) {
+         int[] sequence = new int[key.size()];
+         for(int i = 0; i < sequence.length; i++) {
+            String token = key.get(i);
+            Integer id = extend
+                         ? vocabulary.computeIfAbsent(token, t -> vocabulary.size())
+                         : vocabulary.get(token);
+            sequence[i] = id == null
+                          ? -1
+                          : id;
+         }
+         return sequence;
+      }
+   }
+
+   /**
+    * Open addressing hash table from the hash of a delete to a linked list of the ids of the keys that generate it.
+    */
+   private static class DeleteTable implements Serializable {
+      private static final long serialVersionUID = 1L;
+      private long[] hashes = new long[16];
+      private int[] heads = new int[16];
+      private int[] postingIds = new int[16];
+      private int[] postingNext = new int[16];
+      private int numHashes = 0;
+      private int numPostings = 0;
+
+      private DeleteTable() {
+         Arrays.fill(heads, -1);
+      }
+
+      private int head(long hash) {
+         int slot = slot(hashes, heads, hash);
+         return heads[slot];
+      }
+
+      private int id(int posting) {
+         return postingIds[posting];
+      }
+
+      private int next(int posting) {
+         return postingNext[posting];
+      }
+
+      private void put(long hash, int id) {
+         if(numPostings == postingIds.length) {
+            postingIds = Arrays.copyOf(postingIds, postingIds.length * 2);
+            postingNext = Arrays.copyOf(postingNext, postingNext.length * 2);
+         }
+         if((numHashes + 1) * 2 > hashes.length) {
+            rehash();
+         }
+         int slot = slot(hashes, heads, hash);
+         if(heads[slot] == -1) {
+            hashes[slot] = hash;
+            numHashes++;
+         }
+         postingIds[numPostings] = id;
+         postingNext[numPostings] = heads[slot];
+         heads[slot] = numPostings;
+         numPostings++;
+      }
+
+      private void rehash() {
+         long[] newHashes = new long[hashes.length * 2];
+         int[] newHeads = new int[heads.length * 2];
+         Arrays.fill(newHeads, -1);
+         for(int i = 0; i < hashes.length; i++) {
+            if(heads[i] != -1) {
+               int slot = slot(newHashes, newHeads, hashes[i]);
+               newHashes[slot] = hashes[i];
+               newHeads[slot] = heads[i];
+            }
+         }
+         hashes = newHashes;
+         heads = newHeads;
+      }
+
+      private static int slot(long[] hashes, int[] heads, long hash) {
+         int mask = hashes.length - 1;
+         int slot = (int) hash & mask;
+         while(heads[slot] != -1 && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+         }
+         return slot;
+      }
+   }
+
+   private static class LongList {
+      private long[] values = new long[32];
+      private int size = 0;
+
+      private void add(long value) {
+         if(size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+         }
+         values[size++] = value;
+      }
+
+      private long[] sortedUnique() {
+         Arrays.sort(values, 0, size);
+         int n = 0;
+         for(int i = 0; i < size; i++) {
+            if(n == 0 || values[n - 1] != values[i]) {
+               values[n++] = values[i];
+            }
+         }
+         return Arrays.copyOf(values, n);
+      }
+   }
+
+}//END OF SymSpellIndex
@@ -2,6 +2,7 @@ package com.gengoai.collection.tree;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.gengoai.Validation;
 import com.gengoai.collection.Iterators;
 import com.gengoai.collection.Maps;
 import com.gengoai.conversion.Cast;
@@ -23,12 +24,17 @@ import static com.gengoai.tuple.Tuples.$;
  * <p>Note that views of the trie, i.e. keySet(), values(), entrySet(), and the resulting map from prefix(), are
  * unmodifiable.</p>
  *
+ * <p>Like {@link HashMap}, a trie is not thread safe. It can be read by multiple threads at once, but calls to
+ * {@link #put(String, Object)}, {@link #remove(Object)}, {@link #clear()} and {@link #indexSuggestions(int)} must not
+ * happen concurrently with other access to the trie.</p>
+ *
  * @param <V> the value type of the trie.
  * @author David B. Bracewell
  */
 public class Trie<V> implements Serializable, Map<String, V> {
    private static final long serialVersionUID = 1L;
    private final TrieNode<V> root;
+   private transient SymSpellIndex<String> fuzzyIndex;
 
    /**
     * Instantiates a new Trie.
@@ -60,6 +66,7 @@ public class Trie<V> implements Serializable, Map<String, V> {
       root.matches = null;
       root.value = null;
       root.prune();
+      fuzzyIndex = null;
    }
 
    @Override
@@ -256,8 +263,29 @@ public class Trie<V> implements Serializable, Map<String, V> {
       return Iterators.transform(Iterators.unmodifiableIterator(new EntryIterator<>(match)), Entry::getKey);
    }
 
+   /**
+    * Indexes the keys of the trie so that calls to {@link #suggest(String, int)} with a max cost of at most the given
+    * max cost (and a substitution cost of <code>1</code>) are answered using a {@link SymSpellIndex} instead of
+    * searching the trie. The index is kept up to date as keys are added and removed. Note that the index stores every
+    * deletion of up to max cost characters of each key, which for a max cost of three is on the order of 64 entries
+    * per key.
+    *
+    * @param maxCost the maximum cost of suggestions to index
+    * @return this trie
+    */
+   public Trie<V> indexSuggestions(int maxCost) {
+      Validation.checkArgument(maxCost >= 0, "Max cost must be >= 0");
+      SymSpellIndex<String> index = SymSpellIndex.forStrings(maxCost);
+      index.addAll(keySet());
+      fuzzyIndex = index;
+      return this;
+   }
+
    @Override
    public V put(String key, V value) {
+      if(fuzzyIndex != null) {
+         fuzzyIndex.add(key);
+      }
       return root.extend(key.toCharArray(), 0, value);
    }
 
@@ -281,6 +309,9 @@ public class Trie<V> implements Serializable, Map<String, V> {
             node.size--;
          }
          node.prune();
+         if(fuzzyIndex != null) {
+            fuzzyIndex.remove(key);
+         }
       }
       return value;
    }
@@ -349,7 +380,9 @@ public class Trie<V> implements Serializable, Map<String, V> {
    }
 
    /**
-    * Suggest map.
+    * Suggest map. When the substitution cost is <code>1</code> and the keys have been indexed for at least the max
+    * cost (see {@link #indexSuggestions(int)}) the suggestions are found using the index instead of searching the
+    * trie.
     *
     * @param string           the string
     * @param maxCost          the max cost
@@ -362,6 +395,9 @@ public class Trie<V> implements Serializable, Map<String, V> {
       } else if(containsKey(string)) {
          return Maps.hashMapOf($(string, 0));
       }
+      if(fuzzyIndex != null && substitutionCost == 1 && maxCost >= 0 && maxCost <= fuzzyIndex.getMaxDistance()) {
+         return fuzzyIndex.lookup(string, maxCost);
+      }
       Map<String, Integer> results = new HashMap<>();
       int[] current = new int[string.length() + 1];
       for(int i = 0; i < current.length; i++) {
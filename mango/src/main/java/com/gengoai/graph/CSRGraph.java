@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.graph;
+
+import com.gengoai.collection.HashMapIndex;
+import com.gengoai.collection.Index;
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An immutable graph stored in compressed sparse row (CSR) format. Vertices are assigned consecutive integer ids
+ * (in the order they are added) and edges are stored as flat arrays of integer vertex ids and float weights, which
+ * makes the graph cheap to traverse for iterative algorithms, such as {@link com.gengoai.graph.scoring.PageRank},
+ * that would otherwise spend most of their time hashing vertex objects.
+ * </p>
+ * <p>
+ * Both the outgoing and incoming edges of each vertex are stored sorted by the id of the vertex on the other end of
+ * the edge. The out edges of vertex <code>v</code> are those with edge index in <code>[outEdgeStart(v),
+ * outEdgeEnd(v))</code> and the in edges those with edge index in <code>[inEdgeStart(v), inEdgeEnd(v))</code>.
+ * Undirected edges are stored in both directions (self loops are stored once) so that for an undirected graph the
+ * in and out edges of a vertex are the same.
+ * </p>
+ * <p>
+ * A CSRGraph can be created as a snapshot of any {@link Graph} using {@link #from(Graph)} or directly using a {@link
+ * Builder}.
+ * </p>
+ *
+ * @param <V> the vertex type
+ * @author David B. Bracewell
+ */
+public final class CSRGraph<V> implements Serializable {
+   private static final long serialVersionUID = 1L;
+   private final Index<V> vertices;
+   private final boolean directed;
+   private final int numberOfEdges;
+   private final int[] outOffsets;
+   private final int[] outTargets;
+   private final float[] outWeights;
+   private final double[] outWeightSums;
+   private final int[] inOffsets;
+   private final int[] inSources;
+   private final float[] inWeights;
+
+   private CSRGraph(Index<V> vertices,
+                    boolean directed,
+                    int[] outOffsets,
+                    int[] outTargets,
+                    float[] outWeights) {
+      this.vertices = vertices;
+      this.directed = directed;
+      this.outOffsets = outOffsets;
+      this.outTargets = outTargets;
+      this.outWeights = outWeights;
+      final int n = vertices.size();
+      this.outWeightSums = new double[n];
+      int selfLoops = 0;
+      for(int v = 0; v < n; v++) {
+         for(int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+            outWeightSums[v] += outWeights[e];
+            if(outTargets[e] == v) {
+               selfLoops++;
+            }
+         }
+      }
+      if(directed) {
+         this.numberOfEdges = outTargets.length;
+         //Transpose the out edges, iterating over sources in order keeps the in edges sorted by source
+         this.inOffsets = new int[n + 1];
+         for(int target : outTargets) {
+            inOffsets[target + 1]++;
+         }
+         for(int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+         }
+         this.inSources = new int[outTargets.length];
+         this.inWeights = new float[outTargets.length];
+         int[] next = Arrays.copyOf(inOffsets, n);
+         for(int v = 0; v < n; v++) {
+            for(int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+               int i = next[outTargets[e]]++;
+               inSources[i] = v;
+               inWeights[i] = outWeights[e];
+            }
+         }
+      } else {
+         this.numberOfEdges = (outTargets.length + selfLoops) / 2;
+         this.inOffsets = outOffsets;
+         this.inSources = outTargets;
+         this.inWeights = outWeights;
+      }
+   }
+
+   /**
+    * Creates a new builder for constructing a CSRGraph
+    *
+    * @param <V>      the vertex type
+    * @param directed True if the graph is directed, False if undirected
+    * @return the builder
+    */
+   public static <V> Builder<V> builder(boolean directed) {
+      return new Builder<>(directed);
+   }
+
+   /**
+    * Creates a CSRGraph that is a snapshot of the vertices and edges in the given graph. Vertex ids are assigned in
+    * the iteration order of the graph's vertices.
+    *
+    * @param <V>   the vertex type
+    * @param graph the graph to convert
+    * @return the CSRGraph
+    */
+   public static <V> CSRGraph<V> from(@NonNull Graph<V> graph) {
+      Builder<V> builder = new Builder<>(graph.isDirected());
+      for(V vertex : graph.vertices()) {
+         builder.addVertex(vertex);
+      }
+      for(V vertex : graph.vertices()) {
+         int source = builder.vertices.getId(vertex);
+         //The out edges of an undirected graph already include the edge from both of its vertices
+         for(Edge<V> edge : graph.getOutEdges(vertex)) {
+            builder.addArc(source, builder.vertices.getId(edge.getOppositeVertex(vertex)), (float) edge.getWeight());
+         }
+      }
+      return builder.build();
+   }
+
+   /**
+    * Checks if the given vertex is in the graph
+    *
+    * @param vertex the vertex
+    * @return True if the vertex is in the graph, False otherwise
+    */
+   public boolean containsVertex(V vertex) {
+      return vertices.contains(vertex);
+   }
+
+   /**
+    * Gets the id of the given vertex.
+    *
+    * @param vertex the vertex
+    * @return the id of the vertex or -1 if the vertex is not in the graph
+    */
+   public int id(V vertex) {
+      return vertices.getId(vertex);
+   }
+
+   /**
+    * Gets the index of the first incoming edge of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the index of the first incoming edge
+    */
+   public int inEdgeStart(int vertex) {
+      return inOffsets[vertex];
+   }
+
+   /**
+    * Gets the index one past the last incoming edge of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the index one past the last incoming edge
+    */
+   public int inEdgeEnd(int vertex) {
+      return inOffsets[vertex + 1];
+   }
+
+   /**
+    * Gets the id of the source vertex of the incoming edge with the given index
+    *
+    * @param edge the edge index
+    * @return the source vertex id
+    */
+   public int inEdgeSource(int edge) {
+      return inSources[edge];
+   }
+
+   /**
+    * Gets the weight of the incoming edge with the given index
+    *
+    * @param edge the edge index
+    * @return the edge weight
+    */
+   public float inEdgeWeight(int edge) {
+      return inWeights[edge];
+   }
+
+   /**
+    * Gets the number of incoming edges of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the in degree
+    */
+   public int inDegree(int vertex) {
+      return inOffsets[vertex + 1] - inOffsets[vertex];
+   }
+
+   /**
+    * @return True if the graph is directed, False if undirected
+    */
+   public boolean isDirected() {
+      return directed;
+   }
+
+   /**
+    * @return the number of edges in the graph, where undirected edges are counted once
+    */
+   public int numberOfEdges() {
+      return numberOfEdges;
+   }
+
+   /**
+    * @return the number of vertices in the graph
+    */
+   public int numberOfVertices() {
+      return vertices.size();
+   }
+
+   /**
+    * Gets the number of outgoing edges of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the out degree
+    */
+   public int outDegree(int vertex) {
+      return outOffsets[vertex + 1] - outOffsets[vertex];
+   }
+
+   /**
+    * Gets the index of the first outgoing edge of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the index of the first outgoing edge
+    */
+   public int outEdgeStart(int vertex) {
+      return outOffsets[vertex];
+   }
+
+   /**
+    * Gets the index one past the last outgoing edge of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the index one past the last outgoing edge
+    */
+   public int outEdgeEnd(int vertex) {
+      return outOffsets[vertex + 1];
+   }
+
+   /**
+    * Gets the id of the target vertex of the outgoing edge with the given index
+    *
+    * @param edge the edge index
+    * @return the target vertex id
+    */
+   public int outEdgeTarget(int edge) {
+      return outTargets[edge];
+   }
+
+   /**
+    * Gets the weight of the outgoing edge with the given index
+    *
+    * @param edge the edge index
+    * @return the edge weight
+    */
+   public float outEdgeWeight(int edge) {
+      return outWeights[edge];
+   }
+
+   /**
+    * Gets the sum of the weights of the outgoing edges of the given vertex
+    *
+    * @param vertex the vertex id
+    * @return the total outgoing weight
+    */
+   public double outWeight(int vertex) {
+      return outWeightSums[vertex];
+   }
+
+   @Override
+   public String toString() {
+      return "CSRGraph{numVertices=" + numberOfVertices() + ", numEdges=" + numberOfEdges() + "}";
+   }
+
+   /**
+    * Gets the vertex with the given id
+    *
+    * @param id the vertex id
+    * @return the vertex
+    */
+   public V vertex(int id) {
+      return vertices.get(id);
+   }
+
+   /**
+    * Builder for {@link CSRGraph}s. Adding an edge that already exists adds the given weight to the weight of the
+    * existing edge.
+    *
+    * @param <V> the vertex type
+    */
+   public static final class Builder<V> {
+      private final boolean directed;
+      private final Index<V> vertices = new HashMapIndex<>();
+      private int[] sources = new int[16];
+      private int[] targets = new int[16];
+      private float[] weights = new float[16];
+      private int size = 0;
+
+      private Builder(boolean directed) {
+         this.directed = directed;
+      }
+
+      /**
+       * Adds an edge with weight 1 between the two given vertices, adding the vertices to the graph if they do not
+       * already exist.
+       *
+       * @param fromVertex the from vertex
+       * @param toVertex   the to vertex
+       * @return this builder
+       */
+      public Builder<V> addEdge(@NonNull V fromVertex, @NonNull V toVertex) {
+         return addEdge(fromVertex, toVertex, 1);
+      }
+
+      /**
+       * Adds an edge with the given weight between the two given vertices, adding the vertices to the graph if they
+       * do not already exist.
+       *
+       * @param fromVertex the from vertex
+       * @param toVertex   the to vertex
+       * @param weight     the weight of the edge
+       * @return this builder
+       */
+      public Builder<V> addEdge(@NonNull V fromVertex, @NonNull V toVertex, double weight) {
+         int from = vertices.add(fromVertex);
+         int to = vertices.add(toVertex);
+         addArc(from, to, (float) weight);
+         if(!directed && from != to) {
+            addArc(to, from, (float) weight);
+         }
+         return this;
+      }
+
+      /**
+       * Adds the given vertex to the graph if it does not already exist
+       *
+       * @param vertex the vertex
+       * @return the id of the vertex
+       */
+      public int addVertex(@NonNull V vertex) {
+         return vertices.add(vertex);
+      }
+
+      private void addArc(int from, int to, float weight) {
+         if(size == sources.length) {
+            int capacity = size * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+         }
+         sources[size] = from;
+         targets[size] = to;
+         weights[size] = weight;
+         size++;
+      }
+
+      /**
+       * Builds the graph
+       *
+       * @return the CSRGraph
+       */
+      public CSRGraph<V> build() {
+         final int n = vertices.size();
+         int[] offsets = new int[n + 1];
+         for(int i = 0; i < size; i++) {
+            offsets[sources[i] + 1]++;
+         }
+         for(int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+         }
+         //Pack target and weight so that each row can be sorted by target without boxing
+         long[] packed = new long[size];
+         int[] next = Arrays.copyOf(offsets, n);
+         for(int i = 0; i < size; i++) {
+            packed[next[sources[i]]++] = ((long) targets[i] << 32) | (Float.floatToIntBits(weights[i]) & 0xFFFFFFFFL);
+         }
+
+         int[] outOffsets = new int[n + 1];
+         int[] outTargets = new int[size];
+         float[] outWeights = new float[size];
+         int edge = 0;
+         for(int v = 0; v < n; v++) {
+            outOffsets[v] = edge;
+            Arrays.sort(packed, offsets[v], offsets[v + 1]);
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+               int target = (int) (packed[i] >>> 32);
+               float weight = Float.intBitsToFloat((int) packed[i]);
+               if(edge > outOffsets[v] && outTargets[edge - 1] == target) {
+                  outWeights[edge - 1] += weight;
+               } else {
+                  outTargets[edge] = target;
+                  outWeights[edge] = weight;
+                  edge++;
+               }
+            }
+         }
+         outOffsets[n] = edge;
+         return new CSRGraph<>(vertices.copy(),
+                               directed,
+                               outOffsets,
+                               Arrays.copyOf(outTargets, edge),
+                               Arrays.copyOf(outWeights, edge));
+      }
+
+      /**
+       * Checks if the given vertex has been added to the graph
+       *
+       * @param vertex the vertex
+       * @return True if the vertex has been added, False otherwise
+       */
+      public boolean containsVertex(V vertex) {
+         return vertices.contains(vertex);
+      }
+   }
+
+}//END OF CSRGraph
@@ -24,59 +24,163 @@ package com.gengoai.graph.scoring;
 import com.gengoai.Validation;
 import com.gengoai.collection.counter.Counter;
 import com.gengoai.collection.counter.Counters;
+import com.gengoai.graph.CSRGraph;
 import com.gengoai.graph.Graph;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
+ * <p>
+ * Scores vertices using PageRank, where the score of a vertex <code>v</code> is <code>(1 - d) + d * sum(PR(u) /
+ * out(u))</code> over the predecessors <code>u</code> of <code>v</code>, <code>d</code> is the damping factor, and
+ * <code>out(u)</code> is the out degree of <code>u</code> (or the total weight of its outgoing edges when weighted).
+ * Scores are computed by power iteration over a {@link CSRGraph}, stopping when the L1 distance between the scores
+ * of two consecutive iterations is less than the tolerance or the maximum number of iterations is reached.
+ * Iterations over large graphs are computed in parallel.
+ * </p>
+ * <p>
+ * Personalized PageRank is supported by {@link #score(CSRGraph, Counter)}, which distributes the random jump
+ * probability <code>(1 - d)</code> proportionally to the given preference weights instead of uniformly.
+ * </p>
+ *
  * @author David B. Bracewell
  */
 public class PageRank<V> extends AbstractVertexScorer<V> {
 
    private static final long serialVersionUID = -7329282877612595474L;
+   private static final int PARALLEL_THRESHOLD = 10_000;
    private final double dampingFactor;
    private final int maxIterations;
    private final double tolerance;
+   private final boolean weighted;
 
    public PageRank() {
       this(100, 0.85, 0.001);
    }
 
    public PageRank(int maxIterations, double dampingFactor, double tolerance) {
+      this(maxIterations, dampingFactor, tolerance, false);
+   }
+
+   /**
+    * Instantiates a new PageRank.
+    *
+    * @param maxIterations the maximum number of iterations
+    * @param dampingFactor the damping factor
+    * @param tolerance     the L1 distance between the scores of two iterations under which iteration stops
+    * @param weighted      True if the rank of a vertex should be distributed to its successors proportionally to the
+    *                      weight of the edges, False if distributed evenly.
+    */
+   public PageRank(int maxIterations, double dampingFactor, double tolerance, boolean weighted) {
+      Validation.checkArgument(maxIterations > 0, "The maximum number of iterations must be > 0");
+      Validation.checkArgument(dampingFactor >= 0 && dampingFactor <= 1, "The damping factor must be in [0, 1]");
       this.maxIterations = maxIterations;
       this.dampingFactor = dampingFactor;
       this.tolerance = tolerance;
+      this.weighted = weighted;
    }
 
    @Override
    public Counter<V> score(Graph<V> g) {
       Validation.notNull(g, "The graph must not be null.");
-      Counter<V> pageRank = Counters.newCounter();
-      for (V vertex : g.vertices()) {
-         pageRank.increment(vertex, 1d / g.numberOfVertices());
+      return score(CSRGraph.from(g));
+   }
+
+   /**
+    * Scores the vertices in the given graph
+    *
+    * @param g the graph
+    * @return A counter with vertex as key and score as value
+    */
+   public Counter<V> score(@NonNull CSRGraph<V> g) {
+      return toCounter(g, compute(g, null));
+   }
+
+   /**
+    * Scores the vertices in the given graph using personalized PageRank, where the random jumps are biased towards
+    * the vertices with the given preference weights. Vertices without a preference weight are only reached by
+    * following edges.
+    *
+    * @param g               the graph
+    * @param personalization the (non-negative) preference weight of vertices
+    * @return A counter with vertex as key and score as value
+    */
+   public Counter<V> score(@NonNull CSRGraph<V> g, @NonNull Counter<V> personalization) {
+      final int n = g.numberOfVertices();
+      double[] preference = new double[n];
+      double total = 0;
+      for(V vertex : personalization.items()) {
+         int id = g.id(vertex);
+         if(id >= 0) {
+            double weight = personalization.get(vertex);
+            Validation.checkArgument(weight >= 0, "Preference weights must be non-negative");
+            preference[id] = weight;
+            total += weight;
+         }
+      }
+      Validation.checkArgument(total > 0, "At least one vertex in the graph must have a positive preference weight");
+      for(int i = 0; i < n; i++) {
+         preference[i] = preference[i] / total;
       }
+      return toCounter(g, compute(g, preference));
+   }
 
-      double lastValue = 0d;
-      for (int itr = 0; itr < maxIterations; itr++) {
-         double thisValue = 0d;
+   private Counter<V> toCounter(CSRGraph<V> g, double[] scores) {
+      Counter<V> counter = Counters.newCounter();
+      for(int i = 0; i < scores.length; i++) {
+         counter.set(g.vertex(i), scores[i]);
+      }
+      return counter;
+   }
 
-         Counter<V> thisRound = Counters.newCounter();
-         for (V vertex : g.vertices()) {
+   private IntStream range(int n) {
+      IntStream stream = IntStream.range(0, n);
+      return n >= PARALLEL_THRESHOLD
+             ? stream.parallel()
+             : stream;
+   }
 
+   private double[] compute(CSRGraph<V> g, double[] preference) {
+      final int n = g.numberOfVertices();
+      final double[] jump = new double[n];
+      for(int i = 0; i < n; i++) {
+         jump[i] = preference == null
+                   ? 1 - dampingFactor
+                   : (1 - dampingFactor) * n * preference[i];
+      }
+      double[] pageRank = new double[n];
+      Arrays.fill(pageRank, 1d / n);
+      double[] next = new double[n];
+      final double[] contribution = new double[n];
+      for(int itr = 0; itr < maxIterations; itr++) {
+         final double[] current = pageRank;
+         final double[] updated = next;
+         //The share of its rank each vertex passes along each of its out edges (per unit of weight when weighted)
+         range(n).forEach(u -> {
+            double out = weighted
+                         ? g.outWeight(u)
+                         : g.outDegree(u);
+            contribution[u] = out > 0
+                              ? current[u] / out
+                              : 0;
+         });
+         double delta = range(n).mapToDouble(v -> {
             double pr = 0;
-
-            for (V v2 : g.getPredecessors(vertex)) {
-               pr += (pageRank.get(v2) / g.outDegree(v2));
+            for(int e = g.inEdgeStart(v); e < g.inEdgeEnd(v); e++) {
+               pr += weighted
+                     ? contribution[g.inEdgeSource(e)] * g.inEdgeWeight(e)
+                     : contribution[g.inEdgeSource(e)];
             }
-
-            pr = (1 - dampingFactor) + dampingFactor * pr;
-            thisValue += pr;
-            thisRound.set(vertex, pr);
-         }
-
-         if (Math.abs(thisValue - lastValue) < tolerance) {
+            updated[v] = jump[v] + dampingFactor * pr;
+            return Math.abs(updated[v] - current[v]);
+         }).sum();
+         next = current;
+         pageRank = updated;
+         if(delta < tolerance) {
             break;
          }
-         lastValue = thisValue;
-         pageRank = thisRound;
       }
       return pageRank;
    }
@@ -21,6 +21,7 @@
 
 package com.gengoai.io;
 
+import com.gengoai.SystemInfo;
 import com.gengoai.function.Unchecked;
 import com.gengoai.io.resource.Resource;
 import com.gengoai.stream.Streams;
@@ -280,13 +281,20 @@ public class CSV implements Serializable {
    }
 
    /**
-    * Creates a CSVReader using this specification from a given resource
+    * Creates a CSVReader using this specification from a given resource. Large local files are split into chunks that
+    * are parsed in parallel when more than one processor is available.
     *
     * @param resource the resource to read from
     * @return The CSVReader
     * @throws IOException Something went wrong initializing the resource
     */
    public CSVReader reader(Resource resource) throws IOException {
+      if (SystemInfo.NUMBER_OF_PROCESSORS > 1) {
+         CSVReader parallel = ParallelCSVReader.open(this, resource);
+         if (parallel != null) {
+            return parallel;
+         }
+      }
       return reader(resource.reader());
    }
 
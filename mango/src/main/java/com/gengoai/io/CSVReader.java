@@ -27,7 +27,6 @@ import com.gengoai.stream.Streams;
 import com.gengoai.string.CharMatcher;
 import com.gengoai.string.Strings;
 
-import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
@@ -42,18 +41,21 @@ import java.util.stream.Stream;
  * @author David B. Bracewell
  */
 public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String>> {
+   private static final int BUFFER_SIZE = 8192;
    private static final int END_OF_ROW = 2;
    private static final int IN_FIELD = 3;
    private static final int IN_QUOTE = 1;
    private static final int OUT_QUOTE = 4;
    private static final int START = 0;
-   private final Queue<Integer> buffer = new LinkedList<>();
+   private final char[] buffer = new char[BUFFER_SIZE];
    private final int comment;
    private final int delimiter;
    private final int escape;
    private final boolean keepEmptyCells;
    private final int quote;
    private final Reader reader;
+   private int limit = 0;
+   private int position = 0;
    private int STATE = START;
    private StringBuilder cell = new StringBuilder();
    private List<String> row;
@@ -68,16 +70,28 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
     * @throws IOException Something went wrong initializing the CSVReader
     */
    public CSVReader(CSV builder, Reader reader) throws IOException {
+      this(builder, reader, builder.getHasHeader());
+   }
+
+   /**
+    * Instantiates a new CSVReader.
+    *
+    * @param builder    the CSV specification
+    * @param reader     the reader to read from
+    * @param readHeader True if the header should be read from the first row when the specification does not define one
+    * @throws IOException Something went wrong initializing the CSVReader
+    */
+   CSVReader(CSV builder, Reader reader, boolean readHeader) throws IOException {
       this.delimiter = builder.getDelimiter();
       this.escape = builder.getEscape();
       this.quote = builder.getQuote();
       this.comment = builder.getComment();
       this.keepEmptyCells = builder.isKeepEmptyCells();
-      this.reader = new BufferedReader(reader);
+      this.reader = reader;
       this.header = builder.getHeader() == null
                     ? Collections.emptyList()
                     : builder.getHeader();
-      if(builder.getHasHeader() && header.isEmpty()) {
+      if(readHeader && header.isEmpty()) {
          header = nextRow();
          row.clear();
       }
@@ -92,7 +106,9 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
          if(cellString.length() > 0 && cellString.charAt(cellString.length() - 1) == escape) {
             cellString += " ";
          }
-         String cellStr = cellString.replaceAll("\\\\(.)", "$1");
+         String cellStr = cellString.indexOf('\\') >= 0
+                          ? cellString.replaceAll("\\\\(.)", "$1")
+                          : cellString;
          row.add(isQuoted
                  ? cellStr
                  : cellStr.trim());
@@ -125,11 +141,28 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
    }
 
    private int bufferPeek() throws IOException {
-      if(buffer.isEmpty()) {
-         int next = reader.read();
-         buffer.add(next);
+      if(position >= limit && !fill()) {
+         return -1;
       }
-      return buffer.peek();
+      return buffer[position];
+   }
+
+   private int appendRun() throws IOException {
+      if(position >= limit && !fill()) {
+         return 0;
+      }
+      int end = position;
+      while(end < limit) {
+         char c = buffer[end];
+         if(c == quote || c == delimiter || c == escape || c == '\n' || c == '\r') {
+            break;
+         }
+         end++;
+      }
+      int run = end - position;
+      cell.append(buffer, position, run);
+      position = end;
+      return run;
    }
 
    @Override
@@ -138,13 +171,23 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
    }
 
    private char escape() throws IOException {
-      int c = reader.read();
+      int c = read();
       if(c == -1) {
          throw new IOException("Premature EOF");
       }
       return (char) c;
    }
 
+   private boolean fill() throws IOException {
+      int read;
+      do {
+         read = reader.read(buffer, 0, buffer.length);
+      } while(read == 0);
+      position = 0;
+      limit = Math.max(0, read);
+      return read > 0;
+   }
+
    /**
     * Convenience method for consuming all rows in the CSV file
     *
@@ -225,7 +268,19 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
       int c;
       int readCount = 0;
       gobbleWhiteSpace();
-      while((c = read()) != -1) {
+      while(true) {
+         if(STATE == IN_FIELD || STATE == IN_QUOTE) {
+            //Append runs of characters that have no special meaning in bulk
+            int run = appendRun();
+            if(run > 0) {
+               readCount += run;
+               wasQuoted |= STATE == IN_QUOTE;
+               continue;
+            }
+         }
+         if((c = read()) == -1) {
+            break;
+         }
          if(c == '\r') {
             if(bufferPeek() == '\n') {
                continue;
@@ -278,6 +333,16 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
       throw new IOException("Illegal character [" + (char) c + "] outside of the end quote of a cell.");
    }
 
+   /**
+    * Checks if all of the input has been consumed.
+    *
+    * @return True if there is nothing left to read
+    * @throws IOException Something went wrong reading the file
+    */
+   boolean isExhausted() throws IOException {
+      return bufferPeek() == -1;
+   }
+
    public <R> List<R> processRows(SerializableFunction<List<String>, Optional<R>> converter) throws IOException {
       List<String> row;
       List<R> rval = new ArrayList<>();
@@ -295,10 +360,10 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
    }
 
    private int read() throws IOException {
-      if(buffer.isEmpty()) {
-         return reader.read();
+      if(position >= limit && !fill()) {
+         return -1;
       }
-      return buffer.remove();
+      return buffer[position++];
    }
 
    /**
@@ -313,7 +378,7 @@ public class CSVReader implements Closeable, AutoCloseable, Iterable<List<String
 
    private void readToEndOfLine() throws IOException {
       do {
-         int c = reader.read();
+         int c = read();
          if(c == -1 || c == '\n') {
             return;
          }
@@ -49,6 +49,11 @@ public class CompressedInputStream extends InputStream {
       this.backing = compression.decompressInputStream(notNull(backing, "Backing InputStream must not be null"));
    }
 
+   @Override
+   public int available() throws IOException {
+      return backing.available();
+   }
+
    @Override
    public void close() throws IOException {
       backing.close();
@@ -68,4 +73,14 @@ public class CompressedInputStream extends InputStream {
       return backing.read();
    }
 
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      return backing.read(b, off, len);
+   }
+
+   @Override
+   public long skip(long n) throws IOException {
+      return backing.skip(n);
+   }
+
 }//END OF CompressedInputStream
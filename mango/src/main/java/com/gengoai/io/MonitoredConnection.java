@@ -0,0 +1,596 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import java.lang.ref.Reference;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.ShardingKey;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * A {@link Connection} monitored by the {@link ResourceMonitor} that delegates directly to its backing connection.
+ * Note that the connection is only closed and not committed when it is no longer referenced.
+ * </p>
+ */
+final class MonitoredConnection extends MonitoredResource implements Connection {
+   private final Connection backing;
+
+   /**
+    * Instantiates a new MonitoredConnection.
+    *
+    * @param backing the connection to monitor
+    */
+   MonitoredConnection(Connection backing) {
+      super(backing, null);
+      this.backing = backing;
+   }
+
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException {
+      try {
+         return backing.unwrap(iface);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      try {
+         return backing.isWrapperFor(iface);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Statement createStatement() throws SQLException {
+      try {
+         return backing.createStatement();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql) throws SQLException {
+      try {
+         return backing.prepareStatement(sql);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql) throws SQLException {
+      try {
+         return backing.prepareCall(sql);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public String nativeSQL(String sql) throws SQLException {
+      try {
+         return backing.nativeSQL(sql);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setAutoCommit(boolean autoCommit) throws SQLException {
+      try {
+         backing.setAutoCommit(autoCommit);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean getAutoCommit() throws SQLException {
+      try {
+         return backing.getAutoCommit();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void commit() throws SQLException {
+      try {
+         backing.commit();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void rollback() throws SQLException {
+      try {
+         backing.rollback();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isClosed() throws SQLException {
+      try {
+         return backing.isClosed();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DatabaseMetaData getMetaData() throws SQLException {
+      try {
+         return backing.getMetaData();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setReadOnly(boolean readOnly) throws SQLException {
+      try {
+         backing.setReadOnly(readOnly);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isReadOnly() throws SQLException {
+      try {
+         return backing.isReadOnly();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setCatalog(String catalog) throws SQLException {
+      try {
+         backing.setCatalog(catalog);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public String getCatalog() throws SQLException {
+      try {
+         return backing.getCatalog();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setTransactionIsolation(int level) throws SQLException {
+      try {
+         backing.setTransactionIsolation(level);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int getTransactionIsolation() throws SQLException {
+      try {
+         return backing.getTransactionIsolation();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public SQLWarning getWarnings() throws SQLException {
+      try {
+         return backing.getWarnings();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void clearWarnings() throws SQLException {
+      try {
+         backing.clearWarnings();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+      try {
+         return backing.createStatement(resultSetType, resultSetConcurrency);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+      try {
+         return backing.prepareStatement(sql, resultSetType, resultSetConcurrency);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+      try {
+         return backing.prepareCall(sql, resultSetType, resultSetConcurrency);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Map<String,Class<?>> getTypeMap() throws SQLException {
+      try {
+         return backing.getTypeMap();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setTypeMap(Map<String,Class<?>> map) throws SQLException {
+      try {
+         backing.setTypeMap(map);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setHoldability(int holdability) throws SQLException {
+      try {
+         backing.setHoldability(holdability);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int getHoldability() throws SQLException {
+      try {
+         return backing.getHoldability();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Savepoint setSavepoint() throws SQLException {
+      try {
+         return backing.setSavepoint();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Savepoint setSavepoint(String name) throws SQLException {
+      try {
+         return backing.setSavepoint(name);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void rollback(Savepoint savepoint) throws SQLException {
+      try {
+         backing.rollback(savepoint);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+      try {
+         backing.releaseSavepoint(savepoint);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+      try {
+         return backing.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+      try {
+         return backing.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+      try {
+         return backing.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+      try {
+         return backing.prepareStatement(sql, autoGeneratedKeys);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+      try {
+         return backing.prepareStatement(sql, columnIndexes);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+      try {
+         return backing.prepareStatement(sql, columnNames);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Clob createClob() throws SQLException {
+      try {
+         return backing.createClob();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Blob createBlob() throws SQLException {
+      try {
+         return backing.createBlob();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public NClob createNClob() throws SQLException {
+      try {
+         return backing.createNClob();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public SQLXML createSQLXML() throws SQLException {
+      try {
+         return backing.createSQLXML();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isValid(int timeout) throws SQLException {
+      try {
+         return backing.isValid(timeout);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setClientInfo(String name, String value) throws SQLClientInfoException {
+      try {
+         backing.setClientInfo(name, value);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setClientInfo(Properties properties) throws SQLClientInfoException {
+      try {
+         backing.setClientInfo(properties);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public String getClientInfo(String name) throws SQLException {
+      try {
+         return backing.getClientInfo(name);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Properties getClientInfo() throws SQLException {
+      try {
+         return backing.getClientInfo();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+      try {
+         return backing.createArrayOf(typeName, elements);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+      try {
+         return backing.createStruct(typeName, attributes);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setSchema(String schema) throws SQLException {
+      try {
+         backing.setSchema(schema);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public String getSchema() throws SQLException {
+      try {
+         return backing.getSchema();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void abort(Executor executor) throws SQLException {
+      try {
+         backing.abort(executor);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+      try {
+         backing.setNetworkTimeout(executor, milliseconds);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int getNetworkTimeout() throws SQLException {
+      try {
+         return backing.getNetworkTimeout();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void beginRequest() throws SQLException {
+      try {
+         backing.beginRequest();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void endRequest() throws SQLException {
+      try {
+         backing.endRequest();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws SQLException {
+      try {
+         return backing.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
+      try {
+         return backing.setShardingKeyIfValid(shardingKey, timeout);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
+      try {
+         backing.setShardingKey(shardingKey, superShardingKey);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void setShardingKey(ShardingKey shardingKey) throws SQLException {
+      try {
+         backing.setShardingKey(shardingKey);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredConnection
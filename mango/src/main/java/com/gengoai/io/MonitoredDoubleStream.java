@@ -0,0 +1,412 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import java.lang.ref.Reference;
+import java.util.DoubleSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link DoubleStream} monitored by the {@link ResourceMonitor} that delegates directly to its backing stream.
+ * Streams returned by intermediate operations are wrapped so that they keep this stream reachable while they are
+ * in use, and iterators and spliterators keep it reachable until they are no longer referenced.
+ * </p>
+ */
+final class MonitoredDoubleStream extends MonitoredResource implements DoubleStream {
+   private final DoubleStream backing;
+
+   /**
+    * Instantiates a new MonitoredDoubleStream.
+    *
+    * @param backing the stream to monitor
+    * @param parent  the monitored stream this one was derived from or null if it is not derived
+    */
+   MonitoredDoubleStream(DoubleStream backing, MonitoredResource parent) {
+      super(backing, parent);
+      this.backing = backing;
+   }
+
+   @Override
+   public boolean isParallel() {
+      try {
+         return backing.isParallel();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream unordered() {
+      try {
+         return new MonitoredDoubleStream(backing.unordered(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream onClose(Runnable closeHandler) {
+      try {
+         return new MonitoredDoubleStream(backing.onClose(closeHandler), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream filter(DoublePredicate predicate) {
+      try {
+         return new MonitoredDoubleStream(backing.filter(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream map(DoubleUnaryOperator mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.map(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> Stream<U> mapToObj(DoubleFunction<? extends U> mapper) {
+      try {
+         return new MonitoredStream<>(backing.mapToObj(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream mapToInt(DoubleToIntFunction mapper) {
+      try {
+         return new MonitoredIntStream(backing.mapToInt(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream mapToLong(DoubleToLongFunction mapper) {
+      try {
+         return new MonitoredLongStream(backing.mapToLong(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream flatMap(DoubleFunction<? extends DoubleStream> mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.flatMap(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream distinct() {
+      try {
+         return new MonitoredDoubleStream(backing.distinct(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream sorted() {
+      try {
+         return new MonitoredDoubleStream(backing.sorted(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream peek(DoubleConsumer action) {
+      try {
+         return new MonitoredDoubleStream(backing.peek(action), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream limit(long maxSize) {
+      try {
+         return new MonitoredDoubleStream(backing.limit(maxSize), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream skip(long n) {
+      try {
+         return new MonitoredDoubleStream(backing.skip(n), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream takeWhile(DoublePredicate predicate) {
+      try {
+         return new MonitoredDoubleStream(backing.takeWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream dropWhile(DoublePredicate predicate) {
+      try {
+         return new MonitoredDoubleStream(backing.dropWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEach(DoubleConsumer action) {
+      try {
+         backing.forEach(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEachOrdered(DoubleConsumer action) {
+      try {
+         backing.forEachOrdered(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public double[] toArray() {
+      try {
+         return backing.toArray();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public double reduce(double identity, DoubleBinaryOperator op) {
+      try {
+         return backing.reduce(identity, op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble reduce(DoubleBinaryOperator op) {
+      try {
+         return backing.reduce(op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> R collect(Supplier<R> supplier, ObjDoubleConsumer<R> accumulator, BiConsumer<R,R> combiner) {
+      try {
+         return backing.collect(supplier, accumulator, combiner);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public double sum() {
+      try {
+         return backing.sum();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble min() {
+      try {
+         return backing.min();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble max() {
+      try {
+         return backing.max();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long count() {
+      try {
+         return backing.count();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble average() {
+      try {
+         return backing.average();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleSummaryStatistics summaryStatistics() {
+      try {
+         return backing.summaryStatistics();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean anyMatch(DoublePredicate predicate) {
+      try {
+         return backing.anyMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean allMatch(DoublePredicate predicate) {
+      try {
+         return backing.allMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean noneMatch(DoublePredicate predicate) {
+      try {
+         return backing.noneMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble findFirst() {
+      try {
+         return backing.findFirst();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble findAny() {
+      try {
+         return backing.findAny();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<Double> boxed() {
+      try {
+         return new MonitoredStream<>(backing.boxed(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream sequential() {
+      try {
+         return new MonitoredDoubleStream(backing.sequential(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream parallel() {
+      try {
+         return new MonitoredDoubleStream(backing.parallel(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PrimitiveIterator.OfDouble iterator() {
+      try {
+         PrimitiveIterator.OfDouble iterator = backing.iterator();
+         ResourceMonitor.keepReachable(iterator, this);
+         return iterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Spliterator.OfDouble spliterator() {
+      try {
+         Spliterator.OfDouble spliterator = backing.spliterator();
+         ResourceMonitor.keepReachable(spliterator, this);
+         return spliterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredDoubleStream
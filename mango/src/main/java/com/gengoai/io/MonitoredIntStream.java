@@ -0,0 +1,431 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import java.lang.ref.Reference;
+import java.util.IntSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link IntStream} monitored by the {@link ResourceMonitor} that delegates directly to its backing stream.
+ * Streams returned by intermediate operations are wrapped so that they keep this stream reachable while they are
+ * in use, and iterators and spliterators keep it reachable until they are no longer referenced.
+ * </p>
+ */
+final class MonitoredIntStream extends MonitoredResource implements IntStream {
+   private final IntStream backing;
+
+   /**
+    * Instantiates a new MonitoredIntStream.
+    *
+    * @param backing the stream to monitor
+    * @param parent  the monitored stream this one was derived from or null if it is not derived
+    */
+   MonitoredIntStream(IntStream backing, MonitoredResource parent) {
+      super(backing, parent);
+      this.backing = backing;
+   }
+
+   @Override
+   public boolean isParallel() {
+      try {
+         return backing.isParallel();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream unordered() {
+      try {
+         return new MonitoredIntStream(backing.unordered(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream onClose(Runnable closeHandler) {
+      try {
+         return new MonitoredIntStream(backing.onClose(closeHandler), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream filter(IntPredicate predicate) {
+      try {
+         return new MonitoredIntStream(backing.filter(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream map(IntUnaryOperator mapper) {
+      try {
+         return new MonitoredIntStream(backing.map(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> Stream<U> mapToObj(IntFunction<? extends U> mapper) {
+      try {
+         return new MonitoredStream<>(backing.mapToObj(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream mapToLong(IntToLongFunction mapper) {
+      try {
+         return new MonitoredLongStream(backing.mapToLong(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream mapToDouble(IntToDoubleFunction mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.mapToDouble(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream flatMap(IntFunction<? extends IntStream> mapper) {
+      try {
+         return new MonitoredIntStream(backing.flatMap(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream distinct() {
+      try {
+         return new MonitoredIntStream(backing.distinct(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream sorted() {
+      try {
+         return new MonitoredIntStream(backing.sorted(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream peek(IntConsumer action) {
+      try {
+         return new MonitoredIntStream(backing.peek(action), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream limit(long maxSize) {
+      try {
+         return new MonitoredIntStream(backing.limit(maxSize), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream skip(long n) {
+      try {
+         return new MonitoredIntStream(backing.skip(n), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream takeWhile(IntPredicate predicate) {
+      try {
+         return new MonitoredIntStream(backing.takeWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream dropWhile(IntPredicate predicate) {
+      try {
+         return new MonitoredIntStream(backing.dropWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEach(IntConsumer action) {
+      try {
+         backing.forEach(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEachOrdered(IntConsumer action) {
+      try {
+         backing.forEachOrdered(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int[] toArray() {
+      try {
+         return backing.toArray();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int reduce(int identity, IntBinaryOperator op) {
+      try {
+         return backing.reduce(identity, op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalInt reduce(IntBinaryOperator op) {
+      try {
+         return backing.reduce(op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> R collect(Supplier<R> supplier, ObjIntConsumer<R> accumulator, BiConsumer<R,R> combiner) {
+      try {
+         return backing.collect(supplier, accumulator, combiner);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public int sum() {
+      try {
+         return backing.sum();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalInt min() {
+      try {
+         return backing.min();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalInt max() {
+      try {
+         return backing.max();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long count() {
+      try {
+         return backing.count();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble average() {
+      try {
+         return backing.average();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntSummaryStatistics summaryStatistics() {
+      try {
+         return backing.summaryStatistics();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean anyMatch(IntPredicate predicate) {
+      try {
+         return backing.anyMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean allMatch(IntPredicate predicate) {
+      try {
+         return backing.allMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean noneMatch(IntPredicate predicate) {
+      try {
+         return backing.noneMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalInt findFirst() {
+      try {
+         return backing.findFirst();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalInt findAny() {
+      try {
+         return backing.findAny();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream asLongStream() {
+      try {
+         return new MonitoredLongStream(backing.asLongStream(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream asDoubleStream() {
+      try {
+         return new MonitoredDoubleStream(backing.asDoubleStream(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<Integer> boxed() {
+      try {
+         return new MonitoredStream<>(backing.boxed(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream sequential() {
+      try {
+         return new MonitoredIntStream(backing.sequential(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream parallel() {
+      try {
+         return new MonitoredIntStream(backing.parallel(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PrimitiveIterator.OfInt iterator() {
+      try {
+         PrimitiveIterator.OfInt iterator = backing.iterator();
+         ResourceMonitor.keepReachable(iterator, this);
+         return iterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Spliterator.OfInt spliterator() {
+      try {
+         Spliterator.OfInt spliterator = backing.spliterator();
+         ResourceMonitor.keepReachable(spliterator, this);
+         return spliterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredIntStream
@@ -0,0 +1,422 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import java.lang.ref.Reference;
+import java.util.LongSummaryStatistics;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link LongStream} monitored by the {@link ResourceMonitor} that delegates directly to its backing stream.
+ * Streams returned by intermediate operations are wrapped so that they keep this stream reachable while they are
+ * in use, and iterators and spliterators keep it reachable until they are no longer referenced.
+ * </p>
+ */
+final class MonitoredLongStream extends MonitoredResource implements LongStream {
+   private final LongStream backing;
+
+   /**
+    * Instantiates a new MonitoredLongStream.
+    *
+    * @param backing the stream to monitor
+    * @param parent  the monitored stream this one was derived from or null if it is not derived
+    */
+   MonitoredLongStream(LongStream backing, MonitoredResource parent) {
+      super(backing, parent);
+      this.backing = backing;
+   }
+
+   @Override
+   public boolean isParallel() {
+      try {
+         return backing.isParallel();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream unordered() {
+      try {
+         return new MonitoredLongStream(backing.unordered(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream onClose(Runnable closeHandler) {
+      try {
+         return new MonitoredLongStream(backing.onClose(closeHandler), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream filter(LongPredicate predicate) {
+      try {
+         return new MonitoredLongStream(backing.filter(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream map(LongUnaryOperator mapper) {
+      try {
+         return new MonitoredLongStream(backing.map(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> Stream<U> mapToObj(LongFunction<? extends U> mapper) {
+      try {
+         return new MonitoredStream<>(backing.mapToObj(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream mapToInt(LongToIntFunction mapper) {
+      try {
+         return new MonitoredIntStream(backing.mapToInt(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream mapToDouble(LongToDoubleFunction mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.mapToDouble(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream flatMap(LongFunction<? extends LongStream> mapper) {
+      try {
+         return new MonitoredLongStream(backing.flatMap(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream distinct() {
+      try {
+         return new MonitoredLongStream(backing.distinct(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream sorted() {
+      try {
+         return new MonitoredLongStream(backing.sorted(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream peek(LongConsumer action) {
+      try {
+         return new MonitoredLongStream(backing.peek(action), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream limit(long maxSize) {
+      try {
+         return new MonitoredLongStream(backing.limit(maxSize), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream skip(long n) {
+      try {
+         return new MonitoredLongStream(backing.skip(n), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream takeWhile(LongPredicate predicate) {
+      try {
+         return new MonitoredLongStream(backing.takeWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream dropWhile(LongPredicate predicate) {
+      try {
+         return new MonitoredLongStream(backing.dropWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEach(LongConsumer action) {
+      try {
+         backing.forEach(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEachOrdered(LongConsumer action) {
+      try {
+         backing.forEachOrdered(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long[] toArray() {
+      try {
+         return backing.toArray();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long reduce(long identity, LongBinaryOperator op) {
+      try {
+         return backing.reduce(identity, op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalLong reduce(LongBinaryOperator op) {
+      try {
+         return backing.reduce(op);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> R collect(Supplier<R> supplier, ObjLongConsumer<R> accumulator, BiConsumer<R,R> combiner) {
+      try {
+         return backing.collect(supplier, accumulator, combiner);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long sum() {
+      try {
+         return backing.sum();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalLong min() {
+      try {
+         return backing.min();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalLong max() {
+      try {
+         return backing.max();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long count() {
+      try {
+         return backing.count();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalDouble average() {
+      try {
+         return backing.average();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongSummaryStatistics summaryStatistics() {
+      try {
+         return backing.summaryStatistics();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean anyMatch(LongPredicate predicate) {
+      try {
+         return backing.anyMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean allMatch(LongPredicate predicate) {
+      try {
+         return backing.allMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean noneMatch(LongPredicate predicate) {
+      try {
+         return backing.noneMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalLong findFirst() {
+      try {
+         return backing.findFirst();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public OptionalLong findAny() {
+      try {
+         return backing.findAny();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream asDoubleStream() {
+      try {
+         return new MonitoredDoubleStream(backing.asDoubleStream(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<Long> boxed() {
+      try {
+         return new MonitoredStream<>(backing.boxed(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream sequential() {
+      try {
+         return new MonitoredLongStream(backing.sequential(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream parallel() {
+      try {
+         return new MonitoredLongStream(backing.parallel(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public PrimitiveIterator.OfLong iterator() {
+      try {
+         PrimitiveIterator.OfLong iterator = backing.iterator();
+         ResourceMonitor.keepReachable(iterator, this);
+         return iterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Spliterator.OfLong spliterator() {
+      try {
+         Spliterator.OfLong spliterator = backing.spliterator();
+         ResourceMonitor.keepReachable(spliterator, this);
+         return spliterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredLongStream
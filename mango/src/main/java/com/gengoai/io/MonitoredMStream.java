@@ -0,0 +1,544 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import com.gengoai.function.SerializableBinaryOperator;
+import com.gengoai.function.SerializableComparator;
+import com.gengoai.function.SerializableConsumer;
+import com.gengoai.function.SerializableFunction;
+import com.gengoai.function.SerializablePredicate;
+import com.gengoai.function.SerializableRunnable;
+import com.gengoai.function.SerializableToDoubleFunction;
+import com.gengoai.io.resource.Resource;
+import com.gengoai.stream.MDoubleStream;
+import com.gengoai.stream.MPairStream;
+import com.gengoai.stream.MStream;
+import com.gengoai.stream.StorageLevel;
+import com.gengoai.stream.StreamingContext;
+import com.gengoai.stream.spark.SparkStream;
+
+import java.lang.ref.Reference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link MStream} monitored by the {@link ResourceMonitor} that delegates directly to its backing stream.
+ * Streams returned by intermediate operations are wrapped so that they keep this stream reachable while they are
+ * in use, and iterators and spliterators keep it reachable until they are no longer referenced.
+ * </p>
+ */
+final class MonitoredMStream<T> extends MonitoredResource implements MStream<T> {
+   private final MStream<T> backing;
+
+   /**
+    * Instantiates a new MonitoredMStream.
+    *
+    * @param backing the stream to monitor
+    * @param parent  the monitored stream this one was derived from or null if it is not derived
+    */
+   MonitoredMStream(MStream<T> backing, MonitoredResource parent) {
+      super(backing, parent);
+      this.backing = backing;
+   }
+
+   @Override
+   public void forEach(Consumer<? super T> action) {
+      try {
+         backing.forEach(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Spliterator<T> spliterator() {
+      try {
+         Spliterator<T> spliterator = backing.spliterator();
+         ResourceMonitor.keepReachable(spliterator, this);
+         return spliterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> cache() {
+      try {
+         return new MonitoredMStream<>(backing.cache(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> R collect(Collector<? super T,?,R> collector) {
+      try {
+         return backing.collect(collector);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public List<T> collect() {
+      try {
+         return backing.collect();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long count() {
+      try {
+         return backing.count();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Map<T,Long> countByValue() {
+      try {
+         return backing.countByValue();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> distinct() {
+      try {
+         return new MonitoredMStream<>(backing.distinct(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> filter(SerializablePredicate<? super T> predicate) {
+      try {
+         return new MonitoredMStream<>(backing.filter(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> first() {
+      try {
+         return backing.first();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> MStream<R> flatMap(SerializableFunction<? super T,Stream<? extends R>> mapper) {
+      try {
+         return new MonitoredMStream<>(backing.flatMap(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R, U> MPairStream<R,U> flatMapToPair(SerializableFunction<? super T,Stream<? extends Map.Entry<? extends R,? extends U>>> function) {
+      try {
+         return backing.flatMapToPair(function);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public T fold(T zeroValue, SerializableBinaryOperator<T> operator) {
+      try {
+         return backing.fold(zeroValue, operator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEach(SerializableConsumer<? super T> consumer) {
+      try {
+         backing.forEach(consumer);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEachLocal(SerializableConsumer<? super T> consumer) {
+      try {
+         backing.forEachLocal(consumer);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public StreamingContext getContext() {
+      try {
+         return backing.getContext();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> MPairStream<U,Iterable<T>> groupBy(SerializableFunction<? super T,? extends U> function) {
+      try {
+         return backing.groupBy(function);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> intersection(MStream<T> other) {
+      try {
+         return new MonitoredMStream<>(backing.intersection(other), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isDistributed() {
+      try {
+         return backing.isDistributed();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isEmpty() {
+      try {
+         return backing.isEmpty();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      try {
+         Iterator<T> iterator = backing.iterator();
+         ResourceMonitor.keepReachable(iterator, this);
+         return iterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> javaStream() {
+      try {
+         return new MonitoredStream<>(backing.javaStream(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> limit(long number) {
+      try {
+         return new MonitoredMStream<>(backing.limit(number), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> MStream<R> map(SerializableFunction<? super T,? extends R> function) {
+      try {
+         return new MonitoredMStream<>(backing.map(function), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> MStream<R> mapBatches(int batchSize, SerializableFunction<? super List<T>,? extends Iterable<? extends R>> function) {
+      try {
+         return new MonitoredMStream<>(backing.mapBatches(batchSize, function), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> MStream<R> mapPartitions(SerializableFunction<Iterator<T>,Stream<R>> function) {
+      try {
+         return new MonitoredMStream<>(backing.mapPartitions(function), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MDoubleStream mapToDouble(SerializableToDoubleFunction<? super T> function) {
+      try {
+         return backing.mapToDouble(function);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R, U> MPairStream<R,U> mapToPair(SerializableFunction<? super T,? extends Map.Entry<? extends R,? extends U>> function) {
+      try {
+         return backing.mapToPair(function);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> max() {
+      try {
+         return backing.max();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> max(SerializableComparator<? super T> comparator) {
+      try {
+         return backing.max(comparator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> min() {
+      try {
+         return backing.min();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> min(SerializableComparator<? super T> comparator) {
+      try {
+         return backing.min(comparator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> onClose(SerializableRunnable closeHandler) {
+      try {
+         return new MonitoredMStream<>(backing.onClose(closeHandler), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> parallel() {
+      try {
+         return new MonitoredMStream<>(backing.parallel(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<Stream<T>> partition(long partitionSize) {
+      try {
+         return new MonitoredMStream<>(backing.partition(partitionSize), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> persist(StorageLevel storageLevel) {
+      try {
+         return new MonitoredMStream<>(backing.persist(storageLevel), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> reduce(SerializableBinaryOperator<T> reducer) {
+      try {
+         return backing.reduce(reducer);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> repartition(int numPartitions) {
+      try {
+         return new MonitoredMStream<>(backing.repartition(numPartitions), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> sample(boolean withReplacement, int number) {
+      try {
+         return new MonitoredMStream<>(backing.sample(withReplacement, number), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void saveAsTextFile(Resource location) {
+      try {
+         backing.saveAsTextFile(location);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void saveAsTextFile(String location) {
+      try {
+         backing.saveAsTextFile(location);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> shuffle() {
+      try {
+         return new MonitoredMStream<>(backing.shuffle(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> shuffle(Random random) {
+      try {
+         return new MonitoredMStream<>(backing.shuffle(random), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> skip(long n) {
+      try {
+         return new MonitoredMStream<>(backing.skip(n), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R extends Comparable<R>> MStream<T> sortBy(boolean ascending, SerializableFunction<? super T,? extends R> keyFunction) {
+      try {
+         return new MonitoredMStream<>(backing.sortBy(ascending, keyFunction), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> sorted(boolean ascending) {
+      try {
+         return new MonitoredMStream<>(backing.sorted(ascending), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public List<T> take(int n) {
+      try {
+         return backing.take(n);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public SparkStream<T> toDistributedStream() {
+      try {
+         return backing.toDistributedStream();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MStream<T> union(MStream<T> other) {
+      try {
+         return new MonitoredMStream<>(backing.union(other), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void updateConfig() {
+      try {
+         backing.updateConfig();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> MPairStream<T,U> zip(MStream<U> other) {
+      try {
+         return backing.zip(other);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public MPairStream<T,Long> zipWithIndex() {
+      try {
+         return backing.zipWithIndex();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredMStream
@@ -22,13 +22,16 @@
 
 package com.gengoai.io;
 
+import com.gengoai.conversion.Cast;
+
 import java.io.Serializable;
 import java.util.function.Consumer;
 
 import static com.gengoai.Validation.checkArgument;
 
 /**
- * <p>A wrapper around an Object whose resources are being monitored by {@link ResourceMonitor}</p>
+ * <p>A wrapper around an Object whose resources are being monitored by {@link ResourceMonitor}. The object is closed
+ * once the wrapper is no longer referenced, so the wrapper must be kept for as long as the object is in use.</p>
  *
  * @param <T> the type parameter
  * @author David B. Bracewell
@@ -39,11 +42,13 @@ public class MonitoredObject<T> implements Serializable {
 
    protected MonitoredObject(T object) {
       checkArgument(object instanceof AutoCloseable, "Object must be AutoCloseable");
-      this.object = ResourceMonitor.MONITOR.addResource(this, object);
+      this.object = object;
+      ResourceMonitor.track(this, Cast.<AutoCloseable>as(object));
    }
 
    protected MonitoredObject(T object, Consumer<T> onClose) {
-      this.object = ResourceMonitor.MONITOR.addResource(this, object, onClose);
+      this.object = object;
+      ResourceMonitor.track(this, object, onClose);
    }
 
 }//END OF MonitoredObject
@@ -0,0 +1,73 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.lang.ref.Cleaner;
+
+/**
+ * <p>
+ * Base class for the concrete wrappers handed out by {@link ResourceMonitor}. A wrapper created by the monitor is
+ * registered with its {@link Cleaner} so that the wrapped resource is closed once the wrapper is no longer referenced.
+ * Wrappers derived from another wrapper, e.g. the stream returned by an intermediate operation, share the underlying
+ * resource and keep their parent reachable instead of being registered themselves.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+abstract class MonitoredResource implements AutoCloseable {
+   private final AutoCloseable resource;
+   private final MonitoredResource parent;
+   private final Cleaner.Cleanable cleanable;
+
+   /**
+    * Instantiates a new MonitoredResource.
+    *
+    * @param resource the resource being wrapped
+    * @param parent   the wrapper this one was derived from or null if the resource should be tracked by this wrapper
+    */
+   protected MonitoredResource(@NonNull AutoCloseable resource, MonitoredResource parent) {
+      this.resource = resource;
+      this.parent = parent;
+      this.cleanable = parent == null
+                       ? ResourceMonitor.track(this, resource)
+                       : null;
+   }
+
+   @Override
+   @SneakyThrows
+   public void close() {
+      if(parent == null) {
+         cleanable.clean();
+      } else {
+         try {
+            resource.close();
+         } finally {
+            parent.close();
+         }
+      }
+   }
+
+}//END OF MonitoredResource
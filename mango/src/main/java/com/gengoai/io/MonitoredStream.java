@@ -0,0 +1,441 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package com.gengoai.io;
+
+import java.lang.ref.Reference;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * A {@link Stream} monitored by the {@link ResourceMonitor} that delegates directly to its backing stream.
+ * Streams returned by intermediate operations are wrapped so that they keep this stream reachable while they are
+ * in use, and iterators and spliterators keep it reachable until they are no longer referenced.
+ * </p>
+ */
+final class MonitoredStream<T> extends MonitoredResource implements Stream<T> {
+   private final Stream<T> backing;
+
+   /**
+    * Instantiates a new MonitoredStream.
+    *
+    * @param backing the stream to monitor
+    * @param parent  the monitored stream this one was derived from or null if it is not derived
+    */
+   MonitoredStream(Stream<T> backing, MonitoredResource parent) {
+      super(backing, parent);
+      this.backing = backing;
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      try {
+         Iterator<T> iterator = backing.iterator();
+         ResourceMonitor.keepReachable(iterator, this);
+         return iterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Spliterator<T> spliterator() {
+      try {
+         Spliterator<T> spliterator = backing.spliterator();
+         ResourceMonitor.keepReachable(spliterator, this);
+         return spliterator;
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean isParallel() {
+      try {
+         return backing.isParallel();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> sequential() {
+      try {
+         return new MonitoredStream<>(backing.sequential(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> parallel() {
+      try {
+         return new MonitoredStream<>(backing.parallel(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> unordered() {
+      try {
+         return new MonitoredStream<>(backing.unordered(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> onClose(Runnable closeHandler) {
+      try {
+         return new MonitoredStream<>(backing.onClose(closeHandler), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> filter(Predicate<? super T> predicate) {
+      try {
+         return new MonitoredStream<>(backing.filter(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> Stream<R> map(Function<? super T,? extends R> mapper) {
+      try {
+         return new MonitoredStream<>(backing.map(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream mapToInt(ToIntFunction<? super T> mapper) {
+      try {
+         return new MonitoredIntStream(backing.mapToInt(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream mapToLong(ToLongFunction<? super T> mapper) {
+      try {
+         return new MonitoredLongStream(backing.mapToLong(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream mapToDouble(ToDoubleFunction<? super T> mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.mapToDouble(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> Stream<R> flatMap(Function<? super T,? extends Stream<? extends R>> mapper) {
+      try {
+         return new MonitoredStream<>(backing.flatMap(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public IntStream flatMapToInt(Function<? super T,? extends IntStream> mapper) {
+      try {
+         return new MonitoredIntStream(backing.flatMapToInt(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public LongStream flatMapToLong(Function<? super T,? extends LongStream> mapper) {
+      try {
+         return new MonitoredLongStream(backing.flatMapToLong(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public DoubleStream flatMapToDouble(Function<? super T,? extends DoubleStream> mapper) {
+      try {
+         return new MonitoredDoubleStream(backing.flatMapToDouble(mapper), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> distinct() {
+      try {
+         return new MonitoredStream<>(backing.distinct(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> sorted() {
+      try {
+         return new MonitoredStream<>(backing.sorted(), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> sorted(Comparator<? super T> comparator) {
+      try {
+         return new MonitoredStream<>(backing.sorted(comparator), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> peek(Consumer<? super T> action) {
+      try {
+         return new MonitoredStream<>(backing.peek(action), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> limit(long maxSize) {
+      try {
+         return new MonitoredStream<>(backing.limit(maxSize), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> skip(long n) {
+      try {
+         return new MonitoredStream<>(backing.skip(n), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> takeWhile(Predicate<? super T> predicate) {
+      try {
+         return new MonitoredStream<>(backing.takeWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Stream<T> dropWhile(Predicate<? super T> predicate) {
+      try {
+         return new MonitoredStream<>(backing.dropWhile(predicate), this);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEach(Consumer<? super T> action) {
+      try {
+         backing.forEach(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public void forEachOrdered(Consumer<? super T> action) {
+      try {
+         backing.forEachOrdered(action);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Object[] toArray() {
+      try {
+         return backing.toArray();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <A> A[] toArray(IntFunction<A[]> generator) {
+      try {
+         return backing.toArray(generator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public T reduce(T identity, BinaryOperator<T> accumulator) {
+      try {
+         return backing.reduce(identity, accumulator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> reduce(BinaryOperator<T> accumulator) {
+      try {
+         return backing.reduce(accumulator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <U> U reduce(U identity, BiFunction<U,? super T,U> accumulator, BinaryOperator<U> combiner) {
+      try {
+         return backing.reduce(identity, accumulator, combiner);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R> R collect(Supplier<R> supplier, BiConsumer<R,? super T> accumulator, BiConsumer<R,R> combiner) {
+      try {
+         return backing.collect(supplier, accumulator, combiner);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public <R, A> R collect(Collector<? super T,A,R> collector) {
+      try {
+         return backing.collect(collector);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> min(Comparator<? super T> comparator) {
+      try {
+         return backing.min(comparator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> max(Comparator<? super T> comparator) {
+      try {
+         return backing.max(comparator);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public long count() {
+      try {
+         return backing.count();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean anyMatch(Predicate<? super T> predicate) {
+      try {
+         return backing.anyMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean allMatch(Predicate<? super T> predicate) {
+      try {
+         return backing.allMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public boolean noneMatch(Predicate<? super T> predicate) {
+      try {
+         return backing.noneMatch(predicate);
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> findFirst() {
+      try {
+         return backing.findFirst();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+   @Override
+   public Optional<T> findAny() {
+      try {
+         return backing.findAny();
+      } finally {
+         Reference.reachabilityFence(this);
+      }
+   }
+
+}//END OF MonitoredStream
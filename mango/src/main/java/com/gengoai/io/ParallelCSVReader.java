@@ -0,0 +1,299 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.io;
+
+import com.gengoai.SystemInfo;
+import com.gengoai.io.resource.Resource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * <p>
+ * A {@link CSVReader} over a large local file that splits the file into newline-aligned chunks which are parsed in
+ * parallel, returning the rows in file order. Splitting at a newline is only safe when the newline ends a row, which is
+ * guaranteed when the text before it has no quote characters and no escaped newlines. Each chunk is checked for these
+ * as it is parsed, and when a chunk is found that is not safe to split, the rest of the file from the start of that
+ * chunk is read sequentially.
+ * </p>
+ */
+final class ParallelCSVReader extends CSVReader {
+   /**
+    * The default target size in bytes of a chunk
+    */
+   static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+   private static final int LOOKAHEAD = Math.max(2, 2 * SystemInfo.NUMBER_OF_PROCESSORS);
+   private final CSV csv;
+   private final File file;
+   private final Charset charset;
+   private final int chunkSize;
+   private final FileChannel channel;
+   private final long length;
+   private final long firstStart;
+   private final Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+   private final List<String> header;
+   private long scheduled;
+   private Iterator<List<String>> rows = Collections.emptyIterator();
+   private boolean terminated = false;
+   private CSVReader sequential;
+
+   private ParallelCSVReader(CSV csv, File file, Charset charset, long start, int chunkSize) throws IOException {
+      super(csv, Reader.nullReader(), false);
+      this.csv = csv;
+      this.file = file;
+      this.charset = charset;
+      this.chunkSize = chunkSize;
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      this.length = channel.size();
+      this.firstStart = start;
+      this.scheduled = start;
+      try {
+         schedule();
+         Chunk first = pending.peekFirst().join();
+         if (!first.safe) {
+            throw new UnsafeSplitException();
+         }
+         this.header = first.header;
+      } catch (RuntimeException e) {
+         close();
+         throw e;
+      }
+   }
+
+   /**
+    * Opens a reader that parses the given resource in parallel if the resource is a large uncompressed local file in
+    * an ASCII compatible encoding whose first chunk can be split at a newline.
+    *
+    * @param csv      the CSV specification
+    * @param resource the resource to read
+    * @return the reader or null if the resource cannot be read in parallel
+    * @throws IOException Something went wrong reading the resource
+    */
+   static CSVReader open(CSV csv, Resource resource) throws IOException {
+      return open(csv, resource, DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * Opens a reader that parses the given resource in parallel using chunks of roughly the given number of bytes if
+    * the resource is at least two chunks long (see {@link #open(CSV, Resource)}).
+    *
+    * @param csv       the CSV specification
+    * @param resource  the resource to read
+    * @param chunkSize the target size in bytes of a chunk
+    * @return the reader or null if the resource cannot be read in parallel
+    * @throws IOException Something went wrong reading the resource
+    */
+   static CSVReader open(CSV csv, Resource resource, int chunkSize) throws IOException {
+      File file = resource.asFile().orElse(null);
+      Charset charset = resource.getCharset();
+      if (file == null
+            || !file.isFile()
+            || file.length() < 2L * chunkSize
+            || !(charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1))
+            || csv.getQuote() > 127
+            || csv.getEscape() > 127
+            || csv.getDelimiter() > 127
+            || csv.getComment() > 127) {
+         return null;
+      }
+      byte[] start = new byte[16];
+      try (InputStream is = new FileInputStream(file)) {
+         if (is.readNBytes(start, 0, start.length) < start.length
+               || Compression.detectCompression(new ByteArrayInputStream(start)) != Compression.NONE) {
+            return null;
+         }
+      }
+      long offset = 0;
+      for (CommonBOM bom : CommonBOM.values()) {
+         if (bom.matches(start)) {
+            if (bom.getCharset() != StandardCharsets.UTF_8) {
+               return null;
+            }
+            offset = bom.length();
+            charset = StandardCharsets.UTF_8;
+            break;
+         }
+      }
+      try {
+         return new ParallelCSVReader(csv, file, charset, offset, chunkSize);
+      } catch (UnsafeSplitException e) {
+         return null;
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      pending.forEach(f -> f.cancel(false));
+      pending.clear();
+      if (sequential != null) {
+         sequential.close();
+      }
+      channel.close();
+   }
+
+   private long findEnd(long start) throws IOException {
+      long position = start + chunkSize;
+      if (position >= length) {
+         return length;
+      }
+      //A comment line continues the row that follows it, so chunks only end after a line that is not a comment
+      byte comment = (byte) csv.getComment();
+      //The line containing the target position may have started anywhere, so it is skipped
+      boolean lineStart = false;
+      boolean commentLine = true;
+      ByteBuffer buffer = ByteBuffer.allocate(8192);
+      while (position < length) {
+         buffer.clear();
+         int read = channel.read(buffer, position);
+         if (read <= 0) {
+            break;
+         }
+         for (int i = 0; i < read; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+               if (!commentLine) {
+                  return position + i + 1;
+               }
+               lineStart = true;
+               commentLine = false;
+            } else if (lineStart && b != ' ' && b != '\t') {
+               lineStart = false;
+               commentLine = b == comment;
+            }
+         }
+         position += read;
+      }
+      return length;
+   }
+
+   @Override
+   public List<String> getHeader() {
+      return header == null
+             ? Collections.emptyList()
+             : Collections.unmodifiableList(header);
+   }
+
+   @Override
+   public List<String> nextRow() throws IOException {
+      while (sequential == null) {
+         if (rows.hasNext()) {
+            return rows.next();
+         }
+         if (terminated || pending.isEmpty()) {
+            return null;
+         }
+         Chunk chunk;
+         try {
+            chunk = pending.removeFirst().join();
+         } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+               throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+         }
+         if (!chunk.safe) {
+            //Read the remainder of the file sequentially starting at the chunk that cannot be split
+            pending.forEach(f -> f.cancel(false));
+            pending.clear();
+            sequential = new CSVReader(csv,
+                                       new InputStreamReader(Channels.newInputStream(channel.position(chunk.start)),
+                                                             charset),
+                                       false);
+            break;
+         }
+         terminated = chunk.terminated;
+         rows = chunk.rows.iterator();
+         schedule();
+      }
+      return sequential.nextRow();
+   }
+
+   private Chunk parse(long start, long end, boolean readHeader) {
+      byte[] bytes = new byte[(int) (end - start)];
+      try {
+         ByteBuffer buffer = ByteBuffer.wrap(bytes);
+         while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+               throw new EOFException();
+            }
+         }
+         byte quote = (byte) csv.getQuote();
+         byte escape = (byte) csv.getEscape();
+         for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == quote
+                  || (bytes[i] == escape && i + 1 < bytes.length && (bytes[i + 1] == '\n' || bytes[i + 1] == '\r'))) {
+               return new Chunk(start, null, null, false, false);
+            }
+         }
+         CSVReader reader = new CSVReader(csv, new StringReader(new String(bytes, charset)), readHeader);
+         List<List<String>> rows = new ArrayList<>();
+         List<String> row;
+         while ((row = reader.nextRow()) != null) {
+            rows.add(row);
+         }
+         return new Chunk(start, rows, reader.getHeader(), true, !reader.isExhausted());
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private void schedule() throws IOException {
+      while (pending.size() < LOOKAHEAD && scheduled < length) {
+         final long start = scheduled;
+         final long end = findEnd(start);
+         final boolean readHeader = start == firstStart && csv.getHasHeader();
+         pending.addLast(CompletableFuture.supplyAsync(() -> parse(start, end, readHeader)));
+         scheduled = end;
+      }
+   }
+
+   private static class Chunk {
+      final long start;
+      final List<List<String>> rows;
+      final List<String> header;
+      final boolean safe;
+      final boolean terminated;
+
+      private Chunk(long start, List<List<String>> rows, List<String> header, boolean safe, boolean terminated) {
+         this.start = start;
+         this.rows = rows;
+         this.header = header;
+         this.safe = safe;
+         this.terminated = terminated;
+      }
+   }
+
+   private static class UnsafeSplitException extends RuntimeException {
+      private static final long serialVersionUID = 1L;
+   }
+
+}//END OF ParallelCSVReader
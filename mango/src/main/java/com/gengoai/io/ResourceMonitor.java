@@ -22,24 +22,28 @@
 
 package com.gengoai.io;
 
-import com.gengoai.conversion.Cast;
+import com.gengoai.config.Config;
 import com.gengoai.stream.MStream;
 import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.java.Log;
 
 import java.io.*;
-import java.lang.ref.ReferenceQueue;
-import java.lang.ref.WeakReference;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
 import java.sql.Connection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import static com.gengoai.LogUtils.logFine;
+import static com.gengoai.LogUtils.logWarning;
+import static com.gengoai.Validation.checkArgument;
+
 /**
  * <p>
  * A common pitfall in Java is not properly closing resources. This can become especially tricky when dealing with
@@ -47,23 +51,52 @@ import java.util.stream.Stream;
  * automatically closes (frees) them when they are no longer referenced. The `ResourceMonitor` is basically a garbage
  * collector for resources!
  * </p>
+ * <p>
+ * Resources are registered with a {@link Cleaner} and calls made on them are never intercepted. Connections and
+ * streams are monitored by wrapping them in concrete final classes that delegate directly to the backing object, so
+ * that calls on them can be inlined by the JIT. To help find where leaked resources come from, the monitor can capture
+ * the stack trace of where a sample of the resources were registered and log it when such a resource is closed because
+ * it was no longer referenced. The sampling interval is set using the <code>ResourceMonitor.allocationSampleInterval</code>
+ * configuration property or {@link #setAllocationSampleInterval(int)}, where an interval of <code>n</code> captures the
+ * allocation site of one in every <code>n</code> resources and <code>0</code> (the default) disables capturing.
+ * </p>
  *
  * @author David B. Bracewell
  */
-public class ResourceMonitor extends Thread {
-   protected static final ResourceMonitor MONITOR = new ResourceMonitor();
+@Log
+public final class ResourceMonitor {
+   private static final LongAdder leaks = new LongAdder();
+   private static volatile int allocationSampleInterval = -1;
+   private static volatile Thread cleanerThread;
+   private static final Cleaner CLEANER = Cleaner.create(runnable -> {
+      Thread thread = new Thread(runnable, "ResourceMonitor-cleaner");
+      thread.setPriority(Thread.MAX_PRIORITY);
+      thread.setDaemon(true);
+      cleanerThread = thread;
+      return thread;
+   });
 
-   static {
-      MONITOR.start();
+   private ResourceMonitor() {
+      throw new IllegalAccessError();
    }
 
-   private final ConcurrentHashMap<Object, KeyedWeakReference> map = new ConcurrentHashMap<>();
-   private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+   private static int allocationSampleInterval() {
+      int interval = allocationSampleInterval;
+      if(interval < 0) {
+         interval = Math.max(0, Config.get("ResourceMonitor.allocationSampleInterval").asIntegerValue(0));
+         allocationSampleInterval = interval;
+      }
+      return interval;
+   }
 
-   private ResourceMonitor() {
-      setPriority(Thread.MAX_PRIORITY);
-      setName("GarbageCollectingConcurrentMap-cleanupthread");
-      setDaemon(true);
+   /**
+    * Gets the number of resources that have been closed by the monitor because they were no longer referenced, i.e.
+    * resources that were leaked by their owner.
+    *
+    * @return the number of leaked resources closed by the monitor
+    */
+   public static long getLeakCount() {
+      return leaks.sum();
    }
 
    /**
@@ -74,9 +107,7 @@ public class ResourceMonitor extends Thread {
     * @return the connection
     */
    public static Connection monitor(@NonNull Connection connection) {
-      return Cast.as(Proxy.newProxyInstance(connection.getClass().getClassLoader(),
-            new Class[]{Connection.class},
-            new ConnectionInvocationHandler(connection)));
+      return new MonitoredConnection(connection);
    }
 
    /**
@@ -120,16 +151,15 @@ public class ResourceMonitor extends Thread {
    }
 
    /**
-    * Monitors the given Stream.
+    * Monitors the given Stream. Streams returned from intermediate operations on the monitored stream are also
+    * monitored and keep the stream they were derived from open.
     *
     * @param <T>    the type parameter
     * @param stream the stream
     * @return the stream
     */
    public static <T> Stream<T> monitor(@NonNull Stream<T> stream) {
-      return Cast.as(Proxy.newProxyInstance(Stream.class.getClassLoader(),
-            new Class[]{Stream.class},
-            new StreamInvocationHandler<>(stream)));
+      return new MonitoredStream<>(stream, null);
    }
 
    /**
@@ -140,9 +170,7 @@ public class ResourceMonitor extends Thread {
     * @return the m stream
     */
    public static <T> MStream<T> monitor(@NonNull MStream<T> stream) {
-      return Cast.as(Proxy.newProxyInstance(MStream.class.getClassLoader(),
-            new Class[]{MStream.class},
-            new MStreamInvocationHandler<>(stream)));
+      return new MonitoredMStream<>(stream, null);
    }
 
    /**
@@ -152,9 +180,7 @@ public class ResourceMonitor extends Thread {
     * @return the double stream
     */
    public static DoubleStream monitor(@NonNull DoubleStream stream) {
-      return Cast.as(Proxy.newProxyInstance(DoubleStream.class.getClassLoader(),
-            new Class[]{DoubleStream.class},
-            new DoubleStreamInvocationHandler(stream)));
+      return new MonitoredDoubleStream(stream, null);
    }
 
    /**
@@ -164,9 +190,7 @@ public class ResourceMonitor extends Thread {
     * @return the int stream
     */
    public static IntStream monitor(@NonNull IntStream stream) {
-      return Cast.as(Proxy.newProxyInstance(IntStream.class.getClassLoader(),
-            new Class[]{IntStream.class},
-            new IntStreamInvocationHandler(stream)));
+      return new MonitoredIntStream(stream, null);
    }
 
    /**
@@ -176,9 +200,7 @@ public class ResourceMonitor extends Thread {
     * @return the long stream
     */
    public static LongStream monitor(@NonNull LongStream stream) {
-      return Cast.as(Proxy.newProxyInstance(DoubleStream.class.getClassLoader(),
-            new Class[]{LongStream.class},
-            new LongStreamInvocationHandler(stream)));
+      return new MonitoredLongStream(stream, null);
    }
 
    /**
@@ -204,146 +226,171 @@ public class ResourceMonitor extends Thread {
       return new MonitoredObject<>(object, onClose);
    }
 
-   protected  <T> T addResource(@NonNull final Object referent, @NonNull T resource) {
-      KeyedObject<T> monitoredResource = KeyedObject.create(resource);
-      map.put(monitoredResource.key, new KeyedWeakReference(referent, monitoredResource));
-      return resource;
+   /**
+    * Sets the interval at which the allocation sites of monitored resources are captured, overriding the
+    * <code>ResourceMonitor.allocationSampleInterval</code> configuration property.
+    *
+    * @param interval capture the allocation site of one in every <code>interval</code> resources or 0 to disable
+    */
+   public static void setAllocationSampleInterval(int interval) {
+      checkArgument(interval >= 0, "Interval must be non-negative");
+      allocationSampleInterval = interval;
    }
 
-   protected <T> T addResource(final Object referent, T resource, Consumer<T> onClose) {
-      KeyedObject<T> monitoredResource = KeyedObject.create(resource, onClose);
-      map.put(monitoredResource.key, new KeyedWeakReference(referent, monitoredResource));
-      return resource;
+   /**
+    * Tracks the given resource, closing it when the given owner is no longer referenced. The owner must not be
+    * reachable from the resource, otherwise the resource will never be closed. Calling
+    * {@link Cleaner.Cleanable#clean()} on the returned cleanable closes the resource immediately and stops tracking it.
+    *
+    * @param owner    the object whose reachability determines the lifetime of the resource
+    * @param resource the resource to close
+    * @return the cleanable for the registration
+    */
+   public static Cleaner.Cleanable track(@NonNull Object owner, @NonNull AutoCloseable resource) {
+      return track(owner, resource, ResourceMonitor::close);
    }
 
-   @Override
-   public void run() {
-      try {
-         while (true) {
-            KeyedWeakReference ref = (KeyedWeakReference) referenceQueue.remove();
-            try {
-               map.remove(ref.monitoredResource.key);
-               ref.monitoredResource.close();
-            } catch (Exception e) {
-               if (!e.getMessage().toLowerCase().contains("already closed")) {
-                  e.printStackTrace();
-               }
-            }
-         }
-      } catch (InterruptedException e) {
-         //
-      }
+   /**
+    * Tracks the given resource, calling the given onClose command on it when the given owner is no longer referenced.
+    * The owner must not be reachable from the resource or the onClose command, otherwise the resource will never be
+    * closed. Calling {@link Cleaner.Cleanable#clean()} on the returned cleanable runs the onClose command immediately
+    * and stops tracking the resource.
+    *
+    * @param <T>      the resource type parameter
+    * @param owner    the object whose reachability determines the lifetime of the resource
+    * @param resource the resource to close
+    * @param onClose  the command to run to close the resource
+    * @return the cleanable for the registration
+    */
+   public static <T> Cleaner.Cleanable track(@NonNull Object owner,
+                                             @NonNull T resource,
+                                             @NonNull Consumer<T> onClose) {
+      int interval = allocationSampleInterval();
+      Throwable allocationSite = interval > 0 && ThreadLocalRandom.current().nextInt(interval) == 0
+                                 ? new Throwable("Allocation site of " + resource.getClass().getName())
+                                 : null;
+      return CLEANER.register(owner, new Cleanup<>(resource, onClose, allocationSite));
    }
 
-   private static class ConnectionInvocationHandler implements InvocationHandler {
-      /**
-       * The Backing.
-       */
-      final Connection backing;
-
-      private ConnectionInvocationHandler(Connection backing) {
-         this.backing = MONITOR.addResource(this, backing);
-      }
+   /**
+    * Keeps the given referent reachable for as long as the given owner is reachable.
+    *
+    * @param owner    the owner
+    * @param referent the object to keep reachable
+    */
+   static void keepReachable(@NonNull Object owner, @NonNull Object referent) {
+      CLEANER.register(owner, new KeepReachable(referent));
+   }
 
-      @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backing, objects);
-      }
+   @SneakyThrows
+   private static void close(AutoCloseable resource) {
+      resource.close();
    }
 
-   private static class MStreamInvocationHandler<T> implements InvocationHandler {
-      /**
-       * The Backing.
-       */
-      final MStream<T> backing;
+   private static class Cleanup<T> implements Runnable {
+      private final Throwable allocationSite;
+      private final Consumer<T> onClose;
+      private final T resource;
 
-      private MStreamInvocationHandler(MStream<T> backing) {
-         this.backing = MONITOR.addResource(this, backing);
+      private Cleanup(T resource, Consumer<T> onClose, Throwable allocationSite) {
+         this.resource = resource;
+         this.onClose = onClose;
+         this.allocationSite = allocationSite;
       }
 
       @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backing, objects);
+      public void run() {
+         if(Thread.currentThread() != cleanerThread) {
+            //Explicitly closed by its owner
+            onClose.accept(resource);
+            return;
+         }
+         leaks.increment();
+         if(allocationSite != null) {
+            logWarning(log, "Closing unreferenced resource", allocationSite);
+         }
+         try {
+            onClose.accept(resource);
+         } catch(Exception e) {
+            if(e.getMessage() == null || !e.getMessage().toLowerCase().contains("already closed")) {
+               logFine(log, e);
+            }
+         }
       }
    }
 
-   private static class MonitoredInputStream extends InputStream {
-      /**
-       * The Backing.
-       */
-      final InputStream backing;
-
-      private MonitoredInputStream(InputStream backing) {
-         this.backing = MONITOR.addResource(this, backing);
-      }
+   private static class KeepReachable implements Runnable {
+      private final Object referent;
 
-      @Override
-      public void close() throws IOException {
-         backing.close();
+      private KeepReachable(Object referent) {
+         this.referent = referent;
       }
 
       @Override
-      public int read() throws IOException {
-         return backing.read();
+      public void run() {
+         Reference.reachabilityFence(referent);
       }
    }
 
-   private static class MonitoredOutputStream extends OutputStream {
-      /**
-       * The Backing.
-       */
-      final OutputStream backing;
+   private static final class MonitoredInputStream extends InputStream {
+      private final InputStream backing;
+      private final Cleaner.Cleanable cleanable;
 
-      private MonitoredOutputStream(OutputStream backing) {
-         this.backing = MONITOR.addResource(this, backing);
+      private MonitoredInputStream(InputStream backing) {
+         this.backing = backing;
+         this.cleanable = track(this, backing);
       }
 
       @Override
-      public void close() throws IOException {
-         backing.close();
+      public int available() throws IOException {
+         return backing.available();
       }
 
       @Override
-      public void write(int i) throws IOException {
-         backing.write(i);
+      public void close() throws IOException {
+         cleanable.clean();
       }
-   }
-
-   private static class MonitoredReader extends Reader {
-      /**
-       * The Backing.
-       */
-      final Reader backing;
 
-      private MonitoredReader(Reader backing) {
-         this.backing = MONITOR.addResource(this, backing);
-         ;
+      @Override
+      public int read() throws IOException {
+         try {
+            return backing.read();
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
 
       @Override
-      public void close() throws IOException {
-         backing.close();
+      public int read(byte[] b, int off, int len) throws IOException {
+         try {
+            return backing.read(b, off, len);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
 
       @Override
-      public int read(char[] chars, int i, int i1) throws IOException {
-         return backing.read(chars, i, i1);
+      public long skip(long n) throws IOException {
+         try {
+            return backing.skip(n);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
    }
 
-   private static class MonitoredWriter extends Writer {
-      /**
-       * The Backing.
-       */
-      final Writer backing;
+   private static final class MonitoredOutputStream extends OutputStream {
+      private final OutputStream backing;
+      private final Cleaner.Cleanable cleanable;
 
-      private MonitoredWriter(Writer backing) {
-         this.backing = MONITOR.addResource(this, backing);
+      private MonitoredOutputStream(OutputStream backing) {
+         this.backing = backing;
+         this.cleanable = track(this, backing);
       }
 
       @Override
       public void close() throws IOException {
-         backing.close();
+         cleanable.clean();
       }
 
       @Override
@@ -352,91 +399,75 @@ public class ResourceMonitor extends Thread {
       }
 
       @Override
-      public void write(char[] chars, int i, int i1) throws IOException {
-         backing.write(chars, i, i1);
-      }
-   }
-
-   private static class StreamInvocationHandler<T> implements InvocationHandler {
-      /**
-       * The Backing stream.
-       */
-      final Stream<T> backingStream;
-
-      private StreamInvocationHandler(Stream<T> backingStream) {
-         this.backingStream = MONITOR.addResource(this, backingStream);
+      public void write(int i) throws IOException {
+         try {
+            backing.write(i);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
 
       @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backingStream, objects);
+      public void write(byte[] b, int off, int len) throws IOException {
+         try {
+            backing.write(b, off, len);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
    }
 
-   private static class DoubleStreamInvocationHandler implements InvocationHandler {
-      /**
-       * The Backing stream.
-       */
-      final DoubleStream backingStream;
+   private static final class MonitoredReader extends Reader {
+      private final Reader backing;
+      private final Cleaner.Cleanable cleanable;
 
-      private DoubleStreamInvocationHandler(DoubleStream backingStream) {
-         this.backingStream = MONITOR.addResource(this, backingStream);
+      private MonitoredReader(Reader backing) {
+         this.backing = backing;
+         this.cleanable = track(this, backing);
       }
 
       @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backingStream, objects);
-      }
-   }
-
-   private static class LongStreamInvocationHandler implements InvocationHandler {
-      /**
-       * The Backing stream.
-       */
-      final LongStream backingStream;
-
-      private LongStreamInvocationHandler(LongStream backingStream) {
-         this.backingStream = MONITOR.addResource(this, backingStream);
+      public void close() throws IOException {
+         cleanable.clean();
       }
 
       @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backingStream, objects);
+      public int read(char[] chars, int i, int i1) throws IOException {
+         try {
+            return backing.read(chars, i, i1);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
    }
 
-   private static class IntStreamInvocationHandler implements InvocationHandler {
-      /**
-       * The Backing stream.
-       */
-      final IntStream backingStream;
+   private static final class MonitoredWriter extends Writer {
+      private final Writer backing;
+      private final Cleaner.Cleanable cleanable;
 
-      private IntStreamInvocationHandler(IntStream backingStream) {
-         this.backingStream = MONITOR.addResource(this, backingStream);
+      private MonitoredWriter(Writer backing) {
+         this.backing = backing;
+         this.cleanable = track(this, backing);
       }
 
       @Override
-      public Object invoke(Object o, Method method, Object[] objects) throws Throwable {
-         return method.invoke(backingStream, objects);
+      public void close() throws IOException {
+         cleanable.clean();
+      }
+
+      @Override
+      public void flush() throws IOException {
+         backing.flush();
       }
-   }
 
-   private class KeyedWeakReference extends WeakReference<Object> {
-      /**
-       * The Monitored resource.
-       */
-      public final KeyedObject<?> monitoredResource;
-
-      /**
-       * Instantiates a new Keyed weak reference.
-       *
-       * @param referenceObject   the reference object
-       * @param monitoredResource the monitored resource
-       */
-      public KeyedWeakReference(Object referenceObject, KeyedObject<?> monitoredResource) {
-         super(referenceObject, referenceQueue);
-         this.monitoredResource = monitoredResource;
+      @Override
+      public void write(char[] chars, int i, int i1) throws IOException {
+         try {
+            backing.write(chars, i, i1);
+         } finally {
+            Reference.reachabilityFence(this);
+         }
       }
    }
 
-}//END OF ReferenceMonitor
+}//END OF ResourceMonitor
@@ -0,0 +1,146 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package com.gengoai.kv;
+
+import com.gengoai.math.HashingFunctions;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bloom filter over the keys of an {@link SSTable} used to skip tables that cannot contain a key. Keys are hashed
+ * on a stable byte representation (UTF-8 for strings and Java serialization otherwise) so that filters written to
+ * disk remain valid across JVMs.
+ *
+ * @author David B. Bracewell
+ */
+final class BloomFilter {
+   private final long[] bits;
+   private final int numberOfHashes;
+
+   private BloomFilter(long[] bits, int numberOfHashes) {
+      this.bits = bits;
+      this.numberOfHashes = numberOfHashes;
+   }
+
+   /**
+    * Creates a bloom filter sized for the expected number of keys and the given false positive rate
+    *
+    * @param expectedKeys      the expected number of keys
+    * @param falsePositiveRate the desired false positive rate
+    * @return the bloom filter
+    */
+   static BloomFilter create(long expectedKeys, double falsePositiveRate) {
+      long n = Math.max(1, expectedKeys);
+      long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+      m = Math.max(64, Math.min(m, (long) Integer.MAX_VALUE * 64));
+      int k = (int) Math.max(1, Math.round((double) m / n * Math.log(2)));
+      return new BloomFilter(new long[(int) ((m + 63) / 64)], k);
+   }
+
+   /**
+    * Reads a bloom filter written with {@link #write(DataOutput)}
+    *
+    * @param input the input to read from
+    * @return the bloom filter
+    * @throws IOException Something went wrong reading
+    */
+   static BloomFilter read(DataInput input) throws IOException {
+      int numberOfHashes = input.readInt();
+      long[] bits = new long[input.readInt()];
+      for(int i = 0; i < bits.length; i++) {
+         bits[i] = input.readLong();
+      }
+      return new BloomFilter(bits, numberOfHashes);
+   }
+
+   /**
+    * Gets the bytes of the given key that are hashed
+    *
+    * @param key the key
+    * @return the bytes to hash
+    */
+   static byte[] keyBytes(Object key) {
+      if(key instanceof CharSequence) {
+         return key.toString().getBytes(StandardCharsets.UTF_8);
+      }
+      try(ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+         oos.writeObject(key);
+         oos.flush();
+         return bytes.toByteArray();
+      } catch(IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   /**
+    * Adds the key with the given bytes to the filter
+    *
+    * @param keyBytes the key bytes (see {@link #keyBytes(Object)})
+    */
+   void add(byte[] keyBytes) {
+      long numberOfBits = (long) bits.length * 64;
+      int h1 = HashingFunctions.hash32x86(keyBytes, 0, keyBytes.length, 0);
+      int h2 = HashingFunctions.hash32x86(keyBytes, 0, keyBytes.length, h1);
+      for(int i = 0; i < numberOfHashes; i++) {
+         long bit = Math.floorMod(h1 + (long) i * h2, numberOfBits);
+         bits[(int) (bit >>> 6)] |= 1L << bit;
+      }
+   }
+
+   /**
+    * Checks if the key with the given bytes might have been added to the filter
+    *
+    * @param keyBytes the key bytes (see {@link #keyBytes(Object)})
+    * @return False if the key was definitely not added, True if it might have been
+    */
+   boolean mightContain(byte[] keyBytes) {
+      long numberOfBits = (long) bits.length * 64;
+      int h1 = HashingFunctions.hash32x86(keyBytes, 0, keyBytes.length, 0);
+      int h2 = HashingFunctions.hash32x86(keyBytes, 0, keyBytes.length, h1);
+      for(int i = 0; i < numberOfHashes; i++) {
+         long bit = Math.floorMod(h1 + (long) i * h2, numberOfBits);
+         if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Writes the filter to the given output
+    *
+    * @param output the output to write to
+    * @throws IOException Something went wrong writing
+    */
+   void write(DataOutput output) throws IOException {
+      output.writeInt(numberOfHashes);
+      output.writeInt(bits.length);
+      for(long bit : bits) {
+         output.writeLong(bit);
+      }
+   }
+
+}//END OF BloomFilter
@@ -30,6 +30,8 @@ import java.util.Map;
  * A Key-Value store is a database in which data is associated with a unique key providing quick retrieval via the key.
  * Key-Value Stores are created using {@link #connect(String)}  where the specification is
  * defined as follows: <code>kv::[type]::[namespace]::[path];compressed=[true,false];readOnly=[true,false]</code>
+ * where type is one of <code>mem</code> (in-memory), <code>disk</code> (MapDB file), or <code>lsm</code> (log-structured
+ * merge tree stored in the directory given by the path).
  *
  * @param <K> the type parameter
  * @param <V> the type parameter
@@ -85,6 +85,12 @@ public final class KeyValueStoreConnection implements Specifiable, Serializable
                   namespace,
                   compressed,
                   readOnly));
+         case "lsm":
+            Validation.notNullOrBlank(path, "Key-Value store path must not be blank or null");
+            return Cast.as(new LSMKeyValueStore<>(Resources.from(path),
+                  namespace,
+                  compressed,
+                  readOnly));
          default:
             throw new IllegalArgumentException("Invalid key-value type: " + type);
       }
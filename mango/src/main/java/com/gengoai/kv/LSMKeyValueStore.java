@@ -0,0 +1,290 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package com.gengoai.kv;
+
+import com.gengoai.Validation;
+import com.gengoai.conversion.Cast;
+import com.gengoai.io.resource.Resource;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>
+ * A disk-based {@link NavigableKeyValueStore} backed by a log-structured merge tree (see {@link LSMTree}) in the
+ * directory <code>[path]/[namespace]</code>. Writes are buffered in memory and written out as immutable sorted tables,
+ * so that bulk loading does not rewrite existing data, and reads are served from memory mapped tables guarded by bloom
+ * filters. Changes are persisted on {@link #commit()} or {@link #close()}. Note that, unless the store consists of a
+ * single compacted table, computing its size reads every table (see {@link LSMTree#size()}).
+ * </p>
+ * <p>
+ * Keys must be mutually comparable and neither keys nor values may be null. Values read from disk are cached and
+ * shared between calls, and thus should not be modified without being put back into the store.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author David B. Bracewell
+ */
+class LSMKeyValueStore<K, V> extends AbstractMap<K, V> implements NavigableKeyValueStore<K, V>, Serializable {
+   private static final long serialVersionUID = 1L;
+   private final boolean compressed;
+   private final File directory;
+   private final String namespace;
+   private final boolean readOnly;
+   private transient volatile LSMTree tree;
+
+   /**
+    * Instantiates a new LSMKeyValueStore.
+    *
+    * @param path       the directory the stores are located in
+    * @param namespace  the namespace
+    * @param compressed True if the blocks of the tables should be compressed
+    * @param readOnly   True if the store is read only
+    */
+   public LSMKeyValueStore(@NonNull Resource path, String namespace, boolean compressed, boolean readOnly) {
+      this.namespace = Validation.notNullOrBlank(namespace, "Namespace must not be null or blank");
+      this.directory = new File(path.asFile()
+                                    .orElseThrow(() -> new IllegalArgumentException(
+                                          "LSM key-value stores must be located on the file system: " + path)),
+                                namespace);
+      this.compressed = compressed;
+      this.readOnly = readOnly;
+      tree();
+   }
+
+   @Override
+   public K ceilingKey(K key) {
+      return firstKey(tree().entries(key, true, false));
+   }
+
+   private void checkWritable() {
+      if(readOnly) {
+         throw new UnsupportedOperationException("The key-value store is read only");
+      }
+   }
+
+   @Override
+   public void clear() {
+      checkWritable();
+      tree().clear();
+   }
+
+   @Override
+   public void close() throws Exception {
+      if(tree != null) {
+         synchronized(this) {
+            if(tree != null) {
+               if(!readOnly) {
+                  tree.flush();
+               }
+               LSMTree.release(tree);
+               tree = null;
+            }
+         }
+      }
+   }
+
+   @Override
+   public void commit() {
+      if(!readOnly) {
+         tree().flush();
+      }
+   }
+
+   @Override
+   public boolean containsKey(Object o) {
+      return o != null && tree().get(o) != null;
+   }
+
+   @Override
+   public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<>() {
+         @Override
+         public Iterator<Entry<K, V>> iterator() {
+            return new Iterator<>() {
+               final Iterator<Entry<Object, Object>> backing = tree().entries(null, true, false);
+               K last = null;
+
+               @Override
+               public boolean hasNext() {
+                  return backing.hasNext();
+               }
+
+               @Override
+               public Entry<K, V> next() {
+                  Entry<K, V> next = Cast.as(backing.next());
+                  last = next.getKey();
+                  return next;
+               }
+
+               @Override
+               public void remove() {
+                  if(last == null) {
+                     throw new IllegalStateException();
+                  }
+                  LSMKeyValueStore.this.remove(last);
+                  last = null;
+               }
+            };
+         }
+
+         @Override
+         public int size() {
+            return LSMKeyValueStore.this.size();
+         }
+      };
+   }
+
+   @Override
+   public K firstKey() {
+      K key = firstKey(tree().entries(null, true, false));
+      if(key == null) {
+         throw new NoSuchElementException();
+      }
+      return key;
+   }
+
+   private K firstKey(Iterator<Entry<Object, Object>> iterator) {
+      return iterator.hasNext()
+             ? Cast.as(iterator.next().getKey())
+             : null;
+   }
+
+   @Override
+   public K floorKey(K key) {
+      return firstKey(tree().entries(key, true, true));
+   }
+
+   @Override
+   public V get(Object o) {
+      return o == null
+             ? null
+             : Cast.as(tree().get(o));
+   }
+
+   @Override
+   public String getNameSpace() {
+      return namespace;
+   }
+
+   @Override
+   public K higherKey(K key) {
+      return firstKey(tree().entries(key, false, false));
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return !tree().entries(null, true, false).hasNext();
+   }
+
+   @Override
+   public boolean isReadOnly() {
+      return readOnly;
+   }
+
+   @Override
+   public Iterator<K> keyIterator(K key) {
+      Iterator<Entry<Object, Object>> iterator = tree().entries(key, true, false);
+      return new Iterator<>() {
+         @Override
+         public boolean hasNext() {
+            return iterator.hasNext();
+         }
+
+         @Override
+         public K next() {
+            return Cast.as(iterator.next().getKey());
+         }
+      };
+   }
+
+   @Override
+   public K lastKey() {
+      K key = firstKey(tree().entries(null, true, true));
+      if(key == null) {
+         throw new NoSuchElementException();
+      }
+      return key;
+   }
+
+   @Override
+   public K lowerKey(K key) {
+      return firstKey(tree().entries(key, false, true));
+   }
+
+   @Override
+   public V put(@NonNull K key, @NonNull V value) {
+      checkWritable();
+      V old = get(key);
+      tree().put(key, value);
+      return old;
+   }
+
+   @Override
+   public void putAll(@NonNull Map<? extends K, ? extends V> map) {
+      checkWritable();
+      //Unlike put, no lookup of the previous value is needed
+      map.forEach((k, v) -> tree().put(Validation.notNull(k), Validation.notNull(v)));
+   }
+
+   @Override
+   public V remove(Object o) {
+      checkWritable();
+      V old = get(o);
+      if(old != null) {
+         tree().put(o, SSTable.TOMBSTONE);
+      }
+      return old;
+   }
+
+   @Override
+   public int size() {
+      return (int) Math.min(Integer.MAX_VALUE, sizeAsLong());
+   }
+
+   @Override
+   public long sizeAsLong() {
+      return tree().size();
+   }
+
+   @Override
+   public String toString() {
+      return "LSMKeyValueStore{" + directory + "}";
+   }
+
+   private LSMTree tree() {
+      if(tree == null) {
+         synchronized(this) {
+            if(tree == null) {
+               tree = LSMTree.open(directory, compressed);
+            }
+         }
+      }
+      return tree;
+   }
+
+}//END OF LSMKeyValueStore
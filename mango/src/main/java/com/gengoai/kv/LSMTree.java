@@ -0,0 +1,577 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package com.gengoai.kv;
+
+import com.gengoai.collection.Sorting;
+import com.gengoai.config.Config;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.gengoai.LogUtils.logFine;
+import static com.gengoai.LogUtils.logWarning;
+
+/**
+ * <p>
+ * A log-structured merge tree storing the entries of an {@link LSMKeyValueStore} in a directory. Writes go to an
+ * in-memory sorted memtable, which is flushed to a new immutable {@link SSTable} when it reaches a configured number of
+ * writes (<code>LSMKeyValueStore.memtableSize</code>, default 100,000) or the store is committed. Reads check the
+ * memtable and then the tables from newest to oldest, skipping tables whose bloom filter rules out the key.
+ * </p>
+ * <p>
+ * Tables are compacted in the background using size-tiered merging. A table's tier is the base
+ * <code>LSMKeyValueStore.mergeFactor</code> (default 4) logarithm of its entry count in memtables, and whenever
+ * <code>mergeFactor</code> adjacent tables share a tier they are merged into a single table of the next tier, dropping
+ * overwritten values. Each entry is thus rewritten once per tier rather than on every compaction. Deleted keys are only
+ * dropped when the oldest table takes part in the merge, as otherwise their tombstones still hide older values. When
+ * the number of tables reaches <code>LSMKeyValueStore.maxSegments</code> (default 32) without a full tier, the
+ * adjacent tables with the fewest entries are merged to bound the number of tables a read has to check.
+ * </p>
+ * <p>
+ * Tables are named by the range of flush sequence numbers they cover, <code>[low]-[high].sst</code>, and are written
+ * to a temporary file before being atomically renamed, so that on open any table whose range is covered by another
+ * (i.e. the inputs of a compaction that did not finish cleaning up) can be discarded.
+ * </p>
+ * <p>
+ * Trees are shared, with reference counting, by all stores opened on the same directory in a JVM.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+@Log
+final class LSMTree {
+   private static final Pattern TABLE_NAME = Pattern.compile("(\\d+)-(\\d+)" + Pattern.quote(SSTable.EXTENSION));
+   private static final Map<File, LSMTree> trees = new HashMap<>();
+   private final File directory;
+   private final boolean compressed;
+   private final int memtableSize;
+   private final int maxSegments;
+   private final int mergeFactor;
+   private final double falsePositiveRate;
+   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+   private final AtomicInteger memtableWrites = new AtomicInteger();
+   private final AtomicLong modifications = new AtomicLong();
+   private final AtomicBoolean compacting = new AtomicBoolean(false);
+   private volatile ConcurrentSkipListMap<Object, Object> memtable = newMemtable();
+   private volatile List<SSTable> segments;
+   private volatile long size = -1;
+   private long nextSequence;
+   private ExecutorService compactor;
+   private int references = 0;
+
+   private LSMTree(File directory, boolean compressed) throws IOException {
+      this.directory = directory;
+      this.compressed = compressed;
+      this.memtableSize = Config.get("LSMKeyValueStore.memtableSize").asIntegerValue(100_000);
+      this.maxSegments = Math.max(2, Config.get("LSMKeyValueStore.maxSegments").asIntegerValue(32));
+      this.mergeFactor = Math.max(2, Config.get("LSMKeyValueStore.mergeFactor").asIntegerValue(4));
+      this.falsePositiveRate = Config.get("LSMKeyValueStore.falsePositiveRate").asDoubleValue(0.01);
+      directory.mkdirs();
+
+      //Load the tables from newest to oldest dropping those covered by another table
+      List<long[]> ranges = new ArrayList<>();
+      File[] files = directory.listFiles();
+      for(File file : files == null
+                      ? new File[0]
+                      : files) {
+         Matcher m = TABLE_NAME.matcher(file.getName());
+         if(m.matches()) {
+            ranges.add(new long[]{Long.parseLong(m.group(1)), Long.parseLong(m.group(2))});
+         } else if(file.getName().endsWith(SSTable.EXTENSION + ".tmp")) {
+            file.delete();
+         }
+      }
+      ranges.sort(Comparator.<long[]>comparingLong(r -> -r[1]).thenComparingLong(r -> r[0]));
+      List<SSTable> tables = new ArrayList<>();
+      for(long[] range : ranges) {
+         File file = new File(directory, tableName(range[0], range[1]));
+         if(tables.stream().anyMatch(t -> t.low() <= range[0] && t.high() >= range[1])) {
+            logFine(log, "Removing compacted table {0}", file);
+            file.delete();
+         } else {
+            tables.add(SSTable.open(file, range[0], range[1]));
+         }
+         nextSequence = Math.max(nextSequence, range[1] + 1);
+      }
+      this.segments = Collections.unmodifiableList(tables);
+   }
+
+   /**
+    * Opens the tree stored in the given directory, sharing an already open tree if one exists.
+    *
+    * @param directory  the directory
+    * @param compressed True if newly written tables should compress their blocks
+    * @return the tree
+    */
+   static LSMTree open(File directory, boolean compressed) {
+      File key = directory.getAbsoluteFile();
+      synchronized(trees) {
+         LSMTree tree = trees.get(key);
+         if(tree == null) {
+            try {
+               tree = new LSMTree(key, compressed);
+            } catch(IOException e) {
+               throw new UncheckedIOException(e);
+            }
+            trees.put(key, tree);
+         }
+         tree.references++;
+         return tree;
+      }
+   }
+
+   /**
+    * Releases a reference to the given tree obtained via {@link #open(File, boolean)}, closing the tree when there
+    * are no more references.
+    *
+    * @param tree the tree
+    */
+   static void release(LSMTree tree) {
+      synchronized(trees) {
+         tree.references--;
+         if(tree.references > 0) {
+            return;
+         }
+         trees.remove(tree.directory);
+      }
+      if(tree.compactor != null) {
+         tree.compactor.shutdown();
+         try {
+            tree.compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+         } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   private static ConcurrentSkipListMap<Object, Object> newMemtable() {
+      return new ConcurrentSkipListMap<>(Sorting::compare);
+   }
+
+   private static String tableName(long low, long high) {
+      return low + "-" + high + SSTable.EXTENSION;
+   }
+
+   /**
+    * Deletes all entries in the tree
+    */
+   void clear() {
+      lock.writeLock().lock();
+      try {
+         List<SSTable> old = segments;
+         segments = Collections.emptyList();
+         memtable = newMemtable();
+         memtableWrites.set(0);
+         modifications.incrementAndGet();
+         size = 0;
+         old.forEach(SSTable::delete);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   private void compact() {
+      try {
+         List<SSTable> current = segments;
+         List<SSTable> inputs = selectCompaction(current);
+         if(inputs == null) {
+            return;
+         }
+         //Tombstones can only be dropped when there are no older tables for them to hide values in
+         boolean dropTombstones = inputs.get(inputs.size() - 1) == current.get(current.size() - 1);
+         long low = Long.MAX_VALUE;
+         long high = Long.MIN_VALUE;
+         long expected = 0;
+         List<Iterator<Map.Entry<Object, Object>>> sources = new ArrayList<>();
+         for(SSTable table : inputs) {
+            low = Math.min(low, table.low());
+            high = Math.max(high, table.high());
+            expected += table.entryCount();
+            sources.add(table.iterator(null, true, false));
+         }
+         SSTable merged = SSTable.write(new File(directory, tableName(low, high)),
+                                        low,
+                                        high,
+                                        new MergeIterator(sources, false, dropTombstones),
+                                        expected,
+                                        compressed,
+                                        falsePositiveRate);
+         lock.writeLock().lock();
+         try {
+            //Flushes only add newer tables, so the inputs are still adjacent unless the tree was cleared
+            current = segments;
+            int start = current.indexOf(inputs.get(0));
+            if(start >= 0 && start + inputs.size() <= current.size()
+                  && identical(current.subList(start, start + inputs.size()), inputs)) {
+               List<SSTable> updated = new ArrayList<>(current.subList(0, start));
+               updated.add(merged);
+               updated.addAll(current.subList(start + inputs.size(), current.size()));
+               segments = Collections.unmodifiableList(updated);
+               inputs.forEach(SSTable::delete);
+               logFine(log, "Compacted {0} tables into {1}", inputs.size(), merged);
+            } else {
+               //The tree was cleared while compacting
+               merged.delete();
+            }
+         } finally {
+            lock.writeLock().unlock();
+         }
+      } catch(Exception e) {
+         logWarning(log, e);
+      } finally {
+         compacting.set(false);
+      }
+      maybeCompact();
+   }
+
+   private static boolean identical(List<SSTable> a, List<SSTable> b) {
+      for(int i = 0; i < a.size(); i++) {
+         if(a.get(i) != b.get(i)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Iterates over the live entries of the tree in key order starting at the given key. The iterator is weakly
+    * consistent, reflecting the tables at the time of creation and possibly later writes to the memtable.
+    *
+    * @param from       the key to start from or null to start from the first (or last when descending) key
+    * @param inclusive  True if the start key should be included
+    * @param descending True to iterate in descending order, False ascending
+    * @return the iterator
+    */
+   Iterator<Map.Entry<Object, Object>> entries(Object from, boolean inclusive, boolean descending) {
+      ConcurrentSkipListMap<Object, Object> mem = memtable;
+      List<SSTable> tables = segments;
+      List<Iterator<Map.Entry<Object, Object>>> sources = new ArrayList<>();
+      NavigableMap<Object, Object> view;
+      if(from == null) {
+         view = descending
+                ? mem.descendingMap()
+                : mem;
+      } else {
+         view = descending
+                ? mem.headMap(from, inclusive).descendingMap()
+                : mem.tailMap(from, inclusive);
+      }
+      sources.add(view.entrySet().iterator());
+      for(SSTable table : tables) {
+         sources.add(table.iterator(from, inclusive, descending));
+      }
+      return new MergeIterator(sources, descending, true);
+   }
+
+   /**
+    * Writes the memtable to a new table if it is not empty
+    */
+   void flush() {
+      lock.writeLock().lock();
+      try {
+         ConcurrentSkipListMap<Object, Object> mem = memtable;
+         if(mem.isEmpty()) {
+            return;
+         }
+         List<SSTable> current = segments;
+         long sequence = nextSequence++;
+         Iterator<Map.Entry<Object, Object>> entries = mem.entrySet().iterator();
+         if(current.isEmpty()) {
+            entries = new MergeIterator(Collections.singletonList(entries), false, true);
+         }
+         SSTable table = SSTable.write(new File(directory, tableName(sequence, sequence)),
+                                       sequence,
+                                       sequence,
+                                       entries,
+                                       mem.size(),
+                                       compressed,
+                                       falsePositiveRate);
+         List<SSTable> updated = new ArrayList<>();
+         updated.add(table);
+         updated.addAll(current);
+         //Publish the table before dropping the memtable so readers always see the flushed entries
+         segments = Collections.unmodifiableList(updated);
+         memtable = newMemtable();
+         memtableWrites.set(0);
+      } catch(IOException e) {
+         throw new UncheckedIOException(e);
+      } finally {
+         lock.writeLock().unlock();
+      }
+      maybeCompact();
+   }
+
+   /**
+    * Gets the value of the given key
+    *
+    * @param key the key
+    * @return the value or null if the key is not in the tree
+    */
+   Object get(Object key) {
+      Object value = memtable.get(key);
+      if(value == null) {
+         List<SSTable> tables = segments;
+         byte[] keyBytes = tables.isEmpty()
+                           ? null
+                           : BloomFilter.keyBytes(key);
+         for(SSTable table : tables) {
+            value = table.get(key, keyBytes);
+            if(value != null) {
+               break;
+            }
+         }
+      }
+      return value == SSTable.TOMBSTONE
+             ? null
+             : value;
+   }
+
+   private void maybeCompact() {
+      if(selectCompaction(segments) != null && compacting.compareAndSet(false, true)) {
+         synchronized(this) {
+            if(compactor == null || compactor.isShutdown()) {
+               compactor = Executors.newSingleThreadExecutor(r -> {
+                  Thread thread = new Thread(r, "LSMTree-compaction-" + directory.getName());
+                  thread.setDaemon(true);
+                  return thread;
+               });
+            }
+            compactor.submit(this::compact);
+         }
+      }
+   }
+
+   /**
+    * Selects the adjacent tables to merge next: the newest run of at least <code>mergeFactor</code> adjacent tables in
+    * the same tier or, when there are <code>maxSegments</code> tables but no such run, the <code>mergeFactor</code>
+    * adjacent tables with the fewest entries.
+    *
+    * @param tables the tables ordered from newest to oldest
+    * @return the tables to merge or null if no compaction is needed
+    */
+   private List<SSTable> selectCompaction(List<SSTable> tables) {
+      int start = 0;
+      while(start < tables.size()) {
+         int tier = tier(tables.get(start));
+         int end = start + 1;
+         while(end < tables.size() && tier(tables.get(end)) == tier) {
+            end++;
+         }
+         if(end - start >= mergeFactor) {
+            return new ArrayList<>(tables.subList(start, end));
+         }
+         start = end;
+      }
+      if(tables.size() < maxSegments) {
+         return null;
+      }
+      int window = Math.min(mergeFactor, tables.size());
+      int best = 0;
+      long bestEntries = Long.MAX_VALUE;
+      for(int i = 0; i + window <= tables.size(); i++) {
+         long entries = 0;
+         for(int j = i; j < i + window; j++) {
+            entries += tables.get(j).entryCount();
+         }
+         if(entries < bestEntries) {
+            best = i;
+            bestEntries = entries;
+         }
+      }
+      return new ArrayList<>(tables.subList(best, best + window));
+   }
+
+   /**
+    * Sets the value of the given key, where a value of {@link SSTable#TOMBSTONE} deletes the key.
+    *
+    * @param key   the key
+    * @param value the value
+    */
+   void put(Object key, Object value) {
+      lock.readLock().lock();
+      try {
+         memtable.put(key, value);
+         modifications.incrementAndGet();
+         size = -1;
+      } finally {
+         lock.readLock().unlock();
+      }
+      if(memtableWrites.incrementAndGet() >= memtableSize) {
+         flush();
+      }
+   }
+
+   /**
+    * <p>
+    * Counts the number of live keys in the tree. The count is cached until the next modification.
+    * </p>
+    * <p>
+    * Tables can overwrite and delete each other's keys, so their persisted entry counts only give the number of live
+    * keys when everything is in a single table without pending writes (the oldest table never holds tombstones).
+    * Otherwise, counting merges all tables and reads, and deserializes, every block of the tree, which costs as much as
+    * a full scan.
+    * </p>
+    *
+    * @return the number of keys
+    */
+   long size() {
+      long cached = size;
+      if(cached >= 0) {
+         return cached;
+      }
+      long version = modifications.get();
+      List<SSTable> tables = segments;
+      if(memtable.isEmpty() && tables.size() <= 1) {
+         long count = tables.isEmpty()
+                      ? 0
+                      : tables.get(0).entryCount();
+         if(modifications.get() == version) {
+            size = count;
+         }
+         return count;
+      }
+      long count = 0;
+      for(Iterator<Map.Entry<Object, Object>> itr = entries(null, true, false); itr.hasNext(); itr.next()) {
+         count++;
+      }
+      if(modifications.get() == version) {
+         size = count;
+      }
+      return count;
+   }
+
+   private int tier(SSTable table) {
+      int tier = 0;
+      for(long units = table.entryCount() / Math.max(1, memtableSize); units >= mergeFactor; units /= mergeFactor) {
+         tier++;
+      }
+      return tier;
+   }
+
+   @Override
+   public String toString() {
+      return "LSMTree{" + directory + ", tables=" + segments.size() + "}";
+   }
+
+   /**
+    * Merges sorted entry iterators, ordered from newest to oldest, into a single sorted iterator where the newest
+    * value of a key wins and deleted keys are skipped, or kept as tombstones when merging tables that still need to
+    * hide older values.
+    */
+   private static class MergeIterator implements Iterator<Map.Entry<Object, Object>> {
+      private final boolean dropTombstones;
+      private final PriorityQueue<Head> heads;
+      private Map.Entry<Object, Object> next;
+
+      private MergeIterator(List<Iterator<Map.Entry<Object, Object>>> sources,
+                            boolean descending,
+                            boolean dropTombstones) {
+         this.dropTombstones = dropTombstones;
+         Comparator<Head> comparator = (h1, h2) -> {
+            int cmp = Sorting.compare(h1.entry.getKey(), h2.entry.getKey());
+            if(descending) {
+               cmp = -cmp;
+            }
+            return cmp == 0
+                   ? Integer.compare(h1.rank, h2.rank)
+                   : cmp;
+         };
+         this.heads = new PriorityQueue<>(Math.max(1, sources.size()), comparator);
+         for(int i = 0; i < sources.size(); i++) {
+            Head head = new Head(i, sources.get(i));
+            if(head.advance()) {
+               heads.add(head);
+            }
+         }
+      }
+
+      private boolean advance() {
+         while(next == null && !heads.isEmpty()) {
+            Head newest = heads.poll();
+            Map.Entry<Object, Object> entry = newest.entry;
+            while(!heads.isEmpty() && Sorting.compare(heads.peek().entry.getKey(), entry.getKey()) == 0) {
+               Head older = heads.poll();
+               if(older.advance()) {
+                  heads.add(older);
+               }
+            }
+            if(newest.advance()) {
+               heads.add(newest);
+            }
+            if(!dropTombstones || entry.getValue() != SSTable.TOMBSTONE) {
+               next = entry;
+            }
+         }
+         return next != null;
+      }
+
+      @Override
+      public boolean hasNext() {
+         return advance();
+      }
+
+      @Override
+      public Map.Entry<Object, Object> next() {
+         if(!advance()) {
+            throw new NoSuchElementException();
+         }
+         Map.Entry<Object, Object> entry = next;
+         next = null;
+         return entry;
+      }
+   }
+
+   private static class Head {
+      private final int rank;
+      private final Iterator<Map.Entry<Object, Object>> iterator;
+      private Map.Entry<Object, Object> entry;
+
+      private Head(int rank, Iterator<Map.Entry<Object, Object>> iterator) {
+         this.rank = rank;
+         this.iterator = iterator;
+      }
+
+      private boolean advance() {
+         if(iterator.hasNext()) {
+            entry = iterator.next();
+            return true;
+         }
+         return false;
+      }
+   }
+
+}//END OF LSMTree
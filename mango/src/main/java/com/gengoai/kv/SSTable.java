@@ -0,0 +1,532 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package com.gengoai.kv;
+
+import com.gengoai.collection.LRUMap;
+import com.gengoai.collection.Sorting;
+import com.gengoai.tuple.Tuple2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.gengoai.tuple.Tuples.$;
+
+/**
+ * <p>
+ * An immutable, sorted segment of an {@link LSMTree} stored in a single file. Entries are written in key order into
+ * blocks of roughly {@link #BLOCK_SIZE} bytes, each of which is a Java serialization stream of its keys and values
+ * (optionally deflate compressed). The file ends with a sparse index of the first key of every block, a bloom filter
+ * over the keys, and a fixed size footer locating the two.
+ * </p>
+ * <p>
+ * The index and bloom filter are held in memory while the blocks are read through memory mapped regions of the file,
+ * with recently decoded blocks cached. Deleted keys are stored as tombstones, whose value is {@link #TOMBSTONE}, so
+ * that they shadow the same key in older tables.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+final class SSTable {
+   /**
+    * The value of a deleted key
+    */
+   static final Object TOMBSTONE = new Object();
+   static final String EXTENSION = ".sst";
+   private static final int BLOCK_SIZE = 4 * 1024;
+   private static final int BLOCK_CACHE_SIZE = 256;
+   private static final int FOOTER_SIZE = 29;
+   private static final int MAGIC = 0x4C534D54;
+   private static final long MAX_REGION_SIZE = 1L << 30;
+   private final Map<Integer, Block> blockCache = Collections.synchronizedMap(LRUMap.create(BLOCK_CACHE_SIZE));
+   private final int[] blockLengths;
+   private final int[] blockOffsets;
+   private final int[] blockRegions;
+   private final BloomFilter bloomFilter;
+   private final boolean compressed;
+   private final long entryCount;
+   private final File file;
+   private final Object[] firstKeys;
+   private final long high;
+   private final long low;
+   private final MappedByteBuffer[] regions;
+
+   private SSTable(File file, long low, long high) throws IOException {
+      this.file = file;
+      this.low = low;
+      this.high = high;
+      try(RandomAccessFile raf = new RandomAccessFile(file, "r");
+          FileChannel channel = raf.getChannel()) {
+         long size = channel.size();
+         if(size < FOOTER_SIZE) {
+            throw new IOException("Invalid SSTable: " + file);
+         }
+         raf.seek(size - FOOTER_SIZE);
+         long indexOffset = raf.readLong();
+         long bloomOffset = raf.readLong();
+         this.entryCount = raf.readLong();
+         this.compressed = raf.readBoolean();
+         if(raf.readInt() != MAGIC) {
+            throw new IOException("Invalid SSTable: " + file);
+         }
+
+         raf.seek(bloomOffset);
+         this.bloomFilter = BloomFilter.read(raf);
+
+         long[] offsets;
+         try(ObjectInputStream index = new ObjectInputStream(new ByteArrayInputStream(read(raf,
+                                                                                            indexOffset,
+                                                                                            bloomOffset - indexOffset)))) {
+            int numberOfBlocks = index.readInt();
+            this.firstKeys = new Object[numberOfBlocks];
+            this.blockLengths = new int[numberOfBlocks];
+            offsets = new long[numberOfBlocks];
+            for(int i = 0; i < numberOfBlocks; i++) {
+               firstKeys[i] = index.readObject();
+               offsets[i] = index.readLong();
+               blockLengths[i] = index.readInt();
+            }
+         } catch(ClassNotFoundException e) {
+            throw new IOException(e);
+         }
+
+         //Map the blocks in regions of whole blocks that fit in a MappedByteBuffer
+         this.blockOffsets = new int[firstKeys.length];
+         this.blockRegions = new int[firstKeys.length];
+         List<MappedByteBuffer> mapped = new ArrayList<>();
+         int start = 0;
+         while(start < firstKeys.length) {
+            int end = start + 1;
+            while(end < firstKeys.length && offsets[end] + blockLengths[end] - offsets[start] <= MAX_REGION_SIZE) {
+               end++;
+            }
+            long regionSize = offsets[end - 1] + blockLengths[end - 1] - offsets[start];
+            for(int i = start; i < end; i++) {
+               blockRegions[i] = mapped.size();
+               blockOffsets[i] = (int) (offsets[i] - offsets[start]);
+            }
+            mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, offsets[start], regionSize));
+            start = end;
+         }
+         this.regions = mapped.toArray(new MappedByteBuffer[0]);
+      }
+   }
+
+   /**
+    * Opens the SSTable in the given file
+    *
+    * @param file the file
+    * @param low  the lowest sequence number of the writes in the table
+    * @param high the highest sequence number of the writes in the table
+    * @return the SSTable
+    * @throws IOException Something went wrong reading the table
+    */
+   static SSTable open(File file, long low, long high) throws IOException {
+      return new SSTable(file, low, high);
+   }
+
+   private static byte[] read(RandomAccessFile raf, long offset, long length) throws IOException {
+      byte[] bytes = new byte[(int) length];
+      raf.seek(offset);
+      raf.readFully(bytes);
+      return bytes;
+   }
+
+   /**
+    * Writes the given entries, which must be in ascending key order, to a new SSTable. The table is first written to
+    * a temporary file which is then atomically moved to the given file.
+    *
+    * @param file           the file to write the table to
+    * @param low            the lowest sequence number of the writes in the table
+    * @param high           the highest sequence number of the writes in the table
+    * @param entries        the entries in ascending key order with deleted keys having the value {@link #TOMBSTONE}
+    * @param expectedKeys   the expected number of keys (used to size the bloom filter)
+    * @param compressed     True if blocks should be compressed
+    * @param falsePositives the desired false positive rate of the bloom filter
+    * @return the SSTable
+    * @throws IOException Something went wrong writing the table
+    */
+   static SSTable write(File file,
+                        long low,
+                        long high,
+                        Iterator<? extends Map.Entry<?, ?>> entries,
+                        long expectedKeys,
+                        boolean compressed,
+                        double falsePositives) throws IOException {
+      File tmp = new File(file.getPath() + ".tmp");
+      BloomFilter bloomFilter = BloomFilter.create(expectedKeys, falsePositives);
+      List<Object> firstKeys = new ArrayList<>();
+      List<Long> offsets = new ArrayList<>();
+      List<Integer> lengths = new ArrayList<>();
+      long entryCount = 0;
+      long position = 0;
+      try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+         BlockWriter block = null;
+         while(entries.hasNext()) {
+            Map.Entry<?, ?> entry = entries.next();
+            if(block == null) {
+               block = new BlockWriter();
+               firstKeys.add(entry.getKey());
+            }
+            block.write(entry.getKey(), entry.getValue());
+            bloomFilter.add(BloomFilter.keyBytes(entry.getKey()));
+            entryCount++;
+            if(block.size() >= BLOCK_SIZE) {
+               position = flush(out, block.toBytes(compressed), position, offsets, lengths);
+               block = null;
+            }
+         }
+         if(block != null) {
+            position = flush(out, block.toBytes(compressed), position, offsets, lengths);
+         }
+
+         long indexOffset = position;
+         ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+         try(ObjectOutputStream index = new ObjectOutputStream(indexBytes)) {
+            index.writeInt(firstKeys.size());
+            for(int i = 0; i < firstKeys.size(); i++) {
+               index.writeObject(firstKeys.get(i));
+               index.writeLong(offsets.get(i));
+               index.writeInt(lengths.get(i));
+            }
+         }
+         indexBytes.writeTo(out);
+         long bloomOffset = indexOffset + indexBytes.size();
+         bloomFilter.write(out);
+         out.writeLong(indexOffset);
+         out.writeLong(bloomOffset);
+         out.writeLong(entryCount);
+         out.writeBoolean(compressed);
+         out.writeInt(MAGIC);
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return new SSTable(file, low, high);
+   }
+
+   private static long flush(DataOutputStream out,
+                             byte[] bytes,
+                             long position,
+                             List<Long> offsets,
+                             List<Integer> lengths) throws IOException {
+      out.write(bytes);
+      offsets.add(position);
+      lengths.add(bytes.length);
+      return position + bytes.length;
+   }
+
+   private Block block(int index) {
+      Block block = blockCache.get(index);
+      if(block == null) {
+         ByteBuffer buffer = regions[blockRegions[index]].duplicate();
+         buffer.position(blockOffsets[index]);
+         byte[] bytes = new byte[blockLengths[index]];
+         buffer.get(bytes);
+         block = new Block(bytes, compressed);
+         blockCache.put(index, block);
+      }
+      return block;
+   }
+
+   private int blockFor(Object key) {
+      int low = 0;
+      int high = firstKeys.length - 1;
+      int block = -1;
+      while(low <= high) {
+         int mid = (low + high) >>> 1;
+         if(Sorting.compare(firstKeys[mid], key) <= 0) {
+            block = mid;
+            low = mid + 1;
+         } else {
+            high = mid - 1;
+         }
+      }
+      return block;
+   }
+
+   /**
+    * Deletes the file backing this table
+    */
+   void delete() {
+      blockCache.clear();
+      if(!file.delete()) {
+         file.deleteOnExit();
+      }
+   }
+
+   /**
+    * @return the number of entries (including tombstones) in the table
+    */
+   long entryCount() {
+      return entryCount;
+   }
+
+   /**
+    * @return the file backing this table
+    */
+   File file() {
+      return file;
+   }
+
+   /**
+    * Gets the value of the given key in this table.
+    *
+    * @param key      the key
+    * @param keyBytes the bytes of the key as given by {@link BloomFilter#keyBytes(Object)}
+    * @return the value, {@link #TOMBSTONE} if the key was deleted, or null if the key is not in the table
+    */
+   Object get(Object key, byte[] keyBytes) {
+      if(!bloomFilter.mightContain(keyBytes)) {
+         return null;
+      }
+      int index = blockFor(key);
+      if(index < 0) {
+         return null;
+      }
+      Block block = block(index);
+      int i = block.search(key);
+      return i >= 0
+             ? block.values[i]
+             : null;
+   }
+
+   /**
+    * @return the highest sequence number of the writes in the table
+    */
+   long high() {
+      return high;
+   }
+
+   /**
+    * Iterates over the entries of the table (including tombstones) in key order starting at the given key.
+    *
+    * @param from       the key to start from or null to start from the first (or last when descending) key
+    * @param inclusive  True if the start key should be included
+    * @param descending True to iterate in descending order, False ascending
+    * @return the iterator
+    */
+   Iterator<Map.Entry<Object, Object>> iterator(Object from, boolean inclusive, boolean descending) {
+      return new TableIterator(from, inclusive, descending);
+   }
+
+   /**
+    * @return the lowest sequence number of the writes in the table
+    */
+   long low() {
+      return low;
+   }
+
+   @Override
+   public String toString() {
+      return "SSTable{" + file + ", entries=" + entryCount + "}";
+   }
+
+   private static class BlockWriter {
+      private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+      private final ObjectOutputStream stream;
+
+      private BlockWriter() throws IOException {
+         this.stream = new ObjectOutputStream(bytes);
+      }
+
+      private int size() {
+         return bytes.size();
+      }
+
+      private byte[] toBytes(boolean compressed) throws IOException {
+         stream.writeBoolean(false);
+         stream.close();
+         if(!compressed) {
+            return bytes.toByteArray();
+         }
+         Deflater deflater = new Deflater();
+         try {
+            deflater.setInput(bytes.toByteArray());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.size() / 2);
+            out.write(ByteBuffer.allocate(4).putInt(bytes.size()).array());
+            byte[] buffer = new byte[4096];
+            while(!deflater.finished()) {
+               out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+         } finally {
+            deflater.end();
+         }
+      }
+
+      private void write(Object key, Object value) throws IOException {
+         stream.writeBoolean(true);
+         stream.writeObject(key);
+         stream.writeBoolean(value == TOMBSTONE);
+         if(value != TOMBSTONE) {
+            stream.writeObject(value);
+         }
+      }
+   }
+
+   private static class Block {
+      private final Object[] keys;
+      private final Object[] values;
+
+      private Block(byte[] bytes, boolean compressed) {
+         if(compressed) {
+            bytes = inflate(bytes);
+         }
+         List<Object> keys = new ArrayList<>();
+         List<Object> values = new ArrayList<>();
+         try(ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            while(stream.readBoolean()) {
+               keys.add(stream.readObject());
+               values.add(stream.readBoolean()
+                          ? TOMBSTONE
+                          : stream.readObject());
+            }
+         } catch(IOException e) {
+            throw new UncheckedIOException(e);
+         } catch(ClassNotFoundException e) {
+            throw new RuntimeException(e);
+         }
+         this.keys = keys.toArray();
+         this.values = values.toArray();
+      }
+
+      private static byte[] inflate(byte[] bytes) {
+         Inflater inflater = new Inflater();
+         try {
+            byte[] out = new byte[ByteBuffer.wrap(bytes).getInt()];
+            inflater.setInput(bytes, 4, bytes.length - 4);
+            int length = 0;
+            while(length < out.length && !inflater.finished()) {
+               length += inflater.inflate(out, length, out.length - length);
+            }
+            return out;
+         } catch(DataFormatException e) {
+            throw new UncheckedIOException(new IOException(e));
+         } finally {
+            inflater.end();
+         }
+      }
+
+      /**
+       * Finds the index of the given key or -(insertion point) - 1 if the key is not in the block
+       */
+      private int search(Object key) {
+         int low = 0;
+         int high = keys.length - 1;
+         while(low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Sorting.compare(keys[mid], key);
+            if(cmp < 0) {
+               low = mid + 1;
+            } else if(cmp > 0) {
+               high = mid - 1;
+            } else {
+               return mid;
+            }
+         }
+         return -(low + 1);
+      }
+   }
+
+   private class TableIterator implements Iterator<Map.Entry<Object, Object>> {
+      private final boolean descending;
+      private Block block;
+      private int blockIndex;
+      private int index;
+
+      private TableIterator(Object from, boolean inclusive, boolean descending) {
+         this.descending = descending;
+         if(firstKeys.length == 0) {
+            blockIndex = -1;
+            return;
+         }
+         if(from == null) {
+            blockIndex = descending
+                         ? firstKeys.length - 1
+                         : 0;
+            block = block(blockIndex);
+            index = descending
+                    ? block.keys.length - 1
+                    : 0;
+         } else {
+            blockIndex = Math.max(0, blockFor(from));
+            block = block(blockIndex);
+            int i = block.search(from);
+            if(i >= 0) {
+               index = inclusive
+                       ? i
+                       : descending
+                         ? i - 1
+                         : i + 1;
+            } else {
+               int insertion = -(i + 1);
+               index = descending
+                       ? insertion - 1
+                       : insertion;
+            }
+         }
+         normalize();
+      }
+
+      @Override
+      public boolean hasNext() {
+         return blockIndex >= 0 && blockIndex < firstKeys.length;
+      }
+
+      @Override
+      public Map.Entry<Object, Object> next() {
+         if(!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         Tuple2<Object, Object> entry = $(block.keys[index], block.values[index]);
+         index += descending
+                  ? -1
+                  : 1;
+         normalize();
+         return entry;
+      }
+
+      private void normalize() {
+         while(hasNext() && (index < 0 || index >= block.keys.length)) {
+            blockIndex += descending
+                          ? -1
+                          : 1;
+            if(hasNext()) {
+               block = block(blockIndex);
+               index = descending
+                       ? block.keys.length - 1
+                       : 0;
+            }
+         }
+      }
+   }
+
+}//END OF SSTable
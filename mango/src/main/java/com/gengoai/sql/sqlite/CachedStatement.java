@@ -0,0 +1,757 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.sql.sqlite;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * <p>
+ * A prepared statement borrowed from the cache of a {@link ManagedConnection}, which is returned to the cache instead
+ * of being closed. Closing the statement closes the last result set it produced.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+final class CachedStatement implements PreparedStatement {
+   private final ManagedConnection owner;
+   private final String key;
+   private final PreparedStatement statement;
+   private ResultSet resultSet;
+   private boolean released = false;
+
+   /**
+    * Instantiates a new CachedStatement.
+    *
+    * @param owner     the connection whose cache the statement was borrowed from
+    * @param key       the cache key of the statement
+    * @param statement the statement
+    */
+   CachedStatement(ManagedConnection owner, String key, PreparedStatement statement) {
+      this.owner = owner;
+      this.key = key;
+      this.statement = statement;
+   }
+
+   private void checkOpen() throws SQLException {
+      if (released) {
+         throw new SQLException("Statement is closed");
+      }
+   }
+
+   private ResultSet track(ResultSet resultSet) {
+      this.resultSet = resultSet;
+      return resultSet;
+   }
+
+   @Override
+   public void close() throws SQLException {
+      if (!released) {
+         released = true;
+         if (resultSet != null) {
+            resultSet.close();
+         }
+         owner.release(key, statement);
+      }
+   }
+
+   @Override
+   public boolean isClosed() throws SQLException {
+      return released || statement.isClosed();
+   }
+
+   @Override
+   public Connection getConnection() throws SQLException {
+      checkOpen();
+      return owner;
+   }
+
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException {
+      checkOpen();
+      return statement.unwrap(iface);
+   }
+
+   @Override
+   public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      checkOpen();
+      return statement.isWrapperFor(iface);
+   }
+
+   @Override
+   public ResultSet executeQuery(String sql) throws SQLException {
+      checkOpen();
+      return track(statement.executeQuery(sql));
+   }
+
+   @Override
+   public int executeUpdate(String sql) throws SQLException {
+      checkOpen();
+      return statement.executeUpdate(sql);
+   }
+
+   @Override
+   public int getMaxFieldSize() throws SQLException {
+      checkOpen();
+      return statement.getMaxFieldSize();
+   }
+
+   @Override
+   public void setMaxFieldSize(int max) throws SQLException {
+      checkOpen();
+      statement.setMaxFieldSize(max);
+   }
+
+   @Override
+   public int getMaxRows() throws SQLException {
+      checkOpen();
+      return statement.getMaxRows();
+   }
+
+   @Override
+   public void setMaxRows(int max) throws SQLException {
+      checkOpen();
+      statement.setMaxRows(max);
+   }
+
+   @Override
+   public void setEscapeProcessing(boolean enable) throws SQLException {
+      checkOpen();
+      statement.setEscapeProcessing(enable);
+   }
+
+   @Override
+   public int getQueryTimeout() throws SQLException {
+      checkOpen();
+      return statement.getQueryTimeout();
+   }
+
+   @Override
+   public void setQueryTimeout(int seconds) throws SQLException {
+      checkOpen();
+      statement.setQueryTimeout(seconds);
+   }
+
+   @Override
+   public void cancel() throws SQLException {
+      checkOpen();
+      statement.cancel();
+   }
+
+   @Override
+   public SQLWarning getWarnings() throws SQLException {
+      checkOpen();
+      return statement.getWarnings();
+   }
+
+   @Override
+   public void clearWarnings() throws SQLException {
+      checkOpen();
+      statement.clearWarnings();
+   }
+
+   @Override
+   public void setCursorName(String name) throws SQLException {
+      checkOpen();
+      statement.setCursorName(name);
+   }
+
+   @Override
+   public boolean execute(String sql) throws SQLException {
+      checkOpen();
+      return statement.execute(sql);
+   }
+
+   @Override
+   public ResultSet getResultSet() throws SQLException {
+      checkOpen();
+      return track(statement.getResultSet());
+   }
+
+   @Override
+   public int getUpdateCount() throws SQLException {
+      checkOpen();
+      return statement.getUpdateCount();
+   }
+
+   @Override
+   public boolean getMoreResults() throws SQLException {
+      checkOpen();
+      return statement.getMoreResults();
+   }
+
+   @Override
+   public void setFetchDirection(int direction) throws SQLException {
+      checkOpen();
+      statement.setFetchDirection(direction);
+   }
+
+   @Override
+   public int getFetchDirection() throws SQLException {
+      checkOpen();
+      return statement.getFetchDirection();
+   }
+
+   @Override
+   public void setFetchSize(int rows) throws SQLException {
+      checkOpen();
+      statement.setFetchSize(rows);
+   }
+
+   @Override
+   public int getFetchSize() throws SQLException {
+      checkOpen();
+      return statement.getFetchSize();
+   }
+
+   @Override
+   public int getResultSetConcurrency() throws SQLException {
+      checkOpen();
+      return statement.getResultSetConcurrency();
+   }
+
+   @Override
+   public int getResultSetType() throws SQLException {
+      checkOpen();
+      return statement.getResultSetType();
+   }
+
+   @Override
+   public void addBatch(String sql) throws SQLException {
+      checkOpen();
+      statement.addBatch(sql);
+   }
+
+   @Override
+   public void clearBatch() throws SQLException {
+      checkOpen();
+      statement.clearBatch();
+   }
+
+   @Override
+   public int[] executeBatch() throws SQLException {
+      checkOpen();
+      return statement.executeBatch();
+   }
+
+   @Override
+   public boolean getMoreResults(int current) throws SQLException {
+      checkOpen();
+      return statement.getMoreResults(current);
+   }
+
+   @Override
+   public ResultSet getGeneratedKeys() throws SQLException {
+      checkOpen();
+      return track(statement.getGeneratedKeys());
+   }
+
+   @Override
+   public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+      checkOpen();
+      return statement.executeUpdate(sql, autoGeneratedKeys);
+   }
+
+   @Override
+   public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+      checkOpen();
+      return statement.executeUpdate(sql, columnIndexes);
+   }
+
+   @Override
+   public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+      checkOpen();
+      return statement.executeUpdate(sql, columnNames);
+   }
+
+   @Override
+   public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+      checkOpen();
+      return statement.execute(sql, autoGeneratedKeys);
+   }
+
+   @Override
+   public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+      checkOpen();
+      return statement.execute(sql, columnIndexes);
+   }
+
+   @Override
+   public boolean execute(String sql, String[] columnNames) throws SQLException {
+      checkOpen();
+      return statement.execute(sql, columnNames);
+   }
+
+   @Override
+   public int getResultSetHoldability() throws SQLException {
+      checkOpen();
+      return statement.getResultSetHoldability();
+   }
+
+   @Override
+   public void setPoolable(boolean poolable) throws SQLException {
+      checkOpen();
+      statement.setPoolable(poolable);
+   }
+
+   @Override
+   public boolean isPoolable() throws SQLException {
+      checkOpen();
+      return statement.isPoolable();
+   }
+
+   @Override
+   public void closeOnCompletion() throws SQLException {
+      checkOpen();
+      statement.closeOnCompletion();
+   }
+
+   @Override
+   public boolean isCloseOnCompletion() throws SQLException {
+      checkOpen();
+      return statement.isCloseOnCompletion();
+   }
+
+   @Override
+   public long getLargeUpdateCount() throws SQLException {
+      checkOpen();
+      return statement.getLargeUpdateCount();
+   }
+
+   @Override
+   public void setLargeMaxRows(long max) throws SQLException {
+      checkOpen();
+      statement.setLargeMaxRows(max);
+   }
+
+   @Override
+   public long getLargeMaxRows() throws SQLException {
+      checkOpen();
+      return statement.getLargeMaxRows();
+   }
+
+   @Override
+   public long[] executeLargeBatch() throws SQLException {
+      checkOpen();
+      return statement.executeLargeBatch();
+   }
+
+   @Override
+   public long executeLargeUpdate(String sql) throws SQLException {
+      checkOpen();
+      return statement.executeLargeUpdate(sql);
+   }
+
+   @Override
+   public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+      checkOpen();
+      return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+   }
+
+   @Override
+   public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+      checkOpen();
+      return statement.executeLargeUpdate(sql, columnIndexes);
+   }
+
+   @Override
+   public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+      checkOpen();
+      return statement.executeLargeUpdate(sql, columnNames);
+   }
+
+   @Override
+   public String enquoteLiteral(String val) throws SQLException {
+      checkOpen();
+      return statement.enquoteLiteral(val);
+   }
+
+   @Override
+   public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+      checkOpen();
+      return statement.enquoteIdentifier(identifier, alwaysQuote);
+   }
+
+   @Override
+   public boolean isSimpleIdentifier(String identifier) throws SQLException {
+      checkOpen();
+      return statement.isSimpleIdentifier(identifier);
+   }
+
+   @Override
+   public String enquoteNCharLiteral(String val) throws SQLException {
+      checkOpen();
+      return statement.enquoteNCharLiteral(val);
+   }
+
+   @Override
+   public ResultSet executeQuery() throws SQLException {
+      checkOpen();
+      return track(statement.executeQuery());
+   }
+
+   @Override
+   public int executeUpdate() throws SQLException {
+      checkOpen();
+      return statement.executeUpdate();
+   }
+
+   @Override
+   public void setNull(int parameterIndex, int sqlType) throws SQLException {
+      checkOpen();
+      statement.setNull(parameterIndex, sqlType);
+   }
+
+   @Override
+   public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+      checkOpen();
+      statement.setBoolean(parameterIndex, x);
+   }
+
+   @Override
+   public void setByte(int parameterIndex, byte x) throws SQLException {
+      checkOpen();
+      statement.setByte(parameterIndex, x);
+   }
+
+   @Override
+   public void setShort(int parameterIndex, short x) throws SQLException {
+      checkOpen();
+      statement.setShort(parameterIndex, x);
+   }
+
+   @Override
+   public void setInt(int parameterIndex, int x) throws SQLException {
+      checkOpen();
+      statement.setInt(parameterIndex, x);
+   }
+
+   @Override
+   public void setLong(int parameterIndex, long x) throws SQLException {
+      checkOpen();
+      statement.setLong(parameterIndex, x);
+   }
+
+   @Override
+   public void setFloat(int parameterIndex, float x) throws SQLException {
+      checkOpen();
+      statement.setFloat(parameterIndex, x);
+   }
+
+   @Override
+   public void setDouble(int parameterIndex, double x) throws SQLException {
+      checkOpen();
+      statement.setDouble(parameterIndex, x);
+   }
+
+   @Override
+   public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+      checkOpen();
+      statement.setBigDecimal(parameterIndex, x);
+   }
+
+   @Override
+   public void setString(int parameterIndex, String x) throws SQLException {
+      checkOpen();
+      statement.setString(parameterIndex, x);
+   }
+
+   @Override
+   public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+      checkOpen();
+      statement.setBytes(parameterIndex, x);
+   }
+
+   @Override
+   public void setDate(int parameterIndex, Date x) throws SQLException {
+      checkOpen();
+      statement.setDate(parameterIndex, x);
+   }
+
+   @Override
+   public void setTime(int parameterIndex, Time x) throws SQLException {
+      checkOpen();
+      statement.setTime(parameterIndex, x);
+   }
+
+   @Override
+   public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+      checkOpen();
+      statement.setTimestamp(parameterIndex, x);
+   }
+
+   @Override
+   public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      checkOpen();
+      statement.setAsciiStream(parameterIndex, x, length);
+   }
+
+   @Override
+   @Deprecated
+   public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      checkOpen();
+      statement.setUnicodeStream(parameterIndex, x, length);
+   }
+
+   @Override
+   public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      checkOpen();
+      statement.setBinaryStream(parameterIndex, x, length);
+   }
+
+   @Override
+   public void clearParameters() throws SQLException {
+      checkOpen();
+      statement.clearParameters();
+   }
+
+   @Override
+   public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+      checkOpen();
+      statement.setObject(parameterIndex, x, targetSqlType);
+   }
+
+   @Override
+   public void setObject(int parameterIndex, Object x) throws SQLException {
+      checkOpen();
+      statement.setObject(parameterIndex, x);
+   }
+
+   @Override
+   public boolean execute() throws SQLException {
+      checkOpen();
+      return statement.execute();
+   }
+
+   @Override
+   public void addBatch() throws SQLException {
+      checkOpen();
+      statement.addBatch();
+   }
+
+   @Override
+   public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+      checkOpen();
+      statement.setCharacterStream(parameterIndex, reader, length);
+   }
+
+   @Override
+   public void setRef(int parameterIndex, Ref x) throws SQLException {
+      checkOpen();
+      statement.setRef(parameterIndex, x);
+   }
+
+   @Override
+   public void setBlob(int parameterIndex, Blob x) throws SQLException {
+      checkOpen();
+      statement.setBlob(parameterIndex, x);
+   }
+
+   @Override
+   public void setClob(int parameterIndex, Clob x) throws SQLException {
+      checkOpen();
+      statement.setClob(parameterIndex, x);
+   }
+
+   @Override
+   public void setArray(int parameterIndex, Array x) throws SQLException {
+      checkOpen();
+      statement.setArray(parameterIndex, x);
+   }
+
+   @Override
+   public ResultSetMetaData getMetaData() throws SQLException {
+      checkOpen();
+      return statement.getMetaData();
+   }
+
+   @Override
+   public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+      checkOpen();
+      statement.setDate(parameterIndex, x, cal);
+   }
+
+   @Override
+   public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+      checkOpen();
+      statement.setTime(parameterIndex, x, cal);
+   }
+
+   @Override
+   public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+      checkOpen();
+      statement.setTimestamp(parameterIndex, x, cal);
+   }
+
+   @Override
+   public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+      checkOpen();
+      statement.setNull(parameterIndex, sqlType, typeName);
+   }
+
+   @Override
+   public void setURL(int parameterIndex, URL x) throws SQLException {
+      checkOpen();
+      statement.setURL(parameterIndex, x);
+   }
+
+   @Override
+   public ParameterMetaData getParameterMetaData() throws SQLException {
+      checkOpen();
+      return statement.getParameterMetaData();
+   }
+
+   @Override
+   public void setRowId(int parameterIndex, RowId x) throws SQLException {
+      checkOpen();
+      statement.setRowId(parameterIndex, x);
+   }
+
+   @Override
+   public void setNString(int parameterIndex, String value) throws SQLException {
+      checkOpen();
+      statement.setNString(parameterIndex, value);
+   }
+
+   @Override
+   public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+      checkOpen();
+      statement.setNCharacterStream(parameterIndex, value, length);
+   }
+
+   @Override
+   public void setNClob(int parameterIndex, NClob value) throws SQLException {
+      checkOpen();
+      statement.setNClob(parameterIndex, value);
+   }
+
+   @Override
+   public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+      checkOpen();
+      statement.setClob(parameterIndex, reader, length);
+   }
+
+   @Override
+   public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+      checkOpen();
+      statement.setBlob(parameterIndex, inputStream, length);
+   }
+
+   @Override
+   public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+      checkOpen();
+      statement.setNClob(parameterIndex, reader, length);
+   }
+
+   @Override
+   public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+      checkOpen();
+      statement.setSQLXML(parameterIndex, xmlObject);
+   }
+
+   @Override
+   public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+      checkOpen();
+      statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+   }
+
+   @Override
+   public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+      checkOpen();
+      statement.setAsciiStream(parameterIndex, x, length);
+   }
+
+   @Override
+   public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+      checkOpen();
+      statement.setBinaryStream(parameterIndex, x, length);
+   }
+
+   @Override
+   public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+      checkOpen();
+      statement.setCharacterStream(parameterIndex, reader, length);
+   }
+
+   @Override
+   public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+      checkOpen();
+      statement.setAsciiStream(parameterIndex, x);
+   }
+
+   @Override
+   public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+      checkOpen();
+      statement.setBinaryStream(parameterIndex, x);
+   }
+
+   @Override
+   public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+      checkOpen();
+      statement.setCharacterStream(parameterIndex, reader);
+   }
+
+   @Override
+   public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+      checkOpen();
+      statement.setNCharacterStream(parameterIndex, value);
+   }
+
+   @Override
+   public void setClob(int parameterIndex, Reader reader) throws SQLException {
+      checkOpen();
+      statement.setClob(parameterIndex, reader);
+   }
+
+   @Override
+   public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+      checkOpen();
+      statement.setBlob(parameterIndex, inputStream);
+   }
+
+   @Override
+   public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+      checkOpen();
+      statement.setNClob(parameterIndex, reader);
+   }
+
+   @Override
+   public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+      checkOpen();
+      statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+   }
+
+   @Override
+   public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+      checkOpen();
+      statement.setObject(parameterIndex, x, targetSqlType);
+   }
+
+   @Override
+   public long executeLargeUpdate() throws SQLException {
+      checkOpen();
+      return statement.executeLargeUpdate();
+   }
+
+}//END OF CachedStatement
@@ -0,0 +1,515 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.sql.sqlite;
+
+import lombok.extern.java.Log;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import static com.gengoai.LogUtils.logFine;
+
+/**
+ * <p>
+ * A connection owned by a {@link SQLiteConnectionManager}, which caches its prepared statements and ignores calls to
+ * close it. The connection of the writer can only be used from within write tasks, i.e. on the writer thread, where
+ * transaction control is left to the manager: calls to <code>commit</code> and <code>setAutoCommit</code> are ignored
+ * and <code>rollback</code> rolls back to the savepoint of the current task.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+@Log
+final class ManagedConnection implements Connection {
+   private static final int MAX_IDLE_PER_STATEMENT = 4;
+   private final SQLiteConnectionManager manager;
+   private final Connection connection;
+   private final boolean isWriter;
+   private final LinkedHashMap<String, Deque<PreparedStatement>> idle;
+
+   /**
+    * Instantiates a new ManagedConnection.
+    *
+    * @param manager            the manager owning the connection
+    * @param connection         the connection to manage
+    * @param isWriter           True if the connection is the writer of the manager
+    * @param statementCacheSize the number of SQL strings whose statements are cached
+    */
+   ManagedConnection(SQLiteConnectionManager manager,
+                     Connection connection,
+                     boolean isWriter,
+                     int statementCacheSize) {
+      this.manager = manager;
+      this.connection = connection;
+      this.isWriter = isWriter;
+      this.idle = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, Deque<PreparedStatement>> eldest) {
+            if (size() > statementCacheSize) {
+               eldest.getValue().forEach(ManagedConnection::closeQuietly);
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   private static void closeQuietly(Statement statement) {
+      try {
+         statement.close();
+      } catch (SQLException e) {
+         logFine(log, e);
+      }
+   }
+
+   private void checkAccess() throws SQLException {
+      if (isWriter && !manager.isWriterThread()) {
+         throw new SQLException("The writer connection can only be used from within a write task");
+      }
+   }
+
+   private boolean isTransactionControlledByManager() {
+      return isWriter && manager.isWriterThread();
+   }
+
+   @Override
+   public void close() {
+      //The connection is closed by the manager
+   }
+
+   @Override
+   public boolean isClosed() throws SQLException {
+      return manager.isClosed() || connection.isClosed();
+   }
+
+   @Override
+   public void commit() throws SQLException {
+      if (isTransactionControlledByManager()) {
+         return;
+      }
+      checkAccess();
+      connection.commit();
+   }
+
+   @Override
+   public void setAutoCommit(boolean autoCommit) throws SQLException {
+      if (isTransactionControlledByManager()) {
+         return;
+      }
+      checkAccess();
+      connection.setAutoCommit(autoCommit);
+   }
+
+   @Override
+   public void rollback() throws SQLException {
+      if (isTransactionControlledByManager()) {
+         Savepoint savepoint = manager.getSavepoint();
+         if (savepoint != null) {
+            connection.rollback(savepoint);
+         }
+         return;
+      }
+      checkAccess();
+      connection.rollback();
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql) throws SQLException {
+      return prepareStatement(sql, Statement.NO_GENERATED_KEYS);
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+      checkAccess();
+      String key = autoGeneratedKeys + ":" + sql;
+      PreparedStatement statement = null;
+      synchronized (idle) {
+         Deque<PreparedStatement> statements = idle.get(key);
+         while (statements != null && statement == null && statements.size() > 0) {
+            statement = statements.poll();
+            if (statement.isClosed()) {
+               statement = null;
+            }
+         }
+      }
+      if (statement == null) {
+         statement = connection.prepareStatement(sql, autoGeneratedKeys);
+      }
+      return new CachedStatement(this, key, statement);
+   }
+
+   /**
+    * Returns the given statement to the cache, closing it if the cache is full or the manager has been closed.
+    *
+    * @param key       the cache key of the statement
+    * @param statement the statement
+    */
+   void release(String key, PreparedStatement statement) {
+      try {
+         statement.clearParameters();
+         statement.clearBatch();
+      } catch (SQLException e) {
+         closeQuietly(statement);
+         return;
+      }
+      synchronized (idle) {
+         Deque<PreparedStatement> statements = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+         if (manager.isClosed() || statements.size() >= MAX_IDLE_PER_STATEMENT) {
+            closeQuietly(statement);
+         } else {
+            statements.push(statement);
+         }
+      }
+   }
+
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException {
+      checkAccess();
+      return connection.unwrap(iface);
+   }
+
+   @Override
+   public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      checkAccess();
+      return connection.isWrapperFor(iface);
+   }
+
+   @Override
+   public Statement createStatement() throws SQLException {
+      checkAccess();
+      return connection.createStatement();
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql) throws SQLException {
+      checkAccess();
+      return connection.prepareCall(sql);
+   }
+
+   @Override
+   public String nativeSQL(String sql) throws SQLException {
+      checkAccess();
+      return connection.nativeSQL(sql);
+   }
+
+   @Override
+   public boolean getAutoCommit() throws SQLException {
+      checkAccess();
+      return connection.getAutoCommit();
+   }
+
+   @Override
+   public DatabaseMetaData getMetaData() throws SQLException {
+      checkAccess();
+      return connection.getMetaData();
+   }
+
+   @Override
+   public void setReadOnly(boolean readOnly) throws SQLException {
+      checkAccess();
+      connection.setReadOnly(readOnly);
+   }
+
+   @Override
+   public boolean isReadOnly() throws SQLException {
+      checkAccess();
+      return connection.isReadOnly();
+   }
+
+   @Override
+   public void setCatalog(String catalog) throws SQLException {
+      checkAccess();
+      connection.setCatalog(catalog);
+   }
+
+   @Override
+   public String getCatalog() throws SQLException {
+      checkAccess();
+      return connection.getCatalog();
+   }
+
+   @Override
+   public void setTransactionIsolation(int level) throws SQLException {
+      checkAccess();
+      connection.setTransactionIsolation(level);
+   }
+
+   @Override
+   public int getTransactionIsolation() throws SQLException {
+      checkAccess();
+      return connection.getTransactionIsolation();
+   }
+
+   @Override
+   public SQLWarning getWarnings() throws SQLException {
+      checkAccess();
+      return connection.getWarnings();
+   }
+
+   @Override
+   public void clearWarnings() throws SQLException {
+      checkAccess();
+      connection.clearWarnings();
+   }
+
+   @Override
+   public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+      checkAccess();
+      return connection.createStatement(resultSetType, resultSetConcurrency);
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql,
+                                             int resultSetType,
+                                             int resultSetConcurrency) throws SQLException {
+      checkAccess();
+      return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+      checkAccess();
+      return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+   }
+
+   @Override
+   public Map<String,Class<?>> getTypeMap() throws SQLException {
+      checkAccess();
+      return connection.getTypeMap();
+   }
+
+   @Override
+   public void setTypeMap(Map<String,Class<?>> map) throws SQLException {
+      checkAccess();
+      connection.setTypeMap(map);
+   }
+
+   @Override
+   public void setHoldability(int holdability) throws SQLException {
+      checkAccess();
+      connection.setHoldability(holdability);
+   }
+
+   @Override
+   public int getHoldability() throws SQLException {
+      checkAccess();
+      return connection.getHoldability();
+   }
+
+   @Override
+   public Savepoint setSavepoint() throws SQLException {
+      checkAccess();
+      return connection.setSavepoint();
+   }
+
+   @Override
+   public Savepoint setSavepoint(String name) throws SQLException {
+      checkAccess();
+      return connection.setSavepoint(name);
+   }
+
+   @Override
+   public void rollback(Savepoint savepoint) throws SQLException {
+      checkAccess();
+      connection.rollback(savepoint);
+   }
+
+   @Override
+   public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+      checkAccess();
+      connection.releaseSavepoint(savepoint);
+   }
+
+   @Override
+   public Statement createStatement(int resultSetType,
+                                    int resultSetConcurrency,
+                                    int resultSetHoldability) throws SQLException {
+      checkAccess();
+      return connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql,
+                                             int resultSetType,
+                                             int resultSetConcurrency,
+                                             int resultSetHoldability) throws SQLException {
+      checkAccess();
+      return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+   }
+
+   @Override
+   public CallableStatement prepareCall(String sql,
+                                        int resultSetType,
+                                        int resultSetConcurrency,
+                                        int resultSetHoldability) throws SQLException {
+      checkAccess();
+      return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+      checkAccess();
+      return connection.prepareStatement(sql, columnIndexes);
+   }
+
+   @Override
+   public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+      checkAccess();
+      return connection.prepareStatement(sql, columnNames);
+   }
+
+   @Override
+   public Clob createClob() throws SQLException {
+      checkAccess();
+      return connection.createClob();
+   }
+
+   @Override
+   public Blob createBlob() throws SQLException {
+      checkAccess();
+      return connection.createBlob();
+   }
+
+   @Override
+   public NClob createNClob() throws SQLException {
+      checkAccess();
+      return connection.createNClob();
+   }
+
+   @Override
+   public SQLXML createSQLXML() throws SQLException {
+      checkAccess();
+      return connection.createSQLXML();
+   }
+
+   @Override
+   public boolean isValid(int timeout) throws SQLException {
+      checkAccess();
+      return connection.isValid(timeout);
+   }
+
+   @Override
+   public void setClientInfo(String name, String value) throws SQLClientInfoException {
+      connection.setClientInfo(name, value);
+   }
+
+   @Override
+   public void setClientInfo(Properties properties) throws SQLClientInfoException {
+      connection.setClientInfo(properties);
+   }
+
+   @Override
+   public String getClientInfo(String name) throws SQLException {
+      checkAccess();
+      return connection.getClientInfo(name);
+   }
+
+   @Override
+   public Properties getClientInfo() throws SQLException {
+      checkAccess();
+      return connection.getClientInfo();
+   }
+
+   @Override
+   public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+      checkAccess();
+      return connection.createArrayOf(typeName, elements);
+   }
+
+   @Override
+   public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+      checkAccess();
+      return connection.createStruct(typeName, attributes);
+   }
+
+   @Override
+   public void setSchema(String schema) throws SQLException {
+      checkAccess();
+      connection.setSchema(schema);
+   }
+
+   @Override
+   public String getSchema() throws SQLException {
+      checkAccess();
+      return connection.getSchema();
+   }
+
+   @Override
+   public void abort(Executor executor) throws SQLException {
+      checkAccess();
+      connection.abort(executor);
+   }
+
+   @Override
+   public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+      checkAccess();
+      connection.setNetworkTimeout(executor, milliseconds);
+   }
+
+   @Override
+   public int getNetworkTimeout() throws SQLException {
+      checkAccess();
+      return connection.getNetworkTimeout();
+   }
+
+   @Override
+   public void beginRequest() throws SQLException {
+      checkAccess();
+      connection.beginRequest();
+   }
+
+   @Override
+   public void endRequest() throws SQLException {
+      checkAccess();
+      connection.endRequest();
+   }
+
+   @Override
+   public boolean setShardingKeyIfValid(ShardingKey shardingKey,
+                                        ShardingKey superShardingKey,
+                                        int timeout) throws SQLException {
+      checkAccess();
+      return connection.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+   }
+
+   @Override
+   public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
+      checkAccess();
+      return connection.setShardingKeyIfValid(shardingKey, timeout);
+   }
+
+   @Override
+   public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
+      checkAccess();
+      connection.setShardingKey(shardingKey, superShardingKey);
+   }
+
+   @Override
+   public void setShardingKey(ShardingKey shardingKey) throws SQLException {
+      checkAccess();
+      connection.setShardingKey(shardingKey);
+   }
+
+}//END OF ManagedConnection
@@ -0,0 +1,508 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.sql.sqlite;
+
+import com.gengoai.SystemInfo;
+import com.gengoai.Validation;
+import com.gengoai.config.Config;
+import com.gengoai.function.CheckedBiConsumer;
+import com.gengoai.function.CheckedFunction;
+import com.gengoai.sql.NamedPreparedStatement;
+import com.gengoai.sql.SQLContext;
+import com.gengoai.sql.SQLElement;
+import com.gengoai.sql.SQLiteDialect;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.gengoai.LogUtils.logFine;
+import static com.gengoai.LogUtils.logWarning;
+
+/**
+ * <p>
+ * Manages the connections to a single SQLite database file. The database is put into WAL journaling mode so that
+ * reads do not block behind writes. Reads are performed over a fixed number of read-only connections: {@link
+ * #read(CheckedFunction)} borrows a connection for the duration of the read, while {@link #reader()} hands out the
+ * connections in turn to be shared. All writes are performed by a dedicated writer thread over a single connection.
+ * Write tasks are queued and the writer groups the tasks that are waiting into a single transaction, running each task
+ * inside its own savepoint so that a failing task does not roll back the others. The futures of the tasks complete
+ * after the transaction has been committed.
+ * </p>
+ * <p>
+ * Prepared statements are cached per connection: closing a statement created through a managed connection returns it
+ * to the cache for reuse by the next statement with the same SQL. Managers are shared per JDBC url and reference
+ * counted, i.e. each call to {@link #open(String)} must be paired with a call to {@link #close()}.
+ * </p>
+ * <p>
+ * The number of readers, the maximum number of tasks in a transaction, the maximum number of batches a call to {@link
+ * #batch(SQLElement, Stream, CheckedBiConsumer, int)} has waiting on the writer, and the number of SQL strings whose
+ * statements are cached can be set using the <code>SQLiteConnectionManager.readers</code>,
+ * <code>SQLiteConnectionManager.maxTasksPerTransaction</code>, <code>SQLiteConnectionManager.maxPendingBatches</code>,
+ * and <code>SQLiteConnectionManager.statementCacheSize</code> config properties.
+ * </p>
+ *
+ * @author David B. Bracewell
+ */
+@Log
+public final class SQLiteConnectionManager implements AutoCloseable {
+   private static final Map<String, SQLiteConnectionManager> managers = new HashMap<>();
+   private static final int BUSY_TIMEOUT = 30_000;
+   private final WriteTask<?> SHUTDOWN = new WriteTask<>(null);
+   private final String jdbc;
+   private final Connection writeConnection;
+   private final SQLContext writeContext;
+   private final List<Connection> readConnections = new ArrayList<>();
+   private final SQLContext[] readContexts;
+   private final BlockingQueue<SQLContext> idleReaders;
+   private final ThreadLocal<SQLContext> borrowedReader = new ThreadLocal<>();
+   private final AtomicInteger nextReader = new AtomicInteger();
+   private final BlockingQueue<WriteTask<?>> queue = new LinkedBlockingQueue<>();
+   private final int maxTasksPerTransaction;
+   private final int maxPendingBatches;
+   private final int statementCacheSize;
+   private final Thread writer;
+   private Savepoint savepoint;
+   private int references = 0;
+   private volatile boolean closed = false;
+   private boolean writerStopped = false;
+
+   private SQLiteConnectionManager(String jdbc) throws SQLException {
+      this.jdbc = jdbc;
+      this.maxTasksPerTransaction = Math.max(1,
+                                             Config.get("SQLiteConnectionManager.maxTasksPerTransaction")
+                                                   .asIntegerValue(64));
+      this.maxPendingBatches = Math.max(1,
+                                        Config.get("SQLiteConnectionManager.maxPendingBatches")
+                                              .asIntegerValue(2 * maxTasksPerTransaction));
+      this.statementCacheSize = Math.max(1,
+                                         Config.get("SQLiteConnectionManager.statementCacheSize")
+                                               .asIntegerValue(64));
+      int numberOfReaders = Math.max(1, Config.get("SQLiteConnectionManager.readers")
+                                              .asIntegerValue(Math.min(4, SystemInfo.NUMBER_OF_PROCESSORS)));
+
+      SQLiteConfig writeConfig = new SQLiteConfig();
+      writeConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+      writeConfig.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+      writeConfig.setBusyTimeout(BUSY_TIMEOUT);
+      Connection connection = DriverManager.getConnection(jdbc, writeConfig.toProperties());
+      this.writeConnection = connection;
+      this.writeContext = SQLContext.create(managed(connection, true), new SQLiteDialect());
+      try {
+         SQLiteConfig readConfig = new SQLiteConfig();
+         readConfig.setReadOnly(true);
+         readConfig.setBusyTimeout(BUSY_TIMEOUT);
+         this.readContexts = new SQLContext[numberOfReaders];
+         this.idleReaders = new ArrayBlockingQueue<>(numberOfReaders);
+         for (int i = 0; i < numberOfReaders; i++) {
+            Connection reader = DriverManager.getConnection(jdbc, readConfig.toProperties());
+            readConnections.add(reader);
+            readContexts[i] = SQLContext.create(managed(reader, false), new SQLiteDialect());
+            idleReaders.add(readContexts[i]);
+         }
+      } catch (SQLException e) {
+         closeConnections();
+         throw e;
+      }
+      this.writer = new Thread(this::runWriter, "SQLiteConnectionManager-writer");
+      this.writer.setDaemon(true);
+      this.writer.start();
+   }
+
+   /**
+    * Opens the manager for the SQLite database at the given JDBC url, creating it if no manager is currently open for
+    * the url.
+    *
+    * @param jdbc the JDBC url of the database (e.g. <code>jdbc:sqlite:/path/to/db</code>)
+    * @return the manager
+    * @throws SQLException Something went wrong opening the connections to the database
+    */
+   public static SQLiteConnectionManager open(@NonNull String jdbc) throws SQLException {
+      synchronized (managers) {
+         SQLiteConnectionManager manager = managers.get(jdbc);
+         if (manager == null) {
+            manager = new SQLiteConnectionManager(jdbc);
+            managers.put(jdbc, manager);
+         }
+         manager.references++;
+         return manager;
+      }
+   }
+
+   private static SQLException unwrap(Throwable throwable) {
+      if (throwable instanceof ExecutionException && throwable.getCause() != null) {
+         throwable = throwable.getCause();
+      }
+      if (throwable instanceof SQLException) {
+         return (SQLException) throwable;
+      }
+      return new SQLException(throwable);
+   }
+
+   /**
+    * Performs a batch update for the given SQL over the given items using the writer. The items are grouped into
+    * batches of the given size, each of which is submitted to the writer as a single task, so that the threads
+    * producing the items do not wait on the database. Producing threads only block when the maximum number of batches
+    * are waiting to be performed by the writer, which bounds the number of items held in memory.
+    *
+    * @param <T>       the type of item
+    * @param sql       the update statement to perform for each item
+    * @param items     the items to update
+    * @param consumer  the consumer that fills in the values of the statement for an item
+    * @param batchSize the number of items per batch
+    * @return the total number of rows updated
+    * @throws SQLException Something went wrong performing the update
+    */
+   public <T> int batch(@NonNull SQLElement sql,
+                        @NonNull Stream<? extends T> items,
+                        @NonNull CheckedBiConsumer<T, NamedPreparedStatement> consumer,
+                        int batchSize) throws SQLException {
+      Validation.checkArgument(batchSize > 0, "Batch size must be > 0");
+      Validation.checkState(!isWriterThread(), "batch cannot be called from within a write task");
+      final String rendered = writeContext.render(sql);
+      final Semaphore pending = new Semaphore(maxPendingBatches);
+      final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      final List<T> buffer = new ArrayList<>();
+      items.forEach(item -> {
+         List<T> batch = null;
+         synchronized (buffer) {
+            buffer.add(item);
+            if (buffer.size() >= batchSize) {
+               batch = new ArrayList<>(buffer);
+               buffer.clear();
+            }
+         }
+         if (batch != null) {
+            pending.acquireUninterruptibly();
+            CompletableFuture<Integer> future = submitBatch(rendered, batch, consumer);
+            future.whenComplete((r, e) -> pending.release());
+            synchronized (futures) {
+               futures.add(future);
+            }
+         }
+      });
+      if (buffer.size() > 0) {
+         futures.add(submitBatch(rendered, buffer, consumer));
+      }
+      int total = 0;
+      for (CompletableFuture<Integer> future : futures) {
+         try {
+            total += future.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+         } catch (ExecutionException e) {
+            throw unwrap(e);
+         }
+      }
+      return total;
+   }
+
+   @Override
+   public void close() throws SQLException {
+      synchronized (managers) {
+         if (closed || --references > 0) {
+            return;
+         }
+         closed = true;
+         managers.remove(jdbc);
+      }
+      //Tasks are enqueued while holding the queue's lock, so all accepted tasks are ahead of the shutdown marker
+      synchronized (queue) {
+         queue.add(SHUTDOWN);
+      }
+      try {
+         writer.join();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      closeConnections();
+   }
+
+   private void closeConnections() throws SQLException {
+      SQLException error = null;
+      for (Connection connection : readConnections) {
+         try {
+            connection.close();
+         } catch (SQLException e) {
+            error = e;
+         }
+      }
+      writeConnection.close();
+      if (error != null) {
+         throw error;
+      }
+   }
+
+   /**
+    * @return the JDBC url of the database being managed
+    */
+   public String getJdbc() {
+      return jdbc;
+   }
+
+   /**
+    * @return the savepoint of the write task currently being performed or null if no task is being performed
+    */
+   Savepoint getSavepoint() {
+      return savepoint;
+   }
+
+   /**
+    * @return True if the manager has been closed
+    */
+   boolean isClosed() {
+      return closed;
+   }
+
+   /**
+    * @return True if the current thread is the writer thread
+    */
+   boolean isWriterThread() {
+      return Thread.currentThread() == writer;
+   }
+
+   private Connection managed(Connection connection, boolean isWriter) {
+      return new ManagedConnection(this, connection, isWriter, statementCacheSize);
+   }
+
+   /**
+    * Performs the given function using a read-only context borrowed for the duration of the function, waiting for a
+    * reader to become available if all are borrowed. Calls to read from within the function reuse the borrowed context.
+    * Note that contexts handed out by {@link #reader()} are not borrowed and may be in use at the same time.
+    *
+    * @param <T>      the type of result
+    * @param function the function to perform
+    * @return the result of the function
+    * @throws SQLException Something went wrong performing the function
+    */
+   public <T> T read(@NonNull CheckedFunction<SQLContext, T> function) throws SQLException {
+      Validation.checkState(!closed, "The connection manager has been closed");
+      SQLContext context = borrowedReader.get();
+      if (context != null) {
+         try {
+            return function.apply(context);
+         } catch (Throwable throwable) {
+            throw unwrap(throwable);
+         }
+      }
+      try {
+         context = idleReaders.take();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SQLException(e);
+      }
+      borrowedReader.set(context);
+      try {
+         return function.apply(context);
+      } catch (Throwable throwable) {
+         throw unwrap(throwable);
+      } finally {
+         borrowedReader.remove();
+         idleReaders.add(context);
+      }
+   }
+
+   /**
+    * Gets a context over one of the read-only connections of the manager. Contexts are handed out in turn so that
+    * concurrent readers are spread over the connections, but are not borrowed, i.e. the same context may be in use by
+    * multiple threads, which the SQLite driver serializes. The context should therefore not be used to change the state
+    * of its connection (e.g. auto commit). Use {@link #read(CheckedFunction)} for exclusive use of a connection. Updates
+    * performed using the returned context will fail.
+    *
+    * @return the read-only context
+    */
+   public SQLContext reader() {
+      Validation.checkState(!closed, "The connection manager has been closed");
+      return readContexts[Math.floorMod(nextReader.getAndIncrement(), readContexts.length)];
+   }
+
+   private void runTransaction(List<WriteTask<?>> tasks) {
+      Throwable commitError = null;
+      try {
+         writeConnection.setAutoCommit(false);
+         for (WriteTask<?> task : tasks) {
+            savepoint = writeConnection.setSavepoint();
+            try {
+               task.result = task.function.apply(writeContext);
+               writeConnection.releaseSavepoint(savepoint);
+            } catch (Throwable throwable) {
+               writeConnection.rollback(savepoint);
+               task.error = throwable;
+            }
+         }
+         savepoint = null;
+         writeConnection.commit();
+      } catch (Throwable throwable) {
+         commitError = throwable;
+         try {
+            writeConnection.rollback();
+         } catch (SQLException e) {
+            logWarning(log, e);
+         }
+      } finally {
+         savepoint = null;
+         try {
+            writeConnection.setAutoCommit(true);
+         } catch (SQLException e) {
+            logWarning(log, e);
+         }
+      }
+      if (commitError == null) {
+         logFine(log, "Committed {0} write tasks to {1}", tasks.size(), jdbc);
+      } else {
+         logWarning(log, "Failed to commit " + tasks.size() + " write tasks to " + jdbc, commitError);
+      }
+      for (WriteTask<?> task : tasks) {
+         task.complete(commitError);
+      }
+   }
+
+   private void runWriter() {
+      List<WriteTask<?>> tasks = new ArrayList<>();
+      List<WriteTask<?>> dropped = new ArrayList<>();
+      boolean running = true;
+      try {
+         while (running) {
+            try {
+               tasks.add(queue.take());
+            } catch (InterruptedException e) {
+               logWarning(log, "The writer of {0} was interrupted", jdbc);
+               break;
+            }
+            queue.drainTo(tasks, maxTasksPerTransaction - 1);
+            int shutdown = tasks.indexOf(SHUTDOWN);
+            if (shutdown >= 0) {
+               running = false;
+               List<WriteTask<?>> afterShutdown = tasks.subList(shutdown, tasks.size());
+               dropped.addAll(afterShutdown);
+               afterShutdown.clear();
+            }
+            if (tasks.size() > 0) {
+               runTransaction(tasks);
+            }
+            tasks.clear();
+         }
+      } finally {
+         //Fail everything the writer will not perform, and anything submitted after it stopped
+         dropped.addAll(tasks);
+         synchronized (queue) {
+            writerStopped = true;
+            queue.drainTo(dropped);
+         }
+         for (WriteTask<?> task : dropped) {
+            if (task != SHUTDOWN) {
+               task.complete(new SQLException("The connection manager has been closed"));
+            }
+         }
+      }
+   }
+
+   /**
+    * Submits the given function to be performed by the writer. The function may be grouped into a transaction with
+    * other functions, and therefore, should not commit or change the auto commit mode of the context's connection (any
+    * attempt to do so is ignored). Calling <code>rollback()</code> on the connection rolls back only the changes made
+    * by the function. The returned future completes once the transaction containing the function has been committed.
+    *
+    * @param <T>      the type of result
+    * @param function the function to perform
+    * @return the future result of the function
+    */
+   public <T> CompletableFuture<T> submit(@NonNull CheckedFunction<SQLContext, T> function) {
+      WriteTask<T> task = new WriteTask<>(function);
+      synchronized (queue) {
+         if (!closed && !writerStopped) {
+            queue.add(task);
+            return task.future;
+         }
+      }
+      task.complete(new SQLException("The connection manager has been closed"));
+      return task.future;
+   }
+
+   private <T> CompletableFuture<Integer> submitBatch(String sql,
+                                                      List<T> items,
+                                                      CheckedBiConsumer<T, NamedPreparedStatement> consumer) {
+      return submit(context -> {
+         try (NamedPreparedStatement statement = new NamedPreparedStatement(context.getConnection(), sql)) {
+            for (T item : items) {
+               consumer.accept(item, statement);
+               statement.addBatch();
+            }
+            return IntStream.of(statement.executeBatch()).sum();
+         }
+      });
+   }
+
+   /**
+    * Performs the given function using the writer, blocking until the transaction containing it has been committed.
+    *
+    * @param <T>      the type of result
+    * @param function the function to perform
+    * @return the result of the function
+    * @throws SQLException Something went wrong performing the function or committing its transaction
+    * @see #submit(CheckedFunction)
+    */
+   public <T> T write(@NonNull CheckedFunction<SQLContext, T> function) throws SQLException {
+      Validation.checkState(Thread.currentThread() != writer, "write cannot be called from within a write task");
+      try {
+         return submit(function).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SQLException(e);
+      } catch (ExecutionException e) {
+         throw unwrap(e);
+      }
+   }
+
+   private static class WriteTask<T> {
+      final CheckedFunction<SQLContext, T> function;
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      Object result;
+      Throwable error;
+
+      private WriteTask(CheckedFunction<SQLContext, T> function) {
+         this.function = function;
+      }
+
+      @SuppressWarnings("unchecked")
+      void complete(Throwable commitError) {
+         if (error != null) {
+            future.completeExceptionally(error);
+         } else if (commitError != null) {
+            future.completeExceptionally(commitError);
+         } else {
+            future.complete((T) result);
+         }
+      }
+   }
+
+}//END OF SQLiteConnectionManager
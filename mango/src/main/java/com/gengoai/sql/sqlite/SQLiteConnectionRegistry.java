@@ -55,11 +55,14 @@ public final class SQLiteConnectionRegistry {
       lock.lock();
       try {
          WeakReference<Connection> reference = registry.get(jdbc);
-         if (reference == null || reference.get() == null) {
-            reference = new WeakReference<>(ResourceMonitor.monitor(DriverManager.getConnection(jdbc)));
-            registry.put(jdbc, reference);
+         Connection connection = reference == null
+                                 ? null
+                                 : reference.get();
+         if (connection == null) {
+            connection = ResourceMonitor.monitor(DriverManager.getConnection(jdbc));
+            registry.put(jdbc, new WeakReference<>(connection));
          }
-         return reference.get();
+         return connection;
       } finally {
          lock.unlock();
       }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.stream;
+
+import com.gengoai.math.EnhancedDoubleStatistics;
+import com.gengoai.tuple.Tuple2;
+
+import java.util.Map;
+
+/**
+ * Accumulator for calculating descriptive statistics for each of a set of keys, e.g. the mean and standard deviation
+ * of each feature in a dataset.
+ *
+ * @param <K> the key type parameter
+ * @author David B. Bracewell
+ */
+public interface MKeyedStatisticsAccumulator<K> extends MAccumulator<Tuple2<K, Double>, Map<K, EnhancedDoubleStatistics>> {
+
+   /**
+    * Adds a value to the statistics of the given key.
+    *
+    * @param key   the key
+    * @param value the value to add
+    */
+   void add(K key, double value);
+
+   /**
+    * Combines the given statistics with those of the given key.
+    *
+    * @param key        the key
+    * @param statistics the statistics to combine
+    */
+   void combine(K key, EnhancedDoubleStatistics statistics);
+
+}//END OF MKeyedStatisticsAccumulator
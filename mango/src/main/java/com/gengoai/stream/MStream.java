@@ -21,6 +21,8 @@
 
 package com.gengoai.stream;
 
+import com.gengoai.Validation;
+import com.gengoai.collection.Iterators;
 import com.gengoai.collection.Sorting;
 import com.gengoai.conversion.Cast;
 import com.gengoai.function.*;
@@ -213,6 +215,38 @@ public interface MStream<T> extends AutoCloseable, Iterable<T> {
     */
    <R> MStream<R> map(SerializableFunction<? super T, ? extends R> function);
 
+   /**
+    * Maps the objects in the stream in batches of the given size using the given function, which is useful for
+    * amortizing the cost of a call over multiple objects (e.g. batch prediction with a model). Batches are formed
+    * within partitions (see {@link #mapPartitions(SerializableFunction)}) and the last batch of a partition may be
+    * smaller than the given batch size.
+    *
+    * @param <R>       the component type of the returning stream
+    * @param batchSize the maximum number of objects in a batch
+    * @param function  the function to use to map a batch of objects into zero or more objects
+    * @return the new stream
+    */
+   default <R> MStream<R> mapBatches(int batchSize,
+                                     SerializableFunction<? super List<T>, ? extends Iterable<? extends R>> function) {
+      Validation.checkArgument(batchSize > 0, "Batch size must be greater than zero.");
+      return mapPartitions(iterator -> Streams.asStream(Iterators.partition(iterator, batchSize))
+                                              .flatMap(batch -> Streams.asStream(function.apply(batch))));
+   }
+
+   /**
+    * Maps the objects in the stream a partition at a time using the given function, which is useful for performing
+    * expensive setup (e.g. creating a tokenizer or a database statement) once per partition instead of once per
+    * object. The function is called once for each partition with an iterator over the objects in the partition.
+    * Local parallel streams are partitioned by splitting the stream into the same chunks it would be processed in
+    * parallel, local sequential streams are a single partition, and distributed streams use the partitions of the
+    * underlying distributed collection.
+    *
+    * @param <R>      the component type of the returning stream
+    * @param function the function to use to map the objects of a partition
+    * @return the new stream
+    */
+   <R> MStream<R> mapPartitions(SerializableFunction<Iterator<T>, Stream<R>> function);
+
    /**
     * Maps objects in this stream to double values
     *
@@ -194,6 +194,25 @@ public abstract class StreamingContext implements Serializable, AutoCloseable {
         return false;
     }
 
+    /**
+     * Creates a new keyed statistics accumulator
+     *
+     * @param <K> the key type parameter
+     * @return the keyed statistics accumulator
+     */
+    public <K> MKeyedStatisticsAccumulator<K> keyedStatisticsAccumulator() {
+        return keyedStatisticsAccumulator(null);
+    }
+
+    /**
+     * Creates a new keyed statistics accumulator
+     *
+     * @param <K>  the key type parameter
+     * @param name the name of the accumulator
+     * @return the keyed statistics accumulator
+     */
+    public abstract <K> MKeyedStatisticsAccumulator<K> keyedStatisticsAccumulator(String name);
+
     /**
      * Creates a list accumulator
      *
@@ -172,6 +172,16 @@ abstract class AbstractLocalMStream<T> implements MStream<T>, Serializable {
       return getContext().stream(javaStream().map(function));
    }
 
+   @Override
+   public <R> MStream<R> mapPartitions(@NonNull SerializableFunction<Iterator<T>, Stream<R>> function) {
+      return getContext().stream(Streams.reusableStream(() -> {
+         Stream<T> stream = javaStream();
+         return StreamSupport.stream(new PartitionSpliterator<>(stream.spliterator()), stream.isParallel())
+                             .flatMap(partition -> function.apply(Spliterators.iterator(partition)))
+                             .onClose(stream::close);
+      }));
+   }
+
    @Override
    public MDoubleStream mapToDouble(@NonNull SerializableToDoubleFunction<? super T> function) {
       return new LocalMDoubleStream(javaStream().mapToDouble(function));
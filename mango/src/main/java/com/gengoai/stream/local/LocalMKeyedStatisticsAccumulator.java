@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.stream.local;
+
+import com.gengoai.math.EnhancedDoubleStatistics;
+import com.gengoai.stream.MAccumulator;
+import com.gengoai.stream.MKeyedStatisticsAccumulator;
+import com.gengoai.tuple.Tuple2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An implementation of a {@link MKeyedStatisticsAccumulator} for local streams</p>
+ *
+ * @param <K> the key type parameter
+ * @author David B. Bracewell
+ */
+public class LocalMKeyedStatisticsAccumulator<K> extends LocalMAccumulator<Tuple2<K, Double>, Map<K, EnhancedDoubleStatistics>> implements MKeyedStatisticsAccumulator<K> {
+   private static final long serialVersionUID = 1L;
+   private final Map<K, EnhancedDoubleStatistics> statistics = new ConcurrentHashMap<>();
+
+   /**
+    * Instantiates a new LocalMKeyedStatisticsAccumulator.
+    *
+    * @param name the name of the accumulator
+    */
+   public LocalMKeyedStatisticsAccumulator(String name) {
+      super(name);
+   }
+
+   @Override
+   public void add(Tuple2<K, Double> tuple) {
+      add(tuple.v1, tuple.v2);
+   }
+
+   @Override
+   public void add(K key, double value) {
+      EnhancedDoubleStatistics eds = statistics.computeIfAbsent(key, k -> new EnhancedDoubleStatistics());
+      synchronized (eds) {
+         eds.accept(value);
+      }
+   }
+
+   @Override
+   public void combine(K key, EnhancedDoubleStatistics other) {
+      EnhancedDoubleStatistics eds = statistics.computeIfAbsent(key, k -> new EnhancedDoubleStatistics());
+      synchronized (eds) {
+         eds.combine(other);
+      }
+   }
+
+   @Override
+   public LocalMAccumulator<Tuple2<K, Double>, Map<K, EnhancedDoubleStatistics>> copy() {
+      LocalMKeyedStatisticsAccumulator<K> copy = new LocalMKeyedStatisticsAccumulator<>(name().orElse(null));
+      statistics.forEach(copy::combine);
+      return copy;
+   }
+
+   @Override
+   public Map<K, EnhancedDoubleStatistics> value() {
+      return statistics;
+   }
+
+   @Override
+   public boolean isZero() {
+      return statistics.isEmpty();
+   }
+
+   @Override
+   public void merge(MAccumulator<Tuple2<K, Double>, Map<K, EnhancedDoubleStatistics>> other) {
+      if (other instanceof LocalMAccumulator) {
+         other.value().forEach(this::combine);
+      } else {
+         throw new IllegalArgumentException(getClass().getName() + " cannot merge with " + other.getClass().getName());
+      }
+   }
+
+   @Override
+   public void reset() {
+      statistics.clear();
+   }
+
+}//END OF LocalMKeyedStatisticsAccumulator
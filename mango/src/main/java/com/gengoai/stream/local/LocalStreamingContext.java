@@ -82,6 +82,11 @@ public final class LocalStreamingContext extends StreamingContext {
       return new LocalReusableMStream<>(Stream::empty);
    }
 
+   @Override
+   public <K> MKeyedStatisticsAccumulator<K> keyedStatisticsAccumulator(String name) {
+      return new LocalMKeyedStatisticsAccumulator<>(name);
+   }
+
    @Override
    public <E> MAccumulator<E, List<E>> listAccumulator(String name) {
       return new LocalMListAccumulator<>(name);
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.stream.local;
+
+import lombok.NonNull;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * <p>A spliterator over the partitions of a backing spliterator, where a partition is itself a spliterator over a
+ * contiguous chunk of the backing spliterator's elements. Splitting is delegated to the backing spliterator, so that
+ * when used in a parallel stream the partitions are the same chunks the backing spliterator would have been split into
+ * for parallel processing. Each (unsplit) partition spliterator produces exactly one partition.</p>
+ *
+ * @param <T> the element type of the backing spliterator
+ * @author David B. Bracewell
+ */
+class PartitionSpliterator<T> implements Spliterator<Spliterator<T>> {
+   private final Spliterator<T> backing;
+   private boolean consumed = false;
+
+   /**
+    * Instantiates a new PartitionSpliterator.
+    *
+    * @param backing the backing spliterator
+    */
+   PartitionSpliterator(@NonNull Spliterator<T> backing) {
+      this.backing = backing;
+   }
+
+   @Override
+   public int characteristics() {
+      return backing.characteristics() & Spliterator.ORDERED;
+   }
+
+   @Override
+   public long estimateSize() {
+      //Report the number of backing elements so that parallel streams split partitions as they would the elements
+      return consumed
+             ? 0
+             : backing.estimateSize();
+   }
+
+   @Override
+   public boolean tryAdvance(Consumer<? super Spliterator<T>> action) {
+      if(consumed) {
+         return false;
+      }
+      consumed = true;
+      action.accept(backing);
+      return true;
+   }
+
+   @Override
+   public Spliterator<Spliterator<T>> trySplit() {
+      if(consumed) {
+         return null;
+      }
+      Spliterator<T> prefix = backing.trySplit();
+      return prefix == null
+             ? null
+             : new PartitionSpliterator<>(prefix);
+   }
+
+}//END OF PartitionSpliterator
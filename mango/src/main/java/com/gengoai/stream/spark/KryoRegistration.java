@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.stream.spark;
+
+import com.esotericsoftware.kryo.Kryo;
+
+/**
+ * <p>Registers classes, and optionally custom serializers, with the Kryo instances used by Spark when {@link
+ * SparkStreamingContext#SPARK_KRYO} is enabled. Implementations are discovered using Java's service loader, i.e.
+ * they should be annotated with <code>@MetaInfServices(KryoRegistration.class)</code>, and are applied by the {@link
+ * SparkKryoRegistrator}.</p>
+ *
+ * @author David B. Bracewell
+ */
+public interface KryoRegistration {
+
+   /**
+    * Registers classes and serializers with the given Kryo instance.
+    *
+    * @param kryo the Kryo instance
+    */
+   void registerClasses(Kryo kryo);
+
+}//END OF KryoRegistration
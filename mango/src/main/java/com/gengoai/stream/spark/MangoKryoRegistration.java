@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.stream.spark;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import com.gengoai.EnumValue;
+import com.gengoai.collection.counter.ConcurrentHashMapCounter;
+import com.gengoai.collection.counter.HashMapCounter;
+import com.gengoai.collection.counter.HashMapMultiCounter;
+import com.gengoai.collection.multimap.ArrayListMultimap;
+import com.gengoai.collection.multimap.HashSetMultimap;
+import com.gengoai.tuple.*;
+import org.kohsuke.MetaInfServices;
+
+/**
+ * <p>Registers the tuples, counters, and multimaps commonly shuffled in Spark jobs. Subclasses of {@link EnumValue}
+ * are serialized using Java serialization so that values are resolved against their registry when read.</p>
+ *
+ * @author David B. Bracewell
+ */
+@MetaInfServices(KryoRegistration.class)
+public class MangoKryoRegistration implements KryoRegistration {
+
+   @Override
+   public void registerClasses(Kryo kryo) {
+      kryo.addDefaultSerializer(EnumValue.class, JavaSerializer.class);
+      kryo.register(Tuple0.class, new Serializer<Tuple0>() {
+         @Override
+         public Tuple0 read(Kryo kryo, Input input, Class<Tuple0> type) {
+            return Tuple0.INSTANCE;
+         }
+
+         @Override
+         public void write(Kryo kryo, Output output, Tuple0 object) {
+
+         }
+      });
+      kryo.register(Tuple1.class);
+      kryo.register(Tuple2.class);
+      kryo.register(Tuple3.class);
+      kryo.register(Tuple4.class);
+      kryo.register(NTuple.class);
+      kryo.register(HashMapCounter.class);
+      kryo.register(ConcurrentHashMapCounter.class);
+      kryo.register(HashMapMultiCounter.class);
+      kryo.register(ArrayListMultimap.class);
+      kryo.register(HashSetMultimap.class);
+   }
+
+}//END OF MangoKryoRegistration
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.gengoai.stream.spark;
+
+import com.esotericsoftware.kryo.Kryo;
+import org.apache.spark.serializer.KryoRegistrator;
+
+import java.util.ServiceLoader;
+
+/**
+ * <p>Spark {@link KryoRegistrator} that applies every {@link KryoRegistration} found on the classpath. Set as the
+ * <code>spark.kryo.registrator</code> by the {@link SparkStreamingContext} when {@link
+ * SparkStreamingContext#SPARK_KRYO} is enabled.</p>
+ *
+ * @author David B. Bracewell
+ */
+public class SparkKryoRegistrator implements KryoRegistrator {
+
+   @Override
+   public void registerClasses(Kryo kryo) {
+      for(KryoRegistration registration : ServiceLoader.load(KryoRegistration.class)) {
+         registration.registerClasses(kryo);
+      }
+   }
+
+}//END OF SparkKryoRegistrator
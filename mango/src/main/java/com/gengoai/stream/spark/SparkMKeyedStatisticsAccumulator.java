@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.stream.spark;
+
+import com.gengoai.conversion.Cast;
+import com.gengoai.math.EnhancedDoubleStatistics;
+import com.gengoai.stream.MKeyedStatisticsAccumulator;
+import com.gengoai.stream.local.LocalMKeyedStatisticsAccumulator;
+import com.gengoai.tuple.Tuple2;
+
+import java.util.Map;
+
+/**
+ * <p>An implementation of a {@link MKeyedStatisticsAccumulator} for Spark streams</p>
+ *
+ * @param <K> the key type parameter
+ * @author David B. Bracewell
+ */
+public class SparkMKeyedStatisticsAccumulator<K> extends SparkMAccumulator<Tuple2<K, Double>, Map<K, EnhancedDoubleStatistics>> implements MKeyedStatisticsAccumulator<K> {
+   private static final long serialVersionUID = 1L;
+
+   /**
+    * Instantiates a new SparkMKeyedStatisticsAccumulator.
+    *
+    * @param name the name of the accumulator
+    */
+   public SparkMKeyedStatisticsAccumulator(String name) {
+      super(new AccumulatorV2Wrapper<>(new LocalMKeyedStatisticsAccumulator<K>(name)));
+   }
+
+   private LocalMKeyedStatisticsAccumulator<K> getAccumulator() {
+      return Cast.as(Cast.<AccumulatorV2Wrapper>as(accumulatorV2).accumulator);
+   }
+
+   @Override
+   public void add(K key, double value) {
+      getAccumulator().add(key, value);
+   }
+
+   @Override
+   public void combine(K key, EnhancedDoubleStatistics statistics) {
+      getAccumulator().combine(key, statistics);
+   }
+
+}//END OF SparkMKeyedStatisticsAccumulator
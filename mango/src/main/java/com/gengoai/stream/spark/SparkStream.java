@@ -243,14 +243,8 @@ public class SparkStream<T> implements MStream<T>, Serializable {
       }));
    }
 
-   /**
-    * Maps the objects in the stream by block using the given function
-    *
-    * @param <R>      the component type of the returning stream
-    * @param function the function to use to map objects
-    * @return the new stream
-    */
-   public <R> SparkStream<R> mapPartitions(SerializableFunction<Iterator<? super T>, Stream<R>> function) {
+   @Override
+   public <R> SparkStream<R> mapPartitions(SerializableFunction<Iterator<T>, Stream<R>> function) {
       return new SparkStream<>(rdd.mapPartitions(iterator -> {
          Configurator.INSTANCE.configure(configBroadcast.value());
          return function.apply(iterator).iterator();
@@ -31,6 +31,7 @@ import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.serializer.KryoSerializer;
 import org.apache.spark.sql.SparkSession;
 import org.apache.spark.util.CollectionAccumulator;
 import scala.Option;
@@ -56,6 +57,11 @@ public final class SparkStreamingContext extends StreamingContext {
     * The config property name containing the spark application name
     */
    public static final String SPARK_APPNAME = "spark.appName";
+   /**
+    * The config property name determining if Kryo serialization, with the classes registered by {@link
+    * KryoRegistration}s, is used instead of Java serialization (false by default)
+    */
+   public static final String SPARK_KRYO = "spark.kryo";
    /**
     * The config property name specifying the spark master address
     */
@@ -128,6 +134,10 @@ public final class SparkStreamingContext extends StreamingContext {
                                                           .master(Config.get(SPARK_MASTER).asString("local[*]"))
                                                           .appName(Config.get(SPARK_APPNAME)
                                                                          .asString(Strings.randomHexString(20)));
+               if (Config.get(SPARK_KRYO).asBooleanValue(false)) {
+                  builder.config("spark.serializer", KryoSerializer.class.getName())
+                         .config("spark.kryo.registrator", SparkKryoRegistrator.class.getName());
+               }
                Config.getPropertiesMatching(StringMatcher.startsWith(sparkConfig))
                      .forEach(s -> builder.config(s.substring(sparkConfig.length()), Config.get(s).asString()));
                sparkSession = builder.getOrCreate();
@@ -204,6 +214,13 @@ public final class SparkStreamingContext extends StreamingContext {
       return true;
    }
 
+   @Override
+   public <K> MKeyedStatisticsAccumulator<K> keyedStatisticsAccumulator(String name) {
+      SparkMKeyedStatisticsAccumulator<K> accumulator = new SparkMKeyedStatisticsAccumulator<>(name);
+      accumulator.register();
+      return accumulator;
+   }
+
    @Override
    public <E> MAccumulator<E, List<E>> listAccumulator(String name) {
       CollectionAccumulator<E> accumulator = new CollectionAccumulator<>();
@@ -0,0 +1,171 @@
+package com.gengoai.cache;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.gengoai.collection.Lists.arrayListOf;
+import static junit.framework.TestCase.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class ConcurrentCacheTest {
+
+   @Test
+   public void basicOperations() {
+      Cache<String, String> cache = ConcurrentCache.<String, String>builder().maximumSize(10).build();
+      cache.put("A", "A");
+      cache.put("B", "B");
+      cache.put("B", "Z");
+      assertEquals(2, cache.size());
+      assertEquals("Z", cache.get("B"));
+      assertNull(cache.get("C"));
+      assertEquals("ZZZZ", cache.get("C", () -> "ZZZZ"));
+      assertTrue(cache.containsKey("C"));
+
+      cache.invalidate("B");
+      assertFalse(cache.containsKey("B"));
+      cache.invalidateAll(arrayListOf("A", "C"));
+      assertTrue(cache.isEmpty());
+
+      cache.put("D", "D");
+      cache.invalidateAll();
+      assertTrue(cache.isEmpty());
+   }
+
+   @Test
+   public void expiration() throws Exception {
+      ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                                                             .maximumSize(10)
+                                                             .expireAfterWrite(Duration.ofMillis(50))
+                                                             .build();
+      cache.put("A", "A");
+      assertEquals("A", cache.get("A"));
+      Thread.sleep(100);
+      assertFalse(cache.containsKey("A"));
+      assertNull(cache.get("A"));
+      assertEquals(0, cache.size());
+   }
+
+   @Test
+   public void frequencyAdmission() {
+      ConcurrentCache<Integer, Integer> cache = ConcurrentCache.<Integer, Integer>builder()
+                                                               .maximumSize(100)
+                                                               .build();
+      for (int i = 0; i < 100; i++) {
+         cache.put(i, i);
+      }
+      for (int round = 0; round < 10; round++) {
+         for (int i = 0; i < 50; i++) {
+            cache.get(i);
+         }
+      }
+      cache.cleanUp();
+      //A scan of one-off keys should not flush the frequently used keys
+      for (int i = 1000; i < 2000; i++) {
+         cache.put(i, i);
+      }
+      assertEquals(100, cache.size());
+      int retained = 0;
+      for (int i = 0; i < 50; i++) {
+         if (cache.containsKey(i)) {
+            retained++;
+         }
+      }
+      assertTrue(retained >= 45);
+   }
+
+   @Test
+   public void loader() {
+      AtomicInteger calls = new AtomicInteger();
+      Cache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+                                                    .maximumSize(10)
+                                                    .loader(s -> {
+                                                       calls.incrementAndGet();
+                                                       return s.length();
+                                                    })
+                                                    .build();
+      assertEquals(3, cache.get("ABC").intValue());
+      assertEquals(3, cache.get("ABC").intValue());
+      assertEquals(1, calls.get());
+   }
+
+   @Test
+   public void singleFlightLoading() throws Exception {
+      ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                                                             .maximumSize(10)
+                                                             .recordStats(true)
+                                                             .build();
+      AtomicInteger loads = new AtomicInteger();
+      CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+         futures.add(executor.submit(() -> {
+            start.await();
+            return cache.get("model", () -> {
+               loads.incrementAndGet();
+               try {
+                  Thread.sleep(100);
+               } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+               }
+               return "loaded";
+            });
+         }));
+      }
+      start.countDown();
+      for (Future<String> future : futures) {
+         assertEquals("loaded", future.get());
+      }
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      assertEquals(1, loads.get());
+      assertEquals(1, cache.stats().getLoadSuccessCount());
+      assertTrue(cache.stats().getTotalLoadTime() > 0);
+   }
+
+   @Test
+   public void stats() {
+      ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                                                             .maximumSize(10)
+                                                             .recordStats(true)
+                                                             .build();
+      cache.put("A", "A");
+      cache.get("A");
+      cache.get("A");
+      cache.get("B");
+      CacheStats stats = cache.stats();
+      assertEquals(2, stats.getHitCount());
+      assertEquals(1, stats.getMissCount());
+      assertEquals(2 / 3d, stats.hitRate(), 1e-9);
+   }
+
+   @Test
+   public void weightedEviction() {
+      ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                                                             .maximumWeight(10)
+                                                             .weigher((k, v) -> v.length())
+                                                             .recordStats(true)
+                                                             .build();
+      cache.put("A", "AAAA");
+      cache.put("B", "BBBB");
+      cache.put("C", "CCCC");
+      assertTrue(cache.weightedSize() <= 10);
+      assertEquals(2, cache.size());
+      assertEquals(1, cache.stats().getEvictionCount());
+      cache.put("D", "DDDDDDDDDDDD");
+      assertFalse(cache.containsKey("D"));
+      assertTrue(cache.weightedSize() <= 10);
+   }
+
+}//END OF ConcurrentCacheTest
@@ -174,4 +174,27 @@ public class TrieTest {
       assertTrue(trie.isEmpty());
    }
 
-}
\ No newline at end of file
+   private void assertSuggestions() {
+      assertEquals(hashMapOf($("ran", 0)), trie.suggest("ran"));
+      assertEquals(hashMapOf($("ran", 1), $("rand", 1)), trie.suggest("ranx", 1));
+      assertEquals(hashMapOf($("wasn't", 1), $("was", 2)), trie.suggest("wasnt", 2, 2));
+      assertEquals(hashMapOf($("wasn't", 1), $("was", 2)), trie.suggest("wasnt", 2));
+      assertEquals(hashMapOf($("rand", 1), $("ran", 2)), trie.suggest("rnd", 2));
+   }
+
+   @Test
+   public void suggest() throws Exception {
+      assertSuggestions();
+      //Costs up to the indexed cost use the index, higher costs search the trie
+      trie.indexSuggestions(1);
+      assertSuggestions();
+      trie.indexSuggestions(2);
+      assertSuggestions();
+
+      //The index is kept up to date with modifications to the trie
+      trie.put("wasnot", "is");
+      trie.remove("isn't");
+      assertEquals(hashMapOf($("wasn't", 1), $("was", 2), $("wasnot", 1)), trie.suggest("wasnt", 2));
+   }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.collection.disk;
+
+import com.gengoai.io.Resources;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Measures the throughput (puts per second) of bulk loading a {@link DiskMap} that is committed after every batch
+ * of puts under different {@link CommitPolicy}s.</p>
+ * <p>Usage: <code>DiskMapBenchmark [numberOfPuts] [batchSize]</code></p>
+ *
+ * @author David B. Bracewell
+ */
+public class DiskMapBenchmark {
+
+   public static void main(String[] args) throws Exception {
+      final int numberOfPuts = args.length > 0
+            ? Integer.parseInt(args[0])
+            : 200_000;
+      final int batchSize = args.length > 1
+            ? Integer.parseInt(args[1])
+            : 1_000;
+      Map<String, CommitPolicy> policies = new LinkedHashMap<>();
+      policies.put("compact on every commit", CommitPolicy.builder().compactionThreshold(0).build());
+      policies.put("default", CommitPolicy.DEFAULT);
+      policies.put("group 10 commits", CommitPolicy.builder().commitEvery(10).build());
+      policies.put("no write-ahead log", CommitPolicy.builder().writeAheadLog(false).build());
+
+      //Warm up
+      run(CommitPolicy.DEFAULT, numberOfPuts / 10, batchSize);
+
+      for (Map.Entry<String, CommitPolicy> entry : policies.entrySet()) {
+         long elapsed = run(entry.getValue(), numberOfPuts, batchSize);
+         System.out.printf("%-25s %,12.0f puts/sec%n", entry.getKey(), numberOfPuts / (elapsed / 1e9));
+      }
+   }
+
+   private static long run(CommitPolicy policy, int numberOfPuts, int batchSize) throws Exception {
+      DiskMap<String, Integer> map = DiskMap.<String, Integer>builder()
+                                            .file(Resources.temporaryFile())
+                                            .namespace("benchmark")
+                                            .commitPolicy(policy)
+                                            .build();
+      long start = System.nanoTime();
+      for (int i = 0; i < numberOfPuts; i++) {
+         //Overwrite a quarter of the keys to create free space in the store
+         map.put("key" + (i % (numberOfPuts * 3 / 4)), i);
+         if ((i + 1) % batchSize == 0) {
+            map.commit();
+         }
+      }
+      map.close();
+      return System.nanoTime() - start;
+   }
+
+}//END OF DiskMapBenchmark
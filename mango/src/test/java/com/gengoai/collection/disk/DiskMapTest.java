@@ -0,0 +1,65 @@
+package com.gengoai.collection.disk;
+
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class DiskMapTest {
+
+   @Test
+   public void groupCommit() throws Exception {
+      Resource file = Resources.temporaryFile();
+      DiskMap<String, Integer> map = DiskMap.<String, Integer>builder()
+                                            .file(file)
+                                            .namespace("group")
+                                            .commitPolicy(CommitPolicy.builder()
+                                                                      .commitEvery(100)
+                                                                      .compactionThreshold(2)
+                                                                      .build())
+                                            .build();
+      for (int i = 0; i < 250; i++) {
+         map.put("key" + i, i);
+         map.commit();
+      }
+      map.compact();
+      //Pending commits are written on close
+      map.close();
+
+      DiskMap<String, Integer> reopened = DiskMap.<String, Integer>builder()
+                                                 .file(file)
+                                                 .namespace("group")
+                                                 .readOnly(true)
+                                                 .build();
+      assertEquals(250, reopened.size());
+      assertEquals(249, reopened.get("key249").intValue());
+      reopened.close();
+   }
+
+   @Test
+   public void noWriteAheadLog() throws Exception {
+      Resource file = Resources.temporaryFile();
+      DiskQueue<String> queue = DiskQueue.<String>builder()
+                                         .file(file)
+                                         .namespace("queue")
+                                         .commitPolicy(CommitPolicy.builder().writeAheadLog(false).build())
+                                         .build();
+      queue.add("A");
+      queue.add("B");
+      queue.commit();
+      queue.close();
+
+      DiskQueue<String> reopened = DiskQueue.<String>builder()
+                                            .file(file)
+                                            .namespace("queue")
+                                            .build();
+      assertEquals("A", reopened.poll());
+      assertEquals("B", reopened.poll());
+      reopened.close();
+   }
+
+}//END OF DiskMapTest
@@ -0,0 +1,87 @@
+package com.gengoai.collection.tree;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class SymSpellIndexTest {
+
+   private static int levenshtein(String s1, String s2) {
+      int[][] d = new int[s1.length() + 1][s2.length() + 1];
+      for(int i = 0; i <= s1.length(); i++) {
+         for(int j = 0; j <= s2.length(); j++) {
+            if(i == 0 || j == 0) {
+               d[i][j] = i + j;
+            } else {
+               d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+                                  d[i - 1][j - 1] + (s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1));
+            }
+         }
+      }
+      return d[s1.length()][s2.length()];
+   }
+
+   private static String random(Random random) {
+      StringBuilder builder = new StringBuilder();
+      int length = 1 + random.nextInt(12);
+      for(int i = 0; i < length; i++) {
+         builder.append((char) ('a' + random.nextInt(4)));
+      }
+      return builder.toString();
+   }
+
+   @Test
+   public void matchesBruteForce() {
+      Random random = new Random(1234);
+      Set<String> words = new HashSet<>();
+      while(words.size() < 500) {
+         words.add(random(random));
+      }
+      SymSpellIndex<String> index = SymSpellIndex.forStrings(2, 4);
+      index.addAll(words);
+      assertEquals(500, index.size());
+      for(int q = 0; q < 200; q++) {
+         String query = random(random);
+         for(int d = 0; d <= 2; d++) {
+            Map<String, Integer> expected = new HashMap<>();
+            for(String word : words) {
+               int distance = levenshtein(query, word);
+               if(distance <= d) {
+                  expected.put(word, distance);
+               }
+            }
+            assertEquals(expected, index.lookup(query, d));
+         }
+      }
+   }
+
+   @Test
+   public void tokens() {
+      SymSpellIndex<List<String>> index = SymSpellIndex.forTokens(2);
+      index.add(Arrays.asList("get", "tired"));
+      index.add(Arrays.asList("get", "very", "tired"));
+      index.add(Arrays.asList("feel", "sleepy"));
+      assertFalse(index.add(Arrays.asList("feel", "sleepy")));
+
+      Map<List<String>, Integer> results = index.lookup(Arrays.asList("get", "really", "very", "tired"));
+      assertEquals(2, results.size());
+      assertEquals(1, results.get(Arrays.asList("get", "very", "tired")).intValue());
+      assertEquals(2, results.get(Arrays.asList("get", "tired")).intValue());
+      assertTrue(index.lookup(Arrays.asList("unknown", "words", "here"), 1).isEmpty());
+
+      assertTrue(index.remove(Arrays.asList("get", "tired")));
+      assertFalse(index.contains(Arrays.asList("get", "tired")));
+      assertEquals(1, index.lookup(Arrays.asList("get", "really", "very", "tired")).size());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void distanceTooLarge() {
+      SymSpellIndex.forStrings(1).lookup("test", 2);
+   }
+
+}//END OF SymSpellIndexTest
@@ -0,0 +1,80 @@
+/*
+ * (c) 2005 David B. Bracewell
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.gengoai.graph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class CSRGraphTest {
+
+   @Test
+   public void directed() {
+      Graph<String> g = Graph.directed();
+      g.addVertices(java.util.List.of("A", "B", "C", "D"));
+      g.addEdge("A", "B", 2);
+      g.addEdge("A", "C");
+      g.addEdge("B", "C");
+      g.addEdge("C", "A");
+      CSRGraph<String> csr = CSRGraph.from(g);
+      assertTrue(csr.isDirected());
+      assertEquals(4, csr.numberOfVertices());
+      assertEquals(4, csr.numberOfEdges());
+      int a = csr.id("A");
+      int c = csr.id("C");
+      assertEquals(2, csr.outDegree(a));
+      assertEquals(1, csr.inDegree(a));
+      assertEquals(2, csr.inDegree(c));
+      assertEquals(0, csr.outDegree(csr.id("D")));
+      assertEquals(-1, csr.id("E"));
+      assertEquals("C", csr.vertex(csr.inEdgeSource(csr.inEdgeStart(a))));
+      for (int e = csr.inEdgeStart(c); e < csr.inEdgeEnd(c); e++) {
+         assertTrue(csr.vertex(csr.inEdgeSource(e)).equals("A") || csr.vertex(csr.inEdgeSource(e)).equals("B"));
+      }
+   }
+
+   @Test
+   public void undirectedBuilder() {
+      CSRGraph<String> csr = CSRGraph.<String>builder(false)
+                                     .addEdge("A", "B")
+                                     .addEdge("B", "A", 2)
+                                     .addEdge("A", "C")
+                                     .addEdge("C", "C")
+                                     .build();
+      assertFalse(csr.isDirected());
+      assertEquals(3, csr.numberOfVertices());
+      assertEquals(3, csr.numberOfEdges());
+      int a = csr.id("A");
+      int b = csr.id("B");
+      assertEquals(2, csr.outDegree(a));
+      assertEquals(2, csr.inDegree(a));
+      assertEquals(1, csr.outDegree(b));
+      assertEquals(a, csr.outEdgeTarget(csr.outEdgeStart(b)));
+      assertEquals(3f, csr.outEdgeWeight(csr.outEdgeStart(b)), 0f);
+      assertEquals(4d, csr.outWeight(a), 0d);
+      assertEquals(2, csr.outDegree(csr.id("C")));
+   }
+
+}//END OF CSRGraphTest
@@ -22,6 +22,8 @@
 package com.gengoai.graph.scoring;
 
 import com.gengoai.collection.counter.Counter;
+import com.gengoai.collection.counter.Counters;
+import com.gengoai.graph.CSRGraph;
 import com.gengoai.graph.Graph;
 import org.junit.Before;
 import org.junit.Test;
@@ -75,4 +77,34 @@ public class PageRankTest {
     assertEquals(0.62d, undirectedScore.get("D"), 0.01d);
   }
 
+  @Test
+  public void testPersonalized() throws Exception {
+    PageRank<String> pageRank = new PageRank<>(100, 0.85, 1e-6);
+    CSRGraph<String> graph = CSRGraph.from(undirected);
+    Counter<String> uniform = pageRank.score(graph, Counters.newCounter("A", "B", "C", "D"));
+    Counter<String> unbiased = pageRank.score(graph);
+    for (String vertex : unbiased.items()) {
+      assertEquals(unbiased.get(vertex), uniform.get(vertex), 1e-6);
+    }
+    Counter<String> personalized = pageRank.score(graph, Counters.newCounter("C"));
+    assertTrue(personalized.get("C") > personalized.get("D"));
+    assertTrue(personalized.get("C") > unbiased.get("C"));
+  }
+
+  @Test
+  public void testWeighted() throws Exception {
+    Graph<String> g = Graph.directed();
+    g.addVertex("A");
+    g.addVertex("B");
+    g.addVertex("C");
+    g.addEdge("A", "B", 9);
+    g.addEdge("A", "C", 1);
+    g.addEdge("B", "A");
+    g.addEdge("C", "A");
+    Counter<String> weighted = new PageRank<String>(100, 0.85, 1e-6, true).score(g);
+    Counter<String> unweighted = new PageRank<String>(100, 0.85, 1e-6).score(g);
+    assertTrue(weighted.get("B") > weighted.get("C"));
+    assertEquals(unweighted.get("B"), unweighted.get("C"), 1e-6);
+  }
+
 }//END OF PageRankTest
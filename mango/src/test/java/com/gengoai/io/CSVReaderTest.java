@@ -21,9 +21,11 @@
 
 package com.gengoai.io;
 
+import com.gengoai.io.resource.Resource;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -85,4 +87,47 @@ public class CSVReaderTest {
     assertEquals("#", rows.get(1).get(1));
   }
 
+  @Test
+  public void parallelTest() throws IOException {
+    StringBuilder content = new StringBuilder("id,name,value\n");
+    for (int i = 0; i < 2000; i++) {
+      if (i % 100 == 0) {
+        content.append("# comment ").append(i).append("\n");
+      }
+      content.append(i).append(",name ").append(i).append(", ").append(i * 0.5).append("\r\n");
+    }
+    assertParallelEqualsSequential(content.toString(), true);
+  }
+
+  @Test
+  public void parallelFallbackTest() throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      if (i == 1500) {
+        content.append(i).append(",\"multi\nline, quoted\",").append(i).append("\n");
+      } else {
+        content.append(i).append(",name ").append(i).append(",").append(i).append("\n");
+      }
+    }
+    assertParallelEqualsSequential(content.toString(), false);
+  }
+
+  private void assertParallelEqualsSequential(String content, boolean hasHeader) throws IOException {
+    Resource file = Resources.temporaryFile();
+    file.write(content);
+    CSV csv = CSV.builder().hasHeader(hasHeader).comment('#');
+    try (CSVReader sequential = csv.reader(file.reader());
+         CSVReader parallel = ParallelCSVReader.open(csv, file, 512)) {
+      assertNotNull(parallel);
+      assertEquals(sequential.getHeader(), parallel.getHeader());
+      List<List<String>> rows = new ArrayList<>();
+      List<String> row;
+      while ((row = parallel.nextRow()) != null) {
+        rows.add(row);
+      }
+      assertEquals(sequential.readAll(), rows);
+      assertEquals(2000, rows.size());
+    }
+  }
+
 }
\ No newline at end of file
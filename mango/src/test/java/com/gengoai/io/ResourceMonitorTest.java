@@ -0,0 +1,89 @@
+package com.gengoai.io;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ResourceMonitorTest {
+
+   private static void awaitClosed(AtomicBoolean closed) throws InterruptedException {
+      for (int i = 0; i < 100 && !closed.get(); i++) {
+         System.gc();
+         Thread.sleep(50);
+      }
+   }
+
+   private static void leak(AtomicBoolean closed) {
+      ResourceMonitor.monitor((AutoCloseable) () -> closed.set(true));
+   }
+
+   @Test
+   public void closedWhenUnreferenced() throws Exception {
+      AtomicBoolean closed = new AtomicBoolean(false);
+      long leaks = ResourceMonitor.getLeakCount();
+      ResourceMonitor.setAllocationSampleInterval(1);
+      try {
+         leak(closed);
+         awaitClosed(closed);
+      } finally {
+         ResourceMonitor.setAllocationSampleInterval(0);
+      }
+      assertTrue(closed.get());
+      assertTrue(ResourceMonitor.getLeakCount() > leaks);
+   }
+
+   @Test
+   public void connection() throws Exception {
+      Connection connection = ResourceMonitor.monitor(DriverManager.getConnection("jdbc:sqlite::memory:"));
+      assertFalse(Proxy.isProxyClass(connection.getClass()));
+      try (Statement statement = connection.createStatement();
+           ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+         assertTrue(resultSet.next());
+         assertEquals(1, resultSet.getInt(1));
+      }
+      connection.close();
+      assertTrue(connection.isClosed());
+   }
+
+   @Test
+   public void stream() throws Exception {
+      AtomicBoolean closed = new AtomicBoolean(false);
+      Stream<Integer> stream = ResourceMonitor.monitor(Stream.of(1, 2, 3, 4).onClose(() -> closed.set(true)));
+      assertFalse(Proxy.isProxyClass(stream.getClass()));
+      Stream<Integer> mapped = stream.filter(i -> i % 2 == 0).map(i -> i * 10);
+      assertEquals(List.of(20, 40), mapped.collect(Collectors.toList()));
+      assertFalse(closed.get());
+      mapped.close();
+      assertTrue(closed.get());
+   }
+
+   @Test
+   public void streamIteratorKeepsStreamOpen() throws Exception {
+      AtomicBoolean closed = new AtomicBoolean(false);
+      Iterator<Integer> iterator = ResourceMonitor.monitor(Stream.of(1, 2, 3).onClose(() -> closed.set(true)))
+                                                  .iterator();
+      System.gc();
+      Thread.sleep(100);
+      assertFalse(closed.get());
+      int sum = 0;
+      while (iterator.hasNext()) {
+         sum += iterator.next();
+      }
+      assertEquals(6, sum);
+      iterator = null;
+      awaitClosed(closed);
+      assertTrue(closed.get());
+   }
+
+}
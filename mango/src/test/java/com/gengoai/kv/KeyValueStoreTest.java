@@ -65,4 +65,24 @@ public class KeyValueStoreTest {
       assertEquals(2, kv2.size());
    }
 
+   @Test
+   public void lsm() throws Exception {
+      String tmpDir = Resources.temporaryDirectory().path();
+      KeyValueStore<String, String> kv = KeyValueStore.connect("kv:lsm:test::" + tmpDir);
+      kv.put("A", "B");
+      kv.put("C", "D");
+
+      assertEquals("test", kv.getNameSpace());
+      assertEquals(2L, kv.sizeAsLong());
+      assertEquals(2, kv.size());
+      kv.close();
+
+      KeyValueStore<String, String> kv2 = KeyValueStore.connect("kv:lsm:test::" + tmpDir);
+      assertEquals("test", kv2.getNameSpace());
+      assertEquals(2L, kv2.sizeAsLong());
+      assertEquals(2, kv2.size());
+      assertEquals("D", kv2.get("C"));
+      kv2.close();
+   }
+
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.gengoai.kv;
+
+import com.gengoai.config.Config;
+import com.gengoai.io.Resources;
+import com.gengoai.io.resource.Resource;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author David B. Bracewell
+ */
+public class LSMKeyValueStoreTest {
+
+   private static Set<String> tables(Resource dir, String namespace) {
+      File[] files = new File(dir.asFile().orElseThrow(), namespace).listFiles();
+      Set<String> names = new TreeSet<>();
+      for (File file : files) {
+         names.add(file.getName());
+      }
+      return names;
+   }
+
+   private static String key(int i) {
+      return String.format("key%05d", i);
+   }
+
+   @Test
+   public void flushAndCompact() throws Exception {
+      Config.setProperty("LSMKeyValueStore.memtableSize", "100");
+      Config.setProperty("LSMKeyValueStore.maxSegments", "3");
+      try {
+         Resource dir = Resources.temporaryDirectory();
+         NavigableKeyValueStore<String, Integer> kv = new LSMKeyValueStore<>(dir, "flush", true, false);
+         TreeMap<String, Integer> expected = new TreeMap<>();
+         Random random = new Random(1234);
+         for (int i = 0; i < 2_000; i++) {
+            int k = random.nextInt(1_000);
+            if (random.nextInt(5) == 0) {
+               assertEquals(expected.remove(key(k)), kv.remove(key(k)));
+            } else {
+               assertEquals(expected.put(key(k), i), kv.put(key(k), i));
+            }
+         }
+         assertEquals(expected.size(), kv.size());
+         assertEquals(expected, new TreeMap<>(kv));
+         kv.close();
+
+         //Reopen, waiting for any compaction to finish
+         kv = new LSMKeyValueStore<>(dir, "flush", true, true);
+         assertEquals(expected.size(), kv.size());
+         for (int i = 0; i < 1_000; i++) {
+            assertEquals(expected.get(key(i)), kv.get(key(i)));
+         }
+         assertEquals(expected.firstKey(), kv.firstKey());
+         assertEquals(expected.lastKey(), kv.lastKey());
+         for (int i = 0; i < 1_000; i += 7) {
+            String k = key(i);
+            assertEquals(expected.ceilingKey(k), kv.ceilingKey(k));
+            assertEquals(expected.floorKey(k), kv.floorKey(k));
+            assertEquals(expected.higherKey(k), kv.higherKey(k));
+            assertEquals(expected.lowerKey(k), kv.lowerKey(k));
+         }
+         List<String> keys = new ArrayList<>();
+         kv.keyIterator(key(500)).forEachRemaining(keys::add);
+         assertEquals(new ArrayList<>(expected.tailMap(key(500), true).keySet()), keys);
+         kv.close();
+      } finally {
+         Config.setProperty("LSMKeyValueStore.memtableSize", "100000");
+         Config.setProperty("LSMKeyValueStore.maxSegments", "32");
+      }
+   }
+
+   @Test
+   public void sizeTieredCompaction() throws Exception {
+      Config.setProperty("LSMKeyValueStore.memtableSize", "100");
+      Config.setProperty("LSMKeyValueStore.mergeFactor", "4");
+      try {
+         Resource dir = Resources.temporaryDirectory();
+         NavigableKeyValueStore<String, Integer> kv = new LSMKeyValueStore<>(dir, "tiered", false, false);
+         TreeMap<String, Integer> expected = new TreeMap<>();
+         for (int i = 0; i < 400; i++) {
+            expected.put(key(i), i);
+            kv.put(key(i), i);
+         }
+         kv.close();
+         //Four full memtables make a table of the next tier
+         assertEquals(Set.of("0-3.sst"), tables(dir, "tiered"));
+
+         kv = new LSMKeyValueStore<>(dir, "tiered", false, false);
+         assertEquals(expected.size(), kv.size());
+         for (int table = 0; table < 4; table++) {
+            for (int i = 0; i < 100; i++) {
+               int k = 400 + table * 100 + i;
+               if (table == 1 && i < 50) {
+                  //Deletes keys of the older table, so the tombstones must survive the merge
+                  assertEquals(expected.remove(key(i)), kv.remove(key(i)));
+               } else {
+                  expected.put(key(k), k);
+                  kv.put(key(k), k);
+               }
+            }
+            kv.commit();
+            if (table < 3) {
+               assertEquals(table + 2, tables(dir, "tiered").size());
+            }
+         }
+         kv.close();
+         //The new tables are merged without rewriting the older and larger table
+         assertEquals(Set.of("0-3.sst", "4-7.sst"), tables(dir, "tiered"));
+
+         kv = new LSMKeyValueStore<>(dir, "tiered", false, true);
+         assertEquals(expected.size(), kv.size());
+         assertEquals(expected, new TreeMap<>(kv));
+         for (int i = 0; i < 50; i++) {
+            assertNull(kv.get(key(i)));
+         }
+         kv.close();
+      } finally {
+         Config.setProperty("LSMKeyValueStore.memtableSize", "100000");
+         Config.setProperty("LSMKeyValueStore.mergeFactor", "4");
+      }
+   }
+
+   @Test
+   public void readOnly() throws Exception {
+      Resource dir = Resources.temporaryDirectory();
+      LSMKeyValueStore<String, String> kv = new LSMKeyValueStore<>(dir, "ro", false, false);
+      kv.put("A", "B");
+      kv.close();
+      kv = new LSMKeyValueStore<>(dir, "ro", false, true);
+      assertEquals("B", kv.get("A"));
+      try {
+         kv.put("C", "D");
+         fail("Should be read only");
+      } catch (UnsupportedOperationException e) {
+         //expected
+      }
+      kv.close();
+   }
+
+   @Test
+   public void clear() throws Exception {
+      Resource dir = Resources.temporaryDirectory();
+      LSMKeyValueStore<String, String> kv = new LSMKeyValueStore<>(dir, "clear", false, false);
+      kv.put("A", "B");
+      kv.commit();
+      kv.put("C", "D");
+      assertFalse(kv.isEmpty());
+      kv.clear();
+      assertTrue(kv.isEmpty());
+      assertNull(kv.get("A"));
+      assertNull(kv.floorKey("Z"));
+      kv.close();
+   }
+
+}//END OF LSMKeyValueStoreTest
@@ -0,0 +1,172 @@
+package com.gengoai.sql.sqlite;
+
+import com.gengoai.config.Config;
+import com.gengoai.io.Resources;
+import com.gengoai.sql.SQL;
+import com.gengoai.sql.object.Column;
+import com.gengoai.sql.object.Table;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class SQLiteConnectionManagerTest {
+   private static final Column id = new Column("id", "INTEGER").primaryKey();
+   private static final Column value = new Column("value", "TEXT");
+   private static final Table table = new Table("items", null, List.of(id, value), Collections.emptyList());
+
+   private SQLiteConnectionManager open() throws SQLException {
+      SQLiteConnectionManager manager = SQLiteConnectionManager.open("jdbc:sqlite:" + Resources.temporaryFile()
+                                                                                               .deleteOnExit()
+                                                                                               .path());
+      manager.write(table::createIfNotExists);
+      return manager;
+   }
+
+   private long count(SQLiteConnectionManager manager) throws SQLException {
+      return manager.read(SQL.query("SELECT COUNT(*) FROM items")::queryScalarLong);
+   }
+
+   @Test
+   public void batch() throws Exception {
+      try (SQLiteConnectionManager manager = open()) {
+         int updated = manager.batch(table.insert(),
+                                     IntStream.range(0, 2_000).boxed().parallel(),
+                                     (i, nps) -> {
+                                        nps.setInt(id.getName(), i);
+                                        nps.setString(value.getName(), "v" + i);
+                                     },
+                                     100);
+         assertEquals(2_000, updated);
+         assertEquals(2_000, count(manager));
+         assertEquals("v1234", manager.read(context -> table.select(value)
+                                                           .where(id.eq(SQL.N(1234)))
+                                                           .queryScalarString(context)));
+      }
+   }
+
+   @Test
+   public void boundedBatches() throws Exception {
+      Config.setProperty("SQLiteConnectionManager.maxPendingBatches", "1");
+      Config.setProperty("SQLiteConnectionManager.readers", "1");
+      try (SQLiteConnectionManager manager = open()) {
+         int updated = manager.batch(table.insert(),
+                                     IntStream.range(0, 500).boxed().parallel(),
+                                     (i, nps) -> {
+                                        nps.setInt(id.getName(), i);
+                                        nps.setString(value.getName(), "v" + i);
+                                     },
+                                     7);
+         assertEquals(500, updated);
+         //Nested reads reuse the borrowed reader instead of waiting on it
+         assertEquals(500L, manager.read(context -> count(manager)).longValue());
+      } finally {
+         Config.initializeTest();
+      }
+   }
+
+   @Test
+   public void failedTaskOnlyRollsBackItself() throws Exception {
+      try (SQLiteConnectionManager manager = open()) {
+         CompletableFuture<Integer> first = manager.submit(table.insert().values(SQL.N(1), SQL.L("a"))::update);
+         CompletableFuture<Integer> duplicate = manager.submit(context -> {
+            table.insert().values(SQL.N(2), SQL.L("b")).update(context);
+            return table.insert().values(SQL.N(1), SQL.L("c")).update(context);
+         });
+         CompletableFuture<Integer> last = manager.submit(table.insert().values(SQL.N(3), SQL.L("d"))::update);
+         assertEquals(1, last.get().intValue());
+         assertEquals(1, first.get().intValue());
+         assertTrue(duplicate.isCompletedExceptionally());
+         assertEquals(2, count(manager));
+      }
+   }
+
+   @Test
+   public void pendingTasksCompleteOnClose() throws Exception {
+      SQLiteConnectionManager manager = open();
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<?>> submitters = new ArrayList<>();
+         for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            submitters.add(executor.submit(() -> {
+               for (int i = 0; i < 200; i++) {
+                  CompletableFuture<Integer> future = manager.submit(table.insert()
+                                                                          .values(SQL.N(thread * 1_000 + i),
+                                                                                  SQL.L("v"))::update);
+                  synchronized (futures) {
+                     futures.add(future);
+                  }
+               }
+            }));
+         }
+         Thread.sleep(5);
+         manager.close();
+         for (Future<?> submitter : submitters) {
+            submitter.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      //Every task is either performed or failed, none is left waiting on the closed writer
+      assertEquals(800, futures.size());
+      for (CompletableFuture<Integer> future : futures) {
+         try {
+            assertEquals(1, future.get(10, TimeUnit.SECONDS).intValue());
+         } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+         }
+      }
+      assertTrue(manager.submit(context -> 1).isCompletedExceptionally());
+   }
+
+   @Test
+   public void readersAreReadOnly() throws Exception {
+      try (SQLiteConnectionManager manager = open()) {
+         try {
+            table.insert().values(SQL.N(1), SQL.L("a")).update(manager.reader());
+            fail("Readers should be read only");
+         } catch (SQLException e) {
+            //expected
+         }
+         assertEquals(0, count(manager));
+      }
+   }
+
+   @Test
+   public void statementsAreReused() throws Exception {
+      try (SQLiteConnectionManager manager = open()) {
+         manager.batch(table.insert(),
+                       IntStream.range(0, 10).boxed(),
+                       (i, nps) -> {
+                          nps.setInt(id.getName(), i);
+                          nps.setString(value.getName(), "v" + i);
+                       },
+                       3);
+         for (int i = 0; i < 10; i++) {
+            final int row = i;
+            assertEquals("v" + row, manager.read(context -> {
+               try (PreparedStatement statement = context.getConnection()
+                                                         .prepareStatement("SELECT value FROM items WHERE id = ?")) {
+                  assertSame(context.getConnection(), statement.getConnection());
+                  statement.setInt(1, row);
+                  try (ResultSet resultSet = statement.executeQuery()) {
+                     assertTrue(resultSet.next());
+                     return resultSet.getString(1);
+                  }
+               }
+            }));
+         }
+      }
+   }
+
+}//END OF SQLiteConnectionManagerTest
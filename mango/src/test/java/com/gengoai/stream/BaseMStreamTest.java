@@ -46,6 +46,67 @@ public abstract class BaseMStreamTest {
                   );
    }
 
+   @Test
+   public void mapPartitions() throws Exception {
+      List<String> items = new ArrayList<>();
+      for(int i = 0; i < 1000; i++) {
+         items.add(Integer.toString(i));
+      }
+      MLongAccumulator partitions = sc.longAccumulator();
+      List<Integer> mapped = new ArrayList<>(sc.stream(items)
+                                               .parallel()
+                                               .mapPartitions(itr -> {
+                                                  partitions.add(1);
+                                                  List<Integer> out = new ArrayList<>();
+                                                  itr.forEachRemaining(s -> out.add(Integer.parseInt(s)));
+                                                  return out.stream();
+                                               })
+                                               .collect());
+      Collections.sort(mapped);
+      assertEquals(1000, mapped.size());
+      assertEquals(0, mapped.get(0).intValue());
+      assertEquals(999, mapped.get(999).intValue());
+      assertTrue(partitions.value() >= 1);
+      assertTrue(partitions.value() < 1000);
+
+      assertEquals(Arrays.asList("a", "b", "c"),
+                   sc.stream("A", "B", "C")
+                     .repartition(1)
+                     .mapPartitions(itr -> Stream.of(itr.next().toLowerCase(),
+                                                     itr.next().toLowerCase(),
+                                                     itr.next().toLowerCase()))
+                     .collect());
+   }
+
+   @Test
+   public void mapBatches() throws Exception {
+      List<Integer> batchSizes = sc.stream("A", "B", "C", "D", "E", "F", "G")
+                                   .mapBatches(3, batch -> Collections.singletonList(batch.size()))
+                                   .collect();
+      assertEquals(7, batchSizes.stream().mapToInt(Integer::intValue).sum());
+      assertTrue(batchSizes.stream().allMatch(size -> size > 0 && size <= 3));
+      assertEquals(Arrays.asList("a", "b", "c", "d"),
+                   sc.stream("A", "B", "C", "D")
+                     .mapBatches(2, batch -> Lists.transform(batch, String::toLowerCase))
+                     .sorted(true)
+                     .collect());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void mapBatchesError() throws Exception {
+      sc.stream("A", "B").mapBatches(0, batch -> batch);
+   }
+
+   @Test
+   public void keyedStatistics() throws Exception {
+      MKeyedStatisticsAccumulator<String> accumulator = sc.keyedStatisticsAccumulator();
+      sc.range(1, 11).parallel().forEach(i -> accumulator.add(i % 2 == 0 ? "even" : "odd", i));
+      assertEquals(5, accumulator.value().get("even").getCount(), 0);
+      assertEquals(2, accumulator.value().get("even").getMin(), 0);
+      assertEquals(10, accumulator.value().get("even").getMax(), 0);
+      assertEquals(5, accumulator.value().get("odd").getAverage(), 0);
+   }
+
    @Test
    public void minMax() throws Exception {
       assertEquals(1,